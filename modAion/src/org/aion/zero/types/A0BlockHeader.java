@@ -11,6 +11,7 @@ import java.math.BigInteger;
 import java.util.Objects;
 import org.aion.interfaces.block.PowBlockHeader;
 import org.aion.types.Address;
+import org.aion.types.ByteArrayWrapper;
 import org.aion.crypto.HashUtil;
 import org.aion.mcf.types.AbstractBlockHeader;
 import org.aion.rlp.RLP;
@@ -44,6 +45,14 @@ public class A0BlockHeader extends AbstractBlockHeader implements PowBlockHeader
 
     private byte[] mineHashBytes;
 
+    /*
+     * Values derived from the header fields, computed once and discarded when a field changes.
+     * Headers are only modified while a block is created, before they are shared among threads.
+     */
+    private volatile byte[] encoded;
+    private volatile byte[] hash;
+    private volatile ByteArrayWrapper hashWrapper;
+
     // TODO: Update this
     public JSONObject toJSON() {
         JSONObject obj = new JSONObject();
@@ -203,6 +212,12 @@ public class A0BlockHeader extends AbstractBlockHeader implements PowBlockHeader
         // Copy solution
         this.solution = new byte[toCopy.getSolution().length];
         System.arraycopy(toCopy.getSolution(), 0, this.solution, 0, this.solution.length);
+
+        // the derived values are never modified, so they can be shared
+        this.mineHashBytes = toCopy.mineHashBytes;
+        this.encoded = toCopy.encoded;
+        this.hash = toCopy.hash;
+        this.hashWrapper = toCopy.hashWrapper;
     }
 
     public A0BlockHeader(
@@ -240,12 +255,45 @@ public class A0BlockHeader extends AbstractBlockHeader implements PowBlockHeader
         this.energyLimit = energyLimit;
     }
 
+    @Override
+    protected void fieldsChanged(boolean sealOnly) {
+        encoded = null;
+        hash = null;
+        hashWrapper = null;
+        if (!sealOnly) {
+            // the nonce and solution are not part of the mined data
+            mineHashBytes = null;
+        }
+    }
+
+    /** @implNote The returned array is shared and must not be modified. */
     public byte[] getHash() {
-        return HashUtil.h256(getEncoded());
+        byte[] h = hash;
+        if (h == null) {
+            h = HashUtil.h256(getEncoded());
+            hash = h;
+        }
+        return h;
     }
 
+    /** @return the hash of the header wrapped once for use as a map key */
+    public ByteArrayWrapper getHashWrapper() {
+        ByteArrayWrapper wrapper = hashWrapper;
+        if (wrapper == null) {
+            wrapper = ByteArrayWrapper.wrap(getHash());
+            hashWrapper = wrapper;
+        }
+        return wrapper;
+    }
+
+    /** @implNote The returned array is shared and must not be modified. */
     public byte[] getEncoded() {
-        return this.getEncoded(true); // with nonce
+        byte[] enc = encoded;
+        if (enc == null) {
+            enc = encode(true); // with nonce
+            encoded = enc;
+        }
+        return enc;
     }
 
     public byte[] getEncodedWithoutNonce() {
@@ -253,6 +301,10 @@ public class A0BlockHeader extends AbstractBlockHeader implements PowBlockHeader
     }
 
     public byte[] getEncoded(boolean withNonce) {
+        return withNonce ? getEncoded() : encode(false);
+    }
+
+    private byte[] encode(boolean withNonce) {
 
         byte[] versionBytes = {this.version};
 
@@ -397,6 +449,7 @@ public class A0BlockHeader extends AbstractBlockHeader implements PowBlockHeader
 
     public void setSolution(byte[] _sl) {
         this.solution = _sl;
+        fieldsChanged(true);
     }
 
     public long getEnergyConsumed() {
@@ -414,6 +467,7 @@ public class A0BlockHeader extends AbstractBlockHeader implements PowBlockHeader
      */
     public void setEnergyConsumed(long energyConsumed) {
         this.energyConsumed = energyConsumed;
+        fieldsChanged(false);
     }
 
     /**
@@ -40,6 +40,8 @@ public class AionTransaction extends AbstractTransaction {
 
     private byte[] rlpRaw;
 
+    private byte[] rawHash;
+
     protected Address from;
 
     /** These four members doesn't include into the RLP encode data */
@@ -180,9 +182,23 @@ public class AionTransaction extends AbstractTransaction {
             return hash;
         }
 
+        // the hash covers the encoded form, so a transaction received from the network can be
+        // identified without decoding it
+        if (!parsed && rlpEncoded != null) {
+            hash = HashUtil.h256(rlpEncoded);
+            return hash;
+        }
+
         if (!parsed) {
             rlpParse();
         }
+
+        // unsigned transactions, e.g. simulated calls, have no full encoding
+        if (signature == null) {
+            hash = getRawHash();
+            return hash;
+        }
+
         byte[] plainMsg = this.getEncoded();
         // cache it.
         hash = HashUtil.h256(plainMsg);
@@ -190,11 +206,17 @@ public class AionTransaction extends AbstractTransaction {
     }
 
     public byte[] getRawHash() {
+        if (rawHash != null) {
+            return rawHash;
+        }
+
         if (!parsed) {
             rlpParse();
         }
         byte[] plainMsg = this.getEncodedRaw();
-        return HashUtil.h256(plainMsg);
+        // cache it.
+        rawHash = HashUtil.h256(plainMsg);
+        return rawHash;
     }
 
     @Override
@@ -339,17 +361,28 @@ public class AionTransaction extends AbstractTransaction {
     }
 
     public void sign(ECKey key) throws MissingPrivateKeyException {
+        resetEncoding();
         this.timeStamp = ByteUtil.longToBytes(TimeInstant.now().toEpochMicro());
         this.signature = key.sign(this.getRawHash());
-        this.rlpEncoded = null;
     }
 
 
     @VisibleForTesting
     public void signWithSecTimeStamp(ECKey key) throws MissingPrivateKeyException {
+        resetEncoding();
         this.timeStamp = ByteUtil.longToBytes(TimeInstant.now().toEpochSec() * 1_000_000L);
         this.signature = key.sign(this.getRawHash());
+    }
+
+    /** Drops the cached encodings and hashes before the signed fields are changed. */
+    private void resetEncoding() {
+        if (!parsed) {
+            rlpParse();
+        }
         this.rlpEncoded = null;
+        this.rlpRaw = null;
+        this.rawHash = null;
+        this.hash = null;
     }
 
     @Override
@@ -510,6 +543,9 @@ public class AionTransaction extends AbstractTransaction {
     @Override
     public void setEncoded(byte[] _encodedData) {
         this.rlpEncoded = _encodedData;
+        this.rlpRaw = null;
+        this.rawHash = null;
+        this.hash = null;
         parsed = false;
     }
 
@@ -2,7 +2,9 @@ package org.aion.types;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
+import java.util.Arrays;
 import org.aion.crypto.ECKeyFac;
 import org.aion.mcf.vm.types.DataWordImpl;
 import org.aion.zero.types.AionTransaction;
@@ -62,6 +64,64 @@ public class AionTransactionTest {
         assertTransactionEquals(tx, tx2);
     }
 
+    @Test
+    public void testHashWithoutDecoding() {
+        byte[] nonce = RandomUtils.nextBytes(16);
+        Address to = Address.wrap(RandomUtils.nextBytes(32));
+        byte[] value = RandomUtils.nextBytes(16);
+        byte[] data = RandomUtils.nextBytes(64);
+
+        AionTransaction tx = new AionTransaction(nonce, to, value, data, 21000L, 10L);
+        tx.sign(ECKeyFac.inst().create());
+
+        AionTransaction tx2 = new AionTransaction(tx.getEncoded());
+        assertArrayEquals(tx.getTransactionHash(), tx2.getTransactionHash());
+        assertFalse(tx2.isParsed());
+
+        assertArrayEquals(tx.getRawHash(), tx2.getRawHash());
+        assertTransactionEquals(tx, tx2);
+    }
+
+    @Test
+    public void testSignResetsHashes() {
+        AionTransaction tx =
+                new AionTransaction(
+                        RandomUtils.nextBytes(16),
+                        Address.wrap(RandomUtils.nextBytes(32)),
+                        RandomUtils.nextBytes(16),
+                        RandomUtils.nextBytes(64),
+                        21000L,
+                        10L);
+        tx.sign(ECKeyFac.inst().create());
+        byte[] hash = tx.getTransactionHash();
+
+        AionTransaction tx2 = new AionTransaction(tx.getEncoded());
+        tx2.sign(ECKeyFac.inst().create());
+
+        AionTransaction tx3 = new AionTransaction(tx2.getEncoded());
+        assertFalse(Arrays.equals(hash, tx2.getTransactionHash()));
+        assertArrayEquals(tx2.getTransactionHash(), tx3.getTransactionHash());
+        assertArrayEquals(tx2.getRawHash(), tx3.getRawHash());
+    }
+
+    @Test
+    public void testUnsignedHash() {
+        AionTransaction tx =
+                new AionTransaction(
+                        RandomUtils.nextBytes(16),
+                        Address.ZERO_ADDRESS(),
+                        Address.wrap(RandomUtils.nextBytes(32)),
+                        RandomUtils.nextBytes(16),
+                        RandomUtils.nextBytes(64),
+                        21000L,
+                        10L);
+        assertArrayEquals(tx.getRawHash(), tx.getTransactionHash());
+        assertEquals(Address.ZERO_ADDRESS(), tx.getSenderAddress());
+
+        tx.sign(ECKeyFac.inst().create());
+        assertFalse(Arrays.equals(tx.getRawHash(), tx.getTransactionHash()));
+    }
+
     @Test
     public void testTransactionCost() {
         byte[] nonce = DataWordImpl.ONE.getData();
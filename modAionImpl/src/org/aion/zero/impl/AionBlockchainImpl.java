@@ -18,6 +18,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Deque;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -29,6 +30,7 @@ import java.util.Stack;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import org.aion.crypto.HashUtil;
+import org.aion.db.generic.WriteBehindPipeline;
 import org.aion.equihash.EquihashMiner;
 import org.aion.evtmgr.IEvent;
 import org.aion.evtmgr.IEventMgr;
@@ -43,6 +45,7 @@ import org.aion.mcf.core.FastImportResult;
 import org.aion.mcf.core.ImportResult;
 import org.aion.mcf.db.IBlockStorePow;
 import org.aion.mcf.db.TransactionStore;
+import org.aion.mcf.db.TxLocation;
 import org.aion.mcf.manager.ChainStatistics;
 import org.aion.mcf.trie.Trie;
 import org.aion.mcf.trie.TrieImpl;
@@ -59,6 +62,9 @@ import org.aion.types.ByteArrayWrapper;
 import org.aion.types.Hash256;
 import org.aion.util.bytes.ByteUtil;
 import org.aion.util.conversions.Hex;
+import org.aion.util.metrics.Counter;
+import org.aion.util.metrics.Histogram;
+import org.aion.util.metrics.MetricsRegistry;
 import org.aion.vm.BulkExecutor;
 import org.aion.vm.ExecutionBatch;
 import org.aion.vm.PostExecutionWork;
@@ -113,6 +119,34 @@ public class AionBlockchainImpl implements IAionBlockchain {
     private static final Logger LOGGER_VM = AionLoggerFactory.getLogger(LogEnum.VM.toString());
     static long fork040BlockNumber = -1L;
     private static boolean fork040Enable;
+
+    private static final Histogram IMPORT_TIME =
+            MetricsRegistry.inst()
+                    .timer("aion_block_import_seconds", "Time to validate and import a block.");
+    private static final Histogram VM_TIME =
+            MetricsRegistry.inst()
+                    .timer(
+                            "aion_vm_execution_seconds",
+                            "Time to execute the transactions of a block.");
+    private static final Counter VM_TXS =
+            MetricsRegistry.inst()
+                    .counter("aion_vm_transactions_total", "Transactions executed for imports.");
+    private static final Map<ImportResult, Counter> IMPORT_RESULTS =
+            new EnumMap<>(ImportResult.class);
+
+    static {
+        for (ImportResult result : ImportResult.values()) {
+            IMPORT_RESULTS.put(
+                    result,
+                    MetricsRegistry.inst()
+                            .counter(
+                                    "aion_block_import_total",
+                                    "Blocks received for import by result.",
+                                    "result",
+                                    result.name().toLowerCase()));
+        }
+    }
+
     private final GrandParentBlockHeaderValidator<A0BlockHeader> grandParentBlockHeaderValidator;
     private final ParentBlockHeaderValidator<A0BlockHeader> parentHeaderValidator;
     private final BlockHeaderValidator<A0BlockHeader> blockHeaderValidator;
@@ -143,12 +177,17 @@ public class AionBlockchainImpl implements IAionBlockchain {
     private ChainStatistics chainStats;
     private AtomicReference<BlockIdentifierImpl> bestKnownBlock = new AtomicReference<>();
     private boolean fork = false;
+    private final RecentHeaders recentHeaders = new RecentHeaders(RecentHeaders.DEFAULT_CAPACITY);
     private Address minerCoinbase;
     private byte[] minerExtraData;
     private Stack<State> stateStack = new Stack<>();
     private IEventMgr evtMgr = null;
     private AbstractEnergyStrategyLimit energyLimitStrategy;
     private AtomicLong bestBlockNumber = new AtomicLong(0L);
+    /** Block to revert to when the import pipeline fails before persisting any block. */
+    private AionBlock pipelineBase = null;
+
+    private BigInteger pipelineBaseTD = null;
 
     private AionBlockchainImpl() {
         this(generateBCConfig(CfgAion.inst()), AionRepositoryImpl.inst(), new ChainConfiguration());
@@ -268,7 +307,7 @@ public class AionBlockchainImpl implements IAionBlockchain {
         return Holder.INSTANCE;
     }
 
-    private static byte[] calcTxTrie(List<AionTransaction> transactions) {
+    static byte[] calcTxTrie(List<AionTransaction> transactions) {
 
         if (transactions == null || transactions.isEmpty()) {
             return HashUtil.EMPTY_TRIE_HASH;
@@ -287,7 +326,7 @@ public class AionBlockchainImpl implements IAionBlockchain {
         return txsState.getRootHash();
     }
 
-    private static byte[] calcReceiptsTrie(List<AionTxReceipt> receipts) {
+    static byte[] calcReceiptsTrie(List<AionTxReceipt> receipts) {
         if (receipts == null || receipts.isEmpty()) {
             return HashUtil.EMPTY_TRIE_HASH;
         }
@@ -448,7 +487,20 @@ public class AionBlockchainImpl implements IAionBlockchain {
      */
     @SuppressWarnings("Duplicates")
     public AionTxInfo getTransactionInfo(byte[] hash) {
+        TxLocation location = transactionStore.getLocation(hash);
+        if (location != null
+                && Arrays.equals(
+                        location.getBlockHash(),
+                        getBlockStore().getBlockHashByNumber(location.getBlockNumber()))) {
+            AionTxInfo txInfo = transactionStore.get(hash, location.getBlockHash());
+            AionBlock block = getBlockByHash(location.getBlockHash());
+            if (txInfo != null && block != null) {
+                txInfo.setTransaction(block.getTransactionsList().get(location.getIndex()));
+                return txInfo;
+            }
+        }
 
+        // transactions imported before the locations were stored or with a stale location
         List<AionTxInfo> infos = transactionStore.get(hash);
 
         if (infos == null || infos.isEmpty()) {
@@ -493,6 +545,29 @@ public class AionBlockchainImpl implements IAionBlockchain {
         return transactionStore.get(txHash, blockHash);
     }
 
+    @Override
+    public List<AionTxInfo> getTransactionInfosByBlock(byte[] blockHash) {
+        List<AionTxInfo> infos = transactionStore.getBlockInfos(blockHash);
+        if (infos != null) {
+            return infos;
+        }
+
+        // blocks stored before the receipt bundles were introduced
+        AionBlock block = getBlockStore().getBlockByHash(blockHash);
+        if (block == null) {
+            return null;
+        }
+        infos = new ArrayList<>(block.getTransactionsList().size());
+        for (AionTransaction tx : block.getTransactionsList()) {
+            AionTxInfo info = transactionStore.get(tx.getTransactionHash(), blockHash);
+            if (info == null) {
+                return null;
+            }
+            infos.add(info);
+        }
+        return infos;
+    }
+
     @Override
     public AionBlock getBlockByHash(byte[] hash) {
         return getBlockStore().getBlockByHash(hash);
@@ -566,6 +641,11 @@ public class AionBlockchainImpl implements IAionBlockchain {
      * @return
      */
     private AionBlockSummary tryConnectAndFork(final AionBlock block) {
+        // forks are imported without overlapping writes
+        if (!drainImport()) {
+            return null;
+        }
+
         State savedState = pushState(block.getParentHash());
         this.fork = true;
 
@@ -593,6 +673,8 @@ public class AionBlockchainImpl implements IAionBlockchain {
             // cause we proved that total difficulty
             // is greater
             getBlockStore().reBranch(block);
+            recentHeaders.clearMainChain();
+            updateTxLocations(savedState.savedBest, block);
 
             // The main repository rebranch
             this.repository = savedState.savedRepo;
@@ -607,6 +689,10 @@ public class AionBlockchainImpl implements IAionBlockchain {
             popState();
         }
 
+        if (!drainImport()) {
+            return null;
+        }
+
         return summary;
     }
 
@@ -642,6 +728,55 @@ public class AionBlockchainImpl implements IAionBlockchain {
         return repository.importTrieNode(key, value, dbType);
     }
 
+    /**
+     * Imports a batch of trie nodes to the indicated blockchain database.
+     *
+     * @param nodes the key-value pairs of the trie nodes to be imported
+     * @param dbType the database where the key-value pairs should be stored
+     * @return a {@link TrieNodeResult} for each of the given keys indicating the success or
+     *     failure of its import
+     */
+    public Map<ByteArrayWrapper, TrieNodeResult> importTrieNodes(
+            Map<ByteArrayWrapper, byte[]> nodes, DatabaseType dbType) {
+        Map<ByteArrayWrapper, TrieNodeResult> results = repository.importTrieNodes(nodes, dbType);
+        sealUntracked();
+        return results;
+    }
+
+    /**
+     * Retrieves the keys of the nodes that are missing from the trie below the given node.
+     *
+     * @param key the hash key of a trie node stored in the database
+     * @param dbType the database where the trie is stored
+     * @return the keys of the nodes referenced by stored nodes that are missing from the database
+     */
+    public Set<ByteArrayWrapper> getMissingTrieNodes(byte[] key, DatabaseType dbType) {
+        return repository.getMissingTrieNodes(key, dbType);
+    }
+
+    /**
+     * Retrieves the keys of the storage trie nodes of the given contract that are missing, starting
+     * from the storage root in its stored details.
+     *
+     * @param contract the contract that owns the storage trie
+     * @return the keys under which the missing nodes are stored in the storage database
+     */
+    public Set<ByteArrayWrapper> getMissingStorageNodes(Address contract) {
+        return repository.getMissingStorageNodes(contract);
+    }
+
+    /**
+     * Retrieves the keys of the storage trie nodes of the given contract that are missing below the
+     * given node.
+     *
+     * @param contract the contract that owns the storage trie
+     * @param key the key under which a node of the storage trie is stored in the storage database
+     * @return the keys under which the missing nodes are stored in the storage database
+     */
+    public Set<ByteArrayWrapper> getMissingStorageNodes(Address contract, byte[] key) {
+        return repository.getMissingStorageNodes(contract, key);
+    }
+
     /**
      * If using TOP pruning we need to check the pruning restriction for the block. Otherwise, there
      * is not prune restriction.
@@ -701,6 +836,7 @@ public class AionBlockchainImpl implements IAionBlockchain {
         } else {
             // the total difficulty will be updated after the chain is complete
             getBlockStore().saveBlock(block, ZERO, true);
+            sealUntracked();
 
             if (LOG.isDebugEnabled()) {
                 LOG.debug(
@@ -746,7 +882,11 @@ public class AionBlockchainImpl implements IAionBlockchain {
     }
 
     public synchronized ImportResult tryToConnect(final AionBlock block) {
-        return tryToConnectInternal(block, System.currentTimeMillis() / THOUSAND_MS);
+        long t1 = System.nanoTime();
+        ImportResult result = tryToConnectInternal(block, System.currentTimeMillis() / THOUSAND_MS);
+        IMPORT_TIME.recordSince(t1);
+        IMPORT_RESULTS.get(result).inc();
+        return result;
     }
 
     public synchronized void compactState() {
@@ -850,7 +990,7 @@ public class AionBlockchainImpl implements IAionBlockchain {
                         LOG.trace("IMPORTED_BEST");
                     }
                     IEvent evtOnBest = new EventBlock(EventBlock.CALLBACK.ONBEST0);
-                    evtOnBest.setFuncArgs(Arrays.asList(block, summary.getReceipts()));
+                    evtOnBest.setFuncArgs(Arrays.asList(block, summary.getReceipts(), summary));
                     evts.add(evtOnBest);
                 }
 
@@ -936,37 +1076,8 @@ public class AionBlockchainImpl implements IAionBlockchain {
                 }
             }
         }
-        long energyLimit = this.energyLimitStrategy.getEnergyLimit(parent.getHeader());
+        AionBlock block = createBlockForParent(parent, txs, time);
 
-        AionBlock block;
-        try {
-            A0BlockHeader.Builder headerBuilder =
-                    new A0BlockHeader.Builder()
-                            .withVersion((byte) 1)
-                            .withParentHash(parent.getHash())
-                            .withCoinbase(minerCoinbase)
-                            .withNumber(parent.getNumber() + 1)
-                            .withTimestamp(time)
-                            .withExtraData(minerExtraData)
-                            .withTxTrieRoot(calcTxTrie(txs))
-                            .withEnergyLimit(energyLimit);
-            block = new AionBlock(headerBuilder.build(), txs);
-        } catch (HeaderStructureException e) {
-            throw new RuntimeException(e);
-        }
-
-        IAionBlock grandParent = this.getParent(parent.getHeader());
-        block.getHeader()
-                .setDifficulty(
-                        ByteUtil.bigIntegerToBytes(
-                                this.chainConfiguration
-                                        .getDifficultyCalculator()
-                                        .calculateDifficulty(
-                                                parent.getHeader(),
-                                                grandParent == null
-                                                        ? null
-                                                        : grandParent.getHeader()),
-                                DIFFICULTY_BYTES));
         /*
          * Begin execution phase
          */
@@ -1013,6 +1124,81 @@ public class AionBlockchainImpl implements IAionBlockchain {
         return new BlockContext(block, baseBlockReward, totalTransactionFee);
     }
 
+    /**
+     * Creates a block on top of the given parent with the miner coinbase, energy limit and
+     * difficulty set. The fields that depend on the execution of the transactions must still be
+     * set by sealing the block.
+     */
+    AionBlock createBlockForParent(AionBlock parent, List<AionTransaction> txs, long time) {
+        long energyLimit = this.energyLimitStrategy.getEnergyLimit(parent.getHeader());
+
+        AionBlock block;
+        try {
+            A0BlockHeader.Builder headerBuilder =
+                    new A0BlockHeader.Builder()
+                            .withVersion((byte) 1)
+                            .withParentHash(parent.getHash())
+                            .withCoinbase(minerCoinbase)
+                            .withNumber(parent.getNumber() + 1)
+                            .withTimestamp(time)
+                            .withExtraData(minerExtraData)
+                            .withTxTrieRoot(calcTxTrie(txs))
+                            .withEnergyLimit(energyLimit);
+            block = new AionBlock(headerBuilder.build(), txs);
+        } catch (HeaderStructureException e) {
+            throw new RuntimeException(e);
+        }
+
+        A0BlockHeader grandParent = this.getParentHeader(parent.getHeader());
+        block.getHeader()
+                .setDifficulty(
+                        ByteUtil.bigIntegerToBytes(
+                                this.chainConfiguration
+                                        .getDifficultyCalculator()
+                                        .calculateDifficulty(parent.getHeader(), grandParent),
+                                DIFFICULTY_BYTES));
+        return block;
+    }
+
+    /**
+     * Executes transactions on top of a block that is being built, as done by {@link
+     * #generatePreBlock(IAionBlock)}, without adding the block reward.
+     *
+     * @param energyLeft the energy still available in the block
+     * @return the execution summaries, including the rejected transactions
+     */
+    List<AionTxExecSummary> executeForBlock(
+            IAionBlock block,
+            List<AionTransaction> txs,
+            Repository topRepository,
+            RepositoryCache child,
+            long energyLeft) {
+        boolean fork040 = checkFork040(block.getNumber());
+        if (fork040) {
+            TransactionTypeRule.allowAVMContractTransaction();
+        }
+
+        BulkExecutor executor =
+                new BulkExecutor(
+                        new ExecutionBatch(block, txs),
+                        topRepository,
+                        child,
+                        false,
+                        true,
+                        energyLeft,
+                        fork040,
+                        LOGGER_VM,
+                        getPostExecutionWorkForGeneratePreBlock());
+
+        try {
+            return executor.execute();
+        } catch (VMException e) {
+            LOG.error("Shutdown due to a VM fatal error.", e);
+            System.exit(-1);
+            return null;
+        }
+    }
+
     @Override
     public AionBlockSummary add(AionBlock block) {
         // typical use without rebuild
@@ -1027,11 +1213,119 @@ public class AionBlockchainImpl implements IAionBlockchain {
             storeBlock(block, receipts);
 
             flush();
+
+            if (!sealImport(block)) {
+                return null;
+            }
         }
 
         return summary;
     }
 
+    /**
+     * Hands the data written for the given block to the import pipeline, if enabled, so that it is
+     * persisted while the next block executes.
+     *
+     * @return {@code false} when the pipeline failed to persist earlier blocks, in which case the
+     *     chain was reverted to the last persisted block
+     */
+    private boolean sealImport(AionBlock block) {
+        WriteBehindPipeline pipeline = repository.getImportPipeline();
+        if (pipeline == null) {
+            return true;
+        }
+
+        if (pipelineBase == null && pipeline.getPersistedHash() == null) {
+            pipelineBase = getBlockByHash(block.getParentHash());
+            pipelineBaseTD = getBlockStore().getTotalDifficultyForHash(block.getParentHash());
+        }
+
+        pipeline.seal(block.getNumber(), block.getHash());
+
+        if (pipeline.hasFailed()) {
+            revertToPersisted(pipeline);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Waits for the import pipeline, if enabled, to persist all the data written so far.
+     *
+     * @return {@code false} when the pipeline failed, in which case the chain was reverted to the
+     *     last persisted block
+     */
+    private boolean drainImport() {
+        WriteBehindPipeline pipeline = repository.getImportPipeline();
+        if (pipeline == null) {
+            return true;
+        }
+
+        pipeline.seal(bestBlock.getNumber(), bestBlock.getHash());
+
+        if (!pipeline.drain()) {
+            revertToPersisted(pipeline);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Hands the data written outside block imports, e.g. by fast sync, to the import pipeline, if
+     * enabled, once it exceeds {@link WriteBehindPipeline#DEFAULT_OPEN_LIMIT} updates, so that it
+     * does not accumulate in memory until the next block is sealed. Synchronized with the block
+     * imports so that the data of a block is never sealed before the block itself.
+     */
+    private synchronized void sealUntracked() {
+        WriteBehindPipeline pipeline = repository.getImportPipeline();
+        if (pipeline == null) {
+            return;
+        }
+
+        if (pipeline.sealIfLarger(WriteBehindPipeline.DEFAULT_OPEN_LIMIT)
+                && pipeline.hasFailed()) {
+            revertToPersisted(pipeline);
+        }
+    }
+
+    /**
+     * Resets the best block, total difficulty and world state to the last block fully written by
+     * the import pipeline. The blocks above it are imported again when received from the network.
+     */
+    private void revertToPersisted(WriteBehindPipeline pipeline) {
+        pipeline.recover();
+
+        byte[] hash = pipeline.getPersistedHash();
+        AionBlock target = hash == null ? null : getBlockStore().getBlockByHash(hash);
+        BigInteger td;
+        if (target == null) {
+            target = pipelineBase;
+            td = pipelineBaseTD;
+        } else {
+            td = getBlockStore().getTotalDifficultyForHash(hash);
+        }
+
+        if (target == null) {
+            LOG.error("Import pipeline failed and no persisted block is known to revert to.");
+            return;
+        }
+
+        LOG.error(
+                "Import pipeline failed. Reverting the best block from {} to {}.",
+                bestBlock.getNumber(),
+                target.getNumber());
+
+        setBestBlock(target);
+        pubBestBlock = target;
+        totalDifficulty = td;
+        recentHeaders.clear();
+        // the cached levels may reference blocks that were not written
+        getBlockStore().clearCanonicalIndex();
+        repository.syncToRoot(target.getStateRoot());
+        pipelineBase = null;
+        pipelineBaseTD = null;
+    }
+
     public AionBlockSummary add(AionBlock block, boolean rebuild) {
 
         if (!isValid(block)) {
@@ -1118,10 +1412,7 @@ public class AionBlockchainImpl implements IAionBlockchain {
         }
 
         if (rebuild) {
-            for (int i = 0; i < receipts.size(); i++) {
-                transactionStore.putToBatch(new AionTxInfo(receipts.get(i), block.getHash(), i));
-            }
-            transactionStore.flushBatch();
+            storeReceipts(block, receipts);
 
             repository.commitBlock(block.getHeader());
 
@@ -1153,8 +1444,28 @@ public class AionBlockchainImpl implements IAionBlockchain {
         return getRuntime().freeMemory() < (getRuntime().totalMemory() * (1 - maxMemoryPercents));
     }
 
-    private IAionBlock getParent(A0BlockHeader header) {
-        return getBlockStore().getBlockByHash(header.getParentHash());
+    /** @return the header of the parent block, or {@code null} when the parent is not stored */
+    private A0BlockHeader getParentHeader(A0BlockHeader header) {
+        return getHeaderByHash(header.getParentHash());
+    }
+
+    /**
+     * Retrieves a block header from the recently used headers, reading the block from the store
+     * only when the header is not cached.
+     *
+     * @return the header, which must not be modified, or {@code null} when the block is not stored
+     */
+    public A0BlockHeader getHeaderByHash(byte[] hash) {
+        A0BlockHeader header = recentHeaders.getByHash(hash);
+        if (header == null) {
+            AionBlock block = getBlockStore().getBlockByHash(hash);
+            if (block == null) {
+                return null;
+            }
+            header = block.getHeader();
+            recentHeaders.add(header, false);
+        }
+        return header;
     }
 
     public boolean isValid(A0BlockHeader header) {
@@ -1168,19 +1479,63 @@ public class AionBlockchainImpl implements IAionBlockchain {
         //            return false;
         //        }
 
-        IAionBlock parent = this.getParent(header);
+        A0BlockHeader parent = this.getParentHeader(header);
 
-        if (!this.parentHeaderValidator.validate(header, parent.getHeader(), LOG)) {
+        if (!this.parentHeaderValidator.validate(header, parent, LOG)) {
             return false;
         }
 
-        IAionBlock grandParent = this.getParent(parent.getHeader());
+        A0BlockHeader grandParent = this.getParentHeader(parent);
 
-        return this.grandParentBlockHeaderValidator.validate(
-                grandParent == null ? null : grandParent.getHeader(),
-                parent.getHeader(),
-                header,
-                LOG);
+        return this.grandParentBlockHeaderValidator.validate(grandParent, parent, header, LOG);
+    }
+
+    /**
+     * Performs the block body checks that do not depend on the parent state: the transaction trie
+     * root and the validity of each transaction. Blocks that pass are marked as pre-validated so
+     * that the import skips these checks.
+     *
+     * @implNote Does not lock the blockchain and may be called concurrently for different blocks
+     *     ahead of their import.
+     * @return {@code true} if the block body is valid, {@code false} otherwise
+     */
+    public boolean preValidate(AionBlock block) {
+        byte[] trieHash = block.getTxTrieRoot();
+        List<AionTransaction> txs = block.getTransactionsList();
+
+        byte[] trieListHash = calcTxTrie(txs);
+        if (!Arrays.equals(trieHash, trieListHash)) {
+            LOG.warn(
+                    "Block's given Trie Hash doesn't match: {} != {}",
+                    toHexString(trieHash),
+                    toHexString(trieListHash));
+            return false;
+        }
+
+        if (txs != null && !txs.isEmpty()) {
+            if (txs.parallelStream()
+                    .anyMatch(
+                            tx ->
+                                    !TXValidator.isValid(tx)
+                                            || !TransactionTypeValidator.isValid(tx))) {
+                LOG.error("Some transactions in the block are invalid");
+                if (TX_LOG.isDebugEnabled()) {
+                    for (AionTransaction tx : txs) {
+                        TX_LOG.debug(
+                                "Tx valid ["
+                                        + TXValidator.isValid(tx)
+                                        + "]. Type valid ["
+                                        + TransactionTypeValidator.isValid(tx)
+                                        + "]\n"
+                                        + tx.toString());
+                    }
+                }
+                return false;
+            }
+        }
+
+        block.markPreValidated();
+        return true;
     }
 
     /**
@@ -1200,49 +1555,22 @@ public class AionBlockchainImpl implements IAionBlockchain {
                 return false;
             }
 
-            // Sanity checks
-            byte[] trieHash = block.getTxTrieRoot();
-            List<AionTransaction> txs = block.getTransactionsList();
-
-            byte[] trieListHash = calcTxTrie(txs);
-            if (!Arrays.equals(trieHash, trieListHash)) {
-                LOG.warn(
-                        "Block's given Trie Hash doesn't match: {} != {}",
-                        toHexString(trieHash),
-                        toHexString(trieListHash));
+            // stateless checks, skipped when already done by the sync pre-import stage
+            if (!block.isPreValidated() && !preValidate(block)) {
                 return false;
             }
 
+            List<AionTransaction> txs = block.getTransactionsList();
             if (txs != null && !txs.isEmpty()) {
                 Repository parentRepo = repository;
                 if (!Arrays.equals(bestBlock.getHash(), block.getParentHash())) {
                     parentRepo =
                             repository.getSnapshotTo(
-                                    getBlockByHash(block.getParentHash()).getStateRoot());
+                                    getHeaderByHash(block.getParentHash()).getStateRoot());
                 }
 
                 Map<Address, BigInteger> nonceCache = new HashMap<>();
 
-                if (txs.parallelStream()
-                        .anyMatch(
-                                tx ->
-                                        !TXValidator.isValid(tx)
-                                                || !TransactionTypeValidator.isValid(tx))) {
-                    LOG.error("Some transactions in the block are invalid");
-                    if (TX_LOG.isDebugEnabled()) {
-                        for (AionTransaction tx : txs) {
-                            TX_LOG.debug(
-                                    "Tx valid ["
-                                            + TXValidator.isValid(tx)
-                                            + "]. Type valid ["
-                                            + TransactionTypeValidator.isValid(tx)
-                                            + "]\n"
-                                            + tx.toString());
-                        }
-                    }
-                    return false;
-                }
-
                 for (AionTransaction tx : txs) {
                     Address txSender = tx.getSenderAddress();
 
@@ -1370,12 +1698,15 @@ public class AionBlockchainImpl implements IAionBlockchain {
                             getPostExecutionWorkForApplyBlock());
 
             List<AionTxExecSummary> executionSummaries = null;
+            long t1 = System.nanoTime();
             try {
                 executionSummaries = executor.execute();
             } catch (VMException e) {
                 LOG.error("Shutdown due to a VM fatal error.", e);
                 System.exit(-1);
             }
+            VM_TIME.recordSince(t1);
+            VM_TXS.inc(executionSummaries.size());
 
             for (AionTxExecSummary summary : executionSummaries) {
                 receipts.add(summary.getReceipt());
@@ -1421,6 +1752,73 @@ public class AionBlockchainImpl implements IAionBlockchain {
         return rewards;
     }
 
+    /**
+     * Writes the receipts per transaction and as a bundle for the block in the same batch, together
+     * with the transaction locations when the block is on the main chain.
+     */
+    private void storeReceipts(AionBlock block, List<AionTxReceipt> receipts) {
+        List<AionTxInfo> infos = new ArrayList<>(receipts.size());
+        for (int i = 0; i < receipts.size(); i++) {
+            infos.add(new AionTxInfo(receipts.get(i), block.getHash(), i));
+        }
+        transactionStore.putBlockToBatch(block.getHash(), infos);
+        if (isMainChain(block)) {
+            transactionStore.putLocationsToBatch(
+                    block.getNumber(), block.getHash(), getTransactionHashes(block));
+        }
+        transactionStore.flushBatch();
+    }
+
+    private boolean isMainChain(AionBlock block) {
+        return Arrays.equals(
+                block.getHash(), getBlockStore().getBlockHashByNumber(block.getNumber()));
+    }
+
+    private static List<byte[]> getTransactionHashes(AionBlock block) {
+        List<byte[]> hashes = new ArrayList<>(block.getTransactionsList().size());
+        for (AionTransaction tx : block.getTransactionsList()) {
+            hashes.add(tx.getTransactionHash());
+        }
+        return hashes;
+    }
+
+    /**
+     * Moves the transaction locations from the blocks that left the main chain to the blocks that
+     * joined it when the best block changed from the given previous best to the new best block.
+     *
+     * @implNote Must be called after the block store was updated.
+     */
+    private void updateTxLocations(AionBlock previousBest, AionBlock newBest) {
+        // walk the previous branch down to the common ancestor
+        Set<ByteArrayWrapper> removed = new HashSet<>();
+        long ancestor = previousBest.getNumber();
+        AionBlock block = previousBest;
+        while (block != null && !isMainChain(block)) {
+            for (AionTransaction tx : block.getTransactionsList()) {
+                removed.add(ByteArrayWrapper.wrap(tx.getTransactionHash()));
+            }
+            ancestor = block.getNumber() - 1;
+            block = getBlockByHash(block.getParentHash());
+        }
+
+        block = newBest;
+        while (block != null && block.getNumber() > ancestor) {
+            List<byte[]> hashes = getTransactionHashes(block);
+            for (byte[] hash : hashes) {
+                removed.remove(ByteArrayWrapper.wrap(hash));
+            }
+            transactionStore.putLocationsToBatch(block.getNumber(), block.getHash(), hashes);
+            block = getBlockByHash(block.getParentHash());
+        }
+
+        List<byte[]> stale = new ArrayList<>(removed.size());
+        for (ByteArrayWrapper hash : removed) {
+            stale.add(hash.getData());
+        }
+        transactionStore.deleteLocationsInBatch(stale);
+        transactionStore.flushBatch();
+    }
+
     public ChainConfiguration getChainConfiguration() {
         return chainConfiguration;
     }
@@ -1433,11 +1831,9 @@ public class AionBlockchainImpl implements IAionBlockchain {
         } else {
             getBlockStore().saveBlock(block, totalDifficulty, true);
         }
+        recentHeaders.add(block.getHeader(), !fork);
 
-        for (int i = 0; i < receipts.size(); i++) {
-            transactionStore.putToBatch(new AionTxInfo(receipts.get(i), block.getHash(), i));
-        }
-        transactionStore.flushBatch();
+        storeReceipts(block, receipts);
 
         repository.commitBlock(block.getHeader());
 
@@ -1512,7 +1908,7 @@ public class AionBlockchainImpl implements IAionBlockchain {
     }
 
     public boolean hasParentOnTheChain(AionBlock block) {
-        return getParent(block.getHeader()) != null;
+        return getParentHeader(block.getHeader()) != null;
     }
 
     public TransactionStore<AionTransaction, AionTxReceipt, AionTxInfo> getTransactionStore() {
@@ -1585,6 +1981,14 @@ public class AionBlockchainImpl implements IAionBlockchain {
      */
     @Override
     public List<A0BlockHeader> getListOfHeadersStartFrom(long blockNumber, int limit) {
+        int qty = getQty(blockNumber, bestBlock.getNumber(), limit);
+        if (blockNumber >= 0 && qty > 0) {
+            // recent headers are served without reading the blocks
+            List<A0BlockHeader> recent = recentHeaders.getRange(blockNumber, qty);
+            if (recent != null) {
+                return recent;
+            }
+        }
 
         // identifying block we'll move from
         IAionBlock startBlock = getBlockByNumber(blockNumber);
@@ -2011,6 +2415,8 @@ public class AionBlockchainImpl implements IAionBlockchain {
                             toHexString(block.getHash()));
                 }
                 getBlockStore().reBranch(block);
+                recentHeaders.clearMainChain();
+                updateTxLocations(mainChain, block);
                 repo.syncToRoot(block.getStateRoot());
                 repo.flush();
             } else {
@@ -2020,6 +2426,7 @@ public class AionBlockchainImpl implements IAionBlockchain {
                     if (ancestor != null
                             && Arrays.equals(ancestor.getParentHash(), block.getHash())) {
                         getBlockStore().correctMainChain(block, LOG);
+                        recentHeaders.clearMainChain();
                         repo.flush();
                     }
                 }
@@ -9,7 +9,6 @@ import java.util.List;
 import java.util.Properties;
 import java.util.ServiceLoader;
 import java.util.concurrent.atomic.AtomicBoolean;
-import org.aion.interfaces.db.Repository;
 import org.aion.evtmgr.EventMgrModule;
 import org.aion.evtmgr.IEvent;
 import org.aion.evtmgr.IEventMgr;
@@ -30,6 +29,7 @@ import org.aion.zero.impl.config.CfgAion;
 import org.aion.zero.impl.core.IAionBlockchain;
 import org.aion.zero.impl.db.AionRepositoryImpl;
 import org.aion.zero.impl.db.RecoveryUtils;
+import org.aion.zero.impl.db.StateGarbageCollector;
 import org.aion.zero.impl.pow.AionPoW;
 import org.aion.zero.impl.sync.SyncMgr;
 import org.aion.zero.impl.sync.handler.BlockPropagationHandler;
@@ -71,6 +71,10 @@ public class AionHub {
 
     private AionPoW pow;
 
+    private BlockTemplateBuilder templateBuilder;
+
+    private StateGarbageCollector stateGc = null;
+
     private AtomicBoolean start = new AtomicBoolean(true);
 
     private static final byte apiVersion = 2;
@@ -160,7 +164,8 @@ public class AionHub {
                         cfgNetP2p.getMaxTempNodes(),
                         cfgNetP2p.getMaxActiveNodes(),
                         cfgNetP2p.getBootlistSyncOnly(),
-                        cfgNetP2p.getErrorTolerance());
+                        cfgNetP2p.getErrorTolerance(),
+                        cfgNetP2p.getCompression());
 
         this.syncMgr = SyncMgr.inst();
         this.syncMgr.init(
@@ -196,8 +201,19 @@ public class AionHub {
 
         ((AionPendingStateImpl) this.mempool).setP2pMgr(this.p2pMgr);
 
+        this.templateBuilder =
+                new BlockTemplateBuilder((AionBlockchainImpl) blockchain, mempool, eventMgr);
+
         this.pow = new AionPoW();
-        this.pow.init(blockchain, mempool, eventMgr);
+        this.pow.init(blockchain, mempool, eventMgr, templateBuilder);
+
+        int gcInterval = cfg.getDb().getStateGcInterval();
+        if (gcInterval > 0 && !forTest) {
+            this.stateGc = repository.createStateGarbageCollector();
+            if (stateGc != null) {
+                stateGc.start(gcInterval);
+            }
+        }
     }
 
     static AionHub createForTesting(
@@ -261,7 +277,7 @@ public class AionHub {
         }
     }
 
-    public Repository getRepository() {
+    public AionRepositoryImpl getRepository() {
         return repository;
     }
 
@@ -281,6 +297,10 @@ public class AionHub {
         return this.eventMgr;
     }
 
+    public BlockTemplateBuilder getBlockTemplateBuilder() {
+        return templateBuilder;
+    }
+
     public BlockPropagationHandler getPropHandler() {
         return propHandler;
     }
@@ -511,8 +531,14 @@ public class AionHub {
 
         genLOG.info("shutting down consensus...");
         pow.shutdown();
+        templateBuilder.shutdown();
         genLOG.info("shutdown consensus... Done!");
 
+        if (stateGc != null) {
+            stateGc.shutdown();
+            genLOG.info("<shutdown-state-gc>");
+        }
+
         if (repository != null) {
             genLOG.info("shutting down DB...");
             repository.close();
@@ -0,0 +1,391 @@
+package org.aion.zero.impl;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import org.aion.evtmgr.IEvent;
+import org.aion.evtmgr.IEventMgr;
+import org.aion.evtmgr.IHandler;
+import org.aion.evtmgr.impl.callback.EventCallback;
+import org.aion.evtmgr.impl.es.EventExecuteService;
+import org.aion.evtmgr.impl.evt.EventBlock;
+import org.aion.evtmgr.impl.evt.EventTx;
+import org.aion.interfaces.db.Repository;
+import org.aion.interfaces.db.RepositoryCache;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.aion.mcf.blockchain.IPendingState;
+import org.aion.mcf.vm.types.Bloom;
+import org.aion.types.Address;
+import org.aion.types.ByteArrayWrapper;
+import org.aion.zero.impl.blockchain.AionPendingStateImpl;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.types.AionTransaction;
+import org.aion.zero.types.AionTxExecSummary;
+import org.aion.zero.types.AionTxReceipt;
+import org.slf4j.Logger;
+
+/**
+ * Keeps a block template ready for the miners. The template is built from scratch when a new best
+ * block is imported and afterwards extended with the transactions entering the pool, which are
+ * executed on top of the ones already included until the block energy limit is reached.
+ *
+ * <p>Reading the current template does not execute any transactions, and callers can wait for the
+ * next template with {@link #awaitTemplate(byte[], long)} instead of polling. A caller that finds
+ * the template behind the best block while it is being rebuilt gets a template without transactions
+ * instead of waiting for the pending transactions to execute.
+ *
+ * <p>The builder starts following the chain and the pool on its first use, so nodes that never
+ * request templates do not execute the pending transactions a second time.
+ */
+public class BlockTemplateBuilder {
+
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.CONS.name());
+
+    /** The energy used by the cheapest transaction, below which the block is considered full. */
+    private static final long MIN_TX_ENERGY = 21_000L;
+
+    private final AionBlockchainImpl blockchain;
+    private final IPendingState<AionTransaction> pendingState;
+    private final IEventMgr eventMgr;
+
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private EventExecuteService ees;
+
+    // the template under construction, guarded by lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private AionBlock base;
+    private Repository state;
+    private RepositoryCache track;
+    private final List<AionTransaction> txs = new ArrayList<>();
+    private final List<AionTxReceipt> receipts = new ArrayList<>();
+    private final Set<ByteArrayWrapper> included = new HashSet<>();
+    private final Set<ByteArrayWrapper> rejected = new HashSet<>();
+    private long energyUsed;
+    private BigInteger fees;
+
+    // 'safe-publishing' idiom, the published blocks are never modified afterwards
+    private volatile BlockContext template;
+    private final Object templateChanged = new Object();
+
+    private final class EpTemplate implements Runnable {
+        boolean go = true;
+
+        @Override
+        public void run() {
+            while (go) {
+                IEvent e = ees.take();
+                try {
+                    if (e.getEventType() == IHandler.TYPE.BLOCK0.getValue()
+                            && e.getCallbackType() == EventBlock.CALLBACK.ONBEST0.getValue()) {
+                        rebuild((AionBlock) e.getFuncArgs().get(0));
+                    } else if (e.getEventType() == IHandler.TYPE.TX0.getValue()
+                            && e.getCallbackType()
+                                    == EventTx.CALLBACK.PENDINGTXRECEIVED0.getValue()) {
+                        extend();
+                    } else if (e.getEventType() == IHandler.TYPE.POISONPILL.getValue()) {
+                        go = false;
+                    }
+                } catch (Exception ex) {
+                    LOG.error("Failed to update the block template.", ex);
+                }
+            }
+        }
+    }
+
+    public BlockTemplateBuilder(
+            AionBlockchainImpl blockchain,
+            IPendingState<AionTransaction> pendingState,
+            IEventMgr eventMgr) {
+        this.blockchain = blockchain;
+        this.pendingState = pendingState;
+        this.eventMgr = eventMgr;
+    }
+
+    private void start() {
+        if (eventMgr == null || !started.compareAndSet(false, true)) {
+            return;
+        }
+
+        eventMgr.registerEvent(
+                Arrays.asList(
+                        new EventTx(EventTx.CALLBACK.PENDINGTXRECEIVED0),
+                        new EventBlock(EventBlock.CALLBACK.ONBEST0)));
+
+        Set<Integer> filter = new HashSet<>();
+        filter.add(
+                (IHandler.TYPE.TX0.getValue() << 8)
+                        + EventTx.CALLBACK.PENDINGTXRECEIVED0.getValue());
+        filter.add((IHandler.TYPE.BLOCK0.getValue() << 8) + EventBlock.CALLBACK.ONBEST0.getValue());
+
+        ees = new EventExecuteService(100_000, "EpTemplate", Thread.NORM_PRIORITY, LOG);
+        ees.setFilter(filter);
+
+        eventMgr.getHandler(IHandler.TYPE.TX0.getValue())
+                .eventCallback(new EventCallback(ees, LOG));
+        eventMgr.getHandler(IHandler.TYPE.BLOCK0.getValue())
+                .eventCallback(new EventCallback(ees, LOG));
+
+        ees.start(new EpTemplate());
+    }
+
+    public void shutdown() {
+        if (ees != null) {
+            ees.shutdown();
+        }
+    }
+
+    /**
+     * Returns the template on top of the current best block. The template is only built here when
+     * the best block changed before the builder could catch up, e.g. on its first use. When it is
+     * already being rebuilt, a template without transactions is returned instead.
+     */
+    public BlockContext getTemplate() {
+        start();
+
+        AionBlock best = blockchain.getBestBlock();
+        BlockContext current = template;
+        if (current == null || !Arrays.equals(current.block.getParentHash(), best.getHash())) {
+            if (lock.tryLock()) {
+                try {
+                    rebuild(best);
+                } finally {
+                    lock.unlock();
+                }
+                current = template;
+            } else {
+                current = publishIfBehind(emptyTemplate(best));
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Waits until the template differs from the one the caller already has.
+     *
+     * @param mineHash the mine hash of the known template, or {@code null} to return immediately
+     * @param timeoutMillis the maximum time to wait for a new template
+     * @return the current template, which is the known one if the timeout elapsed
+     */
+    public BlockContext awaitTemplate(byte[] mineHash, long timeoutMillis)
+            throws InterruptedException {
+        BlockContext current = getTemplate();
+        if (mineHash == null) {
+            return current;
+        }
+
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (templateChanged) {
+            long left = timeoutMillis;
+            while (Arrays.equals(template.block.getHeader().getMineHash(), mineHash) && left > 0) {
+                templateChanged.wait(left);
+                left = deadline - System.currentTimeMillis();
+            }
+            return template;
+        }
+    }
+
+    /** Discards the current template and builds a new one on top of the given block. */
+    void rebuild(AionBlock parent) {
+        lock.lock();
+        try {
+            if (base != null && Arrays.equals(base.getParentHash(), parent.getHash())) {
+                // already built on this parent, e.g. by a reader that caught the new best block
+                return;
+            }
+
+            base = blockchain.createBlockForParent(parent, new ArrayList<>(), blockTime(parent));
+            state = blockchain.getRepository().getSnapshotTo(parent.getStateRoot());
+            track = state.startTracking();
+            txs.clear();
+            receipts.clear();
+            included.clear();
+            rejected.clear();
+            energyUsed = 0;
+            fees = BigInteger.ZERO;
+
+            if (!append(pendingState.getPendingTransactions())) {
+                seal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Executes the pending transactions that were not considered for the template yet. */
+    void extend() {
+        lock.lock();
+        try {
+            if (base == null) {
+                return;
+            }
+            append(pendingState.getPendingTransactions());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static long blockTime(AionBlock parent) {
+        long time = System.currentTimeMillis() / 1000;
+        return parent.getTimestamp() >= time ? parent.getTimestamp() + 1 : time;
+    }
+
+    /** @return {@code true} if the template was sealed again with new transactions */
+    private boolean append(List<AionTransaction> pending) {
+        boolean extended = false;
+        while (base.getNrgLimit() - energyUsed >= MIN_TX_ENERGY) {
+            AionPendingStateImpl.TransactionSortedSet fresh =
+                    new AionPendingStateImpl.TransactionSortedSet();
+            for (AionTransaction tx : pending) {
+                ByteArrayWrapper hash = new ByteArrayWrapper(tx.getTransactionHash());
+                if (!included.contains(hash) && !rejected.contains(hash)) {
+                    fresh.add(tx);
+                }
+            }
+            if (fresh.isEmpty()) {
+                break;
+            }
+
+            List<AionTxExecSummary> summaries =
+                    blockchain.executeForBlock(
+                            base,
+                            new ArrayList<>(fresh),
+                            state,
+                            track,
+                            base.getNrgLimit() - energyUsed);
+            track.flush();
+
+            boolean progress = false;
+            for (AionTxExecSummary summary : summaries) {
+                ByteArrayWrapper hash =
+                        new ByteArrayWrapper(summary.getTransaction().getTransactionHash());
+                if (summary.isRejected()) {
+                    rejected.add(hash);
+                    continue;
+                }
+                progress = true;
+                included.add(hash);
+                txs.add(summary.getTransaction());
+                receipts.add(summary.getReceipt());
+                energyUsed += summary.getNrgUsed().longValueExact();
+                fees = fees.add(summary.getFee());
+            }
+
+            if (!progress) {
+                break;
+            }
+            // rejected transactions may become valid after the ones just included
+            extended = true;
+            rejected.clear();
+        }
+
+        if (extended) {
+            seal();
+        }
+        return extended;
+    }
+
+    /** Publishes a new block with the transactions included so far and the block reward. */
+    private void seal() {
+        BlockContext context = createContext(base, state, txs, receipts, energyUsed, fees);
+
+        synchronized (templateChanged) {
+            template = context;
+            templateChanged.notifyAll();
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(
+                    "block template <num={}, txs={}, energy={}>",
+                    context.block.getNumber(),
+                    txs.size(),
+                    energyUsed);
+        }
+    }
+
+    /** Creates a template without transactions, which does not execute the pending pool. */
+    private BlockContext emptyTemplate(AionBlock parent) {
+        return createContext(
+                blockchain.createBlockForParent(parent, new ArrayList<>(), blockTime(parent)),
+                blockchain.getRepository().getSnapshotTo(parent.getStateRoot()),
+                Collections.emptyList(),
+                Collections.emptyList(),
+                0,
+                BigInteger.ZERO);
+    }
+
+    /**
+     * Publishes the given template unless a template on the same parent was published meanwhile.
+     *
+     * @return the current template
+     */
+    private BlockContext publishIfBehind(BlockContext context) {
+        synchronized (templateChanged) {
+            if (template == null
+                    || !Arrays.equals(
+                            template.block.getParentHash(), context.block.getParentHash())) {
+                template = context;
+                templateChanged.notifyAll();
+            }
+            return template;
+        }
+    }
+
+    /**
+     * Seals a block with the given transactions and the block reward.
+     *
+     * @param state the state after executing the transactions, left unchanged
+     */
+    private BlockContext createContext(
+            AionBlock base,
+            Repository state,
+            List<AionTransaction> txs,
+            List<AionTxReceipt> receipts,
+            long energyUsed,
+            BigInteger fees) {
+        BigInteger reward =
+                blockchain
+                        .getChainConfiguration()
+                        .getRewardsCalculator()
+                        .calculateReward(base.getNumber());
+
+        // the reward is added to the template state to compute the state root and then removed to
+        // keep executing transactions on it; the trie has the same root after the removal
+        Address coinbase = base.getCoinbase();
+        boolean existed = state.hasAccountState(coinbase);
+        RepositoryCache rewardTrack = state.startTracking();
+        rewardTrack.addBalance(coinbase, reward);
+        rewardTrack.flush();
+        byte[] stateRoot = state.getRoot();
+
+        RepositoryCache undoTrack = state.startTracking();
+        if (existed) {
+            undoTrack.addBalance(coinbase, reward.negate());
+        } else {
+            undoTrack.deleteAccount(coinbase);
+        }
+        undoTrack.flush();
+
+        Bloom logBloom = new Bloom();
+        for (AionTxReceipt receipt : receipts) {
+            logBloom.or(receipt.getBloomFilter());
+        }
+
+        List<AionTransaction> blockTxs = new ArrayList<>(txs);
+        AionBlock block = new AionBlock(base.getHeader(), blockTxs);
+        block.seal(
+                blockTxs,
+                AionBlockchainImpl.calcTxTrie(blockTxs),
+                stateRoot,
+                logBloom.getBloomFilterBytes(),
+                AionBlockchainImpl.calcReceiptsTrie(receipts),
+                energyUsed);
+        return new BlockContext(block, reward, fees);
+    }
+}
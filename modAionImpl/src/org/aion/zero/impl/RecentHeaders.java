@@ -0,0 +1,98 @@
+package org.aion.zero.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.aion.types.ByteArrayWrapper;
+import org.aion.zero.types.A0BlockHeader;
+import org.apache.commons.collections4.map.LRUMap;
+
+/**
+ * Bounded cache of the headers of recently imported or requested blocks, so that the validators,
+ * block creation and header requests from peers do not decode full blocks.
+ *
+ * <p>All headers are indexed by hash, including side chain headers, and evicted in least recently
+ * used order. Main chain headers are also kept in a ring indexed by block number, which is cleared
+ * when the main chain is reorganized.
+ *
+ * @implNote The cached headers are shared and must not be modified by the callers.
+ */
+final class RecentHeaders {
+
+    /** Default number of headers kept in each index. */
+    static final int DEFAULT_CAPACITY = 4096;
+
+    private final LRUMap<ByteArrayWrapper, A0BlockHeader> byHash;
+    private final A0BlockHeader[] byNumber;
+
+    RecentHeaders(int capacity) {
+        this.byHash = new LRUMap<>(capacity);
+        this.byNumber = new A0BlockHeader[capacity];
+    }
+
+    /**
+     * Adds the given header.
+     *
+     * @param mainChain whether the block of the header is currently on the main chain
+     */
+    synchronized void add(A0BlockHeader header, boolean mainChain) {
+        byHash.put(header.getHashWrapper(), header);
+        if (mainChain) {
+            byNumber[slot(header.getNumber())] = header;
+        }
+    }
+
+    /** @return the header with the given hash, or {@code null} when it is not cached */
+    synchronized A0BlockHeader getByHash(byte[] hash) {
+        return byHash.get(ByteArrayWrapper.wrap(hash));
+    }
+
+    /** @return the main chain header with the given number, or {@code null} when not cached */
+    synchronized A0BlockHeader getByNumber(long number) {
+        if (number < 0) {
+            return null;
+        }
+        A0BlockHeader header = byNumber[slot(number)];
+        return header != null && header.getNumber() == number ? header : null;
+    }
+
+    /**
+     * Returns the main chain headers with consecutive numbers starting from the given one.
+     *
+     * @return the headers in increasing order, or {@code null} when any of them is not cached
+     */
+    synchronized List<A0BlockHeader> getRange(long first, int count) {
+        if (count > byNumber.length) {
+            return null;
+        }
+
+        List<A0BlockHeader> headers = new ArrayList<>(count);
+        byte[] parentHash = null;
+        for (long number = first; number < first + count; number++) {
+            A0BlockHeader header = getByNumber(number);
+            // headers from before and after a reorganization cannot be mixed
+            if (header == null
+                    || (parentHash != null && !Arrays.equals(parentHash, header.getParentHash()))) {
+                return null;
+            }
+            headers.add(header);
+            parentHash = header.getHash();
+        }
+        return headers;
+    }
+
+    /** Drops the main chain index, for example after a reorganization. */
+    synchronized void clearMainChain() {
+        Arrays.fill(byNumber, null);
+    }
+
+    /** Drops all the headers, for example after blocks were removed from the store. */
+    synchronized void clear() {
+        byHash.clear();
+        clearMainChain();
+    }
+
+    private int slot(long number) {
+        return (int) (number % byNumber.length);
+    }
+}
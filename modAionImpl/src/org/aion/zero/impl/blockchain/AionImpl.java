@@ -1,13 +1,10 @@
 package org.aion.zero.impl.blockchain;
 
 import java.math.BigInteger;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import org.aion.crypto.ECKeyFac;
 import org.aion.equihash.EquihashMiner;
 import org.aion.interfaces.db.Repository;
-import org.aion.interfaces.db.RepositoryCache;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.aion.mcf.blockchain.IPendingStateInternal;
@@ -18,10 +15,6 @@ import org.aion.mcf.mine.IMineRunner;
 import org.aion.types.Address;
 import org.aion.types.ByteArrayWrapper;
 import org.aion.util.bytes.ByteUtil;
-import org.aion.vm.BulkExecutor;
-import org.aion.vm.ExecutionBatch;
-import org.aion.vm.PostExecutionWork;
-import org.aion.vm.exception.VMException;
 import org.aion.zero.impl.AionHub;
 import org.aion.zero.impl.config.CfgAion;
 import org.aion.zero.impl.tx.TxCollector;
@@ -36,7 +29,6 @@ public class AionImpl implements IAionChain {
 
     private static final Logger LOG_GEN = AionLoggerFactory.getLogger(LogEnum.GEN.toString());
     private static final Logger LOG_TX = AionLoggerFactory.getLogger(LogEnum.TX.toString());
-    private static final Logger LOG_VM = AionLoggerFactory.getLogger(LogEnum.VM.toString());
 
     public AionHub aionHub;
 
@@ -44,6 +36,11 @@ public class AionImpl implements IAionChain {
 
     private TxCollector collector;
 
+    /** Wall-clock limit of each {@code eth_call} and energy estimate. */
+    private static final long CALL_TIMEOUT_MILLIS = 10_000L;
+
+    private CallExecutor callExecutor;
+
     private AionImpl() {
         this.cfg = CfgAion.inst();
         aionHub = new AionHub();
@@ -57,20 +54,17 @@ public class AionImpl implements IAionChain {
                         + ">");
 
         collector = new TxCollector(this.aionHub.getP2pMgr(), LOG_TX);
+        callExecutor =
+                new CallExecutor(
+                        aionHub.getRepository(),
+                        Runtime.getRuntime().availableProcessors(),
+                        CALL_TIMEOUT_MILLIS);
     }
 
     public static AionImpl inst() {
         return Holder.INSTANCE;
     }
 
-    /**
-     * There is no post-execution work to do for any calls in this class to do. In accordance with
-     * the specs, we return zero since we have no meaningful value to return here.
-     */
-    private static PostExecutionWork getPostExecutionWork() {
-        return (r, c, s, t, b) -> 0;
-    }
-
     @Override
     public IPowChain<AionBlock, A0BlockHeader> getBlockchain() {
         return aionHub.getBlockchain();
@@ -99,6 +93,7 @@ public class AionImpl implements IAionChain {
 
     @Override
     public void close() {
+        callExecutor.shutdown();
         aionHub.close();
     }
 
@@ -129,64 +124,17 @@ public class AionImpl implements IAionChain {
     }
 
     public long estimateTxNrg(AionTransaction tx, IAionBlock block) {
-
-        if (tx.getSignature() == null) {
-            tx.sign(ECKeyFac.inst().fromPrivate(new byte[64]));
-        }
-
-        RepositoryCache repository =
-                aionHub.getRepository().getSnapshotTo(block.getStateRoot()).startTracking();
-
-        try {
-            ExecutionBatch details = new ExecutionBatch(block, Collections.singletonList(tx));
-            BulkExecutor executor =
-                    new BulkExecutor(
-                            details,
-                            repository,
-                            true,
-                            true,
-                            block.getNrgLimit(),
-                            LOG_VM,
-                            getPostExecutionWork());
-            return executor.execute().get(0).getReceipt().getEnergyUsed();
-        } catch (VMException e) {
-            LOG_GEN.error("Shutdown due to a VM fatal error.", e);
-            System.exit(-1);
-            return 0;
-        } finally {
-            repository.rollback();
-        }
+        return callExecutor.call(tx, block).getEnergyUsed();
     }
 
-    /** TODO: pretty sure we can just use a static key, verify and implement */
     @Override
     public AionTxReceipt callConstant(AionTransaction tx, IAionBlock block) {
-        if (tx.getSignature() == null) {
-            tx.sign(ECKeyFac.inst().fromPrivate(new byte[64]));
-        }
-
-        RepositoryCache repository =
-                aionHub.getRepository().getSnapshotTo(block.getStateRoot()).startTracking();
+        return callExecutor.call(tx, block);
+    }
 
-        try {
-            ExecutionBatch details = new ExecutionBatch(block, Collections.singletonList(tx));
-            BulkExecutor executor =
-                    new BulkExecutor(
-                            details,
-                            repository,
-                            true,
-                            true,
-                            block.getNrgLimit(),
-                            LOG_VM,
-                            getPostExecutionWork());
-            return executor.execute().get(0).getReceipt();
-        } catch (VMException e) {
-            LOG_GEN.error("Shutdown due to a VM fatal error.", e);
-            System.exit(-1);
-            return null;
-        } finally {
-            repository.rollback();
-        }
+    @Override
+    public List<AionTxReceipt> callConstants(List<AionTransaction> txs, IAionBlock block) {
+        return callExecutor.callAll(txs, block);
     }
 
     @Override
@@ -270,11 +218,11 @@ public class AionImpl implements IAionChain {
             byte[] stateRoot =
                     this.aionHub.getBlockStore().getChainBlockByNumber(blockNumber).getStateRoot();
             AccountState account =
-                    (AccountState)
-                            this.aionHub
-                                    .getRepository()
-                                    .getSnapshotTo(stateRoot)
-                                    .getAccountState(address);
+                    this.aionHub
+                            .getRepository()
+                            .readSnapshotTo(
+                                    stateRoot,
+                                    repo -> (AccountState) repo.getAccountState(address));
 
             if (account == null) return Optional.empty();
 
@@ -292,11 +240,11 @@ public class AionImpl implements IAionChain {
             byte[] stateRoot =
                     this.aionHub.getBlockchain().getBlockByHash(blockHash).getStateRoot();
             AccountState account =
-                    (AccountState)
-                            this.aionHub
-                                    .getRepository()
-                                    .getSnapshotTo(stateRoot)
-                                    .getAccountState(address);
+                    this.aionHub
+                            .getRepository()
+                            .readSnapshotTo(
+                                    stateRoot,
+                                    repo -> (AccountState) repo.getAccountState(address));
 
             if (account == null) return Optional.empty();
 
@@ -312,11 +260,11 @@ public class AionImpl implements IAionChain {
         try {
             byte[] stateRoot = this.aionHub.getBlockchain().getBestBlock().getStateRoot();
             AccountState account =
-                    (AccountState)
-                            this.aionHub
-                                    .getRepository()
-                                    .getSnapshotTo(stateRoot)
-                                    .getAccountState(address);
+                    this.aionHub
+                            .getRepository()
+                            .readSnapshotTo(
+                                    stateRoot,
+                                    repo -> (AccountState) repo.getAccountState(address));
 
             if (account == null) return Optional.empty();
 
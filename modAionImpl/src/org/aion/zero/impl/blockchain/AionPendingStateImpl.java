@@ -46,6 +46,8 @@ import org.aion.txpool.TxPoolModule;
 import org.aion.types.Address;
 import org.aion.util.bytes.ByteUtil;
 import org.aion.util.conversions.Hex;
+import org.aion.util.metrics.Counter;
+import org.aion.util.metrics.MetricsRegistry;
 import org.aion.vm.BulkExecutor;
 import org.aion.vm.ExecutionBatch;
 import org.aion.vm.PostExecutionWork;
@@ -54,7 +56,9 @@ import org.aion.zero.impl.AionBlockchainImpl;
 import org.aion.zero.impl.config.CfgAion;
 import org.aion.zero.impl.core.IAionBlockchain;
 import org.aion.zero.impl.db.AionRepositoryImpl;
+import org.aion.zero.impl.db.RecordingRepositoryCache;
 import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.impl.types.AionBlockSummary;
 import org.aion.zero.impl.types.AionTxInfo;
 import org.aion.zero.impl.valid.TXValidator;
 import org.aion.zero.impl.valid.TransactionTypeValidator;
@@ -69,6 +73,21 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
     private static final Logger LOGGER_TX = AionLoggerFactory.getLogger(LogEnum.TX.toString());
     private static final Logger LOGGER_VM = AionLoggerFactory.getLogger(LogEnum.VM.toString());
 
+    private static final Counter REVALIDATION_EXECUTED =
+            MetricsRegistry.inst()
+                    .counter(
+                            "aion_pending_revalidation_txs_total",
+                            "Pending txs revalidated on a new best block.",
+                            "result",
+                            "executed");
+    private static final Counter REVALIDATION_SKIPPED =
+            MetricsRegistry.inst()
+                    .counter(
+                            "aion_pending_revalidation_txs_total",
+                            "Pending txs revalidated on a new best block.",
+                            "result",
+                            "skipped");
+
     private IP2pMgr p2pMgr;
 
     public static class TransactionSortedSet extends TreeSet<AionTransaction> {
@@ -104,7 +123,10 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
 
     private IEventMgr evtMgr = null;
 
-    private RepositoryCache pendingState;
+    private RecordingRepositoryCache pendingState;
+
+    /** Accounts used by the transactions executed on the pending state. */
+    private final PendingTxDependencies dependencies = new PendingTxDependencies();
 
     private AtomicReference<AionBlock> best;
 
@@ -213,7 +235,11 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
                 if (e.getEventType() == IHandler.TYPE.BLOCK0.getValue()
                         && e.getCallbackType() == EventBlock.CALLBACK.ONBEST0.getValue()) {
                     long t1 = System.currentTimeMillis();
-                    processBest((AionBlock) e.getFuncArgs().get(0), (List) e.getFuncArgs().get(1));
+                    List<Object> args = e.getFuncArgs();
+                    processBest(
+                            (AionBlock) args.get(0),
+                            (List) args.get(1),
+                            args.size() > 2 ? (AionBlockSummary) args.get(2) : null);
 
                     if (LOGGER_TX.isDebugEnabled()) {
                         long t2 = System.currentTimeMillis();
@@ -342,7 +368,7 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
             this.poolBackUp = CfgAion.inst().getTx().getPoolBackup();
             this.pendingTxCache =
                     new PendingTxCache(CfgAion.inst().getTx().getCacheMax(), poolBackUp);
-            this.pendingState = repository.startTracking();
+            this.pendingState = new RecordingRepositoryCache(repository);
 
             this.dumpPool = CfgAion.inst().getTx().getPoolDump();
 
@@ -804,6 +830,15 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
 
     @Override
     public synchronized void processBest(AionBlock newBlock, List receipts) {
+        processBest(newBlock, receipts, null);
+    }
+
+    /**
+     * @param summary the import summary of the new block, used to execute again only the pending
+     *     transactions affected by it; when {@code null} all of them are executed again
+     */
+    public synchronized void processBest(
+            AionBlock newBlock, List receipts, AionBlockSummary summary) {
 
         if (isSeed) {
             // seed mode doesn't need to update the pendingState
@@ -840,7 +875,11 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
             }
 
             // rollback the state snapshot to the ancestor
-            pendingState = repository.getSnapshotTo(commonAncestor.getStateRoot()).startTracking();
+            pendingState =
+                    new RecordingRepositoryCache(
+                            repository.getSnapshotTo(commonAncestor.getStateRoot()));
+            // the recorded dependencies do not cover the reverted blocks
+            summary = null;
 
             // next process blocks from new fork
             IAionBlock main = newBlock;
@@ -875,7 +914,9 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
                     "PendingStateImpl.processBest: closeToNetworkBest[{}]", closeToNetworkBest);
         }
 
-        updateState(best.get());
+        updateState(
+                best.get(),
+                summary == null ? null : PendingTxDependencies.changedAccounts(summary));
 
         txPool.updateBlkNrgLimit(best.get().getNrgLimit());
 
@@ -1021,18 +1062,41 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
         return info;
     }
 
+    /**
+     * Rebuilds the pending state on top of the new best block.
+     *
+     * @param changed the accounts changed by the new block, or {@code null} to execute all the
+     *     pending transactions again
+     */
     @SuppressWarnings("UnusedReturnValue")
-    private List<AionTransaction> updateState(IAionBlock block) {
-
-        pendingState = repository.startTracking();
+    private List<AionTransaction> updateState(IAionBlock block, Set<Address> changed) {
 
         processTxBuffer();
         List<AionTransaction> pendingTxl = this.txPool.snapshotAll();
+
+        // keep the state of the transactions that do not depend on the new block
+        PendingTxDependencies.Plan plan = dependencies.plan(pendingTxl, changed);
+        RecordingRepositoryCache previous = pendingState;
+        pendingState = new RecordingRepositoryCache(repository);
+        pendingState.takeAccountsFrom(previous, plan.reused);
+
+        int executed = plan.executedCount();
+        REVALIDATION_EXECUTED.inc(executed);
+        REVALIDATION_SKIPPED.inc(pendingTxl.size() - executed);
+
         List<AionTransaction> rtn = new ArrayList<>();
         if (LOGGER_TX.isInfoEnabled()) {
-            LOGGER_TX.info("updateState - snapshotAll tx[{}]", pendingTxl.size());
+            LOGGER_TX.info(
+                    "updateState - snapshotAll tx[{}] executed[{}]", pendingTxl.size(), executed);
         }
-        for (AionTransaction tx : pendingTxl) {
+        for (int i = 0; i < pendingTxl.size(); i++) {
+            AionTransaction tx = pendingTxl.get(i);
+            if (!plan.execute[i]) {
+                fireTxUpdate(plan.receipts[i], PendingTransactionState.PENDING, block);
+                rtn.add(tx);
+                continue;
+            }
+
             if (LOGGER_TX.isTraceEnabled()) {
                 LOGGER_TX.trace("updateState - loop: " + tx.toString());
             }
@@ -1080,6 +1144,7 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
         }
 
         ExecutionBatch details = new ExecutionBatch(bestBlk, Collections.singletonList(tx));
+        pendingState.startRecording();
         BulkExecutor txExe =
                 new BulkExecutor(
                         details,
@@ -1091,7 +1156,10 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
                         LOGGER_VM,
                         getPostExecutionWork());
         try {
-            return txExe.execute().get(0);
+            AionTxExecSummary summary = txExe.execute().get(0);
+            dependencies.record(
+                    tx, pendingState.stopRecording(), bestBlk.getCoinbase(), summary.getReceipt());
+            return summary;
         } catch (VMException e) {
             LOGGER_VM.error("Shutdown due to a VM fatal error.", e);
             System.exit(-1);
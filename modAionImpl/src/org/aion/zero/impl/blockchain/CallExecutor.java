@@ -0,0 +1,272 @@
+package org.aion.zero.impl.blockchain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.aion.interfaces.db.Repository;
+import org.aion.interfaces.db.RepositoryCache;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.aion.types.Address;
+import org.aion.types.ByteArrayWrapper;
+import org.aion.util.bytes.ByteUtil;
+import org.aion.vm.BulkExecutor;
+import org.aion.vm.ExecutionBatch;
+import org.aion.vm.PostExecutionWork;
+import org.aion.vm.exception.VMException;
+import org.aion.zero.types.AionTransaction;
+import org.aion.zero.types.AionTxReceipt;
+import org.aion.zero.types.IAionBlock;
+import org.apache.commons.collections4.map.LRUMap;
+import org.slf4j.Logger;
+
+/**
+ * Executes transactions against the state of a given block without changing it, as needed by {@code
+ * eth_call} and energy estimation.
+ *
+ * <p>Calls run on a dedicated pool of threads, separate from block import. The transactions are
+ * simulated without being signed and their energy is capped by the energy limit of the block.
+ * Concurrent calls on the same block share the repository snapshot of its state root, so the state
+ * loaded by one call is reused by the others.
+ *
+ * <p>The virtual machine libraries allow one run of each machine at a time, so calls still take
+ * turns with block import on each machine, with block import going first. Each call has a time
+ * limit: when it is exceeded, the caller gets a receipt with an error and the call is aborted. An
+ * aborted call that waits for a machine gives up, and a running one stops reading the state and
+ * finishes on its remaining energy, which bounds how long a call can keep a machine from block
+ * import.
+ */
+public final class CallExecutor {
+
+    private static final Logger LOG_GEN = AionLoggerFactory.getLogger(LogEnum.GEN.name());
+    private static final Logger LOG_VM = AionLoggerFactory.getLogger(LogEnum.VM.name());
+
+    /** Number of state snapshots kept for reuse. Most calls target the best block. */
+    private static final int SNAPSHOT_CACHE_SIZE = 8;
+
+    /** Number of calls that can wait for a thread before new calls are rejected. */
+    private static final int QUEUE_SIZE = 1024;
+
+    private static final String ERROR_TIMEOUT = "CALL_TIMEOUT";
+    private static final String ERROR_REJECTED = "TOO_MANY_CALLS";
+
+    private final Repository repository;
+    private final long timeoutMillis;
+    private final ThreadPoolExecutor executor;
+
+    private final Map<ByteArrayWrapper, Repository> snapshots =
+            Collections.synchronizedMap(new LRUMap<>(SNAPSHOT_CACHE_SIZE));
+
+    /**
+     * @param repository the repository of the main chain
+     * @param threads the number of calls executed concurrently
+     * @param timeoutMillis the wall-clock limit of each call in milliseconds
+     */
+    public CallExecutor(Repository repository, int threads, long timeoutMillis) {
+        this.repository = repository;
+        this.timeoutMillis = timeoutMillis;
+
+        AtomicInteger count = new AtomicInteger();
+        this.executor =
+                new ThreadPoolExecutor(
+                        threads,
+                        threads,
+                        0L,
+                        TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(QUEUE_SIZE),
+                        r -> {
+                            Thread t = new Thread(r, "call-" + count.incrementAndGet());
+                            t.setDaemon(true);
+                            return t;
+                        });
+    }
+
+    /**
+     * There is no post-execution work to do for calls. In accordance with the specs, we return zero
+     * since we have no meaningful value to return here.
+     */
+    private static PostExecutionWork getPostExecutionWork() {
+        return (r, c, s, t, b) -> 0;
+    }
+
+    /**
+     * Executes the transaction on top of the state of the given block.
+     *
+     * @return the receipt of the call; when the call exceeds its time limit or too many calls are
+     *     pending, the receipt has an error and uses all the energy of the transaction
+     */
+    public AionTxReceipt call(AionTransaction tx, IAionBlock block) {
+        AionTransaction simulated = simulate(tx, block.getNrgLimit());
+
+        AtomicBoolean aborted = new AtomicBoolean(false);
+        Future<AionTxReceipt> future;
+        try {
+            future =
+                    executor.submit(
+                            () ->
+                                    execute(
+                                            getSnapshot(block.getStateRoot()),
+                                            simulated,
+                                            block,
+                                            aborted));
+        } catch (RejectedExecutionException e) {
+            LOG_GEN.debug("Rejected call because too many calls are pending.");
+            return failed(simulated, ERROR_REJECTED);
+        }
+
+        return get(future, simulated, TimeUnit.MILLISECONDS.toNanos(timeoutMillis), aborted);
+    }
+
+    /**
+     * Executes the transactions independently of each other on top of the state of the given block.
+     * The calls share one state snapshot and run concurrently.
+     *
+     * @return the receipts of the calls in the order of the transactions; calls that exceed the
+     *     time limit or are rejected because too many calls are pending have receipts with errors
+     */
+    public List<AionTxReceipt> callAll(List<AionTransaction> txs, IAionBlock block) {
+        Repository snapshot = getSnapshot(block.getStateRoot());
+        AtomicBoolean aborted = new AtomicBoolean(false);
+
+        List<AionTransaction> simulated = new ArrayList<>(txs.size());
+        List<Future<AionTxReceipt>> futures = new ArrayList<>(txs.size());
+        for (AionTransaction tx : txs) {
+            AionTransaction call = simulate(tx, block.getNrgLimit());
+            simulated.add(call);
+            try {
+                futures.add(executor.submit(() -> execute(snapshot, call, block, aborted)));
+            } catch (RejectedExecutionException e) {
+                futures.add(null);
+            }
+        }
+
+        // all the calls share the time limit
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        List<AionTxReceipt> receipts = new ArrayList<>(txs.size());
+        for (int i = 0; i < futures.size(); i++) {
+            Future<AionTxReceipt> future = futures.get(i);
+            if (future == null) {
+                receipts.add(failed(simulated.get(i), ERROR_REJECTED));
+            } else {
+                receipts.add(get(future, simulated.get(i), deadline - System.nanoTime(), aborted));
+            }
+        }
+        return receipts;
+    }
+
+    /**
+     * Waits for the result of a call, aborting the execution when the time limit is exceeded.
+     *
+     * @param aborted the abort flag given to the execution
+     */
+    private AionTxReceipt get(
+            Future<AionTxReceipt> future, AionTransaction tx, long nanos, AtomicBoolean aborted) {
+        try {
+            return future.get(Math.max(nanos, 0L), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            abort(future, aborted);
+            LOG_GEN.debug("Call exceeded the time limit of {} ms.", timeoutMillis);
+            return failed(tx, ERROR_TIMEOUT);
+        } catch (InterruptedException e) {
+            abort(future, aborted);
+            Thread.currentThread().interrupt();
+            return failed(tx, ERROR_TIMEOUT);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unable to execute call.", e.getCause());
+        }
+    }
+
+    /**
+     * Aborts a call through its flag, which a call waiting for a virtual machine checks as well.
+     * The thread is never interrupted, since an interrupt reaching a running virtual machine would
+     * release it while it still executes the call.
+     */
+    private static void abort(Future<AionTxReceipt> future, AtomicBoolean aborted) {
+        aborted.set(true);
+        // drops a call that did not start yet
+        future.cancel(false);
+    }
+
+    /**
+     * Rejects new calls and drops the queued ones. The running calls are not interrupted, for the
+     * same reason as in {@link #abort(Future, AtomicBoolean)}, and finish or are aborted by their
+     * callers.
+     */
+    public void shutdown() {
+        executor.shutdown();
+        executor.getQueue().clear();
+        snapshots.clear();
+    }
+
+    /**
+     * Creates an unsigned copy of the transaction with its energy capped by the given limit.
+     *
+     * @implNote The sender of a transaction without signature or explicit sender is the zero
+     *     address.
+     */
+    static AionTransaction simulate(AionTransaction tx, long energyLimit) {
+        Address sender = tx.getSenderAddress();
+        return new AionTransaction(
+                tx.getNonce(),
+                sender == null ? Address.ZERO_ADDRESS() : sender,
+                tx.getDestinationAddress(),
+                tx.getValue(),
+                tx.getData(),
+                Math.min(tx.getEnergyLimit(), energyLimit),
+                tx.getEnergyPrice(),
+                tx.getTargetVM());
+    }
+
+    private Repository getSnapshot(byte[] stateRoot) {
+        ByteArrayWrapper key = ByteArrayWrapper.wrap(stateRoot);
+        Repository snapshot = snapshots.get(key);
+        if (snapshot == null) {
+            snapshot = repository.getSnapshotTo(stateRoot);
+            snapshots.put(key, snapshot);
+        }
+        return snapshot;
+    }
+
+    private AionTxReceipt execute(
+            Repository snapshot, AionTransaction tx, IAionBlock block, AtomicBoolean aborted) {
+        RepositoryCache track = snapshot.startTracking();
+
+        try {
+            ExecutionBatch details = new ExecutionBatch(block, Collections.singletonList(tx));
+            BulkExecutor executor =
+                    new BulkExecutor(
+                            details,
+                            track,
+                            block.getNrgLimit(),
+                            LOG_VM,
+                            getPostExecutionWork(),
+                            aborted);
+            return executor.execute().get(0).getReceipt();
+        } catch (VMException e) {
+            LOG_GEN.error("Shutdown due to a VM fatal error.", e);
+            System.exit(-1);
+            return null;
+        } finally {
+            track.rollback();
+        }
+    }
+
+    private static AionTxReceipt failed(AionTransaction tx, String error) {
+        AionTxReceipt receipt = new AionTxReceipt();
+        receipt.setTransaction(tx);
+        receipt.setExecutionResult(ByteUtil.EMPTY_BYTE_ARRAY);
+        receipt.setNrgUsed(tx.getEnergyLimit());
+        receipt.setError(error);
+        return receipt;
+    }
+}
@@ -27,6 +27,8 @@ public interface IAionChain extends IChainInstancePOW, QueryInterface {
 
     AionTxReceipt callConstant(AionTransaction tx, IAionBlock block);
 
+    List<AionTxReceipt> callConstants(List<AionTransaction> txs, IAionBlock block);
+
     Repository<?, ?> getRepository();
 
     Repository<?, ?> getPendingState();
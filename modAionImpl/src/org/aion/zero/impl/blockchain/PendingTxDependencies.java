@@ -0,0 +1,238 @@
+package org.aion.zero.impl.blockchain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.aion.types.Address;
+import org.aion.types.ByteArrayWrapper;
+import org.aion.vm.api.interfaces.IExecutionLog;
+import org.aion.vm.api.interfaces.InternalTransactionInterface;
+import org.aion.zero.impl.types.AionBlockSummary;
+import org.aion.zero.types.AionTransaction;
+import org.aion.zero.types.AionTxExecSummary;
+import org.aion.zero.types.AionTxReceipt;
+
+/**
+ * Tracks the accounts touched by each transaction executed on the pending state, to decide which
+ * pending transactions must be executed again when a new best block is imported.
+ *
+ * <p>Transactions that share accounts form groups, which are kept or executed again as a whole. A
+ * group is executed again when the new block changed one of its accounts or when one of its
+ * transactions left the pool. The nonce chain of a sender always belongs to a single group.
+ *
+ * <p>The coinbase paid by an execution is not a dependency of the transaction, since the fees of
+ * every transaction go to it. Such accounts are reloaded from the repository instead of being kept,
+ * so the pending balance of the coinbase only includes the fees of the re-executed transactions.
+ * The block context (number, timestamp) is not a dependency either: pending transactions are
+ * already executed on the previous best block instead of the block that will include them.
+ */
+final class PendingTxDependencies {
+
+    /** Accounts and latest receipt of an executed transaction. */
+    private static final class Entry {
+        private final Set<Address> accounts;
+        private final AionTxReceipt receipt;
+        private final boolean touchesCoinbase;
+
+        private Entry(Set<Address> accounts, AionTxReceipt receipt, boolean touchesCoinbase) {
+            this.accounts = accounts;
+            this.receipt = receipt;
+            this.touchesCoinbase = touchesCoinbase;
+        }
+    }
+
+    /** Transactions to execute again and the state that can be kept from the previous cache. */
+    static final class Plan {
+        /** Whether each pending transaction must be executed, in the given order. */
+        final boolean[] execute;
+        /** Receipts of the transactions that are not executed again. */
+        final AionTxReceipt[] receipts;
+        /** Accounts whose cached state is still valid. */
+        final Set<Address> reused;
+
+        private Plan(boolean[] execute, AionTxReceipt[] receipts, Set<Address> reused) {
+            this.execute = execute;
+            this.receipts = receipts;
+            this.reused = reused;
+        }
+
+        int executedCount() {
+            int count = 0;
+            for (boolean e : execute) {
+                if (e) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    private Map<ByteArrayWrapper, Entry> entries = new HashMap<>();
+
+    /** Accounts paid as coinbase by the executions since the last plan. */
+    private final Set<Address> coinbases = new HashSet<>();
+
+    /**
+     * Records the accounts accessed while executing a transaction on the pending state.
+     *
+     * @param coinbase the coinbase of the block the transaction was executed on
+     */
+    void record(
+            AionTransaction tx, Set<Address> accounts, Address coinbase, AionTxReceipt receipt) {
+        Set<Address> dependencies = new HashSet<>(accounts);
+        dependencies.remove(coinbase);
+        dependencies.add(tx.getSenderAddress());
+        coinbases.add(coinbase);
+
+        boolean touchesCoinbase =
+                coinbase.equals(tx.getSenderAddress())
+                        || coinbase.equals(tx.getDestinationAddress());
+        entries.put(
+                new ByteArrayWrapper(tx.getTransactionHash()),
+                new Entry(dependencies, receipt, touchesCoinbase));
+    }
+
+    /** Forgets all the recorded executions. */
+    void clear() {
+        entries = new HashMap<>();
+        coinbases.clear();
+    }
+
+    /**
+     * Decides which of the pending transactions must be executed again. Only the kept transactions
+     * are tracked afterwards; the executed ones must be recorded again.
+     *
+     * @param pending the transactions in the pool, in execution order
+     * @param changed the accounts changed since the recorded executions, or {@code null} when
+     *     unknown, in which case all the transactions are executed again
+     */
+    Plan plan(List<AionTransaction> pending, Set<Address> changed) {
+        int size = pending.size();
+        boolean[] execute = new boolean[size];
+        AionTxReceipt[] receipts = new AionTxReceipt[size];
+
+        List<ByteArrayWrapper> hashes = new ArrayList<>(size);
+        boolean complete = changed != null;
+        for (AionTransaction tx : pending) {
+            ByteArrayWrapper hash = new ByteArrayWrapper(tx.getTransactionHash());
+            hashes.add(hash);
+            // a transaction that was not executed on the cache may depend on any account
+            complete = complete && entries.containsKey(hash);
+        }
+
+        if (!complete) {
+            clear();
+            Arrays.fill(execute, true);
+            return new Plan(execute, receipts, Collections.emptySet());
+        }
+
+        // group the accounts used by the same transactions
+        Map<Address, Address> parents = new HashMap<>();
+        for (Entry entry : entries.values()) {
+            Address first = null;
+            for (Address account : entry.accounts) {
+                if (first == null) {
+                    first = find(parents, account);
+                } else {
+                    parents.put(find(parents, account), first);
+                }
+            }
+        }
+
+        Set<Address> dirty = new HashSet<>();
+        for (Address account : changed) {
+            markDirty(parents, dirty, account);
+        }
+        for (Address account : coinbases) {
+            markDirty(parents, dirty, account);
+        }
+        Set<ByteArrayWrapper> inPool = new HashSet<>(hashes);
+        for (Map.Entry<ByteArrayWrapper, Entry> e : entries.entrySet()) {
+            Entry entry = e.getValue();
+            if (entry.touchesCoinbase || !inPool.contains(e.getKey())) {
+                for (Address account : entry.accounts) {
+                    markDirty(parents, dirty, account);
+                }
+            }
+        }
+
+        Map<ByteArrayWrapper, Entry> kept = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            Entry entry = entries.get(hashes.get(i));
+            Address sender = pending.get(i).getSenderAddress();
+            execute[i] = entry.touchesCoinbase || dirty.contains(find(parents, sender));
+            if (!execute[i]) {
+                receipts[i] = entry.receipt;
+                kept.put(hashes.get(i), entry);
+            }
+        }
+
+        Set<Address> reused = new HashSet<>();
+        for (Address account : new ArrayList<>(parents.keySet())) {
+            if (!dirty.contains(find(parents, account))) {
+                reused.add(account);
+            }
+        }
+
+        entries = kept;
+        coinbases.clear();
+        return new Plan(execute, receipts, reused);
+    }
+
+    private static void markDirty(Map<Address, Address> parents, Set<Address> dirty, Address a) {
+        if (parents.containsKey(a)) {
+            dirty.add(find(parents, a));
+        }
+    }
+
+    /** @return the representative of the group of the given account, adding it if needed */
+    private static Address find(Map<Address, Address> parents, Address account) {
+        Address root = account;
+        Address parent;
+        while ((parent = parents.putIfAbsent(root, root)) != null && !parent.equals(root)) {
+            root = parent;
+        }
+        // compress the path for later lookups
+        Address current = account;
+        while (!current.equals(root)) {
+            Address next = parents.put(current, root);
+            current = next;
+        }
+        return root;
+    }
+
+    /** @return the accounts that may have been changed by the transactions of the block */
+    static Set<Address> changedAccounts(AionBlockSummary summary) {
+        Set<Address> changed = new HashSet<>();
+        changed.add(summary.getBlock().getCoinbase());
+        changed.addAll(summary.getRewards().keySet());
+
+        for (AionTxExecSummary txSummary : summary.getSummaries()) {
+            AionTransaction tx = txSummary.getTransaction();
+            addIfPresent(changed, tx.getSenderAddress());
+            addIfPresent(changed, tx.getDestinationAddress());
+            addIfPresent(changed, tx.getContractAddress());
+
+            for (InternalTransactionInterface itx : txSummary.getInternalTransactions()) {
+                addIfPresent(changed, itx.getSenderAddress());
+                addIfPresent(changed, itx.getDestinationAddress());
+            }
+            changed.addAll(txSummary.getDeletedAccounts());
+            for (IExecutionLog log : txSummary.getLogs()) {
+                addIfPresent(changed, log.getSourceAddress());
+            }
+        }
+        return changed;
+    }
+
+    private static void addIfPresent(Set<Address> set, Address address) {
+        if (address != null) {
+            set.add(address);
+        }
+    }
+}
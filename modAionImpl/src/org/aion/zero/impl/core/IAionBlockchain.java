@@ -43,6 +43,16 @@ public interface IAionBlockchain
      */
     List<AionBlock> getBlocksByRange(long first, long last);
 
+    /**
+     * Retrieves the receipts of all the transactions in a block, using a single read for blocks
+     * stored with a receipt bundle.
+     *
+     * @param blockHash the hash of the block
+     * @return the transaction infos in block order without the transactions embedded, or {@code
+     *     null} when the block or any of its receipts cannot be found
+     */
+    List<AionTxInfo> getTransactionInfosByBlock(byte[] blockHash);
+
     /**
      * Recovery functionality for rebuilding the world state.
      *
@@ -47,7 +47,18 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
     protected ReadWriteLock lock = new ReentrantReadWriteLock();
 
     private DataSourceArray<List<BlockInfo>> index;
+
+    /** In-memory copy of the main chain entries of {@link #index}, used by canonical lookups. */
+    private final CanonicalIndex canonical = new CanonicalIndex();
+
     private ObjectDataSource<AionBlock> blocks;
+    private ByteArrayKeyValueDatabase blocksDatabase;
+
+    /** Number of blocks moved to the freezer on each flush. */
+    private static final int FREEZE_BATCH = 1024;
+
+    private BlockFreezer freezer = null;
+    private long freezerDepth = 0;
 
     private boolean checkIntegrity = true;
 
@@ -71,6 +82,7 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
 
         this.index = new DataSourceArray<>(new ObjectDataSource<>(index, BLOCK_INFO_SERIALIZER));
 
+        this.blocksDatabase = blocks;
         this.blocks =
                 new ObjectDataSource<>(
                         blocks,
@@ -82,11 +94,100 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
 
                             @Override
                             public AionBlock deserialize(byte[] bytes) {
+                                if (bytes.length == Long.BYTES) {
+                                    return getFrozenBlock(ByteUtil.byteArrayToLong(bytes));
+                                }
                                 return new AionBlock(bytes);
                             }
                         });
     }
 
+    /**
+     * Attaches the archive holding the old main chain blocks. Blocks moved to the freezer are
+     * replaced in the blocks database by their number, and all reads by hash or number are
+     * redirected to the freezer.
+     *
+     * @param freezer the archive of frozen blocks
+     * @param depth the number of blocks below the best block kept in the blocks database; new
+     *     blocks are not moved to the freezer when zero, but the frozen ones are still readable
+     */
+    public void setFreezer(BlockFreezer freezer, long depth) {
+        lock.writeLock().lock();
+        try {
+            this.freezer = freezer;
+            this.freezerDepth = Math.max(depth, 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** @return the archive of frozen blocks, or {@code null} when the freezer is not used */
+    public BlockFreezer getFreezer() {
+        return freezer;
+    }
+
+    private AionBlock getFrozenBlock(long number) {
+        byte[] encoded = freezer == null ? null : freezer.getEncoded(number);
+        if (encoded == null) {
+            LOG.error(
+                    "Block #{} was moved to the block freezer but cannot be read from it.", number);
+            return null;
+        }
+        return new AionBlock(encoded);
+    }
+
+    /**
+     * Moves the next main chain blocks older than the freezer depth from the blocks database to the
+     * freezer.
+     *
+     * @implNote The method calling this method must handle the locking.
+     */
+    private void freezeBlocks() {
+        if (freezer == null || freezerDepth == 0) {
+            return;
+        }
+
+        long first = freezer.count();
+        long end = Math.min(index.size() - freezerDepth, first + FREEZE_BATCH);
+        if (first >= end) {
+            return;
+        }
+
+        List<byte[]> hashes = new ArrayList<>();
+        try {
+            for (long number = first; number < end; number++) {
+                byte[] hash = getBlockHashByNumber(number);
+                byte[] encoded = hash == null ? null : blocksDatabase.get(hash).orElse(null);
+                if (encoded == null || encoded.length == Long.BYTES) {
+                    // gap in the main chain, e.g. after fast sync
+                    break;
+                }
+                freezer.append(number, encoded);
+                hashes.add(hash);
+            }
+            // the blocks must be durable before being removed from the database
+            freezer.sync();
+        } catch (IOException e) {
+            LOG.error("Unable to move blocks to the block freezer.", e);
+            try {
+                freezer.truncate(first);
+            } catch (IOException ex) {
+                LOG.error("Unable to restore the block freezer.", ex);
+            }
+            return;
+        }
+
+        for (int i = 0; i < hashes.size(); i++) {
+            blocksDatabase.putToBatch(hashes.get(i), ByteUtil.longToBytes(first + i));
+        }
+        blocksDatabase.commitBatch();
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(
+                    "Moved blocks #{} to #{} to the block freezer.", first, first + hashes.size());
+        }
+    }
+
     public AionBlock getBestBlock() {
         lock.readLock().lock();
 
@@ -113,18 +214,47 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
     }
 
     public byte[] getBlockHashByNumber(long blockNumber) {
+        byte[] hash = canonical.getHash(blockNumber);
+        if (hash != null) {
+            return hash;
+        }
+
+        BlockInfo info = loadCanonicalInfo(blockNumber);
+        return info == null ? null : info.getHash();
+    }
+
+    /**
+     * Returns the main chain information at the given level, from the canonical index when cached
+     * or from the on-disk index otherwise.
+     */
+    private BlockInfo getCanonicalInfo(long number) {
+        BlockInfo info = canonical.get(number);
+        return info != null ? info : loadCanonicalInfo(number);
+    }
+
+    /**
+     * Reads the main chain information at the given level from the on-disk index and caches it in
+     * the canonical index.
+     *
+     * @return the main chain information or {@code null} when the level has no main chain block
+     */
+    private BlockInfo loadCanonicalInfo(long number) {
         lock.readLock().lock();
 
         try {
-            if (blockNumber < 0L || blockNumber >= index.size()) {
+            if (number < 0L || number >= index.size()) {
                 return null;
             }
 
-            List<BlockInfo> blockInfos = index.get(blockNumber);
+            List<BlockInfo> blockInfos = index.get(number);
+            if (blockInfos == null) {
+                return null;
+            }
 
+            canonical.update(number, blockInfos);
             for (BlockInfo blockInfo : blockInfos) {
                 if (blockInfo.isMainChain()) {
-                    return blockInfo.getHash();
+                    return blockInfo;
                 }
             }
 
@@ -140,6 +270,20 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
         try {
             blocks.flush();
             index.flush();
+            freezeBlocks();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops the in-memory copy of the main chain index. The next canonical lookups read the levels
+     * from disk, which is needed after writes to the index were lost.
+     */
+    public void clearCanonicalIndex() {
+        lock.writeLock().lock();
+        try {
+            canonical.clear();
         } finally {
             lock.writeLock().unlock();
         }
@@ -180,7 +324,7 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
         blockInfos.add(blockInfo);
 
         blocks.put(block.getHash(), block);
-        index.set(block.getNumber(), blockInfos);
+        setBlockInfoForLevel(block.getNumber(), blockInfos);
     }
 
     public List<Map.Entry<AionBlock, Map.Entry<BigInteger, Boolean>>> getBlocksByNumber(
@@ -218,25 +362,8 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
         lock.readLock().lock();
 
         try {
-            long size = index.size();
-            if (number < 0L || number >= size) {
-                return null;
-            }
-
-            List<BlockInfo> blockInfos = index.get(number);
-
-            if (blockInfos == null) {
-                return null;
-            }
-
-            for (BlockInfo blockInfo : blockInfos) {
-                if (blockInfo.isMainChain()) {
-                    byte[] hash = blockInfo.getHash();
-                    return blocks.get(hash);
-                }
-            }
-
-            return null;
+            byte[] hash = getBlockHashByNumber(number);
+            return hash == null ? null : blocks.get(hash);
         } finally {
             lock.readLock().unlock();
         }
@@ -344,21 +471,12 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
         lock.readLock().lock();
 
         try {
-            long size = index.size();
-            if (number < 0L || number >= size) {
+            BlockInfo blockInfo = getCanonicalInfo(number);
+            if (blockInfo == null) {
                 return null;
             }
 
-            List<BlockInfo> blockInfos = index.get(number);
-
-            for (BlockInfo blockInfo : blockInfos) {
-                if (blockInfo.isMainChain()) {
-                    byte[] hash = blockInfo.getHash();
-                    return Map.entry(blocks.get(hash), blockInfo.getCummDifficulty());
-                }
-            }
-
-            return null;
+            return Map.entry(blocks.get(blockInfo.getHash()), blockInfo.getCummDifficulty());
         } finally {
             lock.readLock().unlock();
         }
@@ -413,23 +531,13 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
         try {
             long maxNumber = getMaxNumber();
 
-            List<BlockInfo> blockInfos = index.get(maxNumber);
-            for (BlockInfo blockInfo : blockInfos) {
-                if (blockInfo.isMainChain()) {
-                    return blockInfo.getCummDifficulty();
-                }
-            }
-
-            while (true) {
+            BlockInfo blockInfo = getCanonicalInfo(maxNumber);
+            while (blockInfo == null && maxNumber > 0) {
                 --maxNumber;
-                List<BlockInfo> infos = getBlockInfoForLevel(maxNumber);
-
-                for (BlockInfo blockInfo : infos) {
-                    if (blockInfo.isMainChain()) {
-                        return blockInfo.getCummDifficulty();
-                    }
-                }
+                blockInfo = getCanonicalInfo(maxNumber);
             }
+
+            return blockInfo == null ? ZERO : blockInfo.getCummDifficulty();
         } finally {
             lock.readLock().unlock();
         }
@@ -696,6 +804,7 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
 
                 // remove the level
                 index.remove(currentLevel);
+                canonical.invalidate(currentLevel);
                 if (bestLine != null) {
                     bestLine = getBlockByHash(bestLine.getParentHash());
                 } else {
@@ -705,6 +814,14 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
                 --currentLevel;
             }
 
+            if (freezer != null && freezer.count() > previousLevel + 1) {
+                try {
+                    freezer.truncate(previousLevel + 1);
+                } catch (IOException e) {
+                    LOG.error("Unable to remove the reverted blocks from the block freezer.", e);
+                }
+            }
+
             if (bestLine == null) {
                 LOG.error(
                         "Block at level #"
@@ -1062,6 +1179,7 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
             // can't change size directly, so we do a put + delete the next level to reset it
             index.set(maxNumber + 1, new ArrayList<>());
             index.remove(maxNumber + 1);
+            canonical.invalidate(maxNumber + 1);
             log.info(
                     "Corrupted index size corrected from {} to {}.",
                     storedSize,
@@ -1276,6 +1394,7 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
     private void setBlockInfoForLevel(long level, List<BlockInfo> infos) {
         // locks acquired by calling method
         index.set(level, infos);
+        canonical.update(level, infos);
     }
 
     /**
@@ -1440,6 +1559,7 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
         lock.writeLock().lock();
 
         try {
+            canonical.clear();
             index.close();
         } catch (Exception e) {
             LOG.error("Not able to close the index database:", e);
@@ -1449,6 +1569,9 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
             } catch (Exception e) {
                 LOG.error("Not able to close the blocks database:", e);
             } finally {
+                if (freezer != null) {
+                    freezer.close();
+                }
                 lock.writeLock().unlock();
             }
         }
@@ -2,20 +2,33 @@ package org.aion.zero.impl.db;
 
 import static org.aion.crypto.HashUtil.EMPTY_TRIE_HASH;
 import static org.aion.crypto.HashUtil.h256;
+import static org.aion.db.impl.DatabaseFactory.Props;
+import static org.aion.mcf.db.DatabaseUtils.connectAndOpen;
 import static org.aion.util.bytes.ByteUtil.EMPTY_BYTE_ARRAY;
 import static org.aion.zero.impl.AionHub.INIT_ERROR_EXIT_CODE;
 
 import com.google.common.annotations.VisibleForTesting;
+import java.io.File;
+import java.io.IOException;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Properties;
 import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.aion.db.generic.WriteBehindPipeline;
+import org.aion.db.impl.SnapshotDatabase;
+import org.aion.db.impl.SnapshotDatabase.Snapshot;
 import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
 import org.aion.interfaces.db.ByteArrayKeyValueStore;
 import org.aion.interfaces.db.ContractDetails;
@@ -23,11 +36,14 @@ import org.aion.interfaces.db.InternalVmType;
 import org.aion.interfaces.db.Repository;
 import org.aion.interfaces.db.RepositoryCache;
 import org.aion.interfaces.db.RepositoryConfig;
+import org.aion.mcf.config.CfgDb.Names;
 import org.aion.mcf.core.AccountState;
 import org.aion.mcf.db.AbstractRepository;
 import org.aion.mcf.db.TransactionStore;
 import org.aion.mcf.ds.ObjectDataSource;
+import org.aion.mcf.ds.SnapshotDataSource;
 import org.aion.mcf.ds.XorDataSource;
+import org.aion.mcf.trie.PersistentPruneDataSource;
 import org.aion.mcf.trie.SecureTrie;
 import org.aion.mcf.trie.Trie;
 import org.aion.mcf.trie.TrieImpl;
@@ -53,6 +69,12 @@ import org.aion.zero.types.AionTxReceipt;
 public class AionRepositoryImpl
         extends AbstractRepository<AionBlock, A0BlockHeader, AionBlockStore> {
 
+    /** Minimum number of updated contracts for their storage to be prepared in parallel. */
+    private static final int PARALLEL_STORAGE_THRESHOLD = 8;
+
+    /** Directory of the block freezer inside the database directory. */
+    public static final String BLOCK_FREEZER_DIR = "freezer";
+
     private TransactionStore<AionTransaction, AionTxReceipt, AionTxInfo> transactionStore;
 
     // pending block store
@@ -64,6 +86,9 @@ public class AionRepositoryImpl
     // inferred the contract executing code not used for consensus.
     private ByteArrayKeyValueDatabase contractTransformedCode;
 
+    // tells whether the world state is complete, i.e. not being downloaded by fast sync
+    private volatile BooleanSupplier stateComplete = () -> true;
+
     /**
      * used by getSnapShotTo
      *
@@ -92,10 +117,13 @@ public class AionRepositoryImpl
             // Setup the cache for transaction data source.
             this.transactionStore =
                     new TransactionStore<>(
-                            transactionDatabase, AionTransactionStoreSerializer.serializer);
+                            transactionDatabase,
+                            AionTransactionStoreSerializer.serializer,
+                            AionTransactionStoreSerializer.infoSerializer);
 
             // Setup block store.
             this.blockStore = new AionBlockStore(indexDatabase, blockDatabase, checkIntegrity);
+            initializeBlockFreezer();
 
             this.pendingStore = new PendingBlockStore(pendingStoreProperties);
             this.contractInfoSource =
@@ -114,6 +142,21 @@ public class AionRepositoryImpl
         }
     }
 
+    /**
+     * Attaches the block freezer to the block store when it is enabled or when blocks were moved to
+     * it by a previous run, since those blocks are no longer in the block database.
+     */
+    private void initializeBlockFreezer() throws IOException {
+        if (!Boolean.valueOf(cfg.getDatabaseConfig(Names.DEFAULT).getProperty(Props.PERSISTENT))) {
+            return;
+        }
+
+        File dir = new File(cfg.getDbPath(), BLOCK_FREEZER_DIR);
+        if (blockFreezerDepth > 0 || dir.exists()) {
+            blockStore.setFreezer(new BlockFreezer(dir), blockFreezerDepth);
+        }
+    }
+
     public PendingBlockStore getPendingBlockStore() {
         return this.pendingStore;
     }
@@ -133,10 +176,40 @@ public class AionRepositoryImpl
         rwLock.writeLock().lock();
 
         try {
-            for (Map.Entry<Address, AccountState> entry : stateCache.entrySet()) {
-                Address address = entry.getKey();
-                AccountState accountState = entry.getValue();
+            // the world state is updated in address order, independent of the map implementation
+            List<Address> addresses = new ArrayList<>(stateCache.keySet());
+            addresses.sort((a, b) -> Arrays.compareUnsigned(a.toBytes(), b.toBytes()));
+
+            // contracts whose storage must be committed, indexed like the addresses
+            ContractDetails[] storage = new ContractDetails[addresses.size()];
+            byte[][] storageRoots = new byte[addresses.size()][];
+            List<Integer> updated = new ArrayList<>();
+            for (int i = 0; i < addresses.size(); i++) {
+                Address address = addresses.get(i);
                 ContractDetails contractDetails = detailsCache.get(address);
+                if (!stateCache.get(address).isDeleted()
+                        && contractDetails.isDirty()
+                        && (contractDetails.getVmType() != InternalVmType.EITHER
+                                || ContractFactory.isPrecompiledContract(address))) {
+                    storage[i] = contractDetails;
+                    updated.add(i);
+                }
+            }
+
+            // the storage tries are independent of each other and of the world state
+            IntStream indexes = updated.stream().mapToInt(Integer::intValue);
+            if (updated.size() >= PARALLEL_STORAGE_THRESHOLD) {
+                indexes = indexes.parallel();
+            }
+            indexes.forEach(
+                    i -> {
+                        storage[i] = prepareStorage(addresses.get(i), storage[i]);
+                        storageRoots[i] = storage[i].getStorageHash();
+                    });
+
+            for (int i = 0; i < addresses.size(); i++) {
+                Address address = addresses.get(i);
+                AccountState accountState = stateCache.get(address);
 
                 if (accountState.isDeleted()) {
                     // TODO-A: batch operations here
@@ -148,52 +221,28 @@ public class AionRepositoryImpl
                     if (LOG.isDebugEnabled()) {
                         LOG.debug("key deleted <key={}>", Hex.toHexString(address.toBytes()));
                     }
-                } else {
-
-                    if (!contractDetails.isDirty()
-                            || (contractDetails.getVmType() == InternalVmType.EITHER
-                                    && !ContractFactory.isPrecompiledContract(address))) {
-                        // code added because contract details are not reliably
-                        // marked as dirty at present
-                        // TODO: issue above will be solved with the conversion to a
-                        // ContractState class
-                        if (accountState.isDirty()) {
-                            updateAccountState(address, accountState);
-
-                            if (LOG.isTraceEnabled()) {
-                                LOG.trace(
-                                        "update: [{}],nonce: [{}] balance: [{}] [{}]",
-                                        Hex.toHexString(address.toBytes()),
-                                        accountState.getNonce(),
-                                        accountState.getBalance(),
-                                        Hex.toHexString(contractDetails.getStorageHash()));
-                            }
-                        }
-                        continue;
-                    }
-
-                    ContractDetailsCacheImpl contractDetailsCache =
-                            (ContractDetailsCacheImpl) contractDetails;
-                    if (contractDetailsCache.origContract == null) {
-                        contractDetailsCache.origContract = this.cfg.contractDetailsImpl();
-
-                        try {
-                            contractDetailsCache.origContract.setAddress(address);
-                        } catch (Exception e) {
-                            e.printStackTrace();
-                            LOG.error(
-                                    "contractDetailsCache setAddress exception [{}]", e.toString());
+                } else if (storage[i] == null) {
+                    // code added because contract details are not reliably
+                    // marked as dirty at present
+                    // TODO: issue above will be solved with the conversion to a
+                    // ContractState class
+                    if (accountState.isDirty()) {
+                        updateAccountState(address, accountState);
+
+                        if (LOG.isTraceEnabled()) {
+                            LOG.trace(
+                                    "update: [{}],nonce: [{}] balance: [{}] [{}]",
+                                    Hex.toHexString(address.toBytes()),
+                                    accountState.getNonce(),
+                                    accountState.getBalance(),
+                                    Hex.toHexString(detailsCache.get(address).getStorageHash()));
                         }
-
-                        contractDetailsCache.commit();
                     }
-
-                    contractDetails = contractDetailsCache.origContract;
-
-                    updateContractDetails(address, contractDetails);
+                } else {
+                    updateContractDetails(address, storage[i]);
 
                     if (!Arrays.equals(accountState.getCodeHash(), EMPTY_TRIE_HASH)) {
-                        accountState.setStateRoot(contractDetails.getStorageHash());
+                        accountState.setStateRoot(storageRoots[i]);
                     }
 
                     updateAccountState(address, accountState);
@@ -204,7 +253,7 @@ public class AionRepositoryImpl
                                 Hex.toHexString(address.toBytes()),
                                 accountState.getNonce(),
                                 accountState.getBalance(),
-                                Hex.toHexString(contractDetails.getStorageHash()));
+                                Hex.toHexString(storageRoots[i]));
                     }
                 }
             }
@@ -219,7 +268,35 @@ public class AionRepositoryImpl
         }
     }
 
-    /** @implNote The method calling this method must handle the locking. */
+    /**
+     * Commits the cached storage of a contract into the details that will be persisted and computes
+     * their encoding, which includes the storage root.
+     *
+     * @implNote Only touches the given contract, so it may run concurrently for different
+     *     contracts. Writes to the shared databases are left to {@link #updateContractDetails}.
+     * @return the contract details to be persisted
+     */
+    private ContractDetails prepareStorage(Address address, ContractDetails contractDetails) {
+        ContractDetailsCacheImpl contractDetailsCache = (ContractDetailsCacheImpl) contractDetails;
+        if (contractDetailsCache.origContract == null) {
+            contractDetailsCache.origContract = this.cfg.contractDetailsImpl();
+
+            try {
+                contractDetailsCache.origContract.setAddress(address);
+            } catch (Exception e) {
+                e.printStackTrace();
+                LOG.error("contractDetailsCache setAddress exception [{}]", e.toString());
+            }
+
+            contractDetailsCache.commit();
+        }
+
+        ContractDetails details = contractDetailsCache.origContract;
+        details.setAddress(address);
+        details.getEncoded();
+        return details;
+    }
+
     private void updateContractDetails(
             final Address address, final ContractDetails contractDetails) {
         // locked by calling method
@@ -622,6 +699,54 @@ public class AionRepositoryImpl
         return pruneEnabled && !stateDSPrune.isArchiveEnabled();
     }
 
+    /**
+     * Sets the check telling whether the world state is complete. The state garbage collection does
+     * not run while the state is incomplete, since the nodes downloaded from peers are not inserted
+     * through the pruned data sources.
+     */
+    public void setStateCompleteCheck(BooleanSupplier check) {
+        this.stateComplete = check;
+    }
+
+    /** @return {@code false} while the world state is being downloaded from peers */
+    public boolean isStateComplete() {
+        return stateComplete.getAsBoolean();
+    }
+
+    /**
+     * Creates the collector deleting the state left behind by pruning, with its own database for
+     * the marked nodes.
+     *
+     * @return the collector, or {@code null} when the state is not pruned
+     */
+    public StateGarbageCollector createStateGarbageCollector() {
+        if (!pruneEnabled) {
+            return null;
+        }
+
+        Properties props = cfg.getDatabaseConfig(STATE_GC_DB);
+        props.setProperty(Props.DB_PATH, cfg.getDbPath());
+        props.setProperty(Props.DB_NAME, STATE_GC_DB);
+        ByteArrayKeyValueDatabase marks = connectAndOpen(props, LOG);
+        if (marks == null || marks.isClosed()) {
+            LOG.error(
+                    "Could not open the {} database for the state garbage collection.",
+                    STATE_GC_DB);
+            return null;
+        }
+
+        return new StateGarbageCollector(
+                this,
+                stateDSPrune,
+                detailsDS.getStorageDSPrune(),
+                stateDatabase,
+                storageDatabase,
+                detailsDatabase,
+                graphDatabase,
+                marks,
+                rwLock.writeLock());
+    }
+
     public Trie getWorldState() {
         return worldState;
     }
@@ -646,6 +771,7 @@ public class AionRepositoryImpl
             repo.archiveRate = this.archiveRate;
 
             repo.detailsDS = this.detailsDS;
+            repo.importPipeline = this.importPipeline;
             repo.isSnapshot = true;
 
             repo.worldState = repo.createStateTrie();
@@ -660,6 +786,34 @@ public class AionRepositoryImpl
         }
     }
 
+    /**
+     * Applies the given reader to a repository snapshot at the given state root whose world state
+     * is read from a snapshot of the state database, when the database supports snapshots. The
+     * state nodes seen by the reader cannot be pruned while it runs and the reads do not contend
+     * with the writes of block imports. Falls back to {@link #getSnapshotTo(byte[])} otherwise.
+     *
+     * @implNote Only the world state is read from the database snapshot. Contract storage and
+     *     details are read from the live databases, as in {@link #getSnapshotTo(byte[])}.
+     */
+    public <T> T readSnapshotTo(byte[] root, Function<Repository, T> reader) {
+        if (stateDatabase instanceof SnapshotDatabase) {
+            Snapshot snapshot;
+            try {
+                snapshot = ((SnapshotDatabase) stateDatabase).takeSnapshot();
+            } catch (UnsupportedOperationException e) {
+                return reader.apply(getSnapshotTo(root));
+            }
+
+            try (SnapshotDataSource source = new SnapshotDataSource(snapshot, stateDSPrune)) {
+                AionRepositoryImpl repo = (AionRepositoryImpl) getSnapshotTo(root);
+                repo.worldState = new SecureTrie(source);
+                repo.worldState.setRoot(root);
+                return reader.apply(repo);
+            }
+        }
+        return reader.apply(getSnapshotTo(root));
+    }
+
     @Override
     public void addTxBatch(Map<byte[], byte[]> pendingTx, boolean isPool) {
 
@@ -703,6 +857,25 @@ public class AionRepositoryImpl
     public void close() {
         rwLock.writeLock().lock();
         try {
+            try {
+                // the pruning thread writes to the state database
+                if (stateDSPrune instanceof PersistentPruneDataSource) {
+                    ((PersistentPruneDataSource) stateDSPrune).stopPruning();
+                    LOGGEN.info("State pruning stopped.");
+                }
+            } catch (Exception e) {
+                LOGGEN.error("Exception occurred while stopping the state pruning.", e);
+            }
+
+            try {
+                if (importPipeline != null) {
+                    importPipeline.close();
+                    LOGGEN.info("Import pipeline closed.");
+                }
+            } catch (Exception e) {
+                LOGGEN.error("Exception occurred while closing the import pipeline.", e);
+            }
+
             try {
                 if (detailsDS != null) {
                     detailsDS.close();
@@ -744,6 +917,16 @@ public class AionRepositoryImpl
                 LOGGEN.error("Exception occurred while closing the state archive database.", e);
             }
 
+            try {
+                if (pruneJournalDatabase != null) {
+                    pruneJournalDatabase.close();
+                    LOGGEN.info("Prune journal database closed.");
+                    pruneJournalDatabase = null;
+                }
+            } catch (Exception e) {
+                LOGGEN.error("Exception occurred while closing the prune journal database.", e);
+            }
+
             try {
                 if (transactionDatabase != null) {
                     transactionDatabase.close();
@@ -822,6 +1005,11 @@ public class AionRepositoryImpl
         return this.stateDatabase;
     }
 
+    /** @return the pipeline writing the block data, or {@code null} when it is not enabled */
+    public WriteBehindPipeline getImportPipeline() {
+        return this.importPipeline;
+    }
+
     public ByteArrayKeyValueDatabase getStateArchiveDatabase() {
         return this.stateArchiveDatabase;
     }
@@ -942,6 +1130,78 @@ public class AionRepositoryImpl
         }
     }
 
+    /**
+     * Retrieves the keys of the nodes that are missing from the trie below the given node.
+     *
+     * @param key the hash key of a trie node stored in the database
+     * @param dbType the database where the trie is stored
+     * @return the keys of the nodes referenced by stored nodes that are missing from the database
+     * @implNote The walk stops at missing nodes, so its cost grows with the stored part of the trie
+     *     below the given node.
+     */
+    public Set<ByteArrayWrapper> getMissingTrieNodes(byte[] key, DatabaseType dbType) {
+        ByteArrayKeyValueDatabase db = selectDatabase(dbType);
+
+        Trie trie = new TrieImpl(db);
+        return trie.getMissingNodes(key);
+    }
+
+    /**
+     * Retrieves the keys of the storage trie nodes of the given contract that are missing from the
+     * database, starting from the storage root in the stored details of the contract.
+     *
+     * @param contract the contract that owns the storage trie
+     * @return the keys under which the missing nodes are stored in the storage database, or an
+     *     empty set when the details are not stored or keep the storage in their encoding
+     * @implNote The storage root of AVM contracts is only reachable through the object graph
+     *     database, so their storage is not walked.
+     */
+    public Set<ByteArrayWrapper> getMissingStorageNodes(Address contract) {
+        Optional<byte[]> details = detailsDatabase.get(contract.toBytes());
+        if (!details.isPresent()) {
+            return Collections.emptySet();
+        }
+
+        // { 0:address, 1:isExternalStorage, 2:storageRoot, 3:storage, 4:code, 5:vmType }
+        RLPList encoding = (RLPList) RLP.decode2(details.get()).get(0);
+        boolean externalStorage = encoding.get(1).getRLPData().length > 0;
+        if (!externalStorage
+                || encoding.size() > 5
+                        && InternalVmType.getInstance(encoding.get(5).getRLPData()[0])
+                                == InternalVmType.AVM) {
+            return Collections.emptySet();
+        }
+
+        byte[] root = encoding.get(2).getRLPData();
+        if (Arrays.equals(root, EMPTY_TRIE_HASH)) {
+            return Collections.emptySet();
+        }
+        return getMissingStorageNodes(
+                contract, ByteUtil.xorAlignRight(root, storageSubKey(contract)));
+    }
+
+    /**
+     * Retrieves the keys of the storage trie nodes of the given contract that are missing from the
+     * database below the given node.
+     *
+     * @param contract the contract that owns the storage trie
+     * @param key the key under which a node of the storage trie is stored in the storage database
+     * @return the keys under which the missing nodes are stored in the storage database
+     */
+    public Set<ByteArrayWrapper> getMissingStorageNodes(Address contract, byte[] key) {
+        byte[] subKey = storageSubKey(contract);
+
+        Trie trie = new TrieImpl(new XorDataSource(selectDatabase(DatabaseType.STORAGE), subKey));
+        return trie.getMissingNodes(ByteUtil.xorAlignRight(key, subKey)).stream()
+                .map(k -> ByteArrayWrapper.wrap(ByteUtil.xorAlignRight(k.getData(), subKey)))
+                .collect(Collectors.toSet());
+    }
+
+    /** @return the key mixed into the keys of the storage trie nodes of the given contract */
+    private static byte[] storageSubKey(Address contract) {
+        return h256(("details-storage/" + contract.toString()).getBytes());
+    }
+
     @VisibleForTesting
     public byte[] dumpImportableState(byte[] root, int limit, DatabaseType dbType) {
         Map<ByteArrayWrapper, byte[]> refs = getReferencedTrieNodes(root, limit, dbType);
@@ -973,7 +1233,7 @@ public class AionRepositoryImpl
         if (limit <= 0) {
             return Collections.emptyList();
         } else {
-            byte[] subKey = h256(("details-storage/" + contract.toString()).getBytes());
+            byte[] subKey = storageSubKey(contract);
 
             ByteArrayKeyValueStore db =
                     new XorDataSource(selectDatabase(DatabaseType.STORAGE), subKey);
@@ -1015,6 +1275,66 @@ public class AionRepositoryImpl
      *     supported
      */
     public TrieNodeResult importTrieNode(byte[] key, byte[] value, DatabaseType dbType) {
+        ByteArrayKeyValueDatabase db = selectDatabase(dbType);
+
+        TrieNodeResult result = checkTrieNode(db, key, value, false);
+        if (result == TrieNodeResult.IMPORTED) {
+            db.put(key, value);
+        }
+        return result;
+    }
+
+    /**
+     * Imports a batch of trie nodes to the indicated blockchain database. The nodes are checked in
+     * parallel and the valid ones are written together in a single batch.
+     *
+     * @param nodes the key-value pairs of the trie nodes to be imported
+     * @param dbType the database where the key-value pairs should be stored
+     * @return a {@link TrieNodeResult} for each of the given keys indicating the success or failure
+     *     of its import
+     * @throws IllegalArgumentException if the database type is not supported
+     * @implNote The keys of state trie nodes must be the hashes of their values. The keys of the
+     *     other databases are not verified since they are not stored as plain hashes.
+     */
+    public Map<ByteArrayWrapper, TrieNodeResult> importTrieNodes(
+            Map<ByteArrayWrapper, byte[]> nodes, DatabaseType dbType) {
+        ByteArrayKeyValueDatabase db = selectDatabase(dbType);
+        boolean verifyHash = dbType == DatabaseType.STATE;
+
+        // the checks are independent of each other and dominated by hashing
+        Map<ByteArrayWrapper, TrieNodeResult> results =
+                nodes.entrySet()
+                        .parallelStream()
+                        .collect(
+                                Collectors.toMap(
+                                        Map.Entry::getKey,
+                                        e ->
+                                                checkTrieNode(
+                                                        db,
+                                                        e.getKey().getData(),
+                                                        e.getValue(),
+                                                        verifyHash)));
+
+        Map<byte[], byte[]> batch = new HashMap<>();
+        for (Map.Entry<ByteArrayWrapper, TrieNodeResult> e : results.entrySet()) {
+            if (e.getValue() == TrieNodeResult.IMPORTED) {
+                batch.put(e.getKey().getData(), nodes.get(e.getKey()));
+            }
+        }
+        if (!batch.isEmpty()) {
+            db.putBatch(batch);
+        }
+        return results;
+    }
+
+    /**
+     * Checks if the trie node can be imported to the given database.
+     *
+     * @return {@link TrieNodeResult#IMPORTED} if the node is valid and not stored yet, or the
+     *     reason why it cannot be imported otherwise
+     */
+    private static TrieNodeResult checkTrieNode(
+            ByteArrayKeyValueDatabase db, byte[] key, byte[] value, boolean verifyHash) {
         // empty keys are not allowed
         if (key == null || key.length != V1Constants.HASH_SIZE) {
             return TrieNodeResult.INVALID_KEY;
@@ -1025,7 +1345,9 @@ public class AionRepositoryImpl
             return TrieNodeResult.INVALID_VALUE;
         }
 
-        ByteArrayKeyValueDatabase db = selectDatabase(dbType);
+        if (verifyHash && !Arrays.equals(key, h256(value))) {
+            return TrieNodeResult.INVALID_KEY;
+        }
 
         Optional<byte[]> stored = db.get(key);
         if (stored.isPresent()) {
@@ -1036,7 +1358,6 @@ public class AionRepositoryImpl
             }
         }
 
-        db.put(key, value);
         return TrieNodeResult.IMPORTED;
     }
 
@@ -37,4 +37,18 @@ public class AionTransactionStoreSerializer {
                     }
                 }
             };
+
+    /** Serializer for the entries of the per block receipt bundles. */
+    public static final Serializer<AionTxInfo, byte[]> infoSerializer =
+            new Serializer<>() {
+                @Override
+                public byte[] serialize(AionTxInfo object) {
+                    return object.getEncoded();
+                }
+
+                @Override
+                public AionTxInfo deserialize(byte[] stream) {
+                    return new AionTxInfo(stream);
+                }
+            };
 }
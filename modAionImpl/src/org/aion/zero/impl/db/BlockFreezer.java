@@ -0,0 +1,350 @@
+package org.aion.zero.impl.db;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.slf4j.Logger;
+
+/**
+ * Append-only archive for the encodings of old main chain blocks.
+ *
+ * <p>Blocks are stored in order of their number in segment files of {@link #SEGMENT_BLOCKS} blocks.
+ * Each segment has a data file with the concatenated encodings and an index file with a fixed-width
+ * entry per block holding the offset and length of its encoding. Reads go through memory mappings
+ * of both files, so the encoding of a block can be accessed without copying.
+ *
+ * <p>The freezer only holds the contiguous range of blocks {@code [0, count())}. Entries that were
+ * partially written before a crash are discarded when the freezer is opened.
+ *
+ * @implNote Appending and truncating must not run concurrently with reads. The block store calls
+ *     them while holding its write lock.
+ */
+public final class BlockFreezer implements Closeable {
+
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.DB.name());
+
+    /** Number of blocks stored in each segment. */
+    static final int SEGMENT_BLOCKS = 65_536;
+
+    /** Index entry: offset (int) and length (int) of the encoding in the data file. */
+    private static final int ENTRY_SIZE = 2 * Integer.BYTES;
+
+    private final File dir;
+
+    private final List<Segment> segments = new ArrayList<>();
+
+    private volatile long count;
+
+    public BlockFreezer(File dir) throws IOException {
+        this.dir = dir;
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Unable to create the block freezer directory " + dir);
+        }
+        open();
+    }
+
+    private void open() throws IOException {
+        long total = 0;
+        for (int id = 0; ; id++) {
+            File data = dataFile(id);
+            if (!data.exists()) {
+                break;
+            }
+
+            Segment segment = new Segment(id);
+            segments.add(segment);
+            total += segment.entries;
+
+            // only the last segment may be incomplete
+            if (segment.entries < SEGMENT_BLOCKS) {
+                break;
+            }
+        }
+        count = total;
+
+        // remove any segment after an incomplete one
+        for (int id = segments.size(); dataFile(id).exists(); id++) {
+            LOG.warn("Removing block freezer segment {} after an incomplete segment.", id);
+            deleteFiles(id);
+        }
+
+        if (segments.isEmpty()) {
+            segments.add(new Segment(0));
+        }
+
+        LOG.info("Block freezer at {} holds {} blocks.", dir, count);
+    }
+
+    /** @return the number of frozen blocks, which are the blocks {@code [0, count())} */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Appends the encoding of the next block. The data is made durable by {@link #sync()}.
+     *
+     * @param number the number of the block, which must be equal to {@link #count()}
+     * @param encoded the encoding of the block
+     */
+    public void append(long number, byte[] encoded) throws IOException {
+        if (number != count) {
+            throw new IllegalArgumentException(
+                    "Cannot freeze block " + number + " when the next block is " + count + ".");
+        }
+
+        Segment segment = segments.get(segments.size() - 1);
+        if (segment.entries == SEGMENT_BLOCKS) {
+            segment.sync();
+            segment = new Segment(segments.size());
+            segments.add(segment);
+        }
+
+        segment.append(encoded);
+        count = number + 1;
+    }
+
+    /** Forces the appended blocks to disk. */
+    public void sync() throws IOException {
+        segments.get(segments.size() - 1).sync();
+    }
+
+    /**
+     * Returns a read-only view of the encoding of the given block from the memory mapped data file,
+     * without copying it.
+     *
+     * @return the encoding or {@code null} if the block is not frozen
+     */
+    public ByteBuffer getEncodedBuffer(long number) {
+        if (number < 0 || number >= count) {
+            return null;
+        }
+
+        Segment segment = segments.get((int) (number / SEGMENT_BLOCKS));
+        try {
+            return segment.read((int) (number % SEGMENT_BLOCKS));
+        } catch (IOException e) {
+            LOG.error("Unable to read block " + number + " from the block freezer.", e);
+            return null;
+        }
+    }
+
+    /** @return a copy of the encoding of the given block or {@code null} if it is not frozen */
+    public byte[] getEncoded(long number) {
+        ByteBuffer buffer = getEncodedBuffer(number);
+        if (buffer == null) {
+            return null;
+        }
+
+        byte[] encoded = new byte[buffer.remaining()];
+        buffer.get(encoded);
+        return encoded;
+    }
+
+    /**
+     * Removes the blocks with numbers greater than or equal to the given one.
+     *
+     * @param number the number of the first block to remove
+     */
+    public void truncate(long number) throws IOException {
+        if (number < 0 || number >= count) {
+            return;
+        }
+
+        int keepSegments = (int) (number / SEGMENT_BLOCKS) + 1;
+        while (segments.size() > keepSegments) {
+            Segment last = segments.remove(segments.size() - 1);
+            last.close();
+            deleteFiles(last.id);
+        }
+
+        segments.get(keepSegments - 1).truncate((int) (number % SEGMENT_BLOCKS));
+        count = number;
+    }
+
+    /** @return the total size in bytes of the freezer files */
+    public long sizeOnDisk() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += dataFile(segment.id).length() + indexFile(segment.id).length();
+        }
+        return size;
+    }
+
+    @Override
+    public void close() {
+        for (Segment segment : segments) {
+            try {
+                segment.sync();
+                segment.close();
+            } catch (IOException e) {
+                LOG.error("Unable to close block freezer segment " + segment.id + ".", e);
+            }
+        }
+        segments.clear();
+    }
+
+    private File dataFile(int id) {
+        return new File(dir, String.format("%06d.dat", id));
+    }
+
+    private File indexFile(int id) {
+        return new File(dir, String.format("%06d.idx", id));
+    }
+
+    private void deleteFiles(int id) throws IOException {
+        if (!dataFile(id).delete() || (indexFile(id).exists() && !indexFile(id).delete())) {
+            throw new IOException("Unable to delete block freezer segment " + id + ".");
+        }
+    }
+
+    /** A data file and its index file, mapped for reading on demand. */
+    private final class Segment {
+        private final int id;
+        private final FileChannel data;
+        private final FileChannel index;
+
+        private int entries;
+        private int dataEnd;
+
+        private volatile MappedByteBuffer dataMap;
+        private volatile MappedByteBuffer indexMap;
+
+        private Segment(int id) throws IOException {
+            this.id = id;
+            this.data = openChannel(dataFile(id));
+            this.index = openChannel(indexFile(id));
+            recover();
+        }
+
+        private FileChannel openChannel(File file) throws IOException {
+            return FileChannel.open(
+                    file.toPath(),
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+        }
+
+        /** Drops the index entries and data that were not completely written. */
+        private void recover() throws IOException {
+            int n = (int) Math.min(index.size() / ENTRY_SIZE, SEGMENT_BLOCKS);
+            ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+            long dataSize = data.size();
+
+            int end = 0;
+            int valid = 0;
+            for (int i = 0; i < n; i++) {
+                entry.clear();
+                index.read(entry, (long) i * ENTRY_SIZE);
+                int offset = entry.getInt(0);
+                int length = entry.getInt(Integer.BYTES);
+                if (offset != end || length < 0 || (long) offset + length > dataSize) {
+                    break;
+                }
+                end = offset + length;
+                valid++;
+            }
+
+            if (valid < n || index.size() != (long) valid * ENTRY_SIZE || dataSize != end) {
+                LOG.warn("Discarding incomplete writes from block freezer segment {}.", id);
+                index.truncate((long) valid * ENTRY_SIZE);
+                data.truncate(end);
+            }
+
+            entries = valid;
+            dataEnd = end;
+        }
+
+        private void append(byte[] encoded) throws IOException {
+            if ((long) dataEnd + encoded.length > Integer.MAX_VALUE) {
+                throw new IOException("Block freezer segment " + id + " is full.");
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(encoded);
+            while (buffer.hasRemaining()) {
+                data.write(buffer, dataEnd + buffer.position());
+            }
+
+            ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+            entry.putInt(dataEnd).putInt(encoded.length).flip();
+            while (entry.hasRemaining()) {
+                index.write(entry, (long) entries * ENTRY_SIZE + entry.position());
+            }
+
+            dataEnd += encoded.length;
+            entries++;
+        }
+
+        private ByteBuffer read(int position) throws IOException {
+            MappedByteBuffer indexMap = this.indexMap;
+            long entryEnd = (long) (position + 1) * ENTRY_SIZE;
+            if (indexMap == null || indexMap.capacity() < entryEnd) {
+                indexMap = remapIndex(entryEnd);
+            }
+            int offset = indexMap.getInt(position * ENTRY_SIZE);
+            int length = indexMap.getInt(position * ENTRY_SIZE + Integer.BYTES);
+
+            MappedByteBuffer dataMap = this.dataMap;
+            if (dataMap == null || dataMap.capacity() < (long) offset + length) {
+                dataMap = remapData((long) offset + length);
+            }
+
+            ByteBuffer view = dataMap.duplicate();
+            view.position(offset).limit(offset + length);
+            return view.slice().asReadOnlyBuffer();
+        }
+
+        private synchronized MappedByteBuffer remapIndex(long required) throws IOException {
+            if (indexMap == null || indexMap.capacity() < required) {
+                indexMap = index.map(MapMode.READ_ONLY, 0, (long) entries * ENTRY_SIZE);
+            }
+            return indexMap;
+        }
+
+        private synchronized MappedByteBuffer remapData(long required) throws IOException {
+            if (dataMap == null || dataMap.capacity() < required) {
+                dataMap = data.map(MapMode.READ_ONLY, 0, dataEnd);
+            }
+            return dataMap;
+        }
+
+        private void truncate(int keep) throws IOException {
+            int end = keep > 0 ? (int) dataEndOf(keep - 1) : 0;
+
+            // drop the mappings before shrinking the files
+            indexMap = null;
+            dataMap = null;
+
+            index.truncate((long) keep * ENTRY_SIZE);
+            data.truncate(end);
+            entries = keep;
+            dataEnd = end;
+        }
+
+        private long dataEndOf(int position) throws IOException {
+            ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+            index.read(entry, (long) position * ENTRY_SIZE);
+            return (long) entry.getInt(0) + entry.getInt(Integer.BYTES);
+        }
+
+        private void sync() throws IOException {
+            data.force(false);
+            index.force(false);
+        }
+
+        private void close() throws IOException {
+            indexMap = null;
+            dataMap = null;
+            data.close();
+            index.close();
+        }
+    }
+}
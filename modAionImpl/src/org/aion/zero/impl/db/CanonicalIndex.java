@@ -0,0 +1,223 @@
+package org.aion.zero.impl.db;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import org.aion.zero.impl.db.AionBlockStore.BlockInfo;
+
+/**
+ * In-memory index of the main chain from block number to block hash and total difficulty.
+ *
+ * <p>The entries are kept in pages of primitive longs, {@link #ENTRY_LONGS} per block: four for the
+ * 32-byte hash and one for the total difficulty. Lookups do not decode anything and do not block:
+ * they copy the entry during an optimistic read and only take the read lock when a write happened
+ * at the same time.
+ *
+ * <p>Levels that were not loaded yet, levels without a main chain block and blocks with a total
+ * difficulty that does not fit in a long are not cached. Lookups return {@code null} for them and
+ * the caller must read the on-disk index instead.
+ *
+ * @implNote The block store updates the entries while holding its write lock, so entries loaded
+ *     from disk under its read lock cannot overwrite a newer update.
+ */
+final class CanonicalIndex {
+
+    /** Number of blocks in each page. */
+    static final int PAGE_BLOCKS = 1 << 14;
+
+    /** Longs per entry: the hash followed by the total difficulty. */
+    private static final int ENTRY_LONGS = 5;
+
+    private static final int HASH_LONGS = 4;
+    private static final int HASH_LENGTH = HASH_LONGS * Long.BYTES;
+
+    /** The difficulty slot holds {@code td + 1}, so zero-filled pages read as not cached. */
+    private static final long NOT_CACHED = 0L;
+
+    private final StampedLock lock = new StampedLock();
+
+    private volatile long[][] pages = new long[0][];
+
+    /**
+     * Returns the hash of the main chain block at the given level.
+     *
+     * @return the hash or {@code null} when the level is not cached
+     */
+    byte[] getHash(long number) {
+        long stamp = lock.tryOptimisticRead();
+        byte[] hash = readHash(number);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                hash = readHash(number);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the hash and total difficulty of the main chain block at the given level.
+     *
+     * @return the main chain information or {@code null} when the level is not cached
+     */
+    BlockInfo get(long number) {
+        byte[] hash = new byte[HASH_LENGTH];
+        long stamp = lock.tryOptimisticRead();
+        long td = read(number, hash);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                td = read(number, hash);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        if (td == NOT_CACHED) {
+            return null;
+        }
+
+        BlockInfo info = new BlockInfo();
+        info.setHash(hash);
+        info.setCummDifficulty(BigInteger.valueOf(td - 1));
+        info.setMainChain(true);
+        return info;
+    }
+
+    /** Caches the main chain block of the given level or clears the level if it has none. */
+    void update(long number, List<BlockInfo> infos) {
+        if (number < 0) {
+            return;
+        }
+
+        BlockInfo main = null;
+        if (infos != null) {
+            for (BlockInfo info : infos) {
+                if (info.isMainChain()) {
+                    main = info;
+                    break;
+                }
+            }
+        }
+
+        if (main == null
+                || main.getHash() == null
+                || main.getHash().length != HASH_LENGTH
+                || main.getCummDifficulty() == null
+                || main.getCummDifficulty().signum() < 0
+                || main.getCummDifficulty().bitLength() >= Long.SIZE - 1) {
+            invalidate(number);
+            return;
+        }
+
+        byte[] hash = main.getHash();
+        long td = main.getCummDifficulty().longValue() + 1;
+        long stamp = lock.writeLock();
+        try {
+            long[] page = page(number, true);
+            int offset = offset(number);
+            for (int i = 0; i < HASH_LONGS; i++) {
+                page[offset + i] = toLong(hash, i * Long.BYTES);
+            }
+            page[offset + HASH_LONGS] = td;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /** Marks the given level as not cached. */
+    void invalidate(long number) {
+        long stamp = lock.writeLock();
+        try {
+            long[] page = page(number, false);
+            if (page != null) {
+                page[offset(number) + HASH_LONGS] = NOT_CACHED;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /** Marks all the levels as not cached. */
+    void clear() {
+        long stamp = lock.writeLock();
+        try {
+            pages = new long[0][];
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private byte[] readHash(long number) {
+        byte[] hash = new byte[HASH_LENGTH];
+        return read(number, hash) == NOT_CACHED ? null : hash;
+    }
+
+    /**
+     * Copies the hash of the given level into the buffer.
+     *
+     * @return the difficulty slot of the entry, possibly inconsistent with the hash when read
+     *     without a lock
+     */
+    private long read(long number, byte[] hash) {
+        long[] page = page(number, false);
+        if (page == null) {
+            return NOT_CACHED;
+        }
+        int offset = offset(number);
+        long td = page[offset + HASH_LONGS];
+        if (td != NOT_CACHED) {
+            for (int i = 0; i < HASH_LONGS; i++) {
+                fromLong(page[offset + i], hash, i * Long.BYTES);
+            }
+        }
+        return td;
+    }
+
+    /**
+     * @return the page holding the given level or {@code null} when it does not exist and is not
+     *     created
+     * @implNote Pages may only be created while holding the write lock.
+     */
+    private long[] page(long number, boolean create) {
+        if (number < 0) {
+            return null;
+        }
+        long[][] current = pages;
+        long id = number / PAGE_BLOCKS;
+        long[] page = id < current.length ? current[(int) id] : null;
+        if (page != null || !create) {
+            return page;
+        }
+
+        // only the pages of levels in use are allocated
+        if (id >= current.length) {
+            current = Arrays.copyOf(current, (int) id + 1);
+        }
+        page = new long[PAGE_BLOCKS * ENTRY_LONGS];
+        current[(int) id] = page;
+        pages = current;
+        return page;
+    }
+
+    private static int offset(long number) {
+        return (int) (number % PAGE_BLOCKS) * ENTRY_LONGS;
+    }
+
+    private static long toLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFFL);
+        }
+        return value;
+    }
+
+    private static void fromLong(long value, byte[] bytes, int offset) {
+        for (int i = Long.BYTES - 1; i >= 0; i--) {
+            bytes[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.aion.zero.impl.db;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.aion.interfaces.db.ContractDetails;
+import org.aion.interfaces.db.Repository;
+import org.aion.mcf.core.AccountState;
+import org.aion.types.Address;
+
+/**
+ * Repository cache that records the accounts read or written through it while a recording is
+ * active. Child caches load and flush accounts through this object, so the recording also covers
+ * executions on tracking caches started from it.
+ *
+ * <p>Used by the pending state to learn the accounts each pending transaction depends on.
+ */
+public class RecordingRepositoryCache extends AionRepositoryCache {
+
+    private volatile Set<Address> recorded = null;
+
+    public RecordingRepositoryCache(final Repository trackedRepository) {
+        super(trackedRepository);
+    }
+
+    /** Starts recording the accessed accounts, discarding any ongoing recording. */
+    public void startRecording() {
+        recorded = ConcurrentHashMap.newKeySet();
+    }
+
+    /** @return the accounts accessed since {@link #startRecording()} */
+    public Set<Address> stopRecording() {
+        Set<Address> accounts = recorded;
+        recorded = null;
+        return accounts == null ? Collections.emptySet() : accounts;
+    }
+
+    private void record(Address address) {
+        Set<Address> accounts = recorded;
+        if (accounts != null && address != null) {
+            accounts.add(address);
+        }
+    }
+
+    /**
+     * Moves the cached state of the given accounts from another cache into this one. The other
+     * cache must not be used afterwards.
+     *
+     * @implNote The caller must ensure that the accounts have the same state in the repositories
+     *     tracked by both caches.
+     */
+    public void takeAccountsFrom(AionRepositoryCache other, Collection<Address> accounts) {
+        fullyWriteLock();
+        try {
+            for (Address address : accounts) {
+                AccountState state = other.cachedAccounts.get(address);
+                ContractDetails details = other.cachedDetails.get(address);
+                if (state != null && details != null) {
+                    cachedAccounts.put(address, state);
+                    cachedDetails.put(address, details);
+                }
+            }
+        } finally {
+            fullyWriteUnlock();
+        }
+    }
+
+    @Override
+    public AccountState getAccountState(Address address) {
+        record(address);
+        return super.getAccountState(address);
+    }
+
+    @Override
+    public boolean hasAccountState(Address address) {
+        record(address);
+        return super.hasAccountState(address);
+    }
+
+    @Override
+    public ContractDetails getContractDetails(Address address) {
+        record(address);
+        return super.getContractDetails(address);
+    }
+
+    @Override
+    public boolean hasContractDetails(Address address) {
+        record(address);
+        return super.hasContractDetails(address);
+    }
+
+    @Override
+    public void loadAccountState(
+            Address address,
+            Map<Address, AccountState> accounts,
+            Map<Address, ContractDetails> details) {
+        record(address);
+        super.loadAccountState(address, accounts, details);
+    }
+
+    @Override
+    public void updateBatch(
+            Map<Address, AccountState> accounts, final Map<Address, ContractDetails> details) {
+        Set<Address> recording = recorded;
+        if (recording != null) {
+            recording.addAll(accounts.keySet());
+            recording.addAll(details.keySet());
+        }
+        super.updateBatch(accounts, details);
+    }
+}
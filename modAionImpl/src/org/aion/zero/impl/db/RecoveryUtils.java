@@ -527,7 +527,10 @@ public class RecoveryUtils {
         cfg.getConsensus().setMining(false);
         cfg.getDb().setHeapCacheEnabled(true);
 
-        System.out.println("\nImporting stored blocks INITIATED...\n");
+        System.out.println(
+                "\nImporting stored blocks INITIATED"
+                        + (cfg.getDb().isImportPipelineEnabled() ? " with the import pipeline" : "")
+                        + "...\n");
 
         Map<String, String> cfgLog = new HashMap<>();
         cfgLog.put("GEN", "INFO");
@@ -588,6 +591,7 @@ public class RecoveryUtils {
                 final int THOUSAND_MS = 1000;
 
                 long start = System.currentTimeMillis();
+                long firstBlock = currentBlock;
 
                 // import in increments of 10k blocks
                 while (currentBlock <= topBlockNumber) {
@@ -656,6 +660,7 @@ public class RecoveryUtils {
                         double time = System.currentTimeMillis() - start;
 
                         double timePerBlock = time / (currentBlock - startHeight + 1);
+                        double blocksPerSecond = 1000 / timePerBlock;
                         long remainingBlocks = topBlockNumber - currentBlock;
                         double estimate =
                                 (timePerBlock * remainingBlocks) / 60_000 + 1; // in minutes
@@ -668,7 +673,9 @@ public class RecoveryUtils {
                                         + String.format("%.0f", time / 60_000 + 1)
                                         + " min). The average time per block is < "
                                         + String.format("%.0f", timePerBlock + 1)
-                                        + " ms. Completion for remaining "
+                                        + " ms ("
+                                        + String.format("%.1f", blocksPerSecond)
+                                        + " blocks/s). Completion for remaining "
                                         + remainingBlocks
                                         + " blocks estimated to take "
                                         + String.format("%.0f", estimate)
@@ -677,6 +684,20 @@ public class RecoveryUtils {
 
                     currentBlock++;
                 }
+
+                double time = System.currentTimeMillis() - start;
+                long imported = currentBlock - firstBlock;
+                System.out.println(
+                        "Imported "
+                                + imported
+                                + " blocks in "
+                                + String.format("%.0f", time)
+                                + " ms at "
+                                + String.format("%.1f", imported * 1000 / Math.max(time, 1))
+                                + " blocks/s.");
+                if (repo.getImportPipeline() != null) {
+                    System.out.println("Import pipeline: " + repo.getImportPipeline().getStats());
+                }
             }
 
             if (fail) {
@@ -0,0 +1,361 @@
+package org.aion.zero.impl.db;
+
+import static org.aion.crypto.HashUtil.h256;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
+import org.aion.interfaces.db.ByteArrayKeyValueStore;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.aion.mcf.core.AccountState;
+import org.aion.mcf.ds.XorDataSource;
+import org.aion.mcf.trie.PruneDataSource;
+import org.aion.mcf.trie.SecureTrie;
+import org.aion.mcf.trie.Trie;
+import org.aion.rlp.RLP;
+import org.aion.rlp.RLPList;
+import org.aion.types.Address;
+import org.aion.types.ByteArrayWrapper;
+import org.aion.util.metrics.Counter;
+import org.aion.util.metrics.Histogram;
+import org.aion.util.metrics.MetricsRegistry;
+import org.aion.zero.impl.types.AionBlock;
+import org.slf4j.Logger;
+
+/**
+ * Deletes the state and storage trie nodes that are no longer reachable from the blocks kept by
+ * pruning, while the node keeps importing blocks. The journal used for pruning only deletes the
+ * nodes it saw being removed, so the nodes left behind by restarts, crashes or imports done with
+ * pruning disabled are reclaimed only by this collector.
+ *
+ * <p>Each run marks the nodes reachable from the state roots of all the blocks in the pruning
+ * window into a scratch database, then sweeps the keys of the state and storage databases that were
+ * not marked, in batches. The states archived at regular intervals are kept in their own database,
+ * which is never swept.
+ *
+ * <p>The keys inserted into the pruned data sources during a run are recorded and never swept,
+ * since the nodes of the blocks imported after the roots were read are not marked. Each batch is
+ * deleted while holding the write lock of the repository, under which the nodes are inserted.
+ *
+ * @implNote The collector relies on the trie nodes being inserted through the pruned data sources,
+ *     so it does not run while the state is imported directly from peers, as reported by {@link
+ *     AionRepositoryImpl#isStateComplete()}.
+ */
+public class StateGarbageCollector {
+
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.DB.name());
+
+    private static final Histogram GC_TIME =
+            MetricsRegistry.inst()
+                    .timer("aion_db_gc_seconds", "Time to run the state garbage collection.");
+    private static final Counter GC_DELETED =
+            MetricsRegistry.inst()
+                    .counter("aion_db_gc_deleted_keys_total", "Keys deleted by the state gc.");
+    private static final Counter GC_RECLAIMED =
+            MetricsRegistry.inst()
+                    .counter(
+                            "aion_db_gc_reclaimed_bytes_total", "Bytes reclaimed by the state gc.");
+
+    /** Number of keys deleted at once while holding the repository lock. */
+    private static final int BATCH_SIZE = 1_000;
+    /** Pause between two batches, leaving the lock to the block imports. */
+    private static final long BATCH_PAUSE_MILLIS = 10;
+    /** Keys inserted during a run after which the run is abandoned, to bound the memory used. */
+    private static final int MAX_INSERTED_KEYS = 1_000_000;
+
+    private final AionRepositoryImpl repository;
+    private final PruneDataSource stateSource;
+    private final PruneDataSource storageSource;
+    private final ByteArrayKeyValueDatabase stateDatabase;
+    private final ByteArrayKeyValueDatabase storageDatabase;
+    private final ByteArrayKeyValueDatabase detailsDatabase;
+    private final ByteArrayKeyValueDatabase graphDatabase;
+    private final ByteArrayKeyValueDatabase marks;
+    private final Lock writeLock;
+
+    private ScheduledExecutorService executor = null;
+    private volatile boolean stopped = false;
+
+    // the keys inserted since the start of the current run
+    private final Set<ByteArrayWrapper> insertedKeys = ConcurrentHashMap.newKeySet();
+
+    StateGarbageCollector(
+            AionRepositoryImpl repository,
+            PruneDataSource stateSource,
+            PruneDataSource storageSource,
+            ByteArrayKeyValueDatabase stateDatabase,
+            ByteArrayKeyValueDatabase storageDatabase,
+            ByteArrayKeyValueDatabase detailsDatabase,
+            ByteArrayKeyValueDatabase graphDatabase,
+            ByteArrayKeyValueDatabase marks,
+            Lock writeLock) {
+        this.repository = repository;
+        this.stateSource = stateSource;
+        this.storageSource = storageSource;
+        this.stateDatabase = stateDatabase;
+        this.storageDatabase = storageDatabase;
+        this.detailsDatabase = detailsDatabase;
+        this.graphDatabase = graphDatabase;
+        this.marks = marks;
+        this.writeLock = writeLock;
+    }
+
+    /** Runs the collection periodically on a background thread. */
+    public synchronized void start(long intervalMinutes) {
+        if (executor == null && !stopped) {
+            executor =
+                    Executors.newSingleThreadScheduledExecutor(
+                            r -> {
+                                Thread thread = new Thread(r, "db-gc");
+                                thread.setDaemon(true);
+                                thread.setPriority(Thread.MIN_PRIORITY);
+                                return thread;
+                            });
+            executor.scheduleWithFixedDelay(
+                    this::runSafely, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+            LOG.info("State garbage collection scheduled every {} minutes.", intervalMinutes);
+        }
+    }
+
+    /**
+     * Stops the collection and closes the marks database. A run in progress is given a few seconds
+     * to notice, after which it fails on the closed databases.
+     */
+    public void shutdown() {
+        stopped = true;
+        ScheduledExecutorService current;
+        synchronized (this) {
+            current = executor;
+            executor = null;
+        }
+        if (current != null) {
+            current.shutdownNow();
+            try {
+                current.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        marks.close();
+    }
+
+    private void runSafely() {
+        try {
+            collect();
+        } catch (Exception e) {
+            if (stopped) {
+                LOG.debug("The state garbage collection was stopped.", e);
+            } else {
+                LOG.error("The state garbage collection failed due to ", e);
+            }
+        }
+    }
+
+    /**
+     * Deletes the state and storage nodes not reachable from the blocks in the pruning window.
+     *
+     * @return the number of keys deleted, or {@code -1} when the run was skipped or abandoned
+     */
+    public synchronized long collect() throws InterruptedException {
+        if (stopped) {
+            return -1;
+        }
+        if (!repository.isStateComplete()) {
+            LOG.info("State gc skipped while the state is downloaded by fast sync.");
+            return -1;
+        }
+        long start = System.nanoTime();
+
+        // left behind by an interrupted run
+        marks.drop();
+
+        insertedKeys.clear();
+        stateSource.setInsertListener(key -> insertedKeys.add(ByteArrayWrapper.wrap(key)));
+        storageSource.setInsertListener(key -> insertedKeys.add(ByteArrayWrapper.wrap(key)));
+
+        try {
+            // the roots are read after the listeners are set, see the class description
+            Set<ByteArrayWrapper> roots = getRoots();
+            long marked = markState(roots) + markStorage(roots);
+            if (stopped) {
+                return -1;
+            }
+            LOG.info("State gc marked {} nodes from {} state roots.", marked, roots.size());
+
+            long[] deleted = new long[2];
+            if (sweep(stateDatabase, deleted) && sweep(storageDatabase, deleted)) {
+                GC_TIME.recordSince(start);
+                LOG.info(
+                        "State gc deleted {} keys and reclaimed {} bytes in {} ms.",
+                        deleted[0],
+                        deleted[1],
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                return deleted[0];
+            } else {
+                LOG.info("State gc stopped after deleting {} keys.", deleted[0]);
+                return -1;
+            }
+        } finally {
+            stateSource.setInsertListener(null);
+            storageSource.setInsertListener(null);
+            insertedKeys.clear();
+            marks.drop();
+        }
+    }
+
+    /** @return the state roots of all the blocks in the pruning window, including the forks */
+    private Set<ByteArrayWrapper> getRoots() {
+        Set<ByteArrayWrapper> roots = new LinkedHashSet<>();
+        roots.add(ByteArrayWrapper.wrap(repository.getRoot()));
+
+        AionBlockStore blockStore = repository.getBlockStore();
+        long max = blockStore.getMaxNumber();
+        long min = Math.max(0, max - repository.getPruneBlockCount());
+        for (long number = max; number >= min; number--) {
+            for (Map.Entry<AionBlock, ?> entry : blockStore.getBlocksByNumber(number)) {
+                roots.add(ByteArrayWrapper.wrap(entry.getKey().getStateRoot()));
+            }
+        }
+        return roots;
+    }
+
+    private long markState(Set<ByteArrayWrapper> roots) {
+        Trie trie = new SecureTrie(stateSource);
+        long marked = 0;
+        for (ByteArrayWrapper root : roots) {
+            if (stopped) {
+                break;
+            }
+            marked += trie.markReachableNodes(root.getData(), marks);
+        }
+        return marked;
+    }
+
+    /**
+     * Marks the storage of each contract at each of the given state roots. The storage keys are
+     * marked as stored, i.e. combined with the key of the contract.
+     */
+    private long markStorage(Set<ByteArrayWrapper> roots) {
+        List<Address> contracts = new ArrayList<>();
+        Iterator<byte[]> keys = detailsDatabase.keys();
+        while (keys.hasNext()) {
+            byte[] key = keys.next();
+            if (key.length == Address.SIZE) {
+                contracts.add(Address.wrap(key));
+            }
+        }
+
+        long marked = 0;
+        for (ByteArrayWrapper root : roots) {
+            // a new trie for each root, since the trie caches all the nodes it loads
+            Trie accounts = new SecureTrie(stateSource);
+            accounts.setRoot(root.getData());
+            for (Address contract : contracts) {
+                if (stopped) {
+                    return marked;
+                }
+
+                byte[] rlp = accounts.get(contract.toBytes());
+                if (rlp == null || rlp.length == 0) {
+                    continue;
+                }
+                marked += markStorage(contract, new AccountState(rlp).getStateRoot());
+            }
+        }
+        return marked;
+    }
+
+    private long markStorage(Address contract, byte[] root) {
+        ByteArrayKeyValueStore storageMarks =
+                new XorDataSource(marks, h256(("details-storage/" + contract).getBytes()));
+        Trie storage =
+                new SecureTrie(
+                        new XorDataSource(
+                                storageSource, h256(("details-storage/" + contract).getBytes())));
+
+        // the root of the FVM storage trie
+        long marked = storage.markReachableNodes(root, storageMarks);
+
+        // the AVM storage root points to the pair of the storage trie root and object graph hash
+        ByteArrayKeyValueStore graph =
+                new XorDataSource(graphDatabase, h256(("details-graph/" + contract).getBytes()));
+        Optional<byte[]> pair = graph.get(root);
+        if (pair.isPresent()) {
+            RLPList data = RLP.decode2(pair.get());
+            if (data.get(0) instanceof RLPList && ((RLPList) data.get(0)).size() == 2) {
+                byte[] storageRoot = ((RLPList) data.get(0)).get(0).getRLPData();
+                marked += storage.markReachableNodes(storageRoot, storageMarks);
+            }
+        }
+        return marked;
+    }
+
+    /**
+     * Deletes the keys that were neither marked nor inserted during the run.
+     *
+     * @param deleted accumulates the number of keys deleted and the bytes reclaimed
+     * @return {@code false} when the sweep was abandoned
+     */
+    private boolean sweep(ByteArrayKeyValueDatabase db, long[] deleted)
+            throws InterruptedException {
+        // key => bytes reclaimed by deleting it
+        Map<ByteArrayWrapper, Integer> batch = new HashMap<>();
+
+        Iterator<byte[]> keys = db.keys();
+        while (keys.hasNext()) {
+            if (stopped || insertedKeys.size() > MAX_INSERTED_KEYS) {
+                return false;
+            }
+            byte[] key = keys.next();
+            if (marks.get(key).isPresent()) {
+                continue;
+            }
+            // the nodes are not changed once stored, so the size can be read without the lock
+            Optional<byte[]> value = db.get(key);
+            if (value.isPresent()) {
+                batch.put(ByteArrayWrapper.wrap(key), key.length + value.get().length);
+            }
+            if (batch.size() == BATCH_SIZE) {
+                deleteBatch(db, batch, deleted);
+                batch.clear();
+                Thread.sleep(BATCH_PAUSE_MILLIS);
+            }
+        }
+        deleteBatch(db, batch, deleted);
+        return true;
+    }
+
+    private void deleteBatch(
+            ByteArrayKeyValueDatabase db, Map<ByteArrayWrapper, Integer> batch, long[] deleted) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            batch.keySet().removeAll(insertedKeys);
+            List<byte[]> keys = new ArrayList<>(batch.size());
+            batch.keySet().forEach(key -> keys.add(key.getData()));
+            db.deleteBatch(keys);
+        } finally {
+            writeLock.unlock();
+        }
+
+        long bytes = batch.values().stream().mapToLong(Integer::longValue).sum();
+        GC_DELETED.inc(batch.size());
+        GC_RECLAIMED.inc(bytes);
+        deleted[0] += batch.size();
+        deleted[1] += bytes;
+    }
+}
@@ -24,6 +24,7 @@ import org.aion.log.LogEnum;
 import org.aion.mcf.blockchain.IPendingState;
 import org.aion.mcf.core.ImportResult;
 import org.aion.util.conversions.Hex;
+import org.aion.zero.impl.BlockTemplateBuilder;
 import org.aion.zero.impl.blockchain.AionImpl;
 import org.aion.zero.impl.config.CfgAion;
 import org.aion.zero.impl.core.IAionBlockchain;
@@ -44,6 +45,7 @@ public class AionPoW {
     protected IAionBlockchain blockchain;
     protected IPendingState<AionTransaction> pendingState;
     protected IEventMgr eventMgr;
+    protected BlockTemplateBuilder templateBuilder;
 
     protected AtomicBoolean initialized = new AtomicBoolean(false);
     protected AtomicBoolean newPendingTxReceived = new AtomicBoolean(false);
@@ -84,7 +86,7 @@ public class AionPoW {
 
     /**
      * Creates an {@link AionPoW} instance. Be sure to call {@link #init(IAionBlockchain,
-     * IPendingState, IEventMgr)} to initialize the instance.
+     * IPendingState, IEventMgr, BlockTemplateBuilder)} to initialize the instance.
      */
     public AionPoW() {}
 
@@ -94,15 +96,18 @@ public class AionPoW {
      * @param blockchain Aion blockchain instance
      * @param pendingState List of Aion transactions
      * @param eventMgr Event manager
+     * @param templateBuilder Source of the block templates
      */
     public void init(
             IAionBlockchain blockchain,
             IPendingState<AionTransaction> pendingState,
-            IEventMgr eventMgr) {
+            IEventMgr eventMgr,
+            BlockTemplateBuilder templateBuilder) {
         if (initialized.compareAndSet(false, true)) {
             this.blockchain = blockchain;
             this.pendingState = pendingState;
             this.eventMgr = eventMgr;
+            this.templateBuilder = templateBuilder;
             this.syncMgr = SyncMgr.inst();
 
             // return early if mining is disabled, otherwise we are doing needless
@@ -262,12 +267,8 @@ public class AionPoW {
                 LOG.debug("Creating a new block template");
             }
 
-            AionBlock bestBlock =
-                    blockchain.getBlockByNumber(blockchain.getBestBlock().getNumber());
-
-            List<AionTransaction> txs = pendingState.getPendingTransactions();
-
-            AionBlock newBlock = blockchain.createNewBlock(bestBlock, txs, false);
+            // the solution is set on the block, so the miners get a copy of the shared template
+            AionBlock newBlock = new AionBlock(templateBuilder.getTemplate().block);
 
             EventConsensus ev = new EventConsensus(EventConsensus.CALLBACK.ON_BLOCK_TEMPLATE);
             ev.setFuncArgs(Collections.singletonList(newBlock));
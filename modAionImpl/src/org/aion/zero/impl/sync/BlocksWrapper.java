@@ -12,15 +12,32 @@ final class BlocksWrapper {
 
     private List<AionBlock> blocks;
 
+    private PeerState importState;
+
     /**
      * @param _nodeIdHash int
      * @param _displayId String
      * @param _blocks List
      */
     BlocksWrapper(int _nodeIdHash, String _displayId, final List<AionBlock> _blocks) {
+        this(_nodeIdHash, _displayId, _blocks, null);
+    }
+
+    /**
+     * @param _nodeIdHash int
+     * @param _displayId String
+     * @param _blocks List
+     * @param _importState the state used to import the blocks instead of the state of the peer
+     */
+    BlocksWrapper(
+            int _nodeIdHash,
+            String _displayId,
+            final List<AionBlock> _blocks,
+            final PeerState _importState) {
         this.nodeIdHash = _nodeIdHash;
         this.displayId = _displayId;
         this.blocks = _blocks;
+        this.importState = _importState;
     }
 
     /** @return int - node id hash */
@@ -37,4 +54,9 @@ final class BlocksWrapper {
     List<AionBlock> getBlocks() {
         return this.blocks;
     }
+
+    /** @return the state used to import the blocks or {@code null} to use the state of the peer */
+    PeerState getImportState() {
+        return this.importState;
+    }
 }
@@ -1,11 +1,14 @@
 package org.aion.zero.impl.sync;
 
+import static org.aion.crypto.HashUtil.EMPTY_DATA_HASH;
 import static org.aion.p2p.V1Constants.BLOCKS_REQUEST_MAXIMUM_BATCH_SIZE;
 
-import com.google.common.annotations.VisibleForTesting;
+import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
@@ -18,15 +21,20 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
+import org.aion.mcf.core.AccountState;
 import org.aion.mcf.valid.BlockHeaderValidator;
 import org.aion.p2p.INode;
 import org.aion.p2p.impl1.P2pMgr;
+import org.aion.types.Address;
 import org.aion.types.ByteArrayWrapper;
 import org.aion.zero.impl.AionBlockchainImpl;
+import org.aion.zero.impl.config.CfgAion;
+import org.aion.zero.impl.db.AionRepositoryImpl;
 import org.aion.zero.impl.sync.msg.RequestBlocks;
 import org.aion.zero.impl.sync.msg.ResponseBlocks;
 import org.aion.zero.impl.types.AionBlock;
 import org.aion.zero.types.A0BlockHeader;
+import org.aion.zero.types.AionTransaction;
 import org.apache.commons.collections4.map.LRUMap;
 import org.slf4j.Logger;
 
@@ -38,7 +46,7 @@ import org.slf4j.Logger;
 public final class FastSyncManager {
 
     // TODO: ensure correct behavior when disabled
-    private boolean enabled;
+    private volatile boolean enabled;
     // TODO: ensure correct behavior when complete
     private final AtomicBoolean complete = new AtomicBoolean(false);
     private final AtomicBoolean completeBlocks = new AtomicBoolean(false);
@@ -62,34 +70,123 @@ public final class FastSyncManager {
 
     private final Map<ByteArrayWrapper, byte[]> importedTrieNodes = new ConcurrentHashMap<>();
 
+    /** Number of trie data responses waiting for import before new ones are dropped. */
+    private static final int RECEIVED_TRIE_NODES_MAX = 1024;
+
+    /** Name of the file in the database directory where the missing trie nodes are saved. */
+    private static final String FRONTIER_FILE = "fast-sync-frontier";
+
+    private final TrieDataScheduler trieDataScheduler;
+    private final BlockingQueue<TrieNodeWrapper> receivedTrieNodes =
+            new LinkedBlockingQueue<>(RECEIVED_TRIE_NODES_MAX);
+    private final List<Thread> threads = new ArrayList<>();
+
+    /** The contracts owning the storage nodes that are scheduled for download. */
+    private final Map<ByteArrayWrapper, Address> storageOwners = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean schedulingContracts = new AtomicBoolean(false);
+    private volatile boolean scheduledContracts = false;
+
+    /**
+     * Constructor. The missing trie nodes are saved to a file in the database directory, so that
+     * the state download resumes after a restart.
+     */
     public FastSyncManager(
             AionBlockchainImpl chain,
             BlockHeaderValidator<A0BlockHeader> blockHeaderValidator,
             final P2pMgr p2pMgr) {
+        this(
+                chain,
+                blockHeaderValidator,
+                p2pMgr,
+                new File(CfgAion.inst().getDatabaseDir(), FRONTIER_FILE));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param frontierFile the file where the missing trie nodes are saved to resume the state
+     *     download after a restart or {@code null} if they should not be saved
+     */
+    public FastSyncManager(
+            AionBlockchainImpl chain,
+            BlockHeaderValidator<A0BlockHeader> blockHeaderValidator,
+            final P2pMgr p2pMgr,
+            final File frontierFile) {
         this.enabled = true;
         this.chain = chain;
         this.blockHeaderValidator = blockHeaderValidator;
         this.p2pMgr = p2pMgr;
+        this.trieDataScheduler = new TrieDataScheduler(p2pMgr, log, frontierFile);
+
+        // the state garbage collection waits for the downloaded state to be complete
+        chain.getRepository().setStateCompleteCheck(this::isComplete);
     }
 
-    @VisibleForTesting
-    void setPivot(AionBlock pivot) {
+    /**
+     * Sets the block whose state is downloaded and starts the threads that import the blocks up to
+     * it, import the received trie nodes and request the missing ones.
+     *
+     * @param pivot the block whose state is downloaded
+     */
+    public synchronized void setPivot(AionBlock pivot) {
         Objects.requireNonNull(pivot);
 
         this.pivot = pivot;
+
+        // resume from the saved frontier or walk the stored part of the state
+        if (!trieDataScheduler.load()) {
+            for (ByteArrayWrapper key :
+                    chain.getMissingTrieNodes(pivot.getStateRoot(), DatabaseType.STATE)) {
+                trieDataScheduler.add(key, DatabaseType.STATE);
+            }
+        }
+
+        if (threads.isEmpty()) {
+            startThread(new TaskFastImportBlocks(chain, this, log), "fast-ib");
+            startThread(new TaskImportTrieData(log, chain, receivedTrieNodes, this), "fast-it");
+            startThread(new TaskRequestTrieData(log, this), "fast-rt");
+        }
+    }
+
+    private void startThread(Runnable task, String name) {
+        Thread thread = new Thread(task, name);
+        thread.start();
+        threads.add(thread);
+    }
+
+    /** @return the queue where the received trie nodes are added to be imported */
+    public BlockingQueue<TrieNodeWrapper> getReceivedTrieNodes() {
+        return receivedTrieNodes;
+    }
+
+    /** Stops the fast sync threads and saves the missing trie nodes. */
+    public synchronized void shutdown() {
+        enabled = false;
+        executors.shutdownNow();
+
+        for (Thread thread : threads) {
+            thread.interrupt();
+            try {
+                thread.join(10_000L);
+            } catch (InterruptedException e) {
+                log.warn("Failed to stop " + thread.getName());
+            }
+        }
+        trieDataScheduler.save();
     }
 
     public AionBlock getPivot() {
         return pivot;
     }
 
-    // TODO: shutdown pool
     ExecutorService executors =
             Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
 
     public void addImportedNode(ByteArrayWrapper key, byte[] value, DatabaseType dbType) {
         if (enabled) {
             importedTrieNodes.put(key, value);
+            trieDataScheduler.imported(value.length);
         }
     }
 
@@ -194,17 +291,16 @@ public final class FastSyncManager {
     }
 
     private boolean isCompleteWorldState() {
-        // TODO: implement
-        return false;
+        return trieDataScheduler.isComplete(DatabaseType.STATE);
     }
 
     private boolean isCompleteContractDetails() {
-        // TODO: implement
+        // TODO: schedule the contracts deployed by other contracts, see scheduleContracts()
         return false;
     }
 
     private boolean isCompleteStorage() {
-        // TODO: implement
+        // TODO: schedule the AVM storage and the storage of the contracts deployed by contracts
         return false;
     }
 
@@ -213,14 +309,104 @@ public final class FastSyncManager {
             Set<ByteArrayWrapper> referencedKeys,
             DatabaseType dbType) {
         if (enabled) {
-            // TODO: check what's still missing and send out requests
-            // TODO: send state request to multiple peers
+            switch (dbType) {
+                case STATE:
+                    // the imported nodes are stored, so the walk stops at the nodes still missing
+                    trieDataScheduler.received(
+                            topmostKey,
+                            dbType,
+                            chain.getMissingTrieNodes(topmostKey.getData(), dbType));
+                    break;
+                case DETAILS:
+                    // the details are stored by contract address
+                    trieDataScheduler.received(topmostKey, dbType, Collections.emptySet());
+                    Address contract = Address.wrap(topmostKey.getData());
+                    scheduleStorage(contract, chain.getMissingStorageNodes(contract));
+                    break;
+                case STORAGE:
+                    Address owner = storageOwners.remove(topmostKey);
+                    trieDataScheduler.received(topmostKey, dbType, Collections.emptySet());
+                    if (owner != null) {
+                        scheduleStorage(
+                                owner, chain.getMissingStorageNodes(owner, topmostKey.getData()));
+                    }
+                    break;
+            }
+            sendTrieDataRequests();
 
-            // TODO: check for completeness when no requests remain
             ensureCompleteness();
         }
     }
 
+    private void scheduleStorage(Address contract, Set<ByteArrayWrapper> keys) {
+        for (ByteArrayWrapper key : keys) {
+            storageOwners.put(key, contract);
+            trieDataScheduler.add(key, DatabaseType.STORAGE);
+        }
+    }
+
+    /**
+     * Sends requests for missing trie nodes to the active peers and reassigns failed requests. Once
+     * the world state and the blocks are complete, the contract details and storage are scheduled.
+     */
+    public void sendTrieDataRequests() {
+        if (enabled) {
+            if (!scheduledContracts
+                    && isCompleteWorldState()
+                    && isCompleteBlockData()
+                    && schedulingContracts.compareAndSet(false, true)) {
+                scheduleContracts();
+                scheduledContracts = true;
+            }
+            // responses that do not fit in the queue are dropped and their requests time out, so
+            // no more requests are sent than can be queued
+            trieDataScheduler.sendRequests(
+                    System.currentTimeMillis(), receivedTrieNodes.remainingCapacity());
+        }
+    }
+
+    /**
+     * Schedules the download of the details of the contracts deployed by the transactions of the
+     * main chain up to the pivot. The contracts whose details are already stored get their missing
+     * storage nodes scheduled instead.
+     *
+     * @implNote Expensive: walks all the blocks up to the pivot. The accounts in the pivot state
+     *     tell which deployments succeeded. Contracts deployed by other contracts do not appear in
+     *     the transactions, so they are not found this way, and the AVM storage is not scheduled.
+     *     The contract details and storage are therefore not reported as complete.
+     */
+    private void scheduleContracts() {
+        AionRepositoryImpl state =
+                (AionRepositoryImpl) chain.getRepository().getSnapshotTo(pivot.getStateRoot());
+
+        int count = 0;
+        for (long number = 1; number <= pivot.getNumber(); number++) {
+            AionBlock block = chain.getBlockStore().getChainBlockByNumber(number);
+            for (AionTransaction tx : block.getTransactionsList()) {
+                if (!tx.isContractCreationTransaction()) {
+                    continue;
+                }
+
+                Address contract = tx.getContractAddress();
+                AccountState account = state.getAccountState(contract);
+                if (account == null || Arrays.equals(account.getCodeHash(), EMPTY_DATA_HASH)) {
+                    // the deployment failed
+                    continue;
+                }
+
+                count++;
+                if (chain.getTrieNode(contract.toBytes(), DatabaseType.DETAILS) == null) {
+                    trieDataScheduler.add(
+                            ByteArrayWrapper.wrap(contract.toBytes()), DatabaseType.DETAILS);
+                } else {
+                    scheduleStorage(contract, chain.getMissingStorageNodes(contract));
+                }
+            }
+        }
+
+        log.info("<fast-sync: scheduled the details and storage of {} contracts>", count);
+    }
+
     /**
      * Processes a block response by checking the proof-of-work. Adds valid blocks to the import
      * queue.
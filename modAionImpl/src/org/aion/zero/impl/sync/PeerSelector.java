@@ -0,0 +1,188 @@
+package org.aion.zero.impl.sync;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.aion.p2p.INode;
+
+/**
+ * Chooses the peers that receive block header requests and the size of each request based on how
+ * fast the peers answered previous requests.
+ *
+ * <p>For each peer, the throughput in blocks per second and the response time are estimated using
+ * exponentially weighted moving averages. Requests are sized so that they are answered within a
+ * target response time. Peers are chosen at random with a probability proportional to their
+ * throughput, so the fastest peers receive most of the requests. Peers that are much slower than
+ * the fastest one are not chosen unless no other peer is available. Peers without measurements get
+ * the best known estimate so that they are tried at least once.
+ */
+final class PeerSelector {
+
+    /** Weight of the latest measurement in the moving averages. */
+    static final double ALPHA = 0.3;
+
+    /** Response time that requests are sized for. */
+    static final long TARGET_RESPONSE_MILLIS = 1_000L;
+
+    /** Peers answer with at most this number of headers. */
+    static final int MAX_REQUEST_SIZE = 96;
+
+    /** Peers with a throughput below this fraction of the best throughput are not chosen. */
+    static final double DEMOTION_RATIO = 0.25;
+
+    /** Time after which an unanswered request is counted as a slow response. */
+    static final long REQUEST_TIMEOUT_MILLIS = 5_000L;
+
+    private final Map<Integer, Estimate> estimates = new ConcurrentHashMap<>();
+
+    /**
+     * Records a request sent to the given peer. Only the latest request of each peer is tracked.
+     *
+     * @param peerId the hash id of the peer
+     * @param nanoTime the time the request was sent as given by {@link System#nanoTime()}
+     */
+    void recordRequest(int peerId, long nanoTime) {
+        estimates.computeIfAbsent(peerId, k -> new Estimate()).requestTime = nanoTime;
+    }
+
+    /**
+     * Updates the estimates of the given peer with a response to its latest request.
+     *
+     * @param peerId the hash id of the peer
+     * @param blocks the number of blocks in the response
+     * @param nanoTime the time the response was received as given by {@link System#nanoTime()}
+     */
+    void recordResponse(int peerId, int blocks, long nanoTime) {
+        Estimate estimate = estimates.get(peerId);
+        if (estimate != null) {
+            estimate.update(blocks, nanoTime);
+        }
+    }
+
+    /** Counts the requests that were not answered in time as slow responses without blocks. */
+    private void expire(int peerId, long nanoTime) {
+        Estimate estimate = estimates.get(peerId);
+        if (estimate != null
+                && estimate.requestTime != 0
+                && nanoTime - estimate.requestTime
+                        > TimeUnit.MILLISECONDS.toNanos(REQUEST_TIMEOUT_MILLIS)) {
+            estimate.update(0, nanoTime);
+        }
+    }
+
+    /**
+     * Returns the number of blocks to request from the given peer.
+     *
+     * @param peerId the hash id of the peer
+     * @param minSize the smallest size required by the sync mode
+     * @return a size between the given minimum and {@link #MAX_REQUEST_SIZE} that the peer is
+     *     expected to deliver within {@link #TARGET_RESPONSE_MILLIS}
+     */
+    int getRequestSize(int peerId, int minSize) {
+        Estimate estimate = estimates.get(peerId);
+        if (estimate == null || estimate.samples == 0) {
+            return minSize;
+        }
+
+        long size = Math.round(estimate.throughput * TARGET_RESPONSE_MILLIS / 1000.0);
+        return (int) Math.max(minSize, Math.min(MAX_REQUEST_SIZE, size));
+    }
+
+    /**
+     * Returns the estimated throughput of the given peer.
+     *
+     * @param peerId the hash id of the peer
+     * @return the estimated blocks per second or {@code -1} when no response was measured yet
+     */
+    double getThroughput(int peerId) {
+        Estimate estimate = estimates.get(peerId);
+        return estimate == null || estimate.samples == 0 ? -1 : estimate.throughput;
+    }
+
+    /**
+     * Returns the estimated response time of the given peer.
+     *
+     * @param peerId the hash id of the peer
+     * @return the estimated response time in milliseconds or {@code -1} when no response was
+     *     measured yet
+     */
+    double getLatency(int peerId) {
+        Estimate estimate = estimates.get(peerId);
+        return estimate == null || estimate.samples == 0 ? -1 : estimate.latencyMillis;
+    }
+
+    /**
+     * Chooses one of the given peers.
+     *
+     * @param candidates the peers that can receive a request, must not be empty
+     * @param random source of randomness for the choice
+     * @param nanoTime the current time as given by {@link System#nanoTime()}
+     * @return the chosen peer
+     */
+    INode select(List<INode> candidates, Random random, long nanoTime) {
+        double best = 0;
+        for (INode node : candidates) {
+            expire(node.getIdHash(), nanoTime);
+            best = Math.max(best, getThroughput(node.getIdHash()));
+        }
+
+        // without measurements all peers are equal
+        if (best <= 0) {
+            return candidates.get(random.nextInt(candidates.size()));
+        }
+
+        double[] weights = new double[candidates.size()];
+        double total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            double throughput = getThroughput(candidates.get(i).getIdHash());
+            if (throughput < 0) {
+                // give new peers a chance to be measured
+                weights[i] = best;
+            } else if (throughput >= best * DEMOTION_RATIO) {
+                weights[i] = throughput;
+            }
+            total += weights[i];
+        }
+
+        double target = random.nextDouble() * total;
+        for (int i = 0; i < weights.length; i++) {
+            target -= weights[i];
+            if (weights[i] > 0 && target < 0) {
+                return candidates.get(i);
+            }
+        }
+
+        // rounding errors may leave a small remainder
+        return candidates.get(0);
+    }
+
+    /** The moving averages for one peer. */
+    private static final class Estimate {
+        private volatile long requestTime = 0;
+        private int samples = 0;
+        private double throughput = 0;
+        private double latencyMillis = 0;
+
+        private synchronized void update(int blocks, long nanoTime) {
+            if (requestTime == 0) {
+                // no request pending
+                return;
+            }
+
+            double latency = Math.max(1, (nanoTime - requestTime) / 1_000_000.0);
+            double sample = blocks * 1000.0 / latency;
+            requestTime = 0;
+
+            if (samples == 0) {
+                throughput = sample;
+                latencyMillis = latency;
+            } else {
+                throughput = ALPHA * sample + (1 - ALPHA) * throughput;
+                latencyMillis = ALPHA * latency + (1 - ALPHA) * latencyMillis;
+            }
+            samples++;
+        }
+    }
+}
@@ -35,7 +35,13 @@ public class PeerState {
          * @implNote When switching to this mode it is not necessary to set the base value. The base
          *     will automatically be set to the current best block.
          */
-        THUNDER
+        THUNDER,
+
+        /**
+         * The blocks were downloaded in order by the skeleton sync. Import them without changing
+         * the sync strategy of the peer that sent them.
+         */
+        SKELETON
     }
 
     // TODO: enforce rules on this
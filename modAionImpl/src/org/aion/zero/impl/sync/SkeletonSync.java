@@ -0,0 +1,512 @@
+package org.aion.zero.impl.sync;
+
+import static org.aion.zero.impl.sync.PeerState.Mode.SKELETON;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.stream.Collectors;
+import org.aion.p2p.INode;
+import org.aion.p2p.IP2pMgr;
+import org.aion.p2p.Msg;
+import org.aion.zero.impl.sync.msg.ReqBlocksBodies;
+import org.aion.zero.impl.sync.msg.ReqBlocksHeaders;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.types.A0BlockHeader;
+import org.slf4j.Logger;
+
+/**
+ * Downloads a long range of blocks from many peers in parallel.
+ *
+ * <p>The range is split into segments. The last header of each segment is a checkpoint requested
+ * from a single peer, the one with the highest total difficulty, so that the checkpoints form a
+ * skeleton of its chain. The headers between two checkpoints are requested from any peer and are
+ * accepted only if they link the two checkpoints. Once the headers of a segment are known, its
+ * bodies are requested from any peer that has them. Segments can complete in any order; they are
+ * kept in a reorder buffer and passed to the import queue in order of their block numbers.
+ *
+ * <p>The skeleton sync stops when the full range is downloaded, when the skeleton peer disconnects
+ * or when a segment cannot be filled, in which case the regular sync takes over. A skeleton peer
+ * that failed to provide its checkpoints or whose segments could not be filled is not used again
+ * for a while.
+ */
+final class SkeletonSync {
+
+    /** Number of blocks in a segment, which is the most that peers return in one response. */
+    static final int SEGMENT_SIZE = 96;
+
+    /** Minimum number of blocks the local chain must be behind for the skeleton sync to start. */
+    static final int MIN_DISTANCE = 8 * SEGMENT_SIZE;
+
+    /** Maximum number of segments that are downloaded or waiting in the reorder buffer. */
+    static final int MAX_SEGMENTS = 32;
+
+    /** Maximum number of checkpoint requests to the skeleton peer that are not answered yet. */
+    static final int MAX_CHECKPOINT_REQUESTS = 8;
+
+    /** Time after which a request is considered failed and sent again, possibly to another peer. */
+    static final long REQUEST_TIMEOUT_MILLIS = 10_000L;
+
+    /** Number of failed header requests for a segment after which the skeleton is abandoned. */
+    static final int MAX_FAILURES = 3;
+
+    /** Time during which a failed skeleton peer cannot provide the skeleton again. */
+    static final long FAILED_PEER_COOLDOWN_MILLIS = 300_000L;
+
+    private enum State {
+        CHECKPOINT_NEEDED,
+        CHECKPOINT_REQUESTED,
+        HEADERS_NEEDED,
+        HEADERS_REQUESTED,
+        BODIES_NEEDED,
+        BODIES_REQUESTED,
+        COMPLETE
+    }
+
+    private final IP2pMgr p2p;
+    private final PeerSelector selector;
+    private final Map<Integer, HeadersWrapper> headersWithBodiesRequested;
+    private final BlockingQueue<BlocksWrapper> downloadedBlocks;
+    private final int blocksQueueMax;
+    private final Logger log;
+    private final Random random = new Random();
+
+    /** The segments being downloaded and the reorder buffer, by the number of their first block. */
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    /** The segments whose bodies were requested, by the peer they were requested from. */
+    private final Map<Integer, Segment> bodyRequests = new HashMap<>();
+    /** The time until which failed skeleton peers cannot be used, by peer. */
+    private final Map<Integer, Long> failedPeers = new HashMap<>();
+
+    private boolean active = false;
+    private int skeletonPeer;
+    private String skeletonDisplayId;
+    private long target;
+    /** The number of the first block that is not part of a segment yet. */
+    private long nextStart;
+    /** The hash of the parent of the first segment in the buffer. */
+    private byte[] baseHash;
+
+    /**
+     * Constructor.
+     *
+     * @param p2p peer manager used to send requests
+     * @param selector chooses the peers that receive header requests
+     * @param headersWithBodiesRequested the bodies requested by the regular sync, by peer
+     * @param downloadedBlocks the import queue where complete segments are added in order
+     * @param blocksQueueMax the import queue size above which no new segments are started
+     * @param log logger for reporting the download progress
+     */
+    SkeletonSync(
+            final IP2pMgr p2p,
+            final PeerSelector selector,
+            final Map<Integer, HeadersWrapper> headersWithBodiesRequested,
+            final BlockingQueue<BlocksWrapper> downloadedBlocks,
+            final int blocksQueueMax,
+            final Logger log) {
+        this.p2p = p2p;
+        this.selector = selector;
+        this.headersWithBodiesRequested = headersWithBodiesRequested;
+        this.downloadedBlocks = downloadedBlocks;
+        this.blocksQueueMax = blocksQueueMax;
+        this.log = log;
+    }
+
+    /** @return {@code true} while a range of blocks is being downloaded, {@code false} otherwise */
+    synchronized boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Starts downloading the blocks following the local best block up to the best block of the
+     * given peer.
+     *
+     * @param peer the peer that provides the checkpoints
+     * @param bestNumber the number of the local best block
+     * @param bestHash the hash of the local best block
+     */
+    synchronized void start(INode peer, long bestNumber, byte[] bestHash) {
+        segments.clear();
+        bodyRequests.clear();
+
+        active = true;
+        skeletonPeer = peer.getIdHash();
+        skeletonDisplayId = peer.getIdShort();
+        target = peer.getBestBlockNumber();
+        nextStart = bestNumber + 1;
+        baseHash = bestHash;
+
+        log.info(
+                "<skeleton-sync-start from-num={} to-num={} node={}>",
+                nextStart,
+                target,
+                skeletonDisplayId);
+    }
+
+    private void stop(String reason) {
+        active = false;
+        segments.clear();
+        bodyRequests.clear();
+
+        log.info("<skeleton-sync-stop reason={} next-num={}>", reason, nextStart);
+    }
+
+    /** Stops the skeleton sync and excludes the skeleton peer from the next ones for a while. */
+    private void fail(String reason, long now) {
+        failedPeers.put(skeletonPeer, now + FAILED_PEER_COOLDOWN_MILLIS);
+        stop(reason);
+    }
+
+    /**
+     * Indicates if the given peer failed as skeleton peer recently.
+     *
+     * @param peerId the peer to check
+     * @param now the current time in milliseconds
+     * @return {@code true} if the peer cannot be used as skeleton peer, {@code false} otherwise
+     */
+    synchronized boolean isExcluded(int peerId, long now) {
+        failedPeers.values().removeIf(until -> until <= now);
+        return failedPeers.containsKey(peerId);
+    }
+
+    /**
+     * Records a body request of the regular sync to the given peer, unless the peer is waiting for
+     * a response to the skeleton sync. The responses are matched to the requests by peer only, so a
+     * peer cannot serve both at the same time.
+     *
+     * @param peerId the peer that would receive the request
+     * @param headers the headers whose bodies would be requested
+     * @return {@code true} if the request was recorded and can be sent, {@code false} if the peer
+     *     is busy with the skeleton sync
+     */
+    synchronized boolean reserveBodyRequest(int peerId, HeadersWrapper headers) {
+        for (Segment segment : segments.values()) {
+            if (segment.isRequested() && segment.peerId == peerId) {
+                return false;
+            }
+        }
+        headersWithBodiesRequested.put(peerId, headers);
+        return true;
+    }
+
+    /**
+     * Resends the timed out requests, starts new segments if the import queue has room and sends
+     * requests for the segments that need data, giving priority to the lowest block numbers.
+     *
+     * @param now the current time in milliseconds
+     */
+    synchronized void sendRequests(long now) {
+        if (!active) {
+            return;
+        }
+
+        Map<Integer, INode> peers = p2p.getActiveNodes();
+        INode skeletonNode = peers.get(skeletonPeer);
+        if (skeletonNode == null) {
+            stop("peer-disconnected");
+            return;
+        }
+
+        while (segments.size() < MAX_SEGMENTS
+                && nextStart <= target
+                && downloadedBlocks.size() < blocksQueueMax) {
+            Segment segment =
+                    new Segment(nextStart, Math.min(nextStart + SEGMENT_SIZE, target + 1));
+            segments.put(segment.start, segment);
+            nextStart = segment.end;
+        }
+
+        // peers that are waiting for a response cannot take more requests
+        Map<Integer, INode> idle = new HashMap<>(peers);
+        idle.keySet().removeAll(headersWithBodiesRequested.keySet());
+        int checkpointRequests = 0;
+        for (Segment segment : segments.values()) {
+            if (segment.isRequested() && now - segment.requestTime >= REQUEST_TIMEOUT_MILLIS) {
+                if (log.isDebugEnabled()) {
+                    log.debug(
+                            "<skeleton-sync-timeout state={} from-num={} node={}>",
+                            segment.state,
+                            segment.start,
+                            segment.displayId);
+                }
+                if (segment.state == State.CHECKPOINT_REQUESTED
+                        && ++segment.failures >= MAX_FAILURES) {
+                    // checkpoints can only be provided by the skeleton peer
+                    fail("unresponsive-peer", now);
+                    return;
+                }
+                segment.timeout();
+                bodyRequests.values().remove(segment);
+            }
+
+            if (segment.state == State.CHECKPOINT_REQUESTED) {
+                checkpointRequests++;
+            } else if (segment.isRequested()) {
+                idle.remove(segment.peerId);
+            }
+        }
+
+        for (Segment segment : segments.values()) {
+            switch (segment.state) {
+                case CHECKPOINT_NEEDED:
+                    if (checkpointRequests < MAX_CHECKPOINT_REQUESTS) {
+                        send(segment, skeletonNode, new ReqBlocksHeaders(segment.end - 1, 1), now);
+                        segment.state = State.CHECKPOINT_REQUESTED;
+                        checkpointRequests++;
+                    }
+                    break;
+                case HEADERS_NEEDED:
+                    if (getExpectedParent(segment) != null) {
+                        INode peer = selectPeer(idle, segment);
+                        if (peer != null) {
+                            send(
+                                    segment,
+                                    peer,
+                                    new ReqBlocksHeaders(segment.start, segment.size()),
+                                    now);
+                            selector.recordRequest(peer.getIdHash(), System.nanoTime());
+                            segment.state = State.HEADERS_REQUESTED;
+                        }
+                    }
+                    break;
+                case BODIES_NEEDED:
+                    {
+                        INode peer = selectPeer(idle, segment);
+                        if (peer != null) {
+                            List<byte[]> hashes =
+                                    segment.headers
+                                            .subList(segment.blocks.size(), segment.headers.size())
+                                            .stream()
+                                            .map(A0BlockHeader::getHash)
+                                            .collect(Collectors.toList());
+                            send(segment, peer, new ReqBlocksBodies(hashes), now);
+                            segment.state = State.BODIES_REQUESTED;
+                            bodyRequests.put(peer.getIdHash(), segment);
+                        }
+                        break;
+                    }
+                default:
+                    break;
+            }
+        }
+    }
+
+    private void send(Segment segment, INode peer, Msg msg, long now) {
+        p2p.send(peer.getIdHash(), peer.getIdShort(), msg);
+        segment.peerId = peer.getIdHash();
+        segment.displayId = peer.getIdShort();
+        segment.requestTime = now;
+    }
+
+    /** Chooses an idle peer that has all the blocks of the given segment. */
+    private INode selectPeer(Map<Integer, INode> idle, Segment segment) {
+        List<INode> candidates = new ArrayList<>();
+        for (INode peer : idle.values()) {
+            if (peer.getBestBlockNumber() >= segment.end - 1) {
+                candidates.add(peer);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return null;
+        }
+
+        INode peer = selector.select(candidates, random, System.nanoTime());
+        idle.remove(peer.getIdHash());
+        return peer;
+    }
+
+    /**
+     * Returns the hash that the first header of the given segment must have as parent, which is the
+     * checkpoint of the previous segment or the base hash for the first segment.
+     */
+    private byte[] getExpectedParent(Segment segment) {
+        Map.Entry<Long, Segment> previous = segments.lowerEntry(segment.start);
+        if (previous == null) {
+            return baseHash;
+        } else {
+            return previous.getValue().checkpoint == null
+                    ? null
+                    : previous.getValue().checkpoint.getHash();
+        }
+    }
+
+    /**
+     * Processes headers that may answer a checkpoint or segment request.
+     *
+     * @param peerId the peer that sent the headers
+     * @param headers contiguous headers that passed validation
+     * @return {@code true} if the headers were requested by the skeleton sync, {@code false} if
+     *     they should be processed by the regular sync
+     */
+    synchronized boolean validateAndAddHeaders(int peerId, List<A0BlockHeader> headers) {
+        if (!active || headers.isEmpty()) {
+            return false;
+        }
+        A0BlockHeader first = headers.get(0);
+
+        // checkpoint responses contain the last header of a segment
+        Map.Entry<Long, Segment> entry = segments.floorEntry(first.getNumber());
+        if (entry != null
+                && entry.getValue().state == State.CHECKPOINT_REQUESTED
+                && entry.getValue().peerId == peerId
+                && entry.getValue().end - 1 == first.getNumber()
+                && headers.size() == 1) {
+            Segment segment = entry.getValue();
+            segment.checkpoint = first;
+            segment.state = State.HEADERS_NEEDED;
+            sendRequests(System.currentTimeMillis());
+            return true;
+        }
+
+        Segment segment = segments.get(first.getNumber());
+        if (segment == null
+                || segment.state != State.HEADERS_REQUESTED
+                || segment.peerId != peerId) {
+            return false;
+        }
+
+        A0BlockHeader last = headers.get(headers.size() - 1);
+        if (headers.size() == segment.size()
+                && Arrays.equals(first.getParentHash(), getExpectedParent(segment))
+                && Arrays.equals(last.getHash(), segment.checkpoint.getHash())) {
+            segment.headers = headers;
+            segment.state = State.BODIES_NEEDED;
+        } else {
+            segment.state = State.HEADERS_NEEDED;
+            segment.failures++;
+
+            if (log.isDebugEnabled()) {
+                log.debug(
+                        "<skeleton-sync-invalid-headers from-num={} size={} node={}>",
+                        first.getNumber(),
+                        headers.size(),
+                        segment.displayId);
+            }
+
+            // the skeleton peer is on a different chain than the other peers or the local chain
+            if (segment.failures >= MAX_FAILURES) {
+                fail("unlinked-segment", System.currentTimeMillis());
+                return true;
+            }
+        }
+
+        sendRequests(System.currentTimeMillis());
+        return true;
+    }
+
+    /**
+     * Processes bodies that may answer a body request, then adds the complete segments at the front
+     * of the reorder buffer to the import queue.
+     *
+     * @param peerId the peer that sent the bodies
+     * @param bodies the encoded block bodies
+     * @return {@code true} if the bodies were requested by the skeleton sync, {@code false} if they
+     *     should be processed by the regular sync
+     */
+    synchronized boolean validateAndAddBlocks(int peerId, List<byte[]> bodies) {
+        Segment segment = bodyRequests.remove(peerId);
+        if (segment == null) {
+            return false;
+        }
+
+        // peers may send fewer bodies than requested due to the response size limit
+        int offset = segment.blocks.size();
+        for (int i = 0; i < bodies.size() && offset + i < segment.headers.size(); i++) {
+            AionBlock block =
+                    AionBlock.createBlockFromNetwork(
+                            segment.headers.get(offset + i), bodies.get(i));
+            if (block == null) {
+                log.debug("<skeleton-sync-invalid-body node={}>", segment.displayId);
+                break;
+            }
+            segment.blocks.add(block);
+        }
+
+        segment.state =
+                segment.blocks.size() == segment.headers.size()
+                        ? State.COMPLETE
+                        : State.BODIES_NEEDED;
+
+        while (!segments.isEmpty() && segments.firstEntry().getValue().state == State.COMPLETE) {
+            Segment complete = segments.pollFirstEntry().getValue();
+            baseHash = complete.checkpoint.getHash();
+
+            // imported under a dedicated state that leaves the state of the peer unchanged
+            downloadedBlocks.add(
+                    new BlocksWrapper(
+                            complete.peerId,
+                            complete.displayId,
+                            complete.blocks,
+                            new PeerState(SKELETON, complete.start - 1)));
+        }
+
+        if (segments.isEmpty() && nextStart > target) {
+            stop("complete");
+        } else {
+            sendRequests(System.currentTimeMillis());
+        }
+        return true;
+    }
+
+    /** @return the number of segments being downloaded or waiting in the reorder buffer */
+    synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /** A range of blocks that ends at a checkpoint. */
+    private static final class Segment {
+        /** The number of the first block. */
+        private final long start;
+        /** The number following the last block. The last block is the checkpoint. */
+        private final long end;
+
+        private State state = State.CHECKPOINT_NEEDED;
+        private A0BlockHeader checkpoint;
+        private List<A0BlockHeader> headers;
+        private final List<AionBlock> blocks = new ArrayList<>();
+        private int failures = 0;
+
+        /** The peer of the latest request. */
+        private int peerId;
+
+        private String displayId;
+        private long requestTime;
+
+        private Segment(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        private int size() {
+            return (int) (end - start);
+        }
+
+        private boolean isRequested() {
+            return state == State.CHECKPOINT_REQUESTED
+                    || state == State.HEADERS_REQUESTED
+                    || state == State.BODIES_REQUESTED;
+        }
+
+        /** Returns to the state before the request was sent. */
+        private void timeout() {
+            switch (state) {
+                case CHECKPOINT_REQUESTED:
+                    state = State.CHECKPOINT_NEEDED;
+                    break;
+                case HEADERS_REQUESTED:
+                    state = State.HEADERS_NEEDED;
+                    break;
+                case BODIES_REQUESTED:
+                    state = State.BODIES_NEEDED;
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+}
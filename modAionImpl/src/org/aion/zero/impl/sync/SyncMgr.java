@@ -26,6 +26,7 @@ import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.aion.mcf.config.StatsType;
 import org.aion.mcf.valid.BlockHeaderValidator;
+import org.aion.p2p.INode;
 import org.aion.p2p.IP2pMgr;
 import org.aion.types.ByteArrayWrapper;
 import org.aion.util.bytes.ByteUtil;
@@ -47,6 +48,8 @@ public final class SyncMgr {
     private final NetworkStatus networkStatus = new NetworkStatus();
     // peer syncing states
     private final Map<Integer, PeerState> peerStates = new ConcurrentHashMap<>();
+    // per peer throughput estimates used to choose and size header requests
+    private final PeerSelector peerSelector = new PeerSelector();
     // store the downloaded headers from network
     private final BlockingQueue<HeadersWrapper> downloadedHeaders = new LinkedBlockingQueue<>();
     // store the headers whose bodies have been requested from corresponding peer
@@ -81,6 +84,8 @@ public final class SyncMgr {
     private Thread syncGs = null;
     private Thread syncSs = null;
 
+    private SkeletonSync skeletonSync;
+
     private BlockHeaderValidator<A0BlockHeader> blockHeaderValidator;
     private volatile long timeUpdated = 0;
     private AtomicBoolean queueFull = new AtomicBoolean(false);
@@ -181,6 +186,14 @@ public final class SyncMgr {
 
         long selfBest = chain.getBestBlock().getNumber();
         stats = new SyncStats(selfBest, _showStatus, showStatistics, maxActivePeers);
+        skeletonSync =
+                new SkeletonSync(
+                        p2pMgr,
+                        peerSelector,
+                        headersWithBodiesRequested,
+                        downloadedBlocks,
+                        blocksQueueMax,
+                        log);
 
         syncGb =
                 new Thread(
@@ -188,7 +201,7 @@ public final class SyncMgr {
                                 p2pMgr,
                                 start,
                                 downloadedHeaders,
-                                headersWithBodiesRequested,
+                                skeletonSync,
                                 peerStates,
                                 stats,
                                 log),
@@ -244,19 +257,59 @@ public final class SyncMgr {
             }
         } else {
             if (!workers.isShutdown()) {
-                workers.submit(
-                        new TaskGetHeaders(
-                                p2pMgr,
-                                chain.getBestBlock().getNumber(),
-                                _selfTd,
-                                peerStates,
-                                stats,
-                                log));
+                if (skeletonSync.isActive() || startSkeletonSync(_selfTd)) {
+                    workers.submit(() -> skeletonSync.sendRequests(System.currentTimeMillis()));
+                } else {
+                    workers.submit(
+                            new TaskGetHeaders(
+                                    p2pMgr,
+                                    chain.getBestBlock().getNumber(),
+                                    _selfTd,
+                                    peerStates,
+                                    stats,
+                                    peerSelector,
+                                    log));
+                }
                 queueFull.set(false);
             }
         }
     }
 
+    /**
+     * Starts the skeleton sync from the peer with the highest total difficulty when the local chain
+     * is far behind it. Peers that recently failed to provide a skeleton are skipped.
+     *
+     * @return {@code true} if the skeleton sync was started, {@code false} otherwise
+     */
+    private boolean startSkeletonSync(BigInteger _selfTd) {
+        // the local best block must include the blocks already downloaded
+        if (!downloadedBlocks.isEmpty()) {
+            return false;
+        }
+
+        long now = System.currentTimeMillis();
+        INode best = null;
+        for (INode node : p2pMgr.getActiveNodes().values()) {
+            if (node.getTotalDifficulty() != null
+                    && !skeletonSync.isExcluded(node.getIdHash(), now)
+                    && node.getTotalDifficulty().compareTo(_selfTd) > 0
+                    && (best == null
+                            || node.getTotalDifficulty().compareTo(best.getTotalDifficulty())
+                                    > 0)) {
+                best = node;
+            }
+        }
+
+        AionBlock bestBlock = chain.getBestBlock();
+        if (best == null
+                || best.getBestBlockNumber() < bestBlock.getNumber() + SkeletonSync.MIN_DISTANCE) {
+            return false;
+        }
+
+        skeletonSync.start(best, bestBlock.getNumber(), bestBlock.getHash());
+        return true;
+    }
+
     /**
      * @param _nodeIdHashcode int
      * @param _displayId String
@@ -264,6 +317,9 @@ public final class SyncMgr {
      */
     public void validateAndAddHeaders(
             int _nodeIdHashcode, String _displayId, List<A0BlockHeader> _headers) {
+        peerSelector.recordResponse(
+                _nodeIdHashcode, _headers == null ? 0 : _headers.size(), System.nanoTime());
+
         if (_headers == null || _headers.isEmpty()) {
             return;
         }
@@ -307,13 +363,18 @@ public final class SyncMgr {
             }
 
             // add if not cached
-            if (!importedBlockHashes.containsKey(ByteArrayWrapper.wrap(current.getHash()))) {
+            if (!importedBlockHashes.containsKey(current.getHashWrapper())) {
                 filtered.add(current);
             }
 
             prev = current;
         }
 
+        // headers requested by the skeleton sync are not used for the regular sync
+        if (skeletonSync.validateAndAddHeaders(_nodeIdHashcode, _headers)) {
+            return;
+        }
+
         // NOTE: the filtered headers is still continuous
 
         if (!filtered.isEmpty()) {
@@ -329,6 +390,9 @@ public final class SyncMgr {
      */
     public void validateAndAddBlocks(
             int _nodeIdHashcode, String _displayId, final List<byte[]> _bodies) {
+        if (_bodies != null && skeletonSync.validateAndAddBlocks(_nodeIdHashcode, _bodies)) {
+            return;
+        }
 
         HeadersWrapper hw = this.headersWithBodiesRequested.remove(_nodeIdHashcode);
         if (hw == null || _bodies == null) {
@@ -3,10 +3,13 @@ package org.aion.zero.impl.sync;
 import com.google.common.annotations.VisibleForTesting;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import org.aion.mcf.config.StatsType;
+import org.aion.util.metrics.Counter;
+import org.aion.util.metrics.MetricsRegistry;
 import org.aion.zero.impl.sync.statistics.BlockType;
 import org.aion.zero.impl.sync.statistics.RequestStatsTracker;
 import org.aion.zero.impl.sync.statistics.RequestType;
@@ -18,6 +21,21 @@ import org.apache.commons.lang3.tuple.Pair;
 /** @author chris */
 public final class SyncStats {
 
+    private static final Map<RequestType, Counter> REQUESTS = new EnumMap<>(RequestType.class);
+
+    static {
+        for (RequestType type : RequestType.values()) {
+            REQUESTS.put(
+                    type,
+                    MetricsRegistry.inst()
+                            .counter(
+                                    "aion_sync_requests_total",
+                                    "Sync requests sent to peers by type.",
+                                    "type",
+                                    type.name().toLowerCase()));
+        }
+    }
+
     private final long start;
     private final long startBlock;
     // Access to this resource is managed by the {@link #blockAverageLock}.
@@ -59,6 +77,13 @@ public final class SyncStats {
         this.startBlock = startBlock;
         this.avgBlocksPerSec = 0;
         this.averageEnabled = averageEnabled;
+        if (averageEnabled) {
+            MetricsRegistry.inst()
+                    .gauge(
+                            "aion_sync_blocks_per_second",
+                            "Average block import rate since the kernel started.",
+                            this::getAvgBlocksPerSec);
+        }
 
         requestEnabled = showStatistics.contains(StatsType.REQUESTS);
         if (requestEnabled) {
@@ -124,6 +149,7 @@ public final class SyncStats {
      * @param type the type of request added
      */
     public void updateTotalRequestsToPeer(String nodeId, RequestType type) {
+        REQUESTS.get(type).inc();
         if (requestEnabled) {
             requestTracker.updateTotalRequestsToPeer(nodeId, type);
         }
@@ -3,7 +3,6 @@ package org.aion.zero.impl.sync;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import org.aion.p2p.IP2pMgr;
@@ -26,7 +25,7 @@ final class TaskGetBodies implements Runnable {
 
     private final BlockingQueue<HeadersWrapper> downloadedHeaders;
 
-    private final ConcurrentHashMap<Integer, HeadersWrapper> headersWithBodiesRequested;
+    private final SkeletonSync skeletonSync;
 
     private final Map<Integer, PeerState> peerStates;
 
@@ -38,20 +37,20 @@ final class TaskGetBodies implements Runnable {
      * @param _p2p IP2pMgr
      * @param _run AtomicBoolean
      * @param _downloadedHeaders BlockingQueue
-     * @param _headersWithBodiesRequested ConcurrentHashMap
+     * @param _skeletonSync records the body requests, so that they do not collide with its own
      */
     TaskGetBodies(
             final IP2pMgr _p2p,
             final AtomicBoolean _run,
             final BlockingQueue<HeadersWrapper> _downloadedHeaders,
-            final ConcurrentHashMap<Integer, HeadersWrapper> _headersWithBodiesRequested,
+            final SkeletonSync _skeletonSync,
             final Map<Integer, PeerState> peerStates,
             final SyncStats _stats,
             final Logger log) {
         this.p2p = _p2p;
         this.run = _run;
         this.downloadedHeaders = _downloadedHeaders;
-        this.headersWithBodiesRequested = _headersWithBodiesRequested;
+        this.skeletonSync = _skeletonSync;
         this.peerStates = peerStates;
         this.stats = _stats;
         this.log = log;
@@ -74,6 +73,17 @@ final class TaskGetBodies implements Runnable {
                 continue;
             }
 
+            // dropped headers are downloaded again by a later header request
+            if (!skeletonSync.reserveBodyRequest(idHash, hw)) {
+                if (log.isDebugEnabled()) {
+                    log.debug(
+                            "<get-bodies-skipped from-num={} node={} reason=skeleton-request>",
+                            headers.get(0).getNumber(),
+                            displayId);
+                }
+                continue;
+            }
+
             if (log.isDebugEnabled()) {
                 log.debug(
                         "<get-bodies from-num={} to-num={} node={}>",
@@ -90,8 +100,6 @@ final class TaskGetBodies implements Runnable {
             stats.updateTotalRequestsToPeer(displayId, RequestType.BODIES);
             stats.updateRequestTime(displayId, System.nanoTime(), RequestType.BODIES);
 
-            headersWithBodiesRequested.put(idHash, hw);
-
             PeerState peerState = peerStates.get(hw.getNodeIdHash());
             if (peerState != null) {
                 peerState.setState(State.BODIES_REQUESTED);
@@ -33,6 +33,8 @@ final class TaskGetHeaders implements Runnable {
 
     private final SyncStats stats;
 
+    private final PeerSelector selector;
+
     private final Logger log;
 
     private final Random random = new Random(System.currentTimeMillis());
@@ -43,12 +45,14 @@ final class TaskGetHeaders implements Runnable {
             BigInteger selfTd,
             Map<Integer, PeerState> peerStates,
             final SyncStats _stats,
+            PeerSelector selector,
             Logger log) {
         this.p2p = p2p;
         this.selfNumber = selfNumber;
         this.selfTd = selfTd;
         this.peerStates = peerStates;
         this.stats = _stats;
+        this.selector = selector;
         this.log = log;
     }
 
@@ -81,8 +85,8 @@ final class TaskGetHeaders implements Runnable {
             return;
         }
 
-        // pick one random node
-        INode node = nodesFiltered.get(random.nextInt(nodesFiltered.size()));
+        // pick a node favouring the ones with the highest throughput
+        INode node = selector.select(nodesFiltered, random, System.nanoTime());
 
         // fetch the peer state
         PeerState state = peerStates.get(node.getIdHash());
@@ -161,19 +165,25 @@ final class TaskGetHeaders implements Runnable {
                 }
         }
 
+        // fast peers are asked for more blocks than the mode requires
+        size = selector.getRequestSize(node.getIdHash(), size);
+
         // send request
         if (log.isDebugEnabled()) {
             log.debug(
-                    "<get-headers mode={} from-num={} size={} node={}>",
+                    "<get-headers mode={} from-num={} size={} node={} blocks/s={} latency={}>",
                     state.getMode(),
                     from,
                     size,
-                    node.getIdShort());
+                    node.getIdShort(),
+                    String.format("%.1f", selector.getThroughput(node.getIdHash())),
+                    String.format("%.1f", selector.getLatency(node.getIdHash())));
         }
         ReqBlocksHeaders rbh = new ReqBlocksHeaders(from, size);
         this.p2p.send(node.getIdHash(), node.getIdShort(), rbh);
         stats.updateTotalRequestsToPeer(node.getIdShort(), RequestType.STATUS);
         stats.updateRequestTime(node.getIdShort(), System.nanoTime(), RequestType.HEADERS);
+        selector.recordRequest(node.getIdHash(), System.nanoTime());
 
         // update timestamp
         state.setLastHeaderRequest(now);
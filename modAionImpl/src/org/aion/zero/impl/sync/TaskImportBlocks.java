@@ -7,6 +7,7 @@ import static org.aion.zero.impl.sync.PeerState.Mode.BACKWARD;
 import static org.aion.zero.impl.sync.PeerState.Mode.FORWARD;
 import static org.aion.zero.impl.sync.PeerState.Mode.LIGHTNING;
 import static org.aion.zero.impl.sync.PeerState.Mode.NORMAL;
+import static org.aion.zero.impl.sync.PeerState.Mode.SKELETON;
 import static org.aion.zero.impl.sync.PeerState.Mode.THUNDER;
 
 import com.google.common.annotations.VisibleForTesting;
@@ -25,6 +26,8 @@ import java.util.stream.Collectors;
 import org.aion.mcf.core.ImportResult;
 import org.aion.p2p.P2pConstant;
 import org.aion.types.ByteArrayWrapper;
+import org.aion.util.metrics.Histogram;
+import org.aion.util.metrics.MetricsRegistry;
 import org.aion.zero.impl.AionBlockchainImpl;
 import org.aion.zero.impl.db.AionBlockStore;
 import org.aion.zero.impl.sync.PeerState.Mode;
@@ -41,6 +44,12 @@ import org.slf4j.Logger;
  */
 final class TaskImportBlocks implements Runnable {
 
+    private static final Histogram PRE_VALIDATION_TIME =
+            MetricsRegistry.inst()
+                    .timer(
+                            "aion_sync_prevalidation_seconds",
+                            "Time to validate the bodies of a batch of blocks before import.");
+
     private final AionBlockchainImpl chain;
 
     private final AtomicBoolean start;
@@ -104,7 +113,11 @@ final class TaskImportBlocks implements Runnable {
                 return;
             }
 
-            PeerState peerState = peerStates.get(bw.getNodeIdHash());
+            // the skeleton sync segments are imported under their own state
+            PeerState peerState =
+                    bw.getImportState() != null
+                            ? bw.getImportState()
+                            : peerStates.get(bw.getNodeIdHash());
             if (peerState == null) {
                 // ignoring these blocks
                 log.warn("Peer {} sent blocks that were not requested.", bw.getDisplayId());
@@ -175,7 +188,7 @@ final class TaskImportBlocks implements Runnable {
     }
 
     private static boolean isNotImported(AionBlock b, Map<ByteArrayWrapper, Object> imported) {
-        return imported.get(ByteArrayWrapper.wrap(b.getHash())) == null;
+        return imported.get(b.getHashWrapper()) == null;
     }
 
     private static boolean isNotRestricted(AionBlock b, AionBlockchainImpl chain) {
@@ -207,6 +220,8 @@ final class TaskImportBlocks implements Runnable {
                 // TODO: impact of allowing the LIGHTNING jump instead?
                 state.setMode(NORMAL);
                 return state;
+            } else if (state.getMode() == SKELETON) {
+                return state;
             } else {
                 return attemptLightningJump(
                         getBestBlockNumber(), state, peerStates.values(), baseList, chain);
@@ -223,7 +238,7 @@ final class TaskImportBlocks implements Runnable {
             // implies the full batch was already imported (but not filtered by the queue)
             if (isAlreadyStored(chain.getBlockStore(), b)) {
                 // keeping track of the last block check
-                importedBlockHashes.put(ByteArrayWrapper.wrap(b.getHash()), true);
+                importedBlockHashes.put(b.getHashWrapper(), true);
 
                 // skipping the batch
                 if (log.isDebugEnabled()) {
@@ -239,6 +254,8 @@ final class TaskImportBlocks implements Runnable {
                 // updating the state
                 if (mode == FORWARD) {
                     return forwardModeUpdate(state, b.getNumber(), ImportResult.EXIST);
+                } else if (mode == SKELETON) {
+                    return state;
                 } else {
                     // mode in { NORMAL, LIGHTNING, THUNDER }
                     return attemptLightningJump(
@@ -247,6 +264,11 @@ final class TaskImportBlocks implements Runnable {
             }
         }
 
+        // skip batches that will be delegated to storage due to a missing parent
+        if (chain.getBlockStore().isBlockExist(batch.get(0).getParentHash())) {
+            preValidate(batch, chain);
+        }
+
         // remembering imported range
         long first = -1L, last = -1L;
         ImportResult importResult;
@@ -256,7 +278,7 @@ final class TaskImportBlocks implements Runnable {
                 importResult = importBlock(b, displayId, givenState);
 
                 if (importResult.isStored()) {
-                    importedBlockHashes.put(ByteArrayWrapper.wrap(b.getHash()), true);
+                    importedBlockHashes.put(b.getHashWrapper(), true);
                     this.syncStats.updatePeerBlocks(displayId, 1, BlockType.IMPORTED);
 
                     if (last <= b.getNumber()) {
@@ -331,6 +353,7 @@ final class TaskImportBlocks implements Runnable {
                                 break;
                             }
                         case THUNDER:
+                        case SKELETON:
                             break;
                     }
                     // exit loop after NO_PARENT result
@@ -396,6 +419,21 @@ final class TaskImportBlocks implements Runnable {
         return state;
     }
 
+    /**
+     * Runs the stateless body checks for all the blocks in the batch in parallel, so that the
+     * sequential import only has to execute them. Blocks that fail are not marked as pre-validated
+     * and get rejected by the import.
+     *
+     * @param batch the blocks about to be imported
+     * @param chain the blockchain where the blocks will be imported
+     */
+    @VisibleForTesting
+    static void preValidate(List<AionBlock> batch, AionBlockchainImpl chain) {
+        long start = System.nanoTime();
+        batch.parallelStream().filter(b -> !b.isPreValidated()).forEach(chain::preValidate);
+        PRE_VALIDATION_TIME.recordSince(start);
+    }
+
     /**
      * Utility method that updates the given state to a LIGHTNING jump when the jump conditions
      * (balancing the number of fast and normal states) are met. If a jump is not possible (due to
@@ -672,12 +710,14 @@ final class TaskImportBlocks implements Runnable {
                     continue;
                 }
 
+                preValidate(batchFromDisk, chain);
+
                 for (AionBlock b : batchFromDisk) {
                     try {
                         importResult = importBlock(b, "STORAGE", state);
 
                         if (importResult.isStored()) {
-                            importedBlockHashes.put(ByteArrayWrapper.wrap(b.getHash()), true);
+                            importedBlockHashes.put(b.getHashWrapper(), true);
 
                             batch++;
 
@@ -1,5 +1,8 @@
 package org.aion.zero.impl.sync;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.BlockingQueue;
@@ -14,6 +17,9 @@ import org.slf4j.Logger;
  * Processes the received trie nodes that were requested. The thread is shut down once the fast sync
  * manager indicates that the full trie is the complete.
  *
+ * <p>All the nodes of a response are imported as one batch. The valid nodes are stored and used to
+ * continue the download even when other nodes of the same response fail to import.
+ *
  * @author Alexandra Roatis
  */
 final class TaskImportTrieData implements Runnable {
@@ -72,16 +78,20 @@ final class TaskImportTrieData implements Runnable {
             String peer = tnw.getDisplayId();
             ByteArrayWrapper key;
             byte[] value;
-            boolean failed = false;
+            boolean failedTopmost = false;
+            List<ByteArrayWrapper> imported = new ArrayList<>();
+
+            Map<ByteArrayWrapper, TrieNodeResult> results = chain.importTrieNodes(nodes, dbType);
 
             for (Entry<ByteArrayWrapper, byte[]> e : nodes.entrySet()) {
                 key = e.getKey();
                 value = e.getValue();
 
-                TrieNodeResult result = chain.importTrieNode(key.getData(), value, dbType);
+                TrieNodeResult result = results.get(key);
 
                 if (result.isSuccessful()) {
                     fastSyncMgr.addImportedNode(key, value, dbType);
+                    imported.add(key);
                     log.debug(
                             "<import-trie-nodes: key={}, value length={}, db={}, result={}, peer={}>",
                             key,
@@ -100,16 +110,21 @@ final class TaskImportTrieData implements Runnable {
                                 peer);
                     }
                     fastSyncMgr.handleFailedImport(key, value, dbType, tnw.getPeerId(), peer);
-                    failed = true;
-                    // exit this loop and ignore other imports
-                    break;
+                    if (key.equals(tnw.getNodeKey())) {
+                        failedTopmost = true;
+                    }
                 }
             }
 
-            if (!failed) {
-                // reexamine missing states and make further requests
+            // reexamine missing states and make further requests
+            if (!failedTopmost) {
+                // the walk from the topmost node covers the imported referenced nodes
                 fastSyncMgr.updateRequests(
                         tnw.getNodeKey(), tnw.getReferencedNodes().keySet(), tnw.getDbType());
+            } else {
+                for (ByteArrayWrapper importedKey : imported) {
+                    fastSyncMgr.updateRequests(importedKey, Collections.emptySet(), dbType);
+                }
             }
         }
 
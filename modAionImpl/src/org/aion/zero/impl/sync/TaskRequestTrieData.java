@@ -0,0 +1,48 @@
+package org.aion.zero.impl.sync;
+
+import org.slf4j.Logger;
+
+/**
+ * Periodically sends requests for missing trie nodes so that the state download continues when
+ * requests time out or new peers connect. The thread is shut down once the fast sync manager
+ * indicates that the full trie is complete.
+ */
+final class TaskRequestTrieData implements Runnable {
+
+    /** Time between two rounds of requests, in milliseconds. */
+    private static final long INTERVAL_MILLIS = 500L;
+
+    private final Logger log;
+    private final FastSyncManager fastSyncMgr;
+
+    /**
+     * Constructor.
+     *
+     * @param log logger for reporting execution information
+     * @param fastSyncMgr manages the fast sync process and indicates when completeness is reached
+     */
+    TaskRequestTrieData(final Logger log, final FastSyncManager fastSyncMgr) {
+        this.log = log;
+        this.fastSyncMgr = fastSyncMgr;
+    }
+
+    @Override
+    public void run() {
+        while (!fastSyncMgr.isComplete()) {
+            fastSyncMgr.sendTrieDataRequests();
+
+            try {
+                Thread.sleep(INTERVAL_MILLIS);
+            } catch (InterruptedException ex) {
+                if (!fastSyncMgr.isComplete()) {
+                    log.error("<request-trie-nodes: interrupted without shutdown request>", ex);
+                }
+                return;
+            }
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("<request-trie-nodes: shutdown>");
+        }
+    }
+}
@@ -0,0 +1,421 @@
+package org.aion.zero.impl.sync;
+
+import static org.aion.p2p.V1Constants.TRIE_DATA_REQUEST_MAXIMUM_BATCH_SIZE;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.aion.p2p.INode;
+import org.aion.p2p.IP2pMgr;
+import org.aion.rlp.RLP;
+import org.aion.rlp.RLPElement;
+import org.aion.rlp.RLPList;
+import org.aion.types.ByteArrayWrapper;
+import org.aion.util.bytes.ByteUtil;
+import org.aion.zero.impl.sync.msg.RequestTrieData;
+import org.slf4j.Logger;
+
+/**
+ * Schedules the download of trie nodes from multiple peers.
+ *
+ * <p>The trie is walked breadth-first: the frontier holds the hashes of nodes that are referenced
+ * by imported nodes but are missing from the database. Requests for frontier nodes are spread over
+ * all the active peers, with a limit on the number of requests each peer has in flight. Requests
+ * that are not answered in time are put back at the front of the frontier and the peer is not sent
+ * new requests for a while, so that the nodes get requested from other peers.
+ *
+ * <p>The frontier can be saved to a file and loaded back to resume an interrupted download.
+ */
+final class TrieDataScheduler {
+
+    /** Maximum number of requests sent to a single peer that have not been answered yet. */
+    static final int MAX_REQUESTS_PER_PEER = 4;
+
+    /** Time after which a request is considered failed and reassigned to another peer. */
+    static final long REQUEST_TIMEOUT_MILLIS = 10_000L;
+
+    /** Time between progress reports and saves of the frontier. */
+    private static final long REPORT_INTERVAL_MILLIS = 10_000L;
+
+    private final IP2pMgr p2pMgr;
+    private final Logger log;
+    private final File frontierFile;
+
+    /**
+     * Nodes that have not been requested yet. Received nodes are left in place and skipped when
+     * polled, see {@link #pollFrontier()}.
+     */
+    private final Deque<Node> frontier = new ArrayDeque<>();
+    /** Nodes that have been requested, in the order the requests were sent. */
+    private final Map<Node, Request> inFlight = new LinkedHashMap<>();
+    /** All the scheduled nodes, either in the frontier or in flight. */
+    private final Set<Node> scheduled = new HashSet<>();
+    /** The number of requests in flight for each peer. */
+    private final Map<Integer, Integer> peerRequests = new HashMap<>();
+    /** The time until which peers that failed to respond are not sent new requests. */
+    private final Map<Integer, Long> peerBackoff = new HashMap<>();
+    /** The databases for which the download has started. */
+    private final Set<DatabaseType> started = EnumSet.noneOf(DatabaseType.class);
+
+    private long importedNodes = 0;
+    private long importedBytes = 0;
+    private long lastReportTime = 0;
+    private long lastReportNodes = 0;
+    private long lastReportBytes = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param p2pMgr peer manager used to send requests
+     * @param log logger for reporting the download progress
+     * @param frontierFile the file where the frontier is saved or {@code null} if the frontier
+     *     should not be saved
+     */
+    TrieDataScheduler(final IP2pMgr p2pMgr, final Logger log, final File frontierFile) {
+        this.p2pMgr = p2pMgr;
+        this.log = log;
+        this.frontierFile = frontierFile;
+    }
+
+    /**
+     * Adds the given node to the end of the frontier, unless it is already scheduled.
+     *
+     * @param key the hash of the missing trie node
+     * @param dbType the database where the node belongs
+     */
+    synchronized void add(ByteArrayWrapper key, DatabaseType dbType) {
+        started.add(dbType);
+
+        Node node = new Node(key, dbType);
+        if (scheduled.add(node)) {
+            frontier.addLast(node);
+        }
+    }
+
+    /**
+     * Marks the given node as received and schedules the nodes it references that are still
+     * missing.
+     *
+     * @param key the hash of the requested trie node
+     * @param dbType the database where the node belongs
+     * @param missing the nodes referenced by the imported data that are missing from the database
+     */
+    synchronized void received(
+            ByteArrayWrapper key, DatabaseType dbType, Collection<ByteArrayWrapper> missing) {
+        Node node = new Node(key, dbType);
+
+        // the node may have been received from a slow peer after being reassigned, in which case
+        // it stays in the frontier until polled
+        if (scheduled.remove(node)) {
+            Request request = inFlight.remove(node);
+            if (request != null) {
+                release(request.peerId);
+            }
+        }
+
+        for (ByteArrayWrapper ref : missing) {
+            add(ref, dbType);
+        }
+    }
+
+    /**
+     * Records an imported node for the download statistics.
+     *
+     * @param size the size in bytes of the imported node value
+     */
+    synchronized void imported(int size) {
+        importedNodes++;
+        importedBytes += size;
+    }
+
+    /**
+     * Reassigns the timed out requests and sends requests for frontier nodes to the active peers
+     * that have not reached their limit of requests in flight.
+     *
+     * @param now the current time in milliseconds
+     * @return the number of requests sent
+     */
+    synchronized int sendRequests(long now) {
+        return sendRequests(now, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reassigns the timed out requests and sends requests for frontier nodes to the active peers
+     * that have not reached their limit of requests in flight, keeping the total number of requests
+     * in flight within the given limit.
+     *
+     * @param now the current time in milliseconds
+     * @param maxInFlight the maximum number of requests in flight, e.g. the number of responses
+     *     that can be queued for import without being dropped
+     * @return the number of requests sent
+     */
+    synchronized int sendRequests(long now, int maxInFlight) {
+        expire(now);
+
+        List<INode> peers = new ArrayList<>();
+        for (INode peer : p2pMgr.getActiveNodes().values()) {
+            Long backoff = peerBackoff.get(peer.getIdHash());
+            if (backoff == null || backoff <= now) {
+                peerBackoff.remove(peer.getIdHash());
+                peers.add(peer);
+            }
+        }
+
+        // assigns requests to peers in turns to spread the load
+        int sent = 0;
+        boolean assigned = true;
+        Node node = pollFrontier();
+        while (assigned && node != null) {
+            assigned = false;
+            for (INode peer : peers) {
+                int count = peerRequests.getOrDefault(peer.getIdHash(), 0);
+                if (count < MAX_REQUESTS_PER_PEER
+                        && node != null
+                        && inFlight.size() < maxInFlight) {
+                    inFlight.put(node, new Request(peer.getIdHash(), now));
+                    peerRequests.put(peer.getIdHash(), count + 1);
+
+                    // only the state trie is stored under plain hashes that peers can expand
+                    int limit =
+                            node.dbType == DatabaseType.STATE
+                                    ? TRIE_DATA_REQUEST_MAXIMUM_BATCH_SIZE
+                                    : 1;
+                    p2pMgr.send(
+                            peer.getIdHash(),
+                            peer.getIdShort(),
+                            new RequestTrieData(node.key.getData(), node.dbType, limit));
+                    sent++;
+                    assigned = true;
+                    node = pollFrontier();
+                }
+            }
+        }
+        if (node != null) {
+            // no peer could take it or the limit was reached
+            frontier.addFirst(node);
+        }
+
+        if (now - lastReportTime >= REPORT_INTERVAL_MILLIS) {
+            report(now);
+            save();
+        }
+
+        return sent;
+    }
+
+    /**
+     * Removes the first node from the frontier that is still scheduled and not in flight. The other
+     * nodes were received while in the frontier or added again after being received, and are
+     * dropped.
+     *
+     * @return the next node to request, or {@code null} if there are none
+     */
+    private Node pollFrontier() {
+        Node node = frontier.pollFirst();
+        while (node != null && (!scheduled.contains(node) || inFlight.containsKey(node))) {
+            node = frontier.pollFirst();
+        }
+        return node;
+    }
+
+    /** Puts the requests that were not answered in time back at the front of the frontier. */
+    private void expire(long now) {
+        Iterator<Map.Entry<Node, Request>> it = inFlight.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Node, Request> entry = it.next();
+            Request request = entry.getValue();
+            if (now - request.time < REQUEST_TIMEOUT_MILLIS) {
+                // the following requests were sent later
+                break;
+            } else {
+                it.remove();
+                release(request.peerId);
+                peerBackoff.put(request.peerId, now + REQUEST_TIMEOUT_MILLIS);
+                frontier.addFirst(entry.getKey());
+
+                if (log.isDebugEnabled()) {
+                    log.debug(
+                            "<trie-data-timeout: key={}, db={}, peer={}>",
+                            entry.getKey().key,
+                            entry.getKey().dbType,
+                            request.peerId);
+                }
+            }
+        }
+    }
+
+    private void release(int peerId) {
+        int count = peerRequests.getOrDefault(peerId, 0);
+        if (count <= 1) {
+            peerRequests.remove(peerId);
+        } else {
+            peerRequests.put(peerId, count - 1);
+        }
+    }
+
+    private void report(long now) {
+        if (lastReportTime > 0) {
+            double seconds = (now - lastReportTime) / 1000.0;
+            log.info(
+                    "<trie-data-download: nodes/s={}, bytes/s={}, imported={}, frontier={},"
+                            + " in-flight={}>",
+                    String.format("%.1f", (importedNodes - lastReportNodes) / seconds),
+                    String.format("%.1f", (importedBytes - lastReportBytes) / seconds),
+                    importedNodes,
+                    scheduled.size() - inFlight.size(),
+                    inFlight.size());
+        }
+
+        lastReportTime = now;
+        lastReportNodes = importedNodes;
+        lastReportBytes = importedBytes;
+    }
+
+    /**
+     * Indicates that all the nodes of the given database were received. Only the state trie is
+     * walked from a single root. The details and storage are scheduled per contract by the caller,
+     * so they are never reported as complete here.
+     *
+     * @param dbType the database to check
+     * @return {@code true} if the download of the state started and no state nodes are scheduled,
+     *     {@code false} otherwise
+     */
+    synchronized boolean isComplete(DatabaseType dbType) {
+        return dbType == DatabaseType.STATE && started.contains(dbType) && !hasScheduled(dbType);
+    }
+
+    /**
+     * Indicates that nodes of the given database are waiting to be received.
+     *
+     * @param dbType the database to check
+     * @return {@code true} if nodes are scheduled for the given database, {@code false} otherwise
+     */
+    synchronized boolean hasScheduled(DatabaseType dbType) {
+        for (Node node : scheduled) {
+            if (node.dbType == dbType) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** @return the number of nodes that are scheduled, either in the frontier or in flight */
+    synchronized int getScheduledCount() {
+        return scheduled.size();
+    }
+
+    /** @return the number of requests in flight for the given peer */
+    synchronized int getRequestCount(int peerId) {
+        return peerRequests.getOrDefault(peerId, 0);
+    }
+
+    /** Saves the scheduled nodes to the frontier file, in the order they should be requested. */
+    synchronized void save() {
+        if (frontierFile == null) {
+            return;
+        }
+
+        // nodes in flight are saved first since they were taken from the front of the frontier
+        List<byte[]> elements = new ArrayList<>(scheduled.size());
+        for (Node node : inFlight.keySet()) {
+            elements.add(node.encode());
+        }
+        Set<Node> saved = new HashSet<>(inFlight.keySet());
+        for (Node node : frontier) {
+            // skips the stale entries, see pollFrontier()
+            if (scheduled.contains(node) && saved.add(node)) {
+                elements.add(node.encode());
+            }
+        }
+
+        File tmp = new File(frontierFile.getPath() + ".tmp");
+        try {
+            Files.write(tmp.toPath(), RLP.encodeList(elements.toArray(new byte[0][])));
+            Files.move(tmp.toPath(), frontierFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.error("Unable to save the trie data frontier to " + frontierFile + ".", e);
+        }
+    }
+
+    /**
+     * Loads the nodes saved in the frontier file to the end of the frontier.
+     *
+     * @return {@code true} if nodes were loaded from the file, {@code false} otherwise
+     */
+    synchronized boolean load() {
+        if (frontierFile == null || !frontierFile.isFile()) {
+            return false;
+        }
+
+        try {
+            RLPList list = (RLPList) RLP.decode2(Files.readAllBytes(frontierFile.toPath())).get(0);
+            for (RLPElement e : list) {
+                RLPList element = (RLPList) e;
+                DatabaseType dbType =
+                        DatabaseType.values()[ByteUtil.byteArrayToInt(element.get(0).getRLPData())];
+                add(ByteArrayWrapper.wrap(element.get(1).getRLPData()), dbType);
+            }
+            return !list.isEmpty();
+        } catch (IOException | RuntimeException e) {
+            log.error("Unable to load the trie data frontier from " + frontierFile + ".", e);
+            return false;
+        }
+    }
+
+    /** A trie node identified by its hash and database. */
+    private static final class Node {
+        private final ByteArrayWrapper key;
+        private final DatabaseType dbType;
+
+        private Node(ByteArrayWrapper key, DatabaseType dbType) {
+            this.key = key;
+            this.dbType = dbType;
+        }
+
+        private byte[] encode() {
+            return RLP.encodeList(
+                    RLP.encodeInt(dbType.ordinal()), RLP.encodeElement(key.getData()));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Node that = (Node) o;
+            return dbType == that.dbType && key.equals(that.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * key.hashCode() + dbType.hashCode();
+        }
+    }
+
+    /** A request in flight. */
+    private static final class Request {
+        private final int peerId;
+        private final long time;
+
+        private Request(int peerId, long time) {
+            this.peerId = peerId;
+            this.time = time;
+        }
+    }
+}
@@ -2,10 +2,13 @@ package org.aion.zero.impl.sync.handler;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import org.aion.crypto.HashUtil;
 import org.aion.types.ByteArrayWrapper;
 import org.aion.mcf.blockchain.IPendingStateInternal;
 import org.aion.p2p.Ctrl;
@@ -34,6 +37,17 @@ public final class BroadcastTxHandler extends Handler {
 
     private final boolean isSyncOnlyNode;
 
+    /** Number of hashes kept per generation of the seen-set. */
+    private static final int SEEN_TX_LIMIT = 64 * 1024;
+
+    /**
+     * Hashes of the transactions already received from any peer. Kept in two generations so the
+     * set stays bounded without an LRU lock shared by all the p2p worker threads.
+     */
+    private volatile Set<ByteArrayWrapper> seenTx = ConcurrentHashMap.newKeySet();
+
+    private volatile Set<ByteArrayWrapper> seenTxOld = ConcurrentHashMap.newKeySet();
+
     public BroadcastTxHandler(
             final Logger _log,
             final IPendingStateInternal _pendingState,
@@ -101,11 +115,13 @@ public final class BroadcastTxHandler extends Handler {
         }
 
         try {
-            for (AionTransaction tx : castRawTx(broadCastTx)) {
-                if (!txQueue.offer(tx)) {
+            List<AionTransaction> txs = castRawTx(broadCastTx);
+            for (int i = 0; i < txs.size(); i++) {
+                if (!txQueue.offer(txs.get(i))) {
                     if (log.isTraceEnabled()) {
                         log.trace("<BroadcastTxHandler txQueue full! {}>", _displayId);
                     }
+                    forget(txs.subList(i, txs.size()));
                     break;
                 }
             }
@@ -120,13 +136,16 @@ public final class BroadcastTxHandler extends Handler {
 
         for (byte[] raw : broadCastTx) {
             try {
+                // the transaction hash covers the received bytes, so duplicates are dropped
+                // before anything is decoded
+                ByteArrayWrapper hash = ByteArrayWrapper.wrap(HashUtil.h256(raw));
+                if (!markSeen(hash) || TXValidator.isInCache(hash)) {
+                    continue;
+                }
+
                 AionTransaction tx = new AionTransaction(raw);
-                if (tx.getTransactionHash() != null) {
-                    if (!TXValidator.isInCache(ByteArrayWrapper.wrap(tx.getTransactionHash()))) {
-                        if (pendingState.isValid(tx)) {
-                            rtn.add(tx);
-                        }
-                    }
+                if (pendingState.isValid(tx)) {
+                    rtn.add(tx);
                 }
             } catch (Exception e) {
                 // do nothing, invalid transaction from bad peer
@@ -146,6 +165,36 @@ public final class BroadcastTxHandler extends Handler {
         return rtn;
     }
 
+    /**
+     * Records the given transaction hash as received.
+     *
+     * @return {@code true} if the hash was not seen before
+     */
+    private boolean markSeen(ByteArrayWrapper hash) {
+        if (seenTxOld.contains(hash) || !seenTx.add(hash)) {
+            return false;
+        }
+
+        if (seenTx.size() > SEEN_TX_LIMIT) {
+            synchronized (this) {
+                if (seenTx.size() > SEEN_TX_LIMIT) {
+                    seenTxOld = seenTx;
+                    seenTx = ConcurrentHashMap.newKeySet();
+                }
+            }
+        }
+        return true;
+    }
+
+    /** Forgets transactions that were dropped so they can be accepted from another peer. */
+    private void forget(List<AionTransaction> txs) {
+        for (AionTransaction tx : txs) {
+            ByteArrayWrapper hash = ByteArrayWrapper.wrap(tx.getTransactionHash());
+            seenTx.remove(hash);
+            seenTxOld.remove(hash);
+        }
+    }
+
     @Override
     public void shutDown() {
         log.info("BroadcastTxHandler shutting down!");
@@ -25,7 +25,8 @@ public final class ResponseTrieDataHandler extends Handler {
      * Constructor.
      *
      * @param log logger for reporting execution information
-     * @param states map containing the received states to be processed
+     * @param states bounded queue for the received states to be processed; responses that do not
+     *     fit are dropped
      */
     public ResponseTrieDataHandler(final Logger log, final BlockingQueue<TrieNodeWrapper> states) {
         super(Ver.V1, Ctrl.SYNC, Act.RESPONSE_TRIE_DATA);
@@ -47,7 +48,11 @@ public final class ResponseTrieDataHandler extends Handler {
                 this.log.debug("<res-trie response={} peer={}>", response, displayId);
             }
 
-            states.add(new TrieNodeWrapper(peerId, displayId, response));
+            // only unsolicited responses are expected to be dropped, since the requests are
+            // limited to the free space in the queue
+            if (!states.offer(new TrieNodeWrapper(peerId, displayId, response))) {
+                this.log.debug("<res-trie queue full, dropped response from peer={}>", displayId);
+            }
         } else {
             this.log.error(
                     "<res-trie decode-error msg-bytes={} peer={}>", message.length, displayId);
@@ -41,10 +41,12 @@ public class ResponseStats {
      *
      * @param nodeId peer display identifier
      * @param responseTime time when the response was received in nanoseconds
+     * @return the time between the matching request and the response in nanoseconds, or -1 when
+     *     there is no matching request
      */
-    public void updateResponseTime(String nodeId, long responseTime) {
+    public long updateResponseTime(String nodeId, long responseTime) {
         if (!requestTimeByPeers.containsKey(nodeId) || requestTimeByPeers.get(nodeId).isEmpty()) {
-            return;
+            return -1;
         }
 
         Long matchingRequestTime = requestTimeByPeers.get(nodeId).pollFirst();
@@ -65,7 +67,9 @@ public class ResponseStats {
                 responseStatsByPeers.put(
                         nodeId, Pair.of((double) responseTime - matchingRequestTime, 1));
             }
+            return responseTime - matchingRequestTime;
         }
+        return -1;
     }
 
     /**
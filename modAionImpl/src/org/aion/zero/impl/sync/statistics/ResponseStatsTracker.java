@@ -10,6 +10,8 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import org.aion.util.metrics.Histogram;
+import org.aion.util.metrics.MetricsRegistry;
 import org.apache.commons.lang3.tuple.Pair;
 
 /**
@@ -24,6 +26,7 @@ public class ResponseStatsTracker {
     // track status, headers and bodes messages
     private final EnumMap<RequestType, ResponseStats> stats = new EnumMap<>(RequestType.class);
     private final EnumMap<RequestType, Lock> locks = new EnumMap<>(RequestType.class);
+    private final EnumMap<RequestType, Histogram> timers = new EnumMap<>(RequestType.class);
 
     public ResponseStatsTracker(int maxActivePeers) {
         for (RequestType type : RequestType.values()) {
@@ -31,6 +34,14 @@ public class ResponseStatsTracker {
             this.stats.put(type, new ResponseStats(maxActivePeers));
             // instantiate locks
             this.locks.put(type, new ReentrantLock());
+            this.timers.put(
+                    type,
+                    MetricsRegistry.inst()
+                            .timer(
+                                    "aion_sync_response_seconds",
+                                    "Time between a sync request and the peer response.",
+                                    "type",
+                                    type.name().toLowerCase()));
         }
     }
 
@@ -48,7 +59,10 @@ public class ResponseStatsTracker {
         Lock responseLock = locks.get(requestType);
         responseLock.lock();
         try {
-            stats.get(requestType).updateResponseTime(displayId, responseTime);
+            long delay = stats.get(requestType).updateResponseTime(displayId, responseTime);
+            if (delay >= 0) {
+                timers.get(requestType).record(delay);
+            }
         } finally {
             responseLock.unlock();
         }
@@ -35,6 +35,9 @@ public class AionBlock extends AbstractBlock<A0BlockHeader, AionTransaction> imp
 
     private BigInteger td = null;
 
+    /** Set once the body passed the checks that do not depend on the parent state. */
+    private volatile boolean preValidated = false;
+
     /* Constructors */
     private AionBlock() {}
 
@@ -279,21 +282,17 @@ public class AionBlock extends AbstractBlock<A0BlockHeader, AionTransaction> imp
     }
 
     // used to reduce the number of times we create equal wrapper objects
-    private ByteArrayWrapper hashWrapper = null;
     private ByteArrayWrapper parentHashWrapper = null;
 
     /**
      * Returns a {@link ByteArrayWrapper} instance of the block's hash.
      *
      * @return a {@link ByteArrayWrapper} instance of the block's hash
-     * @implNote Not safe when the block is mutable. Use this only for sync where the block's hash
-     *     cannot change during execution.
+     * @implNote The wrapper is cached by the header and discarded when a header field changes.
      */
     public ByteArrayWrapper getHashWrapper() {
-        if (hashWrapper == null) {
-            hashWrapper = ByteArrayWrapper.wrap(getHash());
-        }
-        return hashWrapper;
+        parseRLP();
+        return this.header.getHashWrapper();
     }
 
     /**
@@ -346,6 +345,20 @@ public class AionBlock extends AbstractBlock<A0BlockHeader, AionTransaction> imp
 
         this.transactionsList = txs;
         this.txsState = null; // wipe the txsState after setting
+        this.preValidated = false;
+    }
+
+    /**
+     * Returns {@code true} when the transactions of this block were already checked against the
+     * transaction trie root and validated, so the import only needs to run the stateful checks.
+     */
+    public boolean isPreValidated() {
+        return preValidated;
+    }
+
+    /** Records that the transactions of this block passed the stateless validation. */
+    public void markPreValidated() {
+        this.preValidated = true;
     }
 
     @Override
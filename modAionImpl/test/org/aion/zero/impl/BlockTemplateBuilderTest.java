@@ -0,0 +1,186 @@
+package org.aion.zero.impl;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.aion.mcf.blockchain.IPendingState;
+import org.aion.mcf.core.ImportResult;
+import org.aion.types.Address;
+import org.aion.util.bytes.ByteUtil;
+import org.aion.vm.VirtualMachineProvider;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.types.AionTransaction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BlockTemplateBuilderTest {
+
+    private static final Address RECEIVER =
+            Address.wrap(
+                    ByteUtil.hexStringToBytes(
+                            "CAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFE"));
+
+    private StandaloneBlockchain.Bundle bundle;
+    private List<AionTransaction> pool;
+    private BlockTemplateBuilder builder;
+
+    /** When set, reading the pool blocks until the latch is released. */
+    private volatile CountDownLatch poolRelease;
+
+    private final CountDownLatch poolRead = new CountDownLatch(1);
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        if (!VirtualMachineProvider.isMachinesAreLive()) {
+            VirtualMachineProvider.initializeAllVirtualMachines();
+        }
+
+        bundle =
+                new StandaloneBlockchain.Builder()
+                        .withValidatorConfiguration("simple")
+                        .withDefaultAccounts()
+                        .build();
+        pool = new ArrayList<>();
+
+        IPendingState<AionTransaction> pendingState = mock(IPendingState.class);
+        when(pendingState.getPendingTransactions())
+                .thenAnswer(
+                        i -> {
+                            if (poolRelease != null) {
+                                poolRead.countDown();
+                                poolRelease.await();
+                            }
+                            return new ArrayList<>(pool);
+                        });
+        builder = new BlockTemplateBuilder(bundle.bc, pendingState, null);
+    }
+
+    @After
+    public void shutdown() {
+        if (VirtualMachineProvider.isMachinesAreLive()) {
+            VirtualMachineProvider.shutdownAllVirtualMachines();
+        }
+    }
+
+    private AionTransaction transfer(int sender, int nonce) {
+        AionTransaction tx =
+                new AionTransaction(
+                        BigInteger.valueOf(nonce).toByteArray(),
+                        RECEIVER,
+                        BigInteger.valueOf(100).toByteArray(),
+                        ByteUtil.EMPTY_BYTE_ARRAY,
+                        21000L,
+                        1L);
+        tx.sign(bundle.privateKeys.get(sender));
+        return tx;
+    }
+
+    @Test
+    public void testTemplateMatchesCreatedBlock() {
+        pool.add(transfer(0, 0));
+        pool.add(transfer(0, 1));
+
+        BlockContext template = builder.getTemplate();
+        AionBlock expected = bundle.bc.createNewBlock(bundle.bc.getBestBlock(), pool, false);
+
+        assertThat(template.block.getParentHash()).isEqualTo(bundle.bc.getBestBlock().getHash());
+        assertThat(template.block.getTransactionsList()).hasSize(2);
+        assertThat(template.block.getStateRoot()).isEqualTo(expected.getStateRoot());
+        assertThat(template.block.getReceiptsRoot()).isEqualTo(expected.getReceiptsRoot());
+        assertThat(template.block.getNrgConsumed()).isEqualTo(expected.getNrgConsumed());
+    }
+
+    @Test
+    public void testTemplateExtendedWithNewTransactions() {
+        pool.add(transfer(0, 0));
+        BlockContext first = builder.getTemplate();
+
+        // a nonce gap is skipped until the missing transaction arrives
+        pool.add(transfer(1, 1));
+        builder.extend();
+        assertThat(builder.getTemplate()).isSameAs(first);
+
+        pool.add(transfer(1, 0));
+        builder.extend();
+        BlockContext extended = builder.getTemplate();
+
+        assertThat(extended).isNotSameAs(first);
+        assertThat(first.block.getTransactionsList()).hasSize(1);
+        assertThat(extended.block.getTransactionsList()).hasSize(3);
+        assertThat(extended.transactionFee).isEqualTo(BigInteger.valueOf(3 * 21000));
+
+        assertThat(bundle.bc.tryToConnect(extended.block)).isEqualTo(ImportResult.IMPORTED_BEST);
+    }
+
+    @Test
+    public void testTemplateRebuiltOnNewBest() {
+        pool.add(transfer(0, 0));
+        BlockContext first = builder.getTemplate();
+        assertThat(bundle.bc.tryToConnect(first.block)).isEqualTo(ImportResult.IMPORTED_BEST);
+
+        pool.clear();
+        BlockContext next = builder.getTemplate();
+
+        assertThat(next.block.getParentHash()).isEqualTo(first.block.getHash());
+        assertThat(next.block.getTransactionsList()).isEmpty();
+    }
+
+    @Test
+    public void testGetTemplate_duringRebuild() throws InterruptedException {
+        BlockContext first = builder.getTemplate();
+        assertThat(bundle.bc.tryToConnect(first.block)).isEqualTo(ImportResult.IMPORTED_BEST);
+        AionBlock best = bundle.bc.getBestBlock();
+
+        // the rebuild for the new best block waits while executing the pool
+        pool.add(transfer(0, 0));
+        poolRelease = new CountDownLatch(1);
+        Thread rebuild = new Thread(() -> builder.rebuild(best));
+        rebuild.start();
+        poolRead.await();
+
+        // readers get a template without transactions instead of waiting for the rebuild
+        BlockContext empty = builder.getTemplate();
+        AionBlock expected = bundle.bc.createNewBlock(best, Collections.emptyList(), false);
+        assertThat(empty.block.getParentHash()).isEqualTo(best.getHash());
+        assertThat(empty.block.getTransactionsList()).isEmpty();
+        assertThat(empty.block.getStateRoot()).isEqualTo(expected.getStateRoot());
+
+        poolRelease.countDown();
+        rebuild.join();
+        assertThat(builder.getTemplate().block.getTransactionsList()).hasSize(1);
+    }
+
+    @Test
+    public void testAwaitTemplate() throws InterruptedException {
+        BlockContext first = builder.getTemplate();
+        byte[] mineHash = first.block.getHeader().getMineHash();
+
+        // returns the known template once the timeout elapses
+        assertThat(builder.awaitTemplate(mineHash, 10)).isSameAs(first);
+
+        Thread producer =
+                new Thread(
+                        () -> {
+                            pool.add(transfer(0, 0));
+                            builder.extend();
+                        });
+        producer.start();
+        BlockContext next = builder.awaitTemplate(mineHash, 10_000);
+        producer.join();
+
+        assertThat(
+                        Arrays.equals(
+                                next.block.getHeader().getMineHash(),
+                                first.block.getHeader().getMineHash()))
+                .isFalse();
+    }
+}
@@ -2,13 +2,19 @@ package org.aion.zero.impl;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import org.aion.db.generic.WriteBehindPipeline;
+import org.aion.db.impl.DBVendor;
+import org.aion.db.impl.DatabaseFactory.Props;
 import org.aion.crypto.ECKey;
 import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
+import org.aion.interfaces.db.RepositoryConfig;
 import org.aion.log.AionLoggerFactory;
 import org.aion.mcf.core.ImportResult;
 import org.aion.mcf.trie.TrieImpl;
@@ -1228,4 +1234,80 @@ public class BlockchainDataRecoveryTest {
         // ensure the size key is correct
         assertThat(indexDatabase.get(sizeKey).isPresent()).isTrue();
     }
+
+    /**
+     * Test that a failure of the import pipeline during an import reverts the chain to the last
+     * block fully written by the pipeline, and that the discarded block can be imported again.
+     */
+    @Test
+    public void testRevertToPersistedOnImportPipelineFailure() {
+        RepositoryConfig repoConfig =
+                new MockRepositoryConfig(DBVendor.MOCKDB) {
+                    @Override
+                    public Properties getDatabaseConfig(String db_name) {
+                        Properties props = super.getDatabaseConfig(db_name);
+                        props.setProperty(Props.ENABLE_IMPORT_PIPELINE, "true");
+                        return props;
+                    }
+                };
+        StandaloneBlockchain.Builder builder = new StandaloneBlockchain.Builder();
+        StandaloneBlockchain.Bundle bundle =
+                builder.withValidatorConfiguration("simple")
+                        .withDefaultAccounts(accounts)
+                        .withRepoConfig(repoConfig)
+                        .build();
+
+        StandaloneBlockchain chain = bundle.bc;
+        AionRepositoryImpl repo = chain.getRepository();
+        WriteBehindPipeline pipeline = repo.getImportPipeline();
+        assertThat(pipeline).isNotNull();
+        BlockContext context;
+        List<AionTransaction> txs;
+
+        long time = System.currentTimeMillis();
+        for (int i = 0; i < NUMBER_OF_BLOCKS / 2; i++) {
+            txs = BlockchainTestUtils.generateTransactions(MAX_TX_PER_BLOCK, accounts, repo);
+            context = chain.createNewBlockInternal(chain.getBestBlock(), txs, true, time / 10000L);
+            assertThat(chain.tryToConnectInternal(context.block, (time += 10)))
+                    .isEqualTo(ImportResult.IMPORTED_BEST);
+        }
+
+        // wait for the imported blocks to be written
+        assertThat(pipeline.drain()).isTrue();
+        AionBlock persisted = chain.getBestBlock();
+        BigInteger persistedTD = chain.getTotalDifficulty();
+        assertThat(pipeline.getPersistedHash()).isEqualTo(persisted.getHash());
+
+        txs = BlockchainTestUtils.generateTransactions(MAX_TX_PER_BLOCK, accounts, repo);
+        context = chain.createNewBlockInternal(chain.getBestBlock(), txs, true, time / 10000L);
+        AionBlock discarded = context.block;
+        assertThat(discarded.getTransactionsList()).isNotEmpty();
+
+        // the writer fails while the block is imported
+        pipeline.fail(new IllegalStateException("Simulated write failure."));
+        assertThat(chain.tryToConnectInternal(discarded, (time += 10)))
+                .isEqualTo(ImportResult.INVALID_BLOCK);
+        assertThat(pipeline.hasFailed()).isFalse();
+
+        // ensure that the chain was reverted to the persisted block
+        assertThat(chain.getBestBlockHash()).isEqualTo(persisted.getHash());
+        assertThat(chain.getTotalDifficulty()).isEqualTo(persistedTD);
+        assertThat(repo.getRoot()).isEqualTo(persisted.getStateRoot());
+
+        // ensure that the data of the discarded block was not stored
+        assertThat(chain.getBlockStore().getBlockByHash(discarded.getHash())).isNull();
+        assertThat(chain.getBlockStore().getChainBlockByNumber(discarded.getNumber())).isNull();
+        for (AionTransaction tx : discarded.getTransactionsList()) {
+            assertThat(chain.getTransactionInfo(tx.getTransactionHash())).isNull();
+        }
+
+        // the discarded block is imported again when received
+        assertThat(chain.tryToConnectInternal(discarded, (time += 10)))
+                .isEqualTo(ImportResult.IMPORTED_BEST);
+        assertThat(pipeline.drain()).isTrue();
+        assertThat(pipeline.getPersistedHash()).isEqualTo(discarded.getHash());
+        assertThat(chain.getTotalDifficulty())
+                .isEqualTo(persistedTD.add(discarded.getDifficultyBI()));
+        assertThat(repo.getRoot()).isEqualTo(discarded.getStateRoot());
+    }
 }
@@ -19,6 +19,7 @@ import org.aion.vm.VirtualMachineProvider;
 import org.aion.zero.impl.blockchain.ChainConfiguration;
 import org.aion.zero.impl.types.AionBlock;
 import org.aion.zero.impl.types.AionBlockSummary;
+import org.aion.zero.impl.types.AionTxInfo;
 import org.aion.zero.types.AionTransaction;
 import org.aion.zero.types.AionTxReceipt;
 import org.apache.commons.lang3.tuple.Pair;
@@ -290,6 +291,57 @@ public class BlockchainForkingTest {
         assertThat(bc.getBestBlock()).isEqualTo(fastBlockDescendant.block);
     }
 
+    /**
+     * Tests that a transaction included in both branches of a fork is located in the block of the
+     * branch that becomes the main chain.
+     */
+    @Test
+    public void testGetTransactionInfo_afterReorganization() {
+        StandaloneBlockchain.Builder builder = new StandaloneBlockchain.Builder();
+        StandaloneBlockchain.Bundle bundle =
+                builder.withValidatorConfiguration("simple").withDefaultAccounts().build();
+        StandaloneBlockchain bc = bundle.bc;
+
+        ECKey key = bundle.privateKeys.get(0);
+        AionTransaction tx =
+                new AionTransaction(
+                        BigInteger.ZERO.toByteArray(),
+                        new Address(key.getAddress()),
+                        BigInteger.ONE.toByteArray(),
+                        new byte[0],
+                        21000L,
+                        1L);
+        tx.sign(key);
+        byte[] txHash = tx.getTransactionHash();
+
+        long time = System.currentTimeMillis() / 1000L;
+        BlockContext mainBlock =
+                bc.createNewBlockInternal(bc.getGenesis(), List.of(tx), true, time);
+        assertThat(bc.tryToConnectInternal(mainBlock.block, time + 10))
+                .isEqualTo(ImportResult.IMPORTED_BEST);
+        assertThat(bc.getTransactionInfo(txHash).getBlockHash())
+                .isEqualTo(mainBlock.block.getHash());
+
+        // the side chain includes the same transaction and overtakes the main chain
+        BlockContext sideBlock =
+                bc.createNewBlockInternal(bc.getGenesis(), List.of(tx), true, time + 1);
+        assertThat(bc.tryToConnectInternal(sideBlock.block, time + 10))
+                .isEqualTo(ImportResult.IMPORTED_NOT_BEST);
+        assertThat(bc.getTransactionInfo(txHash).getBlockHash())
+                .isEqualTo(mainBlock.block.getHash());
+
+        BlockContext sideDescendant =
+                bc.createNewBlockInternal(sideBlock.block, Collections.emptyList(), true, time + 2);
+        assertThat(bc.tryToConnectInternal(sideDescendant.block, time + 10))
+                .isEqualTo(ImportResult.IMPORTED_BEST);
+
+        AionTxInfo info = bc.getTransactionInfo(txHash);
+        assertThat(info.getBlockHash()).isEqualTo(sideBlock.block.getHash());
+        assertThat(info.getReceipt().getTransaction().getTransactionHash()).isEqualTo(txHash);
+        assertThat(bc.getTransactionStore().getLocation(txHash).getBlockHash())
+                .isEqualTo(sideBlock.block.getHash());
+    }
+
     /** Test fork with exception. */
     @Test
     public void testSecondBlockHigherDifficultyFork_wExceptionOnFasterBlockAdd() {
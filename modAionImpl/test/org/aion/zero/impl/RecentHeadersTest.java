@@ -0,0 +1,124 @@
+package org.aion.zero.impl;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.aion.zero.exceptions.HeaderStructureException;
+import org.aion.zero.types.A0BlockHeader;
+import org.junit.Test;
+
+/** Unit tests for {@link RecentHeaders}. */
+public class RecentHeadersTest {
+
+    private static A0BlockHeader header(byte[] parentHash, long number, long timestamp)
+            throws HeaderStructureException {
+        return new A0BlockHeader.Builder()
+                .withParentHash(parentHash)
+                .withNumber(number)
+                .withTimestamp(timestamp)
+                .build();
+    }
+
+    /** @return consecutive headers starting with the given number */
+    private static List<A0BlockHeader> chain(byte[] parentHash, long first, int size, long time)
+            throws HeaderStructureException {
+        List<A0BlockHeader> headers = new ArrayList<>();
+        for (long number = first; number < first + size; number++) {
+            A0BlockHeader header = header(parentHash, number, time + number);
+            headers.add(header);
+            parentHash = header.getHash();
+        }
+        return headers;
+    }
+
+    @Test
+    public void testAdd_indexedByHashAndNumber() throws HeaderStructureException {
+        RecentHeaders cache = new RecentHeaders(8);
+        A0BlockHeader main = header(new byte[32], 1L, 1L);
+        A0BlockHeader side = header(new byte[32], 1L, 2L);
+
+        cache.add(main, true);
+        cache.add(side, false);
+
+        assertThat(cache.getByHash(main.getHash())).isSameAs(main);
+        assertThat(cache.getByHash(side.getHash())).isSameAs(side);
+        assertThat(cache.getByNumber(1L)).isSameAs(main);
+        assertThat(cache.getByNumber(2L)).isNull();
+        assertThat(cache.getByNumber(-1L)).isNull();
+    }
+
+    @Test
+    public void testGetByNumber_slotReused() throws HeaderStructureException {
+        RecentHeaders cache = new RecentHeaders(4);
+        List<A0BlockHeader> headers = chain(new byte[32], 0L, 6, 0L);
+        for (A0BlockHeader header : headers) {
+            cache.add(header, true);
+        }
+
+        // numbers 0 and 1 share their slots with 4 and 5
+        assertThat(cache.getByNumber(0L)).isNull();
+        assertThat(cache.getByNumber(1L)).isNull();
+        assertThat(cache.getByNumber(4L)).isSameAs(headers.get(4));
+        assertThat(cache.getByNumber(5L)).isSameAs(headers.get(5));
+    }
+
+    @Test
+    public void testGetRange() throws HeaderStructureException {
+        RecentHeaders cache = new RecentHeaders(16);
+        List<A0BlockHeader> headers = chain(new byte[32], 1L, 10, 0L);
+        for (A0BlockHeader header : headers) {
+            cache.add(header, true);
+        }
+
+        assertThat(cache.getRange(3L, 5))
+                .containsExactlyElementsIn(headers.subList(2, 7))
+                .inOrder();
+        assertThat(cache.getRange(1L, 10)).containsExactlyElementsIn(headers).inOrder();
+
+        // missing headers
+        assertThat(cache.getRange(0L, 3)).isNull();
+        assertThat(cache.getRange(8L, 5)).isNull();
+        assertThat(cache.getRange(1L, 17)).isNull();
+
+        // a header from another branch breaks the parent links
+        A0BlockHeader other = header(headers.get(3).getHash(), 5L, 100L);
+        cache.add(other, true);
+        assertThat(cache.getRange(3L, 5)).isNull();
+        assertThat(cache.getRange(3L, 3)).isNotNull();
+    }
+
+    @Test
+    public void testClear() throws HeaderStructureException {
+        RecentHeaders cache = new RecentHeaders(8);
+        List<A0BlockHeader> headers = chain(new byte[32], 1L, 3, 0L);
+        for (A0BlockHeader header : headers) {
+            cache.add(header, true);
+        }
+
+        cache.clearMainChain();
+        assertThat(cache.getByNumber(1L)).isNull();
+        assertThat(cache.getRange(1L, 3)).isNull();
+        assertThat(cache.getByHash(headers.get(0).getHash())).isSameAs(headers.get(0));
+
+        cache.clear();
+        assertThat(cache.getByHash(headers.get(0).getHash())).isNull();
+    }
+
+    @Test
+    public void testGetByHash_leastRecentlyUsedEvicted() throws HeaderStructureException {
+        RecentHeaders cache = new RecentHeaders(2);
+        A0BlockHeader first = header(new byte[32], 1L, 1L);
+        A0BlockHeader second = header(new byte[32], 1L, 2L);
+        A0BlockHeader third = header(new byte[32], 1L, 3L);
+
+        cache.add(first, false);
+        cache.add(second, false);
+        assertThat(cache.getByHash(first.getHash())).isSameAs(first);
+        cache.add(third, false);
+
+        assertThat(cache.getByHash(first.getHash())).isSameAs(first);
+        assertThat(cache.getByHash(second.getHash())).isNull();
+        assertThat(cache.getByHash(third.getHash())).isSameAs(third);
+    }
+}
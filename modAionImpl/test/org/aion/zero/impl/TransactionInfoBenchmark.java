@@ -0,0 +1,97 @@
+package org.aion.zero.impl;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.aion.zero.impl.BlockchainTestUtils.generateTransactions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.aion.mcf.core.ImportResult;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.impl.types.AionTxInfo;
+import org.aion.zero.types.AionTransaction;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Compares retrieving transaction infos through the main chain transaction locations with scanning
+ * the infos stored for each fork, on a history where every transaction was included in two blocks.
+ */
+public class TransactionInfoBenchmark {
+
+    private static final int BLOCKS = 200;
+    private static final int MAX_TXS = 20;
+    private static final int ROUNDS = 20;
+
+    /** The lookup used before the transaction locations were stored. */
+    private static AionTxInfo scanTransactionInfo(StandaloneBlockchain bc, byte[] hash) {
+        for (AionTxInfo info : bc.getTransactionStore().get(hash)) {
+            AionBlock block = bc.getBlockStore().getBlockByHash(info.getBlockHash());
+            AionBlock mainBlock = bc.getBlockStore().getChainBlockByNumber(block.getNumber());
+            if (Arrays.equals(info.getBlockHash(), mainBlock.getHash())) {
+                info.setTransaction(
+                        bc.getBlockByHash(info.getBlockHash())
+                                .getTransactionsList()
+                                .get(info.getIndex()));
+                return info;
+            }
+        }
+        return null;
+    }
+
+    @Ignore
+    @Test
+    public void benchmarkForkedHistory() {
+        StandaloneBlockchain.Bundle bundle =
+                new StandaloneBlockchain.Builder()
+                        .withValidatorConfiguration("simple")
+                        .withDefaultAccounts()
+                        .build();
+        StandaloneBlockchain bc = bundle.bc;
+
+        // each main chain block has a side chain sibling with the same transactions
+        List<AionBlock> mainBlocks = new ArrayList<>();
+        List<byte[]> txHashes = new ArrayList<>();
+        long time = System.currentTimeMillis() / 1000L - 2 * BLOCKS;
+        AionBlock parent = bc.getGenesis();
+        for (int i = 0; i < BLOCKS; i++) {
+            List<AionTransaction> txs =
+                    generateTransactions(MAX_TXS, bundle.privateKeys, bc.getRepository());
+            AionBlock main = bc.createNewBlockInternal(parent, txs, false, time).block;
+            AionBlock side = bc.createNewBlockInternal(parent, txs, false, time + 1).block;
+            time += 2;
+
+            assertThat(bc.tryToConnectInternal(main, time)).isEqualTo(ImportResult.IMPORTED_BEST);
+            assertThat(bc.tryToConnectInternal(side, time))
+                    .isEqualTo(ImportResult.IMPORTED_NOT_BEST);
+
+            for (AionTransaction tx : txs) {
+                txHashes.add(tx.getTransactionHash());
+                mainBlocks.add(main);
+            }
+            parent = main;
+        }
+
+        long located = 0, scanned = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < txHashes.size(); i++) {
+                assertThat(bc.getTransactionInfo(txHashes.get(i)).getBlockHash())
+                        .isEqualTo(mainBlocks.get(i).getHash());
+            }
+            located += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < txHashes.size(); i++) {
+                assertThat(scanTransactionInfo(bc, txHashes.get(i)).getBlockHash())
+                        .isEqualTo(mainBlocks.get(i).getHash());
+            }
+            scanned += System.nanoTime() - start;
+        }
+
+        int lookups = ROUNDS * Math.max(1, txHashes.size());
+        System.out.format(
+                "%d transactions in %d forked blocks: location %d ns, scan %d ns per lookup%n",
+                txHashes.size(), BLOCKS, located / lookups, scanned / lookups);
+    }
+}
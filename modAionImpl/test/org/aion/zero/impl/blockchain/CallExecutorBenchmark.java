@@ -0,0 +1,125 @@
+package org.aion.zero.impl.blockchain;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.aion.crypto.ECKey;
+import org.aion.types.Address;
+import org.aion.util.bytes.ByteUtil;
+import org.aion.vm.VirtualMachineProvider;
+import org.aion.zero.impl.StandaloneBlockchain;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.types.AionTransaction;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Reports the throughput of concurrent {@code eth_call} requests on the best block while blocks
+ * full of transfers are imported on another thread.
+ */
+public class CallExecutorBenchmark {
+
+    private static final Address RECEIVER =
+            Address.wrap("CAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFE");
+
+    private static final long DURATION_MILLIS = 10_000L;
+
+    private static final int TX_PER_BLOCK = 100;
+
+    private static AionTransaction transfer(ECKey key, long nonce) {
+        AionTransaction tx =
+                new AionTransaction(
+                        ByteUtil.longToBytes(nonce),
+                        RECEIVER,
+                        BigInteger.ONE.toByteArray(),
+                        new byte[0],
+                        21_000L,
+                        10_000_000_000L);
+        tx.sign(key);
+        return tx;
+    }
+
+    private static void run(int threads) throws InterruptedException {
+        StandaloneBlockchain.Bundle bundle =
+                new StandaloneBlockchain.Builder()
+                        .withValidatorConfiguration("simple")
+                        .withDefaultAccounts()
+                        .build();
+        StandaloneBlockchain chain = bundle.bc;
+        ECKey key = bundle.privateKeys.get(0);
+        CallExecutor executor = new CallExecutor(chain.getRepository(), threads, 10_000L);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong imported = new AtomicLong();
+        Thread importer =
+                new Thread(
+                        () -> {
+                            long nonce = 0;
+                            while (running.get()) {
+                                List<AionTransaction> txs = new ArrayList<>();
+                                for (int i = 0; i < TX_PER_BLOCK; i++) {
+                                    txs.add(transfer(key, nonce++));
+                                }
+                                AionBlock block =
+                                        chain.createNewBlock(chain.getBestBlock(), txs, true);
+                                chain.tryToConnect(block);
+                                imported.incrementAndGet();
+                            }
+                        });
+
+        AtomicLong calls = new AtomicLong();
+        List<Thread> callers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            callers.add(
+                    new Thread(
+                            () -> {
+                                while (running.get()) {
+                                    AionTransaction tx =
+                                            new AionTransaction(
+                                                    new byte[0],
+                                                    Address.wrap(key.getAddress()),
+                                                    RECEIVER,
+                                                    BigInteger.ONE.toByteArray(),
+                                                    new byte[0],
+                                                    21_000L,
+                                                    10_000_000_000L);
+                                    executor.call(tx, chain.getBestBlock());
+                                    calls.incrementAndGet();
+                                }
+                            }));
+        }
+
+        importer.start();
+        callers.forEach(Thread::start);
+        Thread.sleep(DURATION_MILLIS);
+        running.set(false);
+        importer.join();
+        for (Thread caller : callers) {
+            caller.join();
+        }
+        executor.shutdown();
+
+        System.out.format(
+                "%2d threads: %8.1f calls/s, %6.1f blocks/s imported%n",
+                threads,
+                calls.get() * 1000.0 / DURATION_MILLIS,
+                imported.get() * 1000.0 / DURATION_MILLIS);
+    }
+
+    @Ignore
+    @Test
+    public void benchmarkCallsDuringImport() throws InterruptedException {
+        VirtualMachineProvider.initializeAllVirtualMachines();
+        try {
+            for (int threads = 1;
+                    threads <= Runtime.getRuntime().availableProcessors();
+                    threads *= 2) {
+                run(threads);
+            }
+        } finally {
+            VirtualMachineProvider.shutdownAllVirtualMachines();
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package org.aion.zero.impl.blockchain;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.aion.crypto.ECKey;
+import org.aion.interfaces.db.Repository;
+import org.aion.interfaces.db.RepositoryCache;
+import org.aion.mcf.core.ImportResult;
+import org.aion.mcf.vm.types.DataWordImpl;
+import org.aion.mcf.vm.types.KernelInterfaceForFastVM;
+import org.aion.types.Address;
+import org.aion.util.bytes.ByteUtil;
+import org.aion.vm.KernelInterfaceForAVM;
+import org.aion.vm.VirtualMachineProvider;
+import org.aion.zero.impl.StandaloneBlockchain;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.types.AionTransaction;
+import org.aion.zero.types.AionTxReceipt;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CallExecutorTest {
+
+    private static final Address RECEIVER =
+            Address.wrap("CAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFE");
+
+    private StandaloneBlockchain chain;
+    private List<ECKey> keys;
+    private ECKey sender;
+    private CallExecutor executor;
+
+    @Before
+    public void setup() {
+        if (!VirtualMachineProvider.isMachinesAreLive()) {
+            VirtualMachineProvider.initializeAllVirtualMachines();
+        }
+
+        StandaloneBlockchain.Bundle bundle =
+                new StandaloneBlockchain.Builder()
+                        .withValidatorConfiguration("simple")
+                        .withDefaultAccounts()
+                        .build();
+        chain = bundle.bc;
+        keys = bundle.privateKeys;
+        sender = keys.get(0);
+        executor = new CallExecutor(chain.getRepository(), 2, 10_000L);
+    }
+
+    @After
+    public void shutdown() {
+        executor.shutdown();
+        if (VirtualMachineProvider.isMachinesAreLive()) {
+            VirtualMachineProvider.shutdownAllVirtualMachines();
+        }
+    }
+
+    private AionTransaction transfer(long energy) {
+        return new AionTransaction(
+                BigInteger.ZERO.toByteArray(),
+                Address.wrap(sender.getAddress()),
+                RECEIVER,
+                BigInteger.ONE.toByteArray(),
+                new byte[0],
+                energy,
+                10_000_000_000L);
+    }
+
+    private AionTransaction signedTransfer(long nonce) {
+        AionTransaction tx =
+                new AionTransaction(
+                        ByteUtil.longToBytes(nonce),
+                        RECEIVER,
+                        BigInteger.ONE.toByteArray(),
+                        new byte[0],
+                        21_000L,
+                        10_000_000_000L);
+        tx.sign(sender);
+        return tx;
+    }
+
+    @Test
+    public void testSimulate() {
+        AionTransaction tx =
+                new AionTransaction(
+                        BigInteger.ONE.toByteArray(),
+                        RECEIVER,
+                        BigInteger.ONE.toByteArray(),
+                        new byte[0],
+                        5_000_000L,
+                        10_000_000_000L);
+        tx.sign(sender);
+
+        AionTransaction simulated = CallExecutor.simulate(tx, 1_000_000L);
+        assertThat(simulated.getSignature()).isNull();
+        assertThat(simulated.getSenderAddress()).isEqualTo(Address.wrap(sender.getAddress()));
+        assertThat(simulated.getEnergyLimit()).isEqualTo(1_000_000L);
+        assertThat(simulated.getTransactionHash()).isEqualTo(simulated.getRawHash());
+    }
+
+    @Test
+    public void testCallWithoutSignature() {
+        AionBlock best = chain.getBestBlock();
+        AionTxReceipt receipt = executor.call(transfer(21_000L), best);
+
+        assertThat(receipt.isSuccessful()).isTrue();
+        assertThat(receipt.getEnergyUsed()).isEqualTo(21_000L);
+
+        // the call does not change the state
+        assertThat(chain.getRepository().getBalance(RECEIVER)).isEqualTo(BigInteger.ZERO);
+        assertThat(chain.getRepository().getRoot()).isEqualTo(best.getStateRoot());
+    }
+
+    @Test
+    public void testConcurrentCalls() throws InterruptedException {
+        AionBlock best = chain.getBestBlock();
+        Thread[] threads = new Thread[4];
+        AionTxReceipt[] receipts = new AionTxReceipt[threads.length];
+        for (int i = 0; i < threads.length; i++) {
+            int index = i;
+            threads[i] = new Thread(() -> receipts[index] = executor.call(transfer(21_000L), best));
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (AionTxReceipt receipt : receipts) {
+            assertThat(receipt.isSuccessful()).isTrue();
+            assertThat(receipt.getEnergyUsed()).isEqualTo(21_000L);
+        }
+    }
+
+    @Test
+    public void testCallAll() {
+        AionTransaction failing = transfer(1_000L);
+        List<AionTxReceipt> receipts =
+                executor.callAll(
+                        List.of(transfer(21_000L), failing, transfer(21_000L)),
+                        chain.getBestBlock());
+
+        assertThat(receipts.size()).isEqualTo(3);
+        assertThat(receipts.get(0).isSuccessful()).isTrue();
+        assertThat(receipts.get(1).isSuccessful()).isFalse();
+        assertThat(receipts.get(2).isSuccessful()).isTrue();
+        assertThat(receipts.get(2).getEnergyUsed()).isEqualTo(21_000L);
+    }
+
+    @Test
+    public void testCallTimeout() {
+        Repository repository = mock(Repository.class);
+        when(repository.getSnapshotTo(any()))
+                .thenAnswer(
+                        invocation -> {
+                            Thread.sleep(10_000L);
+                            return null;
+                        });
+        CallExecutor slow = new CallExecutor(repository, 1, 10L);
+
+        AionTxReceipt receipt = slow.call(transfer(21_000L), chain.getBestBlock());
+        slow.shutdown();
+
+        assertThat(receipt.isSuccessful()).isFalse();
+        assertThat(receipt.getError()).isEqualTo("CALL_TIMEOUT");
+        assertThat(receipt.getEnergyUsed()).isEqualTo(21_000L);
+    }
+
+    @Test
+    public void testCallsDuringImport() throws InterruptedException {
+        AtomicBoolean importing = new AtomicBoolean(true);
+        AtomicReference<String> error = new AtomicReference<>();
+        List<Thread> callers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread caller =
+                    new Thread(
+                            () -> {
+                                while (importing.get()) {
+                                    AionTxReceipt receipt =
+                                            executor.call(transfer(21_000L), chain.getBestBlock());
+                                    if (!receipt.isSuccessful()
+                                            || receipt.getEnergyUsed() != 21_000L) {
+                                        error.set(receipt.getError());
+                                    }
+                                }
+                            });
+            callers.add(caller);
+            caller.start();
+        }
+
+        List<AionBlock> blocks = new ArrayList<>();
+        try {
+            long nonce = 0;
+            for (int i = 0; i < 20; i++) {
+                List<AionTransaction> txs = new ArrayList<>();
+                for (int j = 0; j < 20; j++) {
+                    txs.add(signedTransfer(nonce++));
+                }
+                AionBlock block = chain.createNewBlock(chain.getBestBlock(), txs, true);
+                assertThat(chain.tryToConnect(block)).isEqualTo(ImportResult.IMPORTED_BEST);
+                blocks.add(block);
+            }
+        } finally {
+            importing.set(false);
+            for (Thread caller : callers) {
+                caller.join();
+            }
+        }
+        assertThat(error.get()).isNull();
+
+        // the blocks executed alongside the calls are valid on a chain without calls
+        StandaloneBlockchain reference =
+                new StandaloneBlockchain.Builder()
+                        .withValidatorConfiguration("simple")
+                        .withDefaultAccounts(keys)
+                        .build()
+                        .bc;
+        for (AionBlock block : blocks) {
+            assertThat(reference.tryToConnect(block)).isEqualTo(ImportResult.IMPORTED_BEST);
+        }
+        assertThat(reference.getRepository().getRoot()).isEqualTo(chain.getRepository().getRoot());
+        assertThat(chain.getRepository().getBalance(RECEIVER))
+                .isEqualTo(BigInteger.valueOf(blocks.size() * 20));
+    }
+
+    @Test
+    public void testAbortSignal() {
+        Address owner = Address.wrap(sender.getAddress());
+        RepositoryCache track = chain.getRepository().startTracking();
+        KernelInterfaceForFastVM fvm =
+                new KernelInterfaceForFastVM(
+                        track, true, true, DataWordImpl.ZERO, 0L, 0L, 0L, Address.ZERO_ADDRESS());
+        KernelInterfaceForAVM avm =
+                new KernelInterfaceForAVM(
+                        track, true, true, DataWordImpl.ZERO, 0L, 0L, 0L, Address.ZERO_ADDRESS());
+        AtomicBoolean aborted = new AtomicBoolean(false);
+        fvm.setAbortSignal(aborted);
+        avm.setAbortSignal(aborted);
+        KernelInterfaceForFastVM child = fvm.makeChildKernelInterface();
+
+        BigInteger balance = StandaloneBlockchain.Builder.DEFAULT_BALANCE;
+        assertThat(fvm.getBalance(owner)).isEqualTo(balance);
+        assertThat(child.getBalance(owner)).isEqualTo(balance);
+        assertThat(avm.hasAccountState(owner)).isTrue();
+
+        // an aborted call stops reading the state
+        aborted.set(true);
+        assertThat(fvm.getBalance(owner)).isEqualTo(BigInteger.ZERO);
+        assertThat(child.getBalance(owner)).isEqualTo(BigInteger.ZERO);
+        assertThat(avm.getBalance(owner)).isEqualTo(BigInteger.ZERO);
+        assertThat(avm.hasAccountState(owner)).isFalse();
+        assertThat(avm.getCode(owner)).isEmpty();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testAbortSignal_notLocalCall() {
+        new KernelInterfaceForFastVM(
+                        chain.getRepository().startTracking(),
+                        true,
+                        false,
+                        DataWordImpl.ZERO,
+                        0L,
+                        0L,
+                        0L,
+                        Address.ZERO_ADDRESS())
+                .setAbortSignal(new AtomicBoolean(false));
+    }
+}
@@ -0,0 +1,136 @@
+package org.aion.zero.impl.blockchain;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import org.aion.crypto.ECKey;
+import org.aion.crypto.ECKeyFac;
+import org.aion.crypto.HashUtil;
+import org.aion.types.Address;
+import org.aion.zero.types.AionTransaction;
+import org.aion.zero.types.AionTxReceipt;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PendingTxDependenciesTest {
+
+    private final Address coinbase = address(100);
+    private ECKey keyA, keyB;
+
+    @Before
+    public void setup() {
+        ECKeyFac.setType(ECKeyFac.ECKeyType.ED25519);
+        keyA = ECKeyFac.inst().create();
+        keyB = ECKeyFac.inst().create();
+    }
+
+    private static Address address(int i) {
+        return Address.wrap(HashUtil.h256(BigInteger.valueOf(i).toByteArray()));
+    }
+
+    private static AionTransaction transfer(ECKey key, int nonce, Address to) {
+        AionTransaction tx =
+                new AionTransaction(
+                        BigInteger.valueOf(nonce).toByteArray(),
+                        to,
+                        BigInteger.ONE.toByteArray(),
+                        new byte[0],
+                        21000,
+                        10_000_000_000L);
+        tx.sign(key);
+        return tx;
+    }
+
+    /** Records the execution of a transfer, including the coinbase paid with the fees. */
+    private void execute(PendingTxDependencies deps, AionTransaction tx) {
+        deps.record(
+                tx,
+                new HashSet<>(
+                        Arrays.asList(tx.getSenderAddress(), tx.getDestinationAddress(), coinbase)),
+                coinbase,
+                new AionTxReceipt());
+    }
+
+    @Test
+    public void testUnknownChangesExecuteAll() {
+        PendingTxDependencies deps = new PendingTxDependencies();
+        AionTransaction tx = transfer(keyA, 0, address(1));
+        execute(deps, tx);
+
+        PendingTxDependencies.Plan plan = deps.plan(Collections.singletonList(tx), null);
+
+        assertThat(plan.executedCount()).isEqualTo(1);
+        assertThat(plan.reused).isEmpty();
+    }
+
+    @Test
+    public void testUnrecordedTxExecutesAll() {
+        PendingTxDependencies deps = new PendingTxDependencies();
+        AionTransaction recorded = transfer(keyA, 0, address(1));
+        AionTransaction unknown = transfer(keyB, 0, address(2));
+        execute(deps, recorded);
+
+        PendingTxDependencies.Plan plan =
+                deps.plan(Arrays.asList(recorded, unknown), Collections.emptySet());
+
+        assertThat(plan.executedCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testOnlyAffectedTxsExecuted() {
+        PendingTxDependencies deps = new PendingTxDependencies();
+        AionTransaction txA = transfer(keyA, 0, address(1));
+        AionTransaction txB = transfer(keyB, 0, address(2));
+        execute(deps, txA);
+        execute(deps, txB);
+
+        // the shared coinbase does not make the transactions dependent
+        PendingTxDependencies.Plan plan =
+                deps.plan(Arrays.asList(txA, txB), Collections.singleton(address(1)));
+
+        assertThat(plan.execute[0]).isTrue();
+        assertThat(plan.execute[1]).isFalse();
+        assertThat(plan.receipts[1]).isNotNull();
+        assertThat(plan.reused).containsExactly(txB.getSenderAddress(), address(2));
+
+        // the executed transaction must be recorded again
+        PendingTxDependencies.Plan next =
+                deps.plan(Arrays.asList(txA, txB), Collections.emptySet());
+        assertThat(next.executedCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testNonceChainExecutedTogether() {
+        PendingTxDependencies deps = new PendingTxDependencies();
+        AionTransaction first = transfer(keyA, 0, address(1));
+        AionTransaction second = transfer(keyA, 1, address(2));
+        AionTransaction other = transfer(keyB, 0, address(3));
+        execute(deps, first);
+        execute(deps, second);
+        execute(deps, other);
+
+        // the first transaction was included in the block
+        List<AionTransaction> pending = Arrays.asList(second, other);
+        PendingTxDependencies.Plan plan = deps.plan(pending, Collections.emptySet());
+
+        assertThat(plan.execute[0]).isTrue();
+        assertThat(plan.execute[1]).isFalse();
+    }
+
+    @Test
+    public void testCoinbaseSenderAlwaysExecuted() {
+        PendingTxDependencies deps = new PendingTxDependencies();
+        AionTransaction tx = transfer(keyA, 0, coinbase);
+        execute(deps, tx);
+
+        PendingTxDependencies.Plan plan =
+                deps.plan(Collections.singletonList(tx), Collections.emptySet());
+
+        assertThat(plan.executedCount()).isEqualTo(1);
+        assertThat(plan.reused).doesNotContain(coinbase);
+    }
+}
@@ -6,11 +6,24 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.aion.db.generic.WriteBehindDatabase;
+import org.aion.db.generic.WriteBehindPipeline;
 import org.aion.db.impl.mockdb.MockDB;
+import org.aion.db.utils.FileUtils;
 import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
+import org.aion.types.Address;
 import org.aion.util.TestResources;
+import org.aion.zero.exceptions.HeaderStructureException;
 import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.types.A0BlockHeader;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -214,4 +227,172 @@ public class AionBlockStoreTest {
         // the returned list is null due to corrupt kernel
         assertThat(store.getBlocksByRange(first.getNumber(), last.getNumber())).isNull();
     }
+
+    /** @return a chain of empty blocks starting with a block at height zero */
+    static List<AionBlock> chain(int size) throws HeaderStructureException {
+        return chain(new byte[32], 0, size, 0);
+    }
+
+    /** @return a chain of empty blocks following the given parent, told apart by the timestamps */
+    private static List<AionBlock> chain(byte[] parentHash, long first, int size, long timeOffset)
+            throws HeaderStructureException {
+        List<AionBlock> chain = new ArrayList<>();
+        for (long number = first; number < first + size; number++) {
+            A0BlockHeader header =
+                    new A0BlockHeader.Builder()
+                            .withCoinbase(Address.ZERO_ADDRESS())
+                            .withParentHash(parentHash)
+                            .withNumber(number)
+                            .withTimestamp(number + timeOffset)
+                            .build();
+            AionBlock block = new AionBlock(header, Collections.emptyList());
+            chain.add(block);
+            parentHash = block.getHash();
+        }
+        return chain;
+    }
+
+    private static void assertCanonical(AionBlockStore store, List<AionBlock> chain) {
+        for (AionBlock block : chain) {
+            long number = block.getNumber();
+            assertThat(store.getBlockHashByNumber(number)).isEqualTo(block.getHash());
+            assertThat(store.getChainBlockByNumber(number).getHash()).isEqualTo(block.getHash());
+            assertThat(store.getChainBlockByNumberWithTotalDifficulty(number).getValue())
+                    .isEqualTo(BigInteger.valueOf(number + 1));
+        }
+    }
+
+    @Test
+    public void testCanonicalIndex_followsReBranchAndRevert() throws HeaderStructureException {
+        AionBlockStore store = new AionBlockStore(index, blocks, false);
+
+        List<AionBlock> main = chain(8);
+        for (AionBlock block : main) {
+            store.saveBlock(block, BigInteger.valueOf(block.getNumber() + 1), true);
+        }
+        assertCanonical(store, main);
+
+        // a side chain branching off block 3 does not change the canonical lookups
+        List<AionBlock> side = chain(main.get(3).getHash(), 4, 6, 1000);
+        for (AionBlock block : side) {
+            store.saveBlock(block, BigInteger.valueOf(block.getNumber() + 1), false);
+        }
+        assertCanonical(store, main);
+
+        // after the reorganization the side chain is canonical
+        store.reBranch(side.get(side.size() - 1));
+        assertCanonical(store, main.subList(0, 4));
+        assertCanonical(store, side);
+        assertThat(store.getTotalDifficulty()).isEqualTo(BigInteger.valueOf(10));
+
+        // the canonical lookups of a new store read the same from disk
+        assertCanonical(new AionBlockStore(index, blocks, false), side);
+
+        // reverted levels are no longer canonical
+        store.revert(5L);
+        assertCanonical(store, side.subList(0, 2));
+        for (long number = 6; number < 10; number++) {
+            assertThat(store.getBlockHashByNumber(number)).isNull();
+            assertThat(store.getChainBlockByNumber(number)).isNull();
+        }
+        assertThat(store.getTotalDifficulty()).isEqualTo(BigInteger.valueOf(6));
+    }
+
+    @Test
+    public void testClearCanonicalIndex_afterPipelineFailure() throws HeaderStructureException {
+        AtomicBoolean failing = new AtomicBoolean(false);
+        MockDB disk =
+                new MockDB("index") {
+                    @Override
+                    public void putBatchInternal(Map<byte[], byte[]> input) {
+                        if (failing.get()) {
+                            throw new RuntimeException("disk full");
+                        }
+                        super.putBatchInternal(input);
+                    }
+                };
+        disk.open();
+        WriteBehindPipeline pipeline = new WriteBehindPipeline(2);
+        AionBlockStore store =
+                new AionBlockStore(
+                        new WriteBehindDatabase(disk, pipeline),
+                        new WriteBehindDatabase(blocks, pipeline),
+                        false);
+
+        try {
+            List<AionBlock> main = chain(6);
+            for (AionBlock block : main.subList(0, 4)) {
+                store.saveBlock(block, BigInteger.valueOf(block.getNumber() + 1), true);
+                pipeline.seal(block.getNumber(), block.getHash());
+            }
+            assertThat(pipeline.drain()).isTrue();
+
+            // the index updates of the last two blocks are lost
+            failing.set(true);
+            for (AionBlock block : main.subList(4, 6)) {
+                store.saveBlock(block, BigInteger.valueOf(block.getNumber() + 1), true);
+                pipeline.seal(block.getNumber(), block.getHash());
+            }
+            assertThat(pipeline.drain()).isFalse();
+            pipeline.recover();
+            failing.set(false);
+
+            // the canonical lookups only return the levels written to disk
+            store.clearCanonicalIndex();
+            assertCanonical(store, main.subList(0, 4));
+            for (long number = 4; number < 6; number++) {
+                assertThat(store.getBlockHashByNumber(number)).isNull();
+                assertThat(store.getChainBlockByNumber(number)).isNull();
+            }
+            assertThat(store.getTotalDifficulty()).isEqualTo(BigInteger.valueOf(4));
+        } finally {
+            pipeline.close();
+            disk.close();
+        }
+    }
+
+    @Test
+    public void testFreezer() throws IOException, HeaderStructureException {
+        File dir = new File(System.getProperty("user.dir"), "tmp-store-freezer");
+        FileUtils.deleteRecursively(dir);
+        BlockFreezer freezer = new BlockFreezer(dir);
+
+        try {
+            AionBlockStore store = new AionBlockStore(index, blocks, false);
+            store.setFreezer(freezer, 3);
+
+            List<AionBlock> chain = chain(10);
+            for (AionBlock block : chain) {
+                store.saveBlock(block, BigInteger.valueOf(block.getNumber() + 1), true);
+                store.flush();
+            }
+
+            // the blocks older than the depth were moved to the freezer
+            assertThat(freezer.count()).isEqualTo(7L);
+            assertThat(blocks.get(chain.get(6).getHash()).get().length).isEqualTo(Long.BYTES);
+            assertThat(blocks.get(chain.get(7).getHash()).get().length).isGreaterThan(Long.BYTES);
+
+            // the frozen blocks are still read by number, hash and range
+            for (AionBlock block : chain) {
+                assertThat(store.getChainBlockByNumber(block.getNumber()).getEncoded())
+                        .isEqualTo(block.getEncoded());
+                assertThat(store.getBlockByHash(block.getHash()).getEncoded())
+                        .isEqualTo(block.getEncoded());
+            }
+            List<AionBlock> range = store.getBlocksByRange(1L, 9L);
+            assertThat(range.size()).isEqualTo(9);
+            for (int i = 0; i < range.size(); i++) {
+                assertThat(range.get(i).getHash()).isEqualTo(chain.get(i + 1).getHash());
+            }
+
+            // reverting below the frozen blocks removes them from the freezer
+            store.revert(4L);
+            assertThat(freezer.count()).isEqualTo(5L);
+            assertThat(store.getChainBlockByNumber(4L).getHash()).isEqualTo(chain.get(4).getHash());
+            assertThat(store.getChainBlockByNumber(5L)).isNull();
+        } finally {
+            freezer.close();
+            FileUtils.deleteRecursively(dir);
+        }
+    }
 }
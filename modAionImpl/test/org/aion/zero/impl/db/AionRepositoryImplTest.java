@@ -3,6 +3,8 @@ package org.aion.zero.impl.db;
 import static com.google.common.truth.Truth.assertThat;
 
 import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import org.aion.crypto.HashUtil;
@@ -171,6 +173,41 @@ public class AionRepositoryImplTest {
                 .isEqualTo(new DataWordImpl(value).toWrapper());
     }
 
+    /** Contracts flushed together have their storage prepared in parallel. */
+    @Test
+    public void testAccountStateUpdateManyContracts() {
+        AionRepositoryImpl together = AionRepositoryImpl.createForTesting(repoConfig);
+        AionRepositoryImpl separately = AionRepositoryImpl.createForTesting(repoConfig);
+        RepositoryCache track = together.startTracking();
+
+        for (int i = 0; i < 50; i++) {
+            Address contract = Address.wrap(HashUtil.h256(BigInteger.valueOf(i).toByteArray()));
+            RepositoryCache single = separately.startTracking();
+
+            for (RepositoryCache cache : new RepositoryCache[] {track, single}) {
+                cache.addBalance(contract, BigInteger.ONE);
+                cache.saveCode(contract, contract.toBytes());
+                cache.saveVmType(contract, InternalVmType.FVM);
+                for (int j = 0; j <= i; j++) {
+                    byte[] key = HashUtil.blake128(BigInteger.valueOf(j).toByteArray());
+                    cache.addStorageRow(
+                            contract,
+                            new DataWordImpl(key).toWrapper(),
+                            new DataWordImpl(i + 1).toWrapper());
+                }
+            }
+            single.flush();
+        }
+        track.flush();
+
+        assertThat(together.getRoot()).isEqualTo(separately.getRoot());
+
+        Address last = Address.wrap(HashUtil.h256(BigInteger.valueOf(49).toByteArray()));
+        byte[] key = HashUtil.blake128(BigInteger.valueOf(10).toByteArray());
+        assertThat(together.getStorageValue(last, new DataWordImpl(key).toWrapper()))
+                .isEqualTo(new DataWordImpl(50).toWrapper());
+    }
+
     /** Repo track test suite */
 
     /**
@@ -461,4 +498,38 @@ public class AionRepositoryImplTest {
         value = db.get(altNodeKey);
         assertThat(value.isPresent()).isFalse();
     }
+
+    @Test
+    public void testImportTrieNodes() {
+        AionRepositoryImpl repository = AionRepositoryImpl.createForTesting(repoConfig);
+        ByteArrayKeyValueDatabase db = repository.getStateDatabase();
+
+        byte[] value1 = "value1".getBytes();
+        byte[] value2 = "value2".getBytes();
+        ByteArrayWrapper key1 = ByteArrayWrapper.wrap(HashUtil.h256(value1));
+        ByteArrayWrapper key2 = ByteArrayWrapper.wrap(HashUtil.h256(value2));
+        ByteArrayWrapper wrongKey = ByteArrayWrapper.wrap(HashUtil.h256(key1.getData()));
+
+        Map<ByteArrayWrapper, byte[]> nodes = new HashMap<>();
+        nodes.put(key1, value1);
+        nodes.put(key2, new byte[0]);
+        nodes.put(wrongKey, value2);
+
+        // check that only the valid node is imported
+        Map<ByteArrayWrapper, TrieNodeResult> results =
+                repository.importTrieNodes(nodes, DatabaseType.STATE);
+        assertThat(results.get(key1)).isEqualTo(TrieNodeResult.IMPORTED);
+        assertThat(results.get(key2)).isEqualTo(TrieNodeResult.INVALID_VALUE);
+        assertThat(results.get(wrongKey)).isEqualTo(TrieNodeResult.INVALID_KEY);
+        assertThat(db.get(key1.getData()).get()).isEqualTo(value1);
+        assertThat(db.get(key2.getData()).isPresent()).isFalse();
+        assertThat(db.get(wrongKey.getData()).isPresent()).isFalse();
+
+        // check import of known nodes
+        nodes.put(key2, value2);
+        results = repository.importTrieNodes(nodes, DatabaseType.STATE);
+        assertThat(results.get(key1)).isEqualTo(TrieNodeResult.KNOWN);
+        assertThat(results.get(key2)).isEqualTo(TrieNodeResult.IMPORTED);
+        assertThat(db.get(key2.getData()).get()).isEqualTo(value2);
+    }
 }
@@ -0,0 +1,122 @@
+package org.aion.zero.impl.db;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import org.aion.crypto.HashUtil;
+import org.aion.db.impl.DBVendor;
+import org.aion.db.impl.DatabaseFactory;
+import org.aion.db.utils.FileUtils;
+import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Compares sequential range reads and the size on disk of old block encodings kept in the blocks
+ * database and in the {@link BlockFreezer}.
+ */
+public class BlockFreezerBenchmark {
+
+    private static final File dir = new File(System.getProperty("user.dir"), "tmp-freezer-bench");
+
+    private static final int BLOCK_COUNT = 200_000;
+
+    /** Number of consecutive blocks read by each range request, as used by sync. */
+    private static final int RANGE = 60;
+
+    private static final int RANGE_READS = 10_000;
+
+    private static long size(File file) {
+        if (file.isFile()) {
+            return file.length();
+        }
+        long size = 0;
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                size += size(f);
+            }
+        }
+        return size;
+    }
+
+    private interface RangeReader {
+        long read(int first);
+    }
+
+    private static void rangeReads(String name, RangeReader reader) {
+        long start = System.nanoTime();
+        long bytes = 0;
+        for (int i = 0; i < RANGE_READS; i++) {
+            bytes += reader.read(RandomUtils.nextInt(0, BLOCK_COUNT - RANGE));
+        }
+        long duration = System.nanoTime() - start;
+        System.out.format(
+                "%-10s %8d ns per range of %d blocks (%d bytes read)%n",
+                name, duration / RANGE_READS, RANGE, bytes);
+    }
+
+    @Ignore
+    @Test
+    public void benchmarkRangeReads() throws IOException {
+        FileUtils.deleteRecursively(dir);
+
+        Properties props = new Properties();
+        props.setProperty(DatabaseFactory.Props.DB_TYPE, DBVendor.LEVELDB.toValue());
+        props.setProperty(DatabaseFactory.Props.DB_NAME, "block");
+        props.setProperty(DatabaseFactory.Props.DB_PATH, dir.getAbsolutePath());
+        props.setProperty(DatabaseFactory.Props.ENABLE_DB_COMPRESSION, "true");
+        ByteArrayKeyValueDatabase database = DatabaseFactory.connect(props);
+        database.open();
+
+        BlockFreezer freezer = new BlockFreezer(new File(dir, "freezer"));
+
+        try {
+            List<byte[]> hashes = new ArrayList<>();
+            for (int number = 0; number < BLOCK_COUNT; number++) {
+                // block encodings are mostly incompressible signatures and hashes
+                byte[] encoded = RandomUtils.nextBytes(RandomUtils.nextInt(600, 4_000));
+                byte[] hash = HashUtil.h256(encoded);
+                hashes.add(hash);
+                database.putToBatch(hash, encoded);
+                freezer.append(number, encoded);
+                if (number % 1024 == 0) {
+                    database.commitBatch();
+                }
+            }
+            database.commitBatch();
+            freezer.sync();
+            database.compact();
+
+            System.out.format(
+                    "database %d bytes, freezer %d bytes%n",
+                    size(new File(dir, "block")), freezer.sizeOnDisk());
+
+            rangeReads(
+                    "database",
+                    first -> {
+                        long bytes = 0;
+                        for (int n = first; n < first + RANGE; n++) {
+                            bytes += database.get(hashes.get(n)).get().length;
+                        }
+                        return bytes;
+                    });
+            rangeReads(
+                    "freezer",
+                    first -> {
+                        long bytes = 0;
+                        for (int n = first; n < first + RANGE; n++) {
+                            bytes += freezer.getEncoded(n).length;
+                        }
+                        return bytes;
+                    });
+        } finally {
+            freezer.close();
+            database.close();
+            FileUtils.deleteRecursively(dir);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.aion.zero.impl.db;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import org.aion.db.utils.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BlockFreezerTest {
+
+    private static final File dir = new File(System.getProperty("user.dir"), "tmp-freezer");
+
+    private BlockFreezer freezer;
+
+    private static byte[] encoding(long number) {
+        byte[] encoded = new byte[(int) (number % 97) + 1];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = (byte) (number + i);
+        }
+        return encoded;
+    }
+
+    @Before
+    public void setup() throws IOException {
+        FileUtils.deleteRecursively(dir);
+        freezer = new BlockFreezer(dir);
+    }
+
+    @After
+    public void shutdown() {
+        freezer.close();
+        FileUtils.deleteRecursively(dir);
+    }
+
+    private void append(long from, long to) throws IOException {
+        for (long i = from; i < to; i++) {
+            freezer.append(i, encoding(i));
+        }
+        freezer.sync();
+    }
+
+    @Test
+    public void testAppendAndRead() throws IOException {
+        assertThat(freezer.count()).isEqualTo(0L);
+        assertThat(freezer.getEncoded(0)).isNull();
+
+        append(0, 1000);
+
+        assertThat(freezer.count()).isEqualTo(1000L);
+        for (long i = 0; i < 1000; i++) {
+            assertThat(freezer.getEncoded(i)).isEqualTo(encoding(i));
+        }
+        assertThat(freezer.getEncoded(1000)).isNull();
+        assertThat(freezer.getEncoded(-1)).isNull();
+
+        ByteBuffer buffer = freezer.getEncodedBuffer(10);
+        assertThat(buffer.isReadOnly()).isTrue();
+        assertThat(buffer.remaining()).isEqualTo(encoding(10).length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAppendOutOfOrder() throws IOException {
+        append(0, 10);
+        freezer.append(11, encoding(11));
+    }
+
+    @Test
+    public void testMultipleSegments() throws IOException {
+        long total = BlockFreezer.SEGMENT_BLOCKS * 2L + 10;
+        append(0, total);
+
+        freezer.close();
+        freezer = new BlockFreezer(dir);
+
+        assertThat(freezer.count()).isEqualTo(total);
+        assertThat(freezer.getEncoded(BlockFreezer.SEGMENT_BLOCKS - 1))
+                .isEqualTo(encoding(BlockFreezer.SEGMENT_BLOCKS - 1));
+        assertThat(freezer.getEncoded(BlockFreezer.SEGMENT_BLOCKS))
+                .isEqualTo(encoding(BlockFreezer.SEGMENT_BLOCKS));
+        assertThat(freezer.getEncoded(total - 1)).isEqualTo(encoding(total - 1));
+    }
+
+    @Test
+    public void testTruncate() throws IOException {
+        long total = BlockFreezer.SEGMENT_BLOCKS + 10;
+        append(0, total);
+
+        freezer.truncate(500);
+        assertThat(freezer.count()).isEqualTo(500L);
+        assertThat(freezer.getEncoded(499)).isEqualTo(encoding(499));
+        assertThat(freezer.getEncoded(500)).isNull();
+
+        // the removed blocks can be appended again
+        append(500, 600);
+        freezer.close();
+        freezer = new BlockFreezer(dir);
+
+        assertThat(freezer.count()).isEqualTo(600L);
+        assertThat(freezer.getEncoded(599)).isEqualTo(encoding(599));
+    }
+
+    @Test
+    public void testRecoverIncompleteWrite() throws IOException {
+        append(0, 100);
+        freezer.close();
+
+        // simulate a crash while appending: data without index entry and a partial entry
+        try (RandomAccessFile data = new RandomAccessFile(new File(dir, "000000.dat"), "rw");
+                RandomAccessFile index = new RandomAccessFile(new File(dir, "000000.idx"), "rw")) {
+            data.seek(data.length());
+            data.write(encoding(100));
+            index.seek(index.length());
+            index.writeInt((int) data.length());
+        }
+
+        freezer = new BlockFreezer(dir);
+        assertThat(freezer.count()).isEqualTo(100L);
+        assertThat(freezer.getEncoded(99)).isEqualTo(encoding(99));
+
+        append(100, 101);
+        assertThat(freezer.getEncoded(100)).isEqualTo(encoding(100));
+    }
+}
@@ -0,0 +1,123 @@
+package org.aion.zero.impl.db;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.aion.zero.impl.db.CanonicalIndex.PAGE_BLOCKS;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.aion.zero.impl.db.AionBlockStore.BlockInfo;
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.Test;
+
+/** Unit tests for {@link CanonicalIndex}. */
+public class CanonicalIndexTest {
+
+    private static BlockInfo info(byte[] hash, BigInteger td, boolean mainChain) {
+        BlockInfo info = new BlockInfo();
+        info.setHash(hash);
+        info.setCummDifficulty(td);
+        info.setMainChain(mainChain);
+        return info;
+    }
+
+    private static List<BlockInfo> level(BlockInfo... infos) {
+        List<BlockInfo> level = new ArrayList<>();
+        for (BlockInfo info : infos) {
+            level.add(info);
+        }
+        return level;
+    }
+
+    @Test
+    public void testUpdate_mainChainBlock() {
+        CanonicalIndex canonical = new CanonicalIndex();
+        byte[] side = RandomUtils.nextBytes(32);
+        byte[] main = RandomUtils.nextBytes(32);
+        long number = 3L * PAGE_BLOCKS + 5;
+
+        assertThat(canonical.getHash(number)).isNull();
+        assertThat(canonical.get(number)).isNull();
+
+        canonical.update(
+                number, level(info(side, BigInteger.TEN, false), info(main, BigInteger.ONE, true)));
+        assertThat(canonical.getHash(number)).isEqualTo(main);
+        BlockInfo info = canonical.get(number);
+        assertThat(info.getHash()).isEqualTo(main);
+        assertThat(info.getCummDifficulty()).isEqualTo(BigInteger.ONE);
+        assertThat(info.isMainChain()).isTrue();
+
+        // the neighbouring levels are not cached
+        assertThat(canonical.getHash(number - 1)).isNull();
+        assertThat(canonical.getHash(number + 1)).isNull();
+        assertThat(canonical.getHash(-1L)).isNull();
+    }
+
+    @Test
+    public void testUpdate_notCached() {
+        CanonicalIndex canonical = new CanonicalIndex();
+        byte[] hash = RandomUtils.nextBytes(32);
+
+        canonical.update(1L, level(info(hash, BigInteger.ONE, true)));
+        assertThat(canonical.getHash(1L)).isEqualTo(hash);
+
+        // no main chain block
+        canonical.update(1L, level(info(hash, BigInteger.ONE, false)));
+        assertThat(canonical.getHash(1L)).isNull();
+
+        // total difficulty too large for the compact entry
+        canonical.update(1L, level(info(hash, BigInteger.ONE.shiftLeft(63), true)));
+        assertThat(canonical.getHash(1L)).isNull();
+
+        canonical.update(1L, level(info(hash, BigInteger.ONE, true)));
+        canonical.invalidate(1L);
+        assertThat(canonical.getHash(1L)).isNull();
+
+        canonical.update(1L, level(info(hash, BigInteger.ONE, true)));
+        canonical.clear();
+        assertThat(canonical.getHash(1L)).isNull();
+    }
+
+    @Test
+    public void testGet_consistentWithConcurrentUpdates() throws InterruptedException {
+        CanonicalIndex canonical = new CanonicalIndex();
+        byte[] first = new byte[32];
+        byte[] second = new byte[32];
+        Arrays.fill(second, (byte) 0xFF);
+        canonical.update(7L, level(info(first, BigInteger.ONE, true)));
+
+        AtomicBoolean done = new AtomicBoolean(false);
+        AtomicReference<String> error = new AtomicReference<>();
+        Thread reader =
+                new Thread(
+                        () -> {
+                            while (!done.get()) {
+                                BlockInfo info = canonical.get(7L);
+                                byte[] hash = info.getHash();
+                                boolean isFirst = Arrays.equals(hash, first);
+                                if (!isFirst && !Arrays.equals(hash, second)) {
+                                    error.set("torn hash");
+                                }
+                                long td = info.getCummDifficulty().longValue();
+                                if (td != (isFirst ? 1L : 2L)) {
+                                    error.set("hash and total difficulty do not match");
+                                }
+                            }
+                        });
+        reader.start();
+
+        for (int i = 0; i < 100_000; i++) {
+            if (i % 2 == 0) {
+                canonical.update(7L, level(info(second, BigInteger.TWO, true)));
+            } else {
+                canonical.update(7L, level(info(first, BigInteger.ONE, true)));
+            }
+        }
+        done.set(true);
+        reader.join();
+        assertThat(error.get()).isNull();
+    }
+}
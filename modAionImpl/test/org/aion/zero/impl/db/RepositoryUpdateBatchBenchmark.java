@@ -0,0 +1,84 @@
+package org.aion.zero.impl.db;
+
+import java.math.BigInteger;
+import java.util.Properties;
+import org.aion.crypto.HashUtil;
+import org.aion.db.impl.DBVendor;
+import org.aion.db.impl.DatabaseFactory;
+import org.aion.interfaces.db.ContractDetails;
+import org.aion.interfaces.db.InternalVmType;
+import org.aion.interfaces.db.PruneConfig;
+import org.aion.interfaces.db.RepositoryCache;
+import org.aion.interfaces.db.RepositoryConfig;
+import org.aion.mcf.config.CfgPrune;
+import org.aion.mcf.vm.types.DataWordImpl;
+import org.aion.types.Address;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/** Measures flushing the state of blocks that touch a growing number of contracts. */
+public class RepositoryUpdateBatchBenchmark {
+
+    private static final int[] CONTRACT_COUNTS = {10, 100, 1000};
+    private static final int STORAGE_ROWS = 50;
+    private static final int ROUNDS = 10;
+
+    private static final RepositoryConfig repoConfig =
+            new RepositoryConfig() {
+                @Override
+                public String getDbPath() {
+                    return "";
+                }
+
+                @Override
+                public PruneConfig getPruneConfig() {
+                    return new CfgPrune(false);
+                }
+
+                @Override
+                public ContractDetails contractDetailsImpl() {
+                    return ContractDetailsAion.createForTesting(0, 1000000).getDetails();
+                }
+
+                @Override
+                public Properties getDatabaseConfig(String db_name) {
+                    Properties props = new Properties();
+                    props.setProperty(DatabaseFactory.Props.DB_TYPE, DBVendor.MOCKDB.toValue());
+                    props.setProperty(DatabaseFactory.Props.ENABLE_HEAP_CACHE, "false");
+                    return props;
+                }
+            };
+
+    @Ignore
+    @Test
+    public void benchmarkUpdateBatch() {
+        for (int count : CONTRACT_COUNTS) {
+            AionRepositoryImpl repository = AionRepositoryImpl.createForTesting(repoConfig);
+
+            long total = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                RepositoryCache track = repository.startTracking();
+                for (int i = 0; i < count; i++) {
+                    Address contract =
+                            Address.wrap(HashUtil.h256(BigInteger.valueOf(i).toByteArray()));
+                    track.addBalance(contract, BigInteger.ONE);
+                    track.saveVmType(contract, InternalVmType.FVM);
+                    for (int j = 0; j < STORAGE_ROWS; j++) {
+                        byte[] key = HashUtil.blake128(BigInteger.valueOf(j).toByteArray());
+                        track.addStorageRow(
+                                contract,
+                                new DataWordImpl(key).toWrapper(),
+                                new DataWordImpl(round * STORAGE_ROWS + j + 1).toWrapper());
+                    }
+                }
+
+                long start = System.nanoTime();
+                track.flush();
+                total += System.nanoTime() - start;
+            }
+
+            System.out.format("%5d contracts: %8d us per block%n", count, total / ROUNDS / 1000);
+            repository.close();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package org.aion.zero.impl.db;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.math.BigInteger;
+import java.util.Properties;
+import org.aion.crypto.HashUtil;
+import org.aion.db.impl.DBVendor;
+import org.aion.db.impl.DatabaseFactory;
+import org.aion.interfaces.db.ContractDetails;
+import org.aion.interfaces.db.InternalVmType;
+import org.aion.interfaces.db.PruneConfig;
+import org.aion.interfaces.db.RepositoryCache;
+import org.aion.interfaces.db.RepositoryConfig;
+import org.aion.mcf.config.CfgPrune;
+import org.aion.mcf.vm.types.DataWordImpl;
+import org.aion.types.Address;
+import org.aion.types.ByteArrayWrapper;
+import org.aion.util.bytes.ByteUtil;
+import org.aion.zero.impl.sync.DatabaseType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StateGarbageCollectorTest {
+
+    private static final Address account =
+            Address.wrap(
+                    ByteUtil.hexStringToBytes(
+                            "CAF3CAF3CAF3CAF3CAF3CAF3CAF3CAF3CAF3CAF3CAF3CAF3CAF3CAF3CAF3CAF3"));
+    private static final Address contract =
+            Address.wrap(
+                    ByteUtil.hexStringToBytes(
+                            "A0CAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECA"));
+
+    private static final byte[] garbageKey = HashUtil.h256("garbage".getBytes());
+    private static final byte[] garbageValue = "garbage".getBytes();
+
+    private RepositoryConfig repoConfig =
+            new RepositoryConfig() {
+                @Override
+                public String getDbPath() {
+                    return "";
+                }
+
+                @Override
+                public PruneConfig getPruneConfig() {
+                    return new CfgPrune(128);
+                }
+
+                @Override
+                public ContractDetails contractDetailsImpl() {
+                    return ContractDetailsAion.createForTesting(0, 1000000).getDetails();
+                }
+
+                @Override
+                public Properties getDatabaseConfig(String db_name) {
+                    Properties props = new Properties();
+                    props.setProperty(DatabaseFactory.Props.DB_TYPE, DBVendor.MOCKDB.toValue());
+                    props.setProperty(DatabaseFactory.Props.ENABLE_HEAP_CACHE, "false");
+                    return props;
+                }
+            };
+
+    private AionRepositoryImpl repository;
+    private StateGarbageCollector gc;
+
+    @Before
+    public void setup() {
+        repository = AionRepositoryImpl.createForTesting(repoConfig);
+        gc = repository.createStateGarbageCollector();
+        assertThat(gc).isNotNull();
+    }
+
+    @After
+    public void shutdown() {
+        gc.shutdown();
+        repository.close();
+    }
+
+    @Test
+    public void testCollectorRequiresPruning() {
+        RepositoryConfig fullConfig =
+                new RepositoryConfig() {
+                    @Override
+                    public String getDbPath() {
+                        return "";
+                    }
+
+                    @Override
+                    public PruneConfig getPruneConfig() {
+                        return new CfgPrune(false);
+                    }
+
+                    @Override
+                    public ContractDetails contractDetailsImpl() {
+                        return repoConfig.contractDetailsImpl();
+                    }
+
+                    @Override
+                    public Properties getDatabaseConfig(String db_name) {
+                        return repoConfig.getDatabaseConfig(db_name);
+                    }
+                };
+
+        AionRepositoryImpl full = AionRepositoryImpl.createForTesting(fullConfig);
+        assertThat(full.createStateGarbageCollector()).isNull();
+        full.close();
+    }
+
+    @Test
+    public void testCollectDeletesUnreachableState() throws InterruptedException {
+        RepositoryCache track = repository.startTracking();
+        track.addBalance(account, BigInteger.ONE);
+        track.flush();
+        repository.flush();
+
+        track = repository.startTracking();
+        track.addBalance(account, BigInteger.ONE);
+        track.flush();
+        repository.flush();
+        byte[] root = repository.getRoot();
+
+        repository.getStateDatabase().put(garbageKey, garbageValue);
+
+        assertThat(gc.collect()).isGreaterThan(1L);
+
+        assertThat(repository.getStateDatabase().get(garbageKey).isPresent()).isFalse();
+        assertThat(repository.getSnapshotTo(root).getBalance(account)).isEqualTo(BigInteger.TWO);
+
+        // nothing left to collect
+        assertThat(gc.collect()).isEqualTo(0L);
+    }
+
+    @Test
+    public void testCollectKeepsReachableStorage() throws InterruptedException {
+        ByteArrayWrapper key = new DataWordImpl(1).toWrapper();
+        ByteArrayWrapper value = new DataWordImpl(42).toWrapper();
+
+        RepositoryCache track = repository.startTracking();
+        track.createAccount(contract);
+        track.saveVmType(contract, InternalVmType.FVM);
+        track.saveCode(contract, contract.toBytes());
+        track.addStorageRow(contract, key, value);
+        track.flush();
+        repository.flush();
+        byte[] root = repository.getRoot();
+
+        repository.importTrieNode(garbageKey, garbageValue, DatabaseType.STORAGE);
+
+        assertThat(gc.collect()).isAtLeast(1L);
+
+        assertThat(repository.getTrieNode(garbageKey, DatabaseType.STORAGE)).isNull();
+        assertThat(repository.getSnapshotTo(root).getStorageValue(contract, key)).isEqualTo(value);
+    }
+
+    @Test
+    public void testCollectAfterShutdown() throws InterruptedException {
+        repository.getStateDatabase().put(garbageKey, garbageValue);
+
+        gc.shutdown();
+
+        assertThat(gc.collect()).isEqualTo(-1L);
+        assertThat(repository.getStateDatabase().get(garbageKey).isPresent()).isTrue();
+    }
+
+    @Test
+    public void testCollectWaitsForCompleteState() throws InterruptedException {
+        repository.getStateDatabase().put(garbageKey, garbageValue);
+
+        // the state is being downloaded by fast sync
+        repository.setStateCompleteCheck(() -> false);
+        assertThat(gc.collect()).isEqualTo(-1L);
+        assertThat(repository.getStateDatabase().get(garbageKey).isPresent()).isTrue();
+
+        repository.setStateCompleteCheck(() -> true);
+        assertThat(gc.collect()).isAtLeast(1L);
+        assertThat(repository.getStateDatabase().get(garbageKey).isPresent()).isFalse();
+    }
+}
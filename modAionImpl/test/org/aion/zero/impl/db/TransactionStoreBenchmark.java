@@ -0,0 +1,96 @@
+package org.aion.zero.impl.db;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.aion.crypto.ECKey;
+import org.aion.crypto.ECKeyFac;
+import org.aion.crypto.HashUtil;
+import org.aion.db.impl.mockdb.MockDB;
+import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
+import org.aion.mcf.db.TransactionStore;
+import org.aion.mcf.vm.types.Bloom;
+import org.aion.types.Address;
+import org.aion.zero.impl.types.AionTxInfo;
+import org.aion.zero.types.AionTransaction;
+import org.aion.zero.types.AionTxReceipt;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Compares retrieving the receipts of a block one transaction at a time with reading the block
+ * receipt bundle.
+ */
+public class TransactionStoreBenchmark {
+
+    private static final int[] BLOCK_SIZES = {100, 500, 1000, 2000};
+    private static final int ROUNDS = 20;
+
+    private static List<AionTxInfo> createInfos(byte[] blockHash, int count) {
+        ECKey key = ECKeyFac.inst().create();
+        List<AionTxInfo> infos = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            AionTransaction tx =
+                    new AionTransaction(
+                            BigInteger.valueOf(i).toByteArray(),
+                            new Address(HashUtil.h256(BigInteger.valueOf(i).toByteArray())),
+                            BigInteger.ONE.toByteArray(),
+                            new byte[0],
+                            21000,
+                            1);
+            tx.sign(key);
+
+            AionTxReceipt receipt =
+                    new AionTxReceipt(
+                            HashUtil.EMPTY_TRIE_HASH, new Bloom(), Collections.emptyList());
+            receipt.setNrgUsed(21000);
+            receipt.setTransaction(tx);
+            infos.add(new AionTxInfo(receipt, blockHash, i));
+        }
+        return infos;
+    }
+
+    @Ignore
+    @Test
+    public void benchmarkBlockReceipts() {
+        for (int size : BLOCK_SIZES) {
+            ByteArrayKeyValueDatabase db = new MockDB("transaction");
+            db.open();
+            TransactionStore<AionTransaction, AionTxReceipt, AionTxInfo> store =
+                    new TransactionStore<>(
+                            db,
+                            AionTransactionStoreSerializer.serializer,
+                            AionTransactionStoreSerializer.infoSerializer);
+
+            byte[] blockHash = HashUtil.h256(BigInteger.valueOf(size).toByteArray());
+            List<AionTxInfo> infos = createInfos(blockHash, size);
+            store.putBlockToBatch(blockHash, infos);
+            store.flushBatch();
+
+            long perTx = 0, bundle = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                for (AionTxInfo info : infos) {
+                    byte[] txHash = info.getReceipt().getTransaction().getTransactionHash();
+                    assertThat(store.get(txHash, blockHash)).isNotNull();
+                }
+                perTx += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                List<AionTxInfo> read = store.getBlockInfos(blockHash);
+                for (int i = 0; i < read.size(); i++) {
+                    assertThat(read.get(i).getIndex()).isEqualTo(i);
+                }
+                bundle += System.nanoTime() - start;
+            }
+
+            System.out.format(
+                    "%5d txs: per transaction %8d us, bundle %8d us%n",
+                    size, perTx / ROUNDS / 1000, bundle / ROUNDS / 1000);
+            db.close();
+        }
+    }
+}
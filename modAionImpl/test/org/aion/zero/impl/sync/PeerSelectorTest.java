@@ -0,0 +1,214 @@
+package org.aion.zero.impl.sync;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+import static org.aion.p2p.P2pConstant.LARGE_REQUEST_SIZE;
+import static org.aion.p2p.P2pConstant.REQUEST_SIZE;
+import static org.aion.zero.impl.sync.PeerSelector.MAX_REQUEST_SIZE;
+import static org.aion.zero.impl.sync.PeerSelector.REQUEST_TIMEOUT_MILLIS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.aion.p2p.INode;
+import org.junit.Test;
+
+/** Unit tests for {@link PeerSelector}. */
+public class PeerSelectorTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static INode mockPeer(int id) {
+        INode peer = mock(INode.class);
+        when(peer.getIdHash()).thenReturn(id);
+        return peer;
+    }
+
+    @Test
+    public void testGetRequestSize_unknownPeer() {
+        PeerSelector selector = new PeerSelector();
+        assertThat(selector.getRequestSize(1, REQUEST_SIZE)).isEqualTo(REQUEST_SIZE);
+        assertThat(selector.getThroughput(1)).isEqualTo(-1.0);
+        assertThat(selector.getLatency(1)).isEqualTo(-1.0);
+    }
+
+    @Test
+    public void testGetRequestSize_adaptsToThroughput() {
+        PeerSelector selector = new PeerSelector();
+
+        // 50 blocks in one second
+        selector.recordRequest(1, MILLIS);
+        selector.recordResponse(1, 50, 1001 * MILLIS);
+        assertThat(selector.getThroughput(1)).isWithin(0.001).of(50.0);
+        assertThat(selector.getLatency(1)).isWithin(0.001).of(1000.0);
+        assertThat(selector.getRequestSize(1, REQUEST_SIZE)).isEqualTo(50);
+
+        // never below the size required by the sync mode
+        assertThat(selector.getRequestSize(1, LARGE_REQUEST_SIZE * 2))
+                .isEqualTo(LARGE_REQUEST_SIZE * 2);
+
+        // 500 blocks per second is more than a peer sends in a response
+        selector.recordRequest(2, MILLIS);
+        selector.recordResponse(2, 50, 101 * MILLIS);
+        assertThat(selector.getRequestSize(2, REQUEST_SIZE)).isEqualTo(MAX_REQUEST_SIZE);
+
+        // 5 blocks per second
+        selector.recordRequest(3, MILLIS);
+        selector.recordResponse(3, 5, 1001 * MILLIS);
+        assertThat(selector.getRequestSize(3, REQUEST_SIZE)).isEqualTo(REQUEST_SIZE);
+    }
+
+    @Test
+    public void testRecordResponse_movingAverage() {
+        PeerSelector selector = new PeerSelector();
+        selector.recordRequest(1, MILLIS);
+        selector.recordResponse(1, 100, 1001 * MILLIS);
+
+        selector.recordRequest(1, 2000 * MILLIS);
+        selector.recordResponse(1, 0, 3000 * MILLIS);
+        assertThat(selector.getThroughput(1)).isWithin(0.001).of((1 - PeerSelector.ALPHA) * 100.0);
+
+        // responses without a pending request are ignored
+        selector.recordResponse(1, 1000, 3001 * MILLIS);
+        selector.recordResponse(2, 1000, 3001 * MILLIS);
+        assertThat(selector.getThroughput(1)).isWithin(0.001).of((1 - PeerSelector.ALPHA) * 100.0);
+        assertThat(selector.getThroughput(2)).isEqualTo(-1.0);
+    }
+
+    @Test
+    public void testSelect_demotesSlowPeers() {
+        PeerSelector selector = new PeerSelector();
+        INode fast = mockPeer(1);
+        INode slow = mockPeer(2);
+        List<INode> peers = List.of(fast, slow);
+
+        selector.recordRequest(1, MILLIS);
+        selector.recordResponse(1, 100, 1001 * MILLIS);
+        selector.recordRequest(2, MILLIS);
+        selector.recordResponse(2, 10, 1001 * MILLIS);
+
+        Random random = new Random(1);
+        for (int i = 0; i < 100; i++) {
+            assertThat(selector.select(peers, random, 2000 * MILLIS)).isSameAs(fast);
+        }
+
+        // slow peers are used when no other peer is available
+        assertThat(selector.select(List.of(slow), random, 2000 * MILLIS)).isSameAs(slow);
+    }
+
+    @Test
+    public void testSelect_triesNewPeers() {
+        PeerSelector selector = new PeerSelector();
+        INode known = mockPeer(1);
+        INode unknown = mockPeer(2);
+        List<INode> peers = List.of(known, unknown);
+
+        selector.recordRequest(1, MILLIS);
+        selector.recordResponse(1, 100, 1001 * MILLIS);
+
+        Random random = new Random(1);
+        boolean selected = false;
+        for (int i = 0; i < 100 && !selected; i++) {
+            selected = selector.select(peers, random, 2000 * MILLIS) == unknown;
+        }
+        assertThat(selected).isTrue();
+    }
+
+    @Test
+    public void testSelect_demotesUnresponsivePeers() {
+        PeerSelector selector = new PeerSelector();
+        INode responsive = mockPeer(1);
+        INode unresponsive = mockPeer(2);
+        List<INode> peers = List.of(responsive, unresponsive);
+
+        selector.recordRequest(1, MILLIS);
+        selector.recordResponse(1, 100, 1001 * MILLIS);
+        selector.recordRequest(2, MILLIS);
+
+        long now = (REQUEST_TIMEOUT_MILLIS + 2) * MILLIS;
+        Random random = new Random(1);
+        for (int i = 0; i < 100; i++) {
+            assertThat(selector.select(peers, random, now)).isSameAs(responsive);
+        }
+        assertThat(selector.getThroughput(2)).isEqualTo(0.0);
+    }
+
+    /** A simulated peer with a fixed round trip time and cost per block. */
+    private static final class SimulatedPeer {
+        private final INode node;
+        private final long rttMillis;
+        private final long millisPerBlock;
+
+        private SimulatedPeer(int id, long rttMillis, long millisPerBlock) {
+            this.node = mockPeer(id);
+            this.rttMillis = rttMillis;
+            this.millisPerBlock = millisPerBlock;
+        }
+
+        private long responseMillis(int size) {
+            return rttMillis + size * millisPerBlock;
+        }
+    }
+
+    /**
+     * Downloads the given number of blocks one range after the other, the way the next range is
+     * requested once the previous one is received, and returns the blocks per second.
+     */
+    private static double simulateSync(
+            List<SimulatedPeer> peers, PeerSelector selector, boolean adaptive, int blocks) {
+        Map<INode, SimulatedPeer> byNode = new HashMap<>();
+        List<INode> nodes = new ArrayList<>();
+        for (SimulatedPeer peer : peers) {
+            byNode.put(peer.node, peer);
+            nodes.add(peer.node);
+        }
+
+        Random random = new Random(42);
+        long nowMillis = 0;
+        int downloaded = 0;
+        while (downloaded < blocks) {
+            SimulatedPeer peer;
+            int size;
+            if (adaptive) {
+                peer = byNode.get(selector.select(nodes, random, nowMillis * MILLIS));
+                size = selector.getRequestSize(peer.node.getIdHash(), REQUEST_SIZE);
+            } else {
+                peer = peers.get(random.nextInt(peers.size()));
+                size = REQUEST_SIZE;
+            }
+
+            selector.recordRequest(peer.node.getIdHash(), Math.max(1, nowMillis) * MILLIS);
+            nowMillis += peer.responseMillis(size);
+            selector.recordResponse(peer.node.getIdHash(), size, nowMillis * MILLIS);
+            downloaded += size;
+        }
+        return downloaded * 1000.0 / nowMillis;
+    }
+
+    @Test
+    public void testSimulatedSync_heterogeneousPeers() {
+        List<SimulatedPeer> peers =
+                List.of(
+                        new SimulatedPeer(1, 50, 1),
+                        new SimulatedPeer(2, 100, 5),
+                        new SimulatedPeer(3, 300, 10),
+                        new SimulatedPeer(4, 500, 40),
+                        new SimulatedPeer(5, 1000, 100));
+        int blocks = 20_000;
+
+        double fixed = simulateSync(peers, new PeerSelector(), false, blocks);
+        double adaptive = simulateSync(peers, new PeerSelector(), true, blocks);
+
+        assertWithMessage(
+                        String.format(
+                                "random peers: %.1f blocks/s, adaptive: %.1f blocks/s",
+                                fixed, adaptive))
+                .that(adaptive)
+                .isGreaterThan(5 * fixed);
+    }
+}
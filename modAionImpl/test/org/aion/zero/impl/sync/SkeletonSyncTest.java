@@ -0,0 +1,276 @@
+package org.aion.zero.impl.sync;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.aion.zero.impl.sync.PeerState.Mode.SKELETON;
+import static org.aion.zero.impl.sync.SkeletonSync.FAILED_PEER_COOLDOWN_MILLIS;
+import static org.aion.zero.impl.sync.SkeletonSync.MAX_FAILURES;
+import static org.aion.zero.impl.sync.SkeletonSync.REQUEST_TIMEOUT_MILLIS;
+import static org.aion.zero.impl.sync.SkeletonSync.SEGMENT_SIZE;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import org.aion.p2p.INode;
+import org.aion.p2p.IP2pMgr;
+import org.aion.p2p.Msg;
+import org.aion.types.ByteArrayWrapper;
+import org.aion.zero.exceptions.HeaderStructureException;
+import org.aion.zero.impl.sync.msg.ReqBlocksBodies;
+import org.aion.zero.impl.sync.msg.ReqBlocksHeaders;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.types.A0BlockHeader;
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+
+/** Unit tests for {@link SkeletonSync}. */
+public class SkeletonSyncTest {
+
+    private IP2pMgr p2pMgr;
+    private Map<Integer, INode> peers;
+    private BlockingQueue<BlocksWrapper> downloadedBlocks;
+    private Map<Integer, HeadersWrapper> headersWithBodiesRequested;
+    private SkeletonSync skeletonSync;
+
+    /** Requests sent to the peers, in the order they were sent. */
+    private LinkedList<Request> requests;
+
+    private static final class Request {
+        private final int peerId;
+        private final Msg msg;
+
+        private Request(int peerId, Msg msg) {
+            this.peerId = peerId;
+            this.msg = msg;
+        }
+    }
+
+    @Before
+    public void setup() {
+        p2pMgr = mock(IP2pMgr.class);
+        peers = new HashMap<>();
+        when(p2pMgr.getActiveNodes()).thenReturn(peers);
+        requests = new LinkedList<>();
+        doAnswer(
+                        invocation -> {
+                            requests.add(
+                                    new Request(
+                                            invocation.getArgument(0), invocation.getArgument(2)));
+                            return null;
+                        })
+                .when(p2pMgr)
+                .send(anyInt(), anyString(), any(Msg.class));
+
+        downloadedBlocks = new LinkedBlockingQueue<>();
+        headersWithBodiesRequested = new ConcurrentHashMap<>();
+        skeletonSync =
+                new SkeletonSync(
+                        p2pMgr,
+                        new PeerSelector(),
+                        headersWithBodiesRequested,
+                        downloadedBlocks,
+                        Integer.MAX_VALUE,
+                        mock(Logger.class));
+    }
+
+    private INode addPeer(int id, long bestBlockNumber) {
+        INode peer = mock(INode.class);
+        when(peer.getIdHash()).thenReturn(id);
+        when(peer.getIdShort()).thenReturn("peer" + id);
+        when(peer.getBestBlockNumber()).thenReturn(bestBlockNumber);
+        peers.put(id, peer);
+        return peer;
+    }
+
+    /** Generates a chain of headers without transactions following the given parent. */
+    private static List<A0BlockHeader> generateHeaders(byte[] parentHash, long first, int count)
+            throws HeaderStructureException {
+        List<A0BlockHeader> headers = new ArrayList<>();
+        for (long number = first; number < first + count; number++) {
+            A0BlockHeader header =
+                    new A0BlockHeader.Builder()
+                            .withParentHash(parentHash)
+                            .withNumber(number)
+                            .withTimestamp(number)
+                            .withExtraData(RandomUtils.nextBytes(32))
+                            .build();
+            headers.add(header);
+            parentHash = header.getHash();
+        }
+        return headers;
+    }
+
+    private static byte[] emptyBody(A0BlockHeader header) {
+        return new AionBlock(header, Collections.emptyList()).getEncodedBody();
+    }
+
+    /**
+     * Answers the given request with checkpoints taken from the first chain and segment headers and
+     * bodies taken from the second chain.
+     */
+    private void respond(
+            Request request, List<A0BlockHeader> checkpoints, List<A0BlockHeader> chain) {
+        if (request.msg instanceof ReqBlocksHeaders) {
+            ReqBlocksHeaders req = (ReqBlocksHeaders) request.msg;
+            List<A0BlockHeader> source = req.getTake() == 1 ? checkpoints : chain;
+            int from = (int) req.getFromBlock() - 1;
+            skeletonSync.validateAndAddHeaders(
+                    request.peerId,
+                    new ArrayList<>(
+                            source.subList(from, Math.min(from + req.getTake(), source.size()))));
+        } else {
+            ReqBlocksBodies req = (ReqBlocksBodies) request.msg;
+            Map<ByteArrayWrapper, A0BlockHeader> byHash = new HashMap<>();
+            for (A0BlockHeader header : chain) {
+                byHash.put(ByteArrayWrapper.wrap(header.getHash()), header);
+            }
+            List<byte[]> bodies = new ArrayList<>();
+            for (byte[] hash : req.getBlocksHashes()) {
+                bodies.add(emptyBody(byHash.get(ByteArrayWrapper.wrap(hash))));
+            }
+            skeletonSync.validateAndAddBlocks(request.peerId, bodies);
+        }
+    }
+
+    /** Answers the requests in the reverse order, including the ones sent while answering. */
+    private void respondAll(List<A0BlockHeader> checkpoints, List<A0BlockHeader> chain) {
+        while (!requests.isEmpty()) {
+            respond(requests.removeLast(), checkpoints, chain);
+        }
+    }
+
+    @Test
+    public void testSync_parallelPeersInOrderImport() throws Exception {
+        byte[] baseHash = RandomUtils.nextBytes(32);
+        int count = 3 * SEGMENT_SIZE + 10;
+        List<A0BlockHeader> chain = generateHeaders(baseHash, 1, count);
+
+        INode skeletonPeer = addPeer(1, count);
+        addPeer(2, count);
+        addPeer(3, count);
+
+        skeletonSync.start(skeletonPeer, 0, baseHash);
+        assertThat(skeletonSync.isActive()).isTrue();
+        skeletonSync.sendRequests(System.currentTimeMillis());
+        assertThat(skeletonSync.getSegmentCount()).isEqualTo(4);
+
+        // only checkpoints are requested at first
+        List<Request> checkpointRequests = new ArrayList<>(requests);
+        requests.clear();
+        assertThat(checkpointRequests.size()).isEqualTo(4);
+        for (Request request : checkpointRequests) {
+            assertThat(request.peerId).isEqualTo(1);
+            assertThat(((ReqBlocksHeaders) request.msg).getTake()).isEqualTo(1);
+        }
+
+        // the segments are then requested from all the peers at the same time
+        for (Request request : checkpointRequests) {
+            respond(request, chain, chain);
+        }
+        Set<Integer> segmentPeers = new HashSet<>();
+        for (Request request : requests) {
+            assertThat(((ReqBlocksHeaders) request.msg).getTake()).isEqualTo(SEGMENT_SIZE);
+            segmentPeers.add(request.peerId);
+        }
+        assertThat(segmentPeers.size()).isEqualTo(3);
+
+        respondAll(chain, chain);
+        assertThat(skeletonSync.isActive()).isFalse();
+
+        // the blocks reach the import queue in order
+        long expected = 1;
+        for (BlocksWrapper bw : downloadedBlocks) {
+            // imported without changing the sync state of the peers
+            assertThat(bw.getImportState().getMode()).isEqualTo(SKELETON);
+            assertThat(bw.getImportState().getBase()).isEqualTo(expected - 1);
+            for (AionBlock block : bw.getBlocks()) {
+                assertThat(block.getNumber()).isEqualTo(expected);
+                assertThat(block.getHash()).isEqualTo(chain.get((int) expected - 1).getHash());
+                expected++;
+            }
+        }
+        assertThat(expected).isEqualTo(count + 1);
+    }
+
+    @Test
+    public void testSync_rejectsUnlinkedHeaders() throws Exception {
+        byte[] baseHash = RandomUtils.nextBytes(32);
+        int count = 2 * SEGMENT_SIZE;
+        List<A0BlockHeader> chain = generateHeaders(baseHash, 1, count);
+        List<A0BlockHeader> fork = generateHeaders(baseHash, 1, count);
+
+        INode skeletonPeer = addPeer(1, count);
+        skeletonSync.start(skeletonPeer, 0, baseHash);
+        skeletonSync.sendRequests(System.currentTimeMillis());
+
+        // the segment headers do not match the checkpoints
+        long now = System.currentTimeMillis();
+        respondAll(chain, fork);
+        assertThat(downloadedBlocks.isEmpty()).isTrue();
+        assertThat(skeletonSync.isActive()).isFalse();
+        assertThat(skeletonSync.isExcluded(1, now)).isTrue();
+    }
+
+    @Test
+    public void testSendRequests_skeletonPeerUnresponsive() {
+        INode skeletonPeer = addPeer(1, 10 * SEGMENT_SIZE);
+        skeletonSync.start(skeletonPeer, 0, RandomUtils.nextBytes(32));
+
+        for (int i = 0; i <= MAX_FAILURES; i++) {
+            skeletonSync.sendRequests(i * REQUEST_TIMEOUT_MILLIS);
+        }
+        assertThat(skeletonSync.isActive()).isFalse();
+
+        // the peer is not used for the skeleton again until the cooldown expires
+        long failed = MAX_FAILURES * REQUEST_TIMEOUT_MILLIS;
+        assertThat(skeletonSync.isExcluded(1, failed)).isTrue();
+        assertThat(skeletonSync.isExcluded(2, failed)).isFalse();
+        assertThat(skeletonSync.isExcluded(1, failed + FAILED_PEER_COOLDOWN_MILLIS - 1)).isTrue();
+        assertThat(skeletonSync.isExcluded(1, failed + FAILED_PEER_COOLDOWN_MILLIS)).isFalse();
+    }
+
+    @Test
+    public void testSendRequests_skeletonPeerDisconnected() {
+        INode skeletonPeer = addPeer(1, 10 * SEGMENT_SIZE);
+        skeletonSync.start(skeletonPeer, 0, RandomUtils.nextBytes(32));
+        peers.remove(1);
+
+        skeletonSync.sendRequests(0L);
+        assertThat(skeletonSync.isActive()).isFalse();
+        assertThat(requests.isEmpty()).isTrue();
+        assertThat(skeletonSync.isExcluded(1, 0L)).isFalse();
+    }
+
+    @Test
+    public void testReserveBodyRequest_skipsPeersWaitingForSkeleton() throws Exception {
+        byte[] baseHash = RandomUtils.nextBytes(32);
+        INode skeletonPeer = addPeer(1, 10 * SEGMENT_SIZE);
+        addPeer(2, 10 * SEGMENT_SIZE);
+        skeletonSync.start(skeletonPeer, 0, baseHash);
+        skeletonSync.sendRequests(0L);
+        assertThat(requests.isEmpty()).isFalse();
+
+        // headers downloaded before the skeleton started
+        HeadersWrapper headers = new HeadersWrapper(1, "peer1", generateHeaders(baseHash, 1, 4));
+        assertThat(skeletonSync.reserveBodyRequest(1, headers)).isFalse();
+        assertThat(headersWithBodiesRequested.isEmpty()).isTrue();
+
+        assertThat(skeletonSync.reserveBodyRequest(2, headers)).isTrue();
+        assertThat(headersWithBodiesRequested.get(2)).isSameAs(headers);
+    }
+}
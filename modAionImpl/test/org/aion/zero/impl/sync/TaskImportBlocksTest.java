@@ -23,6 +23,7 @@ import static org.aion.zero.impl.sync.TaskImportBlocks.attemptLightningJump;
 import static org.aion.zero.impl.sync.TaskImportBlocks.filterBatch;
 import static org.aion.zero.impl.sync.TaskImportBlocks.forwardModeUpdate;
 import static org.aion.zero.impl.sync.TaskImportBlocks.isAlreadyStored;
+import static org.aion.zero.impl.sync.TaskImportBlocks.preValidate;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -208,6 +209,32 @@ public class TaskImportBlocksTest {
         assertThat(isAlreadyStored(chain.getBlockStore(), current)).isTrue();
     }
 
+    @Test
+    public void testPreValidate() {
+        StandaloneBlockchain.Bundle bundle =
+                builder.withValidatorConfiguration("simple").withDefaultAccounts(accounts).build();
+
+        StandaloneBlockchain chain = bundle.bc;
+
+        // decoding the block the same way as sync
+        AionBlock valid =
+                AionBlock.fromRLP(generateNextBlock(chain, accounts, 10).getEncoded(), true);
+        // transactions do not match the trie root
+        AionBlock invalid = new AionBlock(valid.getHeader(), new ArrayList<>());
+        assertThat(valid.isPreValidated()).isFalse();
+
+        List<AionBlock> batch = new ArrayList<>();
+        batch.add(valid);
+        batch.add(invalid);
+        preValidate(batch, chain);
+
+        assertThat(valid.isPreValidated()).isTrue();
+        assertThat(invalid.isPreValidated()).isFalse();
+
+        assertThat(chain.tryToConnect(invalid)).isEqualTo(INVALID_BLOCK);
+        assertThat(chain.tryToConnect(valid)).isEqualTo(IMPORTED_BEST);
+    }
+
     @Test
     public void testFilterBatch_woPruningRestrictions() {
         StandaloneBlockchain.Bundle bundle =
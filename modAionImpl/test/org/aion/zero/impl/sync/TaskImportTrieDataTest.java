@@ -1,10 +1,14 @@
 package org.aion.zero.impl.sync;
 
 import static org.aion.zero.impl.sync.DatabaseType.STATE;
+import static org.aion.zero.impl.sync.msg.RequestTrieDataTest.altNodeKey;
 import static org.aion.zero.impl.sync.msg.RequestTrieDataTest.nodeKey;
+import static org.aion.zero.impl.sync.msg.ResponseTrieDataTest.branchValue;
 import static org.aion.zero.impl.sync.msg.ResponseTrieDataTest.leafValue;
+import static org.aion.zero.impl.sync.msg.ResponseTrieDataTest.singleReference;
 import static org.aion.zero.impl.sync.msg.ResponseTrieDataTest.wrappedNodeKey;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -12,12 +16,15 @@ import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import junitparams.JUnitParamsRunner;
 import junitparams.Parameters;
 import org.aion.mcf.trie.TrieNodeResult;
 import org.aion.rlp.RLP;
+import org.aion.types.ByteArrayWrapper;
 import org.aion.util.conversions.Hex;
 import org.aion.zero.impl.AionBlockchainImpl;
 import org.aion.zero.impl.sync.msg.ResponseTrieData;
@@ -121,7 +128,7 @@ public class TaskImportTrieDataTest {
         when(log.isDebugEnabled()).thenReturn(false);
 
         AionBlockchainImpl chain = mock(AionBlockchainImpl.class);
-        when(chain.importTrieNode(nodeKey, leafValue, STATE)).thenReturn(success);
+        when(chain.importTrieNodes(any(), eq(STATE))).thenReturn(Map.of(wrappedNodeKey, success));
 
         FastSyncManager fastSyncMgr = mock(FastSyncManager.class);
         when(fastSyncMgr.isComplete()).thenReturn(false, true);
@@ -151,7 +158,7 @@ public class TaskImportTrieDataTest {
                         success,
                         displayId);
         verify(trieNodes, times(1)).take();
-        verify(chain, times(1)).importTrieNode(nodeKey, leafValue, STATE);
+        verify(chain, times(1)).importTrieNodes(any(), eq(STATE));
         verify(fastSyncMgr, times(2)).isComplete();
         verify(fastSyncMgr, times(1)).addImportedNode(wrappedNodeKey, leafValue, STATE);
         verify(fastSyncMgr, times(1)).updateRequests(wrappedNodeKey, Collections.emptySet(), STATE);
@@ -165,7 +172,7 @@ public class TaskImportTrieDataTest {
         when(log.isDebugEnabled()).thenReturn(true);
 
         AionBlockchainImpl chain = mock(AionBlockchainImpl.class);
-        when(chain.importTrieNode(nodeKey, leafValue, STATE)).thenReturn(fail);
+        when(chain.importTrieNodes(any(), eq(STATE))).thenReturn(Map.of(wrappedNodeKey, fail));
 
         FastSyncManager fastSyncMgr = mock(FastSyncManager.class);
         when(fastSyncMgr.isComplete()).thenReturn(false, true);
@@ -195,9 +202,77 @@ public class TaskImportTrieDataTest {
                         fail,
                         displayId);
         verify(trieNodes, times(1)).take();
-        verify(chain, times(1)).importTrieNode(nodeKey, leafValue, STATE);
+        verify(chain, times(1)).importTrieNodes(any(), eq(STATE));
         verify(fastSyncMgr, times(2)).isComplete();
         verify(fastSyncMgr, times(1))
                 .handleFailedImport(wrappedNodeKey, leafValue, STATE, peerId, displayId);
     }
+
+    @Test
+    public void testRun_partialFailure_referencedNode() throws InterruptedException {
+        Logger log = mock(Logger.class);
+        ByteArrayWrapper altKey = ByteArrayWrapper.wrap(altNodeKey);
+
+        AionBlockchainImpl chain = mock(AionBlockchainImpl.class);
+        when(chain.importTrieNodes(any(), eq(STATE)))
+                .thenReturn(
+                        Map.of(
+                                wrappedNodeKey,
+                                TrieNodeResult.IMPORTED,
+                                altKey,
+                                TrieNodeResult.INCONSISTENT));
+
+        FastSyncManager fastSyncMgr = mock(FastSyncManager.class);
+        when(fastSyncMgr.isComplete()).thenReturn(false, true);
+        when(fastSyncMgr.containsExact(any(), any())).thenReturn(false);
+
+        BlockingQueue<TrieNodeWrapper> trieNodes = mock(LinkedBlockingQueue.class);
+        ResponseTrieData response =
+                new ResponseTrieData(wrappedNodeKey, leafValue, singleReference, STATE);
+        when(trieNodes.take()).thenReturn(new TrieNodeWrapper(peerId, displayId, response));
+
+        // run task
+        TaskImportTrieData task = new TaskImportTrieData(log, chain, trieNodes, fastSyncMgr);
+        task.run();
+
+        verify(fastSyncMgr, times(1)).addImportedNode(wrappedNodeKey, leafValue, STATE);
+        verify(fastSyncMgr, times(1))
+                .handleFailedImport(altKey, branchValue, STATE, peerId, displayId);
+        verify(fastSyncMgr, times(1)).updateRequests(wrappedNodeKey, Set.of(altKey), STATE);
+    }
+
+    @Test
+    public void testRun_partialFailure_topmostNode() throws InterruptedException {
+        Logger log = mock(Logger.class);
+        ByteArrayWrapper altKey = ByteArrayWrapper.wrap(altNodeKey);
+
+        AionBlockchainImpl chain = mock(AionBlockchainImpl.class);
+        when(chain.importTrieNodes(any(), eq(STATE)))
+                .thenReturn(
+                        Map.of(
+                                wrappedNodeKey,
+                                TrieNodeResult.INVALID_KEY,
+                                altKey,
+                                TrieNodeResult.IMPORTED));
+
+        FastSyncManager fastSyncMgr = mock(FastSyncManager.class);
+        when(fastSyncMgr.isComplete()).thenReturn(false, true);
+        when(fastSyncMgr.containsExact(any(), any())).thenReturn(false);
+
+        BlockingQueue<TrieNodeWrapper> trieNodes = mock(LinkedBlockingQueue.class);
+        ResponseTrieData response =
+                new ResponseTrieData(wrappedNodeKey, leafValue, singleReference, STATE);
+        when(trieNodes.take()).thenReturn(new TrieNodeWrapper(peerId, displayId, response));
+
+        // run task
+        TaskImportTrieData task = new TaskImportTrieData(log, chain, trieNodes, fastSyncMgr);
+        task.run();
+
+        verify(fastSyncMgr, times(1))
+                .handleFailedImport(wrappedNodeKey, leafValue, STATE, peerId, displayId);
+        verify(fastSyncMgr, times(1)).addImportedNode(altKey, branchValue, STATE);
+        // the download continues below the imported node
+        verify(fastSyncMgr, times(1)).updateRequests(altKey, Collections.emptySet(), STATE);
+        verify(fastSyncMgr, times(0)).updateRequests(eq(wrappedNodeKey), any(), eq(STATE));
+    }
 }
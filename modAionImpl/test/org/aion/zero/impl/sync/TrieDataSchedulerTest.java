@@ -0,0 +1,224 @@
+package org.aion.zero.impl.sync;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.aion.p2p.V1Constants.TRIE_DATA_REQUEST_MAXIMUM_BATCH_SIZE;
+import static org.aion.zero.impl.sync.DatabaseType.DETAILS;
+import static org.aion.zero.impl.sync.DatabaseType.STATE;
+import static org.aion.zero.impl.sync.DatabaseType.STORAGE;
+import static org.aion.zero.impl.sync.TrieDataScheduler.MAX_REQUESTS_PER_PEER;
+import static org.aion.zero.impl.sync.TrieDataScheduler.REQUEST_TIMEOUT_MILLIS;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.aion.p2p.INode;
+import org.aion.p2p.IP2pMgr;
+import org.aion.types.ByteArrayWrapper;
+import org.aion.zero.impl.sync.msg.RequestTrieData;
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.slf4j.Logger;
+
+/** Unit tests for {@link TrieDataScheduler}. */
+public class TrieDataSchedulerTest {
+
+    private static final File frontierFile =
+            new File(System.getProperty("user.dir"), "tmp-frontier");
+
+    private IP2pMgr p2pMgr;
+    private Map<Integer, INode> peers;
+    private Logger log;
+
+    @Before
+    public void setup() {
+        p2pMgr = mock(IP2pMgr.class);
+        peers = new HashMap<>();
+        when(p2pMgr.getActiveNodes()).thenReturn(peers);
+        log = mock(Logger.class);
+    }
+
+    @After
+    public void teardown() {
+        frontierFile.delete();
+    }
+
+    private void addPeer(int id) {
+        INode peer = mock(INode.class);
+        when(peer.getIdHash()).thenReturn(id);
+        when(peer.getIdShort()).thenReturn("peer" + id);
+        peers.put(id, peer);
+    }
+
+    private static ByteArrayWrapper randomKey() {
+        return ByteArrayWrapper.wrap(RandomUtils.nextBytes(32));
+    }
+
+    @Test
+    public void testSendRequests_limitPerPeer() {
+        addPeer(1);
+        addPeer(2);
+        TrieDataScheduler scheduler = new TrieDataScheduler(p2pMgr, log, null);
+        for (int i = 0; i < 3 * MAX_REQUESTS_PER_PEER; i++) {
+            scheduler.add(randomKey(), STATE);
+        }
+
+        assertThat(scheduler.sendRequests(0L)).isEqualTo(2 * MAX_REQUESTS_PER_PEER);
+        assertThat(scheduler.getRequestCount(1)).isEqualTo(MAX_REQUESTS_PER_PEER);
+        assertThat(scheduler.getRequestCount(2)).isEqualTo(MAX_REQUESTS_PER_PEER);
+        verify(p2pMgr, times(MAX_REQUESTS_PER_PEER))
+                .send(eq(1), anyString(), any(RequestTrieData.class));
+        verify(p2pMgr, times(MAX_REQUESTS_PER_PEER))
+                .send(eq(2), anyString(), any(RequestTrieData.class));
+
+        // no capacity left
+        assertThat(scheduler.sendRequests(1L)).isEqualTo(0);
+        assertThat(scheduler.getScheduledCount()).isEqualTo(3 * MAX_REQUESTS_PER_PEER);
+    }
+
+    @Test
+    public void testSendRequests_limitInFlight() {
+        addPeer(1);
+        addPeer(2);
+        TrieDataScheduler scheduler = new TrieDataScheduler(p2pMgr, log, null);
+        ByteArrayWrapper first = randomKey();
+        scheduler.add(first, STATE);
+        for (int i = 0; i < 4; i++) {
+            scheduler.add(randomKey(), STATE);
+        }
+
+        assertThat(scheduler.sendRequests(0L, 3)).isEqualTo(3);
+        assertThat(scheduler.sendRequests(1L, 3)).isEqualTo(0);
+
+        // the requests continue once a response is received
+        scheduler.received(first, STATE, Collections.emptySet());
+        assertThat(scheduler.sendRequests(2L, 3)).isEqualTo(1);
+        assertThat(scheduler.getScheduledCount()).isEqualTo(4);
+    }
+
+    @Test
+    public void testSendRequests_reassignTimedOut() {
+        addPeer(1);
+        TrieDataScheduler scheduler = new TrieDataScheduler(p2pMgr, log, null);
+        scheduler.add(randomKey(), STATE);
+
+        assertThat(scheduler.sendRequests(0L)).isEqualTo(1);
+        verify(p2pMgr, times(1)).send(eq(1), anyString(), any(RequestTrieData.class));
+
+        addPeer(2);
+        assertThat(scheduler.sendRequests(REQUEST_TIMEOUT_MILLIS)).isEqualTo(1);
+        assertThat(scheduler.getRequestCount(1)).isEqualTo(0);
+        assertThat(scheduler.getRequestCount(2)).isEqualTo(1);
+        verify(p2pMgr, times(1)).send(eq(2), anyString(), any(RequestTrieData.class));
+    }
+
+    @Test
+    public void testReceived() {
+        addPeer(1);
+        TrieDataScheduler scheduler = new TrieDataScheduler(p2pMgr, log, null);
+        assertThat(scheduler.isComplete(STATE)).isFalse();
+
+        ByteArrayWrapper root = randomKey();
+        scheduler.add(root, STATE);
+        scheduler.sendRequests(0L);
+
+        List<ByteArrayWrapper> children = List.of(randomKey(), randomKey());
+        scheduler.received(root, STATE, children);
+        assertThat(scheduler.getRequestCount(1)).isEqualTo(0);
+        assertThat(scheduler.getScheduledCount()).isEqualTo(2);
+        assertThat(scheduler.isComplete(STATE)).isFalse();
+
+        assertThat(scheduler.sendRequests(1L)).isEqualTo(2);
+        for (ByteArrayWrapper child : children) {
+            scheduler.received(child, STATE, Collections.emptySet());
+        }
+        assertThat(scheduler.getScheduledCount()).isEqualTo(0);
+        assertThat(scheduler.isComplete(STATE)).isTrue();
+    }
+
+    @Test
+    public void testReceived_fromFrontier() {
+        addPeer(1);
+        TrieDataScheduler scheduler = new TrieDataScheduler(p2pMgr, log, null);
+        ByteArrayWrapper received = randomKey();
+        ByteArrayWrapper missing = randomKey();
+        scheduler.add(received, STATE);
+        scheduler.add(missing, STATE);
+
+        // received from a slow peer while waiting in the frontier
+        scheduler.received(received, STATE, Collections.emptySet());
+        assertThat(scheduler.getScheduledCount()).isEqualTo(1);
+
+        ArgumentCaptor<RequestTrieData> requests = ArgumentCaptor.forClass(RequestTrieData.class);
+        assertThat(scheduler.sendRequests(0L)).isEqualTo(1);
+        verify(p2pMgr, times(1)).send(eq(1), anyString(), requests.capture());
+        assertThat(requests.getValue().getNodeKey()).isEqualTo(missing.getData());
+    }
+
+    @Test
+    public void testIsComplete_onlyState() {
+        TrieDataScheduler scheduler = new TrieDataScheduler(p2pMgr, log, null);
+        for (DatabaseType dbType : List.of(STATE, DETAILS, STORAGE)) {
+            ByteArrayWrapper key = randomKey();
+            scheduler.add(key, dbType);
+            scheduler.received(key, dbType, Collections.emptySet());
+            assertThat(scheduler.hasScheduled(dbType)).isFalse();
+        }
+
+        // the details and storage roots are not all scheduled
+        assertThat(scheduler.isComplete(STATE)).isTrue();
+        assertThat(scheduler.isComplete(DETAILS)).isFalse();
+        assertThat(scheduler.isComplete(STORAGE)).isFalse();
+    }
+
+    @Test
+    public void testSendRequests_limitByDatabase() {
+        addPeer(1);
+        TrieDataScheduler scheduler = new TrieDataScheduler(p2pMgr, log, null);
+        scheduler.add(randomKey(), STATE);
+        scheduler.add(randomKey(), DETAILS);
+        scheduler.add(randomKey(), STORAGE);
+        assertThat(scheduler.hasScheduled(DETAILS)).isTrue();
+
+        ArgumentCaptor<RequestTrieData> requests = ArgumentCaptor.forClass(RequestTrieData.class);
+        assertThat(scheduler.sendRequests(0L)).isEqualTo(3);
+        verify(p2pMgr, times(3)).send(eq(1), anyString(), requests.capture());
+
+        // only the state trie nodes can be expanded by the peers
+        for (RequestTrieData request : requests.getAllValues()) {
+            if (request.getDbType() == STATE) {
+                assertThat(request.getLimit()).isEqualTo(TRIE_DATA_REQUEST_MAXIMUM_BATCH_SIZE);
+            } else {
+                assertThat(request.getLimit()).isEqualTo(1);
+            }
+        }
+    }
+
+    @Test
+    public void testSaveAndLoad() {
+        addPeer(1);
+        TrieDataScheduler scheduler = new TrieDataScheduler(p2pMgr, log, frontierFile);
+        for (int i = 0; i < 2 * MAX_REQUESTS_PER_PEER; i++) {
+            scheduler.add(randomKey(), STATE);
+        }
+        scheduler.sendRequests(0L);
+        scheduler.save();
+
+        // both the frontier and the requests in flight are restored
+        TrieDataScheduler restored = new TrieDataScheduler(p2pMgr, log, frontierFile);
+        assertThat(restored.load()).isTrue();
+        assertThat(restored.getScheduledCount()).isEqualTo(2 * MAX_REQUESTS_PER_PEER);
+        assertThat(restored.getRequestCount(1)).isEqualTo(0);
+    }
+}
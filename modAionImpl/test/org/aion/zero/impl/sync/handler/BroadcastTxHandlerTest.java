@@ -0,0 +1,89 @@
+package org.aion.zero.impl.sync.handler;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import org.aion.crypto.ECKeyFac;
+import org.aion.mcf.blockchain.IPendingStateInternal;
+import org.aion.p2p.IP2pMgr;
+import org.aion.p2p.Ver;
+import org.aion.types.Address;
+import org.aion.zero.impl.sync.Act;
+import org.aion.zero.impl.sync.msg.BroadcastTx;
+import org.aion.zero.types.AionTransaction;
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+
+/** Unit tests for {@link BroadcastTxHandler}. */
+public class BroadcastTxHandlerTest {
+    private static final int peerId = Integer.MAX_VALUE;
+    private static final String displayId = "abcdef";
+
+    private IPendingStateInternal pendingState;
+    private BroadcastTxHandler handler;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        pendingState = mock(IPendingStateInternal.class);
+        when(pendingState.isValid(any())).thenReturn(true);
+        handler =
+                new BroadcastTxHandler(
+                        mock(Logger.class), pendingState, mock(IP2pMgr.class), false);
+    }
+
+    @After
+    public void shutdown() {
+        handler.shutDown();
+    }
+
+    static AionTransaction signedTx() {
+        AionTransaction tx =
+                new AionTransaction(
+                        RandomUtils.nextBytes(16),
+                        Address.wrap(RandomUtils.nextBytes(32)),
+                        RandomUtils.nextBytes(16),
+                        RandomUtils.nextBytes(64),
+                        21000L,
+                        10_000_000_000L);
+        tx.sign(ECKeyFac.inst().create());
+        return tx;
+    }
+
+    @Test
+    public void testHeader() {
+        assertThat(handler.getHeader().getVer()).isEqualTo(Ver.V0);
+        assertThat(handler.getHeader().getAction()).isEqualTo(Act.BROADCAST_TX);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReceive_duplicatesAreNotDecoded() {
+        AionTransaction tx = signedTx();
+        byte[] msg = new BroadcastTx(List.of(tx, tx)).encode();
+
+        // the same transaction gossiped twice in one message and again by a second peer
+        handler.receive(peerId, displayId, msg);
+        handler.receive(peerId - 1, displayId, msg);
+
+        verify(pendingState, times(1)).isValid(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReceive_distinctTransactions() {
+        byte[] msg = new BroadcastTx(List.of(signedTx(), signedTx(), signedTx())).encode();
+
+        handler.receive(peerId, displayId, msg);
+
+        verify(pendingState, times(3)).isValid(any());
+    }
+}
@@ -0,0 +1,113 @@
+package org.aion.zero.impl.sync.handler;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import org.aion.mcf.blockchain.IPendingStateInternal;
+import org.aion.p2p.IP2pMgr;
+import org.aion.types.ByteArrayWrapper;
+import org.aion.zero.impl.sync.msg.BroadcastTx;
+import org.aion.zero.impl.valid.TXValidator;
+import org.aion.zero.types.AionTransaction;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+
+/**
+ * Replays a transaction gossip flood of 10k tx/s where every transaction is relayed by several
+ * peers and reports the CPU time spent per received transaction, for the previous admission path
+ * that decoded every transaction and for the handler that drops duplicates before decoding.
+ */
+public class GossipFloodBenchmark {
+
+    private static final int TX_PER_SECOND = 10_000;
+
+    private static final int TX_COUNT = 20_000;
+
+    /** Number of peers relaying each transaction. */
+    private static final int FANOUT = 8;
+
+    private static final int TX_PER_MSG = 50;
+
+    private static List<byte[]> messages() {
+        List<AionTransaction> txs = new ArrayList<>();
+        for (int i = 0; i < TX_COUNT; i++) {
+            txs.add(BroadcastTxHandlerTest.signedTx());
+        }
+
+        List<byte[]> msgs = new ArrayList<>();
+        for (int i = 0; i < TX_COUNT; i += TX_PER_MSG) {
+            byte[] msg = new BroadcastTx(txs.subList(i, i + TX_PER_MSG)).encode();
+            for (int peer = 0; peer < FANOUT; peer++) {
+                msgs.add(msg);
+            }
+        }
+        return msgs;
+    }
+
+    private interface Receiver {
+        void receive(int peer, byte[] msg);
+    }
+
+    private static void flood(String name, List<byte[]> msgs, Receiver receiver)
+            throws InterruptedException {
+        ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+        long nanosPerMsg = 1_000_000_000L * TX_PER_MSG / TX_PER_SECOND / FANOUT;
+
+        long cpu = 0;
+        long next = System.nanoTime();
+        for (int i = 0; i < msgs.size(); i++) {
+            long start = mx.getCurrentThreadCpuTime();
+            receiver.receive(i % FANOUT, msgs.get(i));
+            cpu += mx.getCurrentThreadCpuTime() - start;
+
+            // pace the messages to the target rate
+            next += nanosPerMsg;
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+            }
+        }
+
+        long received = (long) msgs.size() * TX_PER_MSG;
+        System.out.format(
+                "%-10s %6d ns CPU per received tx, %6d ns CPU per distinct tx%n",
+                name, cpu / received, cpu / TX_COUNT);
+    }
+
+    @Ignore
+    @Test
+    @SuppressWarnings("unchecked")
+    public void benchmarkGossipFlood() throws InterruptedException {
+        IPendingStateInternal pendingState = mock(IPendingStateInternal.class);
+        when(pendingState.isValid(any()))
+                .thenAnswer(invocation -> TXValidator.isValid(invocation.getArgument(0)));
+
+        // previous behaviour: decode every transaction before the duplicate check
+        flood(
+                "decode",
+                messages(),
+                (peer, msg) -> {
+                    for (byte[] raw : BroadcastTx.decode(msg)) {
+                        AionTransaction tx = new AionTransaction(raw);
+                        tx.rlpParse();
+                        tx.getRawHash();
+                        if (!TXValidator.isInCache(
+                                ByteArrayWrapper.wrap(tx.getTransactionHash()))) {
+                            pendingState.isValid(tx);
+                        }
+                    }
+                });
+
+        BroadcastTxHandler lightweight =
+                new BroadcastTxHandler(
+                        mock(Logger.class), pendingState, mock(IP2pMgr.class), false);
+        flood("seen-set", messages(), (peer, msg) -> lightweight.receive(peer, "peer", msg));
+        lightweight.shutDown();
+    }
+}
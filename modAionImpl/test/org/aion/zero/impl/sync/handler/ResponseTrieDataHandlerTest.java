@@ -162,4 +162,30 @@ public class ResponseTrieDataHandlerTest {
         TrieNodeWrapper node = new TrieNodeWrapper(peerId, displayId, response);
         assertThat(receivedQueue).containsExactly(node);
     }
+
+    @Test
+    public void testReceive_fullQueue() {
+        Logger log = mock(Logger.class);
+
+        BlockingQueue<TrieNodeWrapper> receivedQueue = new LinkedBlockingQueue<>(1);
+
+        ResponseTrieDataHandler handler = new ResponseTrieDataHandler(log, receivedQueue);
+
+        // receive the same message twice
+        byte[] encoding =
+                RLP.encodeList(
+                        RLP.encodeElement(nodeKey),
+                        RLP.encodeElement(leafValue),
+                        RLP.encodeList(new byte[0]),
+                        RLP.encodeString(STATE.toString()));
+        handler.receive(peerId, displayId, encoding);
+        handler.receive(peerId, displayId, encoding);
+
+        verify(log, times(1))
+                .debug("<res-trie queue full, dropped response from peer={}>", displayId);
+
+        TrieNodeWrapper node =
+                new TrieNodeWrapper(peerId, displayId, ResponseTrieData.decode(encoding));
+        assertThat(receivedQueue).containsExactly(node);
+    }
 }
@@ -141,6 +141,61 @@ public class A0BlockHeaderTest {
         byte[] difficulty = reconstructed.getDifficulty();
     }
 
+    private A0BlockHeader buildHeader() throws HeaderStructureException {
+        return new A0BlockHeader.Builder()
+                .withCoinbase(Address.wrap(COINBASE))
+                .withStateRoot(STATE_ROOT)
+                .withTxTrieRoot(TRIE_ROOT)
+                .withReceiptTrieRoot(RECEIPT_ROOT)
+                .withNumber(NUMBER_BYTES)
+                .withParentHash(PARENT_HASH)
+                .withNonce(NONCE_BYTES)
+                .build();
+    }
+
+    @Test
+    public void testHashMemoized() throws Exception {
+        A0BlockHeader header = buildHeader();
+
+        byte[] hash = header.getHash();
+        assertThat(header.getHash()).isSameAs(hash);
+        assertThat(header.getEncoded()).isSameAs(header.getEncoded());
+        assertThat(header.getHashWrapper()).isSameAs(header.getHashWrapper());
+        assertThat(header.getHash()).isEqualTo(HashUtil.h256(header.getEncoded()));
+
+        // copies share the derived values
+        A0BlockHeader copy = new A0BlockHeader(header);
+        assertThat(copy.getHash()).isSameAs(hash);
+    }
+
+    @Test
+    public void testHashDiscardedOnChange() throws Exception {
+        A0BlockHeader header = buildHeader();
+        byte[] hash = header.getHash();
+        byte[] mineHash = header.getMineHash();
+
+        header.setStateRoot(HashUtil.h256("otherStateRoot".getBytes()));
+
+        assertThat(header.getHash()).isNotEqualTo(hash);
+        assertThat(header.getMineHash()).isNotEqualTo(mineHash);
+        assertThat(new A0BlockHeader(header.getEncoded()).getStateRoot())
+                .isEqualTo(header.getStateRoot());
+    }
+
+    @Test
+    public void testMineHashKeptWhenSealed() throws Exception {
+        A0BlockHeader header = buildHeader();
+        byte[] hash = header.getHash();
+        byte[] mineHash = header.getMineHash();
+
+        header.setNonce(ByteUtil.longToBytes(7));
+        header.setSolution(new byte[1408]);
+
+        assertThat(header.getMineHash()).isSameAs(mineHash);
+        assertThat(header.getHash()).isNotEqualTo(hash);
+        assertThat(header.getHashWrapper().getData()).isEqualTo(header.getHash());
+    }
+
     // verification tests, test that no properties are being violated
 
     @Test(expected = HeaderStructureException.class)
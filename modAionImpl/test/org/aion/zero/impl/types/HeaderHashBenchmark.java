@@ -0,0 +1,61 @@
+package org.aion.zero.impl.types;
+
+import org.aion.crypto.HashUtil;
+import org.aion.types.Address;
+import org.aion.types.ByteArrayWrapper;
+import org.aion.zero.types.A0BlockHeader;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Compares the cost of the hash lookups done for each block on the import path when the header
+ * encodes and hashes itself on every call and when the values are computed once.
+ */
+public class HeaderHashBenchmark {
+
+    /** Rough number of hash lookups per imported block: sync filtering, import, store, logging. */
+    private static final int LOOKUPS_PER_BLOCK = 25;
+
+    private static final int BLOCKS = 20_000;
+
+    private static A0BlockHeader header(long number) throws Exception {
+        return new A0BlockHeader.Builder()
+                .withCoinbase(Address.wrap(HashUtil.h256("coinbase".getBytes())))
+                .withParentHash(HashUtil.h256(Long.toString(number).getBytes()))
+                .withNumber(number)
+                .withTimestamp(number)
+                .build();
+    }
+
+    @Ignore
+    @Test
+    public void benchmarkHashLookups() throws Exception {
+        A0BlockHeader[] headers = new A0BlockHeader[BLOCKS];
+        for (int i = 0; i < BLOCKS; i++) {
+            headers[i] = header(i + 1);
+        }
+
+        long sink = 0;
+        long start = System.nanoTime();
+        for (A0BlockHeader header : headers) {
+            for (int i = 0; i < LOOKUPS_PER_BLOCK; i++) {
+                // previous behaviour: encode and hash on every call
+                header.setNonce(header.getNonce());
+                sink += ByteArrayWrapper.wrap(header.getHash()).hashCode();
+            }
+        }
+        long uncached = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (A0BlockHeader header : headers) {
+            for (int i = 0; i < LOOKUPS_PER_BLOCK; i++) {
+                sink += header.getHashWrapper().hashCode();
+            }
+        }
+        long cached = System.nanoTime() - start;
+
+        System.out.format(
+                "uncached: %6d ns per block, memoized: %6d ns per block (%d)%n",
+                uncached / BLOCKS, cached / BLOCKS, sink & 1);
+    }
+}
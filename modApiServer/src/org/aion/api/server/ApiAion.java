@@ -3,7 +3,6 @@ package org.aion.api.server;
 import static org.aion.evtmgr.impl.evt.EventTx.STATE.GETSTATE;
 
 import java.math.BigInteger;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
@@ -12,7 +11,6 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.aion.api.server.nrgprice.NrgOracle;
@@ -38,7 +36,6 @@ import org.aion.zero.impl.AionGenesis;
 import org.aion.zero.impl.AionHub;
 import org.aion.zero.impl.BlockContext;
 import org.aion.zero.impl.Version;
-import org.aion.zero.impl.blockchain.AionPendingStateImpl;
 import org.aion.zero.impl.blockchain.IAionChain;
 import org.aion.zero.impl.config.CfgAion;
 import org.aion.zero.impl.core.IAionBlockchain;
@@ -76,17 +73,12 @@ public abstract class ApiAion extends Api {
     protected final short FLTRS_MAX = 1024;
     protected final String clientVersion = computeClientVersion();
 
-    private ReentrantLock blockTemplateLock;
-    private volatile BlockContext currentTemplate;
-    private byte[] currentBestBlockHash;
-
     protected EventExecuteService ees;
 
     public ApiAion(final IAionChain _ac) {
         this.ac = _ac;
         this.installedFilters = new ConcurrentHashMap<>();
         this.fltrIndex = new AtomicLong(0);
-        this.blockTemplateLock = new ReentrantLock();
 
         // register events
         IEventMgr evtMgr = this.ac.getAionHub().getEventMgr();
@@ -154,34 +146,17 @@ public abstract class ApiAion extends Api {
     }
 
     protected BlockContext getBlockTemplate() {
+        return ac.getAionHub().getBlockTemplateBuilder().getTemplate();
+    }
 
-        blockTemplateLock.lock();
-        try {
-            AionBlock bestBlock =
-                    ((AionPendingStateImpl) ac.getAionHub().getPendingState()).getBestBlock();
-            byte[] bestBlockHash = bestBlock.getHeader().getMineHash();
-
-            if (currentBestBlockHash == null
-                    || !Arrays.equals(bestBlockHash, currentBestBlockHash)) {
-
-                // Record new best block on the chain
-                currentBestBlockHash = bestBlockHash;
-
-                // Generate new block template
-                AionPendingStateImpl.TransactionSortedSet ret =
-                        new AionPendingStateImpl.TransactionSortedSet();
-                ret.addAll(ac.getAionHub().getPendingState().getPendingTransactions());
-
-                currentTemplate =
-                        ac.getAionHub()
-                                .getBlockchain()
-                                .createNewBlockContext(bestBlock, new ArrayList<>(ret), false);
-            }
-        } finally {
-            blockTemplateLock.unlock();
-        }
-
-        return currentTemplate;
+    /**
+     * Waits for a block template other than the one with the given mine hash.
+     *
+     * @param timeoutMillis the maximum time to wait before returning the current template
+     */
+    protected BlockContext awaitBlockTemplate(byte[] mineHash, long timeoutMillis)
+            throws InterruptedException {
+        return ac.getAionHub().getBlockTemplateBuilder().awaitTemplate(mineHash, timeoutMillis);
     }
 
     public AionBlock getBlockByHash(byte[] hash) {
@@ -438,16 +413,22 @@ public abstract class ApiAion extends Api {
         return new TxRecpt(block, txInfo, cumulateNrg, true);
     }
 
+    /** Builds the unsigned transaction of a call, sent from the zero address by default. */
+    protected AionTransaction callTransaction(ArgTxCall _params) {
+        Address fromAddr = (_params.getFrom() == null) ? Address.ZERO_ADDRESS() : _params.getFrom();
+        return new AionTransaction(
+                _params.getNonce().toByteArray(),
+                fromAddr,
+                _params.getTo(),
+                _params.getValue().toByteArray(),
+                _params.getData(),
+                _params.getNrg(),
+                _params.getNrgPrice(),
+                _params.getType());
+    }
+
     protected byte[] doCall(ArgTxCall _params) {
-        AionTransaction tx =
-                new AionTransaction(
-                        _params.getNonce().toByteArray(),
-                        _params.getTo(),
-                        _params.getValue().toByteArray(),
-                        _params.getData(),
-                        _params.getNrg(),
-                        _params.getNrgPrice(),
-                        _params.getType());
+        AionTransaction tx = callTransaction(_params);
         AionTxReceipt rec =
                 this.ac.callConstant(tx, this.ac.getAionHub().getBlockchain().getBestBlock());
         return rec.getTransactionOutput();
@@ -9,6 +9,12 @@ import org.aion.api.server.rpc.RpcProcessor;
 
 public abstract class RpcServer {
 
+    /** Path on which the metrics are served when enabled. */
+    public static final String METRICS_PATH = "/metrics";
+
+    /** Content type of the Prometheus text exposition format. */
+    public static final String METRICS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
     protected String hostName;
     protected int port;
 
@@ -23,6 +29,8 @@ public abstract class RpcServer {
 
     protected boolean stuckThreadDetectorEnabled;
 
+    protected boolean metricsEnabled;
+
     /**
      * to explicitly force any subclasses to check for null values, access to the following
      * variables is restricted through protected accessor methods
@@ -72,6 +80,7 @@ public abstract class RpcServer {
         ioPoolSize = builder.ioPoolSize;
         requestQueueSize = builder.requestQueueSize;
         stuckThreadDetectorEnabled = builder.stuckThreadDetectorEnabled;
+        metricsEnabled = builder.metricsEnabled;
     }
 
     // want to explicitly force user of this class to check for null values here.
@@ -32,6 +32,7 @@ public abstract class RpcServerBuilder<T extends RpcServerBuilder<T>> {
     Integer ioPoolSize = null;
     Integer requestQueueSize = null;
     boolean stuckThreadDetectorEnabled = false;
+    boolean metricsEnabled = false;
 
     public T setUrl(String hostName, int port) {
         this.hostName = Objects.requireNonNull(hostName);
@@ -101,6 +102,12 @@ public abstract class RpcServerBuilder<T extends RpcServerBuilder<T>> {
         return self();
     }
 
+    /** Serve the {@link org.aion.util.metrics.MetricsRegistry} on {@code GET /metrics}. */
+    public T setMetricsEnabled(boolean x) {
+        this.metricsEnabled = x;
+        return self();
+    }
+
     protected abstract RpcServer build();
 
     // Subclasses must override this method to return "this"
@@ -3,9 +3,11 @@ package org.aion.api.server.http.nano;
 import fi.iki.elonen.NanoHTTPD;
 import java.util.HashMap;
 import java.util.Map;
+import org.aion.api.server.http.RpcServer;
 import org.aion.api.server.rpc.RpcProcessor;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
+import org.aion.util.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 
 public class AionHttpd extends NanoHTTPD {
@@ -14,18 +16,21 @@ public class AionHttpd extends NanoHTTPD {
     private RpcProcessor rpcProcessor;
     private boolean corsEnabled;
     private Map<String, String> corsHeaders;
+    private boolean metricsEnabled;
 
     public AionHttpd(
             String hostname,
             int port,
             RpcProcessor rpcProcessor,
             boolean corsEnabled,
-            Map<String, String> corsHeaders) {
+            Map<String, String> corsHeaders,
+            boolean metricsEnabled) {
         super(hostname, port);
 
         this.rpcProcessor = rpcProcessor;
         this.corsEnabled = corsEnabled;
         this.corsHeaders = corsHeaders;
+        this.metricsEnabled = metricsEnabled;
     }
 
     private Response respond(IHTTPSession session) {
@@ -48,6 +53,14 @@ public class AionHttpd extends NanoHTTPD {
         Response r;
         if (corsEnabled && Method.OPTIONS.equals(session.getMethod())) {
             r = NanoHTTPD.newFixedLengthResponse(Response.Status.OK, MIME_PLAINTEXT, null, 0);
+        } else if (metricsEnabled
+                && Method.GET.equals(session.getMethod())
+                && RpcServer.METRICS_PATH.equals(session.getUri())) {
+            r =
+                    NanoHTTPD.newFixedLengthResponse(
+                            Response.Status.OK,
+                            RpcServer.METRICS_CONTENT_TYPE,
+                            MetricsRegistry.inst().scrape());
         } else {
             r = respond(session);
         }
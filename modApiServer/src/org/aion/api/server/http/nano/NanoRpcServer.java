@@ -93,7 +93,14 @@ public class NanoRpcServer extends RpcServer {
                             new LinkedBlockingQueue<>(),
                             new AionHttpdThreadFactory());
 
-            server = new AionHttpd(hostName, port, rpcProcessor, corsEnabled, CORS_HEADERS);
+            server =
+                    new AionHttpd(
+                            hostName,
+                            port,
+                            rpcProcessor,
+                            corsEnabled,
+                            CORS_HEADERS,
+                            metricsEnabled);
             server.setAsyncRunner(new BoundRunner(workers));
 
             if (this.sslEnabled) makeSecure();
@@ -7,18 +7,25 @@ import io.undertow.util.HttpString;
 import io.undertow.util.Methods;
 import io.undertow.util.StatusCodes;
 import java.util.Map;
+import org.aion.api.server.http.RpcServer;
 import org.aion.api.server.rpc.RpcProcessor;
+import org.aion.util.metrics.MetricsRegistry;
 
 class AionUndertowRpcHandler implements HttpHandler {
     private final boolean corsEnabled;
     private final Map<HttpString, String> corsHeaders;
     private final RpcProcessor rpcProcessor;
+    private final boolean metricsEnabled;
 
     public AionUndertowRpcHandler(
-            boolean corsEnabled, Map<HttpString, String> corsHeaders, RpcProcessor rpcProcessor) {
+            boolean corsEnabled,
+            Map<HttpString, String> corsHeaders,
+            RpcProcessor rpcProcessor,
+            boolean metricsEnabled) {
         this.corsEnabled = corsEnabled;
         this.corsHeaders = corsHeaders;
         this.rpcProcessor = rpcProcessor;
+        this.metricsEnabled = metricsEnabled;
     }
 
     private void addCorsHeaders(HttpServerExchange exchange) {
@@ -32,6 +39,15 @@ class AionUndertowRpcHandler implements HttpHandler {
         boolean isPost = Methods.POST.equals(exchange.getRequestMethod());
         boolean isOptions = Methods.OPTIONS.equals(exchange.getRequestMethod());
 
+        // respond to metrics scrape
+        if (metricsEnabled
+                && Methods.GET.equals(exchange.getRequestMethod())
+                && RpcServer.METRICS_PATH.equals(exchange.getRequestPath())) {
+            exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, RpcServer.METRICS_CONTENT_TYPE);
+            exchange.getResponseSender().send(MetricsRegistry.inst().scrape());
+            return;
+        }
+
         // only support POST & OPTIONS requests
         if (!isPost && !isOptions) {
             exchange.setStatusCode(StatusCodes.METHOD_NOT_ALLOWED);
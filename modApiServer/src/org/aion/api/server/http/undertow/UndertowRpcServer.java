@@ -140,7 +140,8 @@ public class UndertowRpcServer extends RpcServer {
             }
 
             AionUndertowRpcHandler rpcHandler =
-                    new AionUndertowRpcHandler(corsEnabled, CORS_HEADERS, rpcProcessor);
+                    new AionUndertowRpcHandler(
+                            corsEnabled, CORS_HEADERS, rpcProcessor, metricsEnabled);
 
             undertowBuilder.setHandler(
                     new AionUndertowRootHandler(rpcHandler, requestLimiting, stuckThreadDetector));
@@ -165,6 +166,7 @@ public class UndertowRpcServer extends RpcServer {
                     corsEnabled
                             ? "Enabled; Allowed Origins = \"" + corsOrigin + "\""
                             : "Not Enabled");
+            LOG.debug("Metrics: {}", metricsEnabled ? "Enabled on " + METRICS_PATH : "Not Enabled");
             LOG.debug("Worker Thread Count: {}", effectiveWorkerThreadCount);
             LOG.debug("I/O Thread Count: {}", effectiveIoThreadCount);
             LOG.debug(
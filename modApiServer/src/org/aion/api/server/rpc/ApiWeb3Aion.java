@@ -13,10 +13,13 @@ import java.math.BigInteger;
 import java.math.RoundingMode;
 import java.time.Instant;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
@@ -25,7 +28,8 @@ import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
 import org.aion.api.server.ApiAion;
 import org.aion.api.server.ApiTxResponse;
 import org.aion.api.server.types.ArgFltr;
@@ -102,10 +106,15 @@ public class ApiWeb3Aion extends ApiAion {
 
     private final int OPS_RECENT_ENTITY_COUNT = 32;
     private final int OPS_RECENT_ENTITY_CACHE_TIME_SECONDS = 4;
+    private final int OPS_MULTI_CALL_LIMIT = 1000;
 
     private final int STRATUM_RECENT_BLK_COUNT = 128;
     private final int STRATUM_BLKTIME_INCLUDED_COUNT = 32;
     private final int STRATUM_CACHE_TIME_SECONDS = 15;
+    // templates are resealed as transactions arrive, so a height can have several of them
+    private final int STRATUM_TEMPLATE_COUNT = 64;
+    private final long STRATUM_LONGPOLL_DEFAULT_SECONDS = 30;
+    private final long STRATUM_LONGPOLL_MAX_SECONDS = 120;
     // TODO: Verify if need to use a concurrent map; locking may allow for use of a simple map
     private HashMap<ByteArrayWrapper, AionBlock> templateMap;
     private ReadWriteLock templateMapLock;
@@ -185,7 +194,7 @@ public class ApiWeb3Aion extends ApiAion {
     public ApiWeb3Aion(final IAionChain _ac) {
         super(_ac);
         pendingReceipts = Collections.synchronizedMap(new LRUMap<>(FLTRS_MAX, 100));
-        templateMap = new HashMap<>();
+        templateMap = new LinkedHashMap<>();
         templateMapLock = new ReentrantReadWriteLock();
         isFilterEnabled = CfgAion.inst().getApi().getRpc().isFiltersEnabled();
         isSeedMode = CfgAion.inst().getConsensus().isSeed();
@@ -808,9 +817,11 @@ public class ApiWeb3Aion extends ApiAion {
 
         AionBlock b = getBlockByBN(bn);
 
+        Address from = txParams.getFrom() == null ? Address.ZERO_ADDRESS() : txParams.getFrom();
         AionTransaction tx =
                 new AionTransaction(
                         txParams.getNonce().toByteArray(),
+                        from,
                         txParams.getTo(),
                         txParams.getValue().toByteArray(),
                         txParams.getData(),
@@ -1835,6 +1846,82 @@ public class ApiWeb3Aion extends ApiAion {
      * operational api
      */
 
+    /**
+     * Executes a list of calls against the state of one block and returns the results of all the
+     * calls, each with its own error. The calls share one state snapshot and run concurrently.
+     */
+    public RpcMsg ops_multiCall(Object _params) {
+        JSONArray _calls;
+        Object _bnOrId;
+        if (_params instanceof JSONArray) {
+            _calls = ((JSONArray) _params).optJSONArray(0);
+            _bnOrId = ((JSONArray) _params).opt(1);
+        } else if (_params instanceof JSONObject) {
+            _calls = ((JSONObject) _params).optJSONArray("calls");
+            _bnOrId = ((JSONObject) _params).opt("block");
+        } else {
+            return new RpcMsg(null, RpcError.INVALID_PARAMS, "Invalid parameters");
+        }
+
+        if (_calls == null) {
+            return new RpcMsg(null, RpcError.INVALID_PARAMS, "Invalid list of calls provided.");
+        }
+        if (_calls.length() > OPS_MULTI_CALL_LIMIT) {
+            return new RpcMsg(
+                    null,
+                    RpcError.INVALID_PARAMS,
+                    "Too many calls, at most " + OPS_MULTI_CALL_LIMIT + " calls are allowed.");
+        }
+
+        String bnOrId = "latest";
+        if (_bnOrId != null && !JSONObject.NULL.equals(_bnOrId)) {
+            bnOrId = _bnOrId + "";
+        }
+
+        Long bn = parseBnOrId(bnOrId);
+        if (bn == null) {
+            return new RpcMsg(null, RpcError.INVALID_PARAMS, "Invalid block number.");
+        }
+
+        AionBlock b = getBlockByBN(bn);
+        if (b == null) {
+            return new RpcMsg(null, RpcError.INVALID_PARAMS, "Unknown block number.");
+        }
+
+        // the invalid calls are reported without being executed
+        long nrgPrice = getRecommendedNrgPrice();
+        List<AionTransaction> txs = new ArrayList<>();
+        boolean[] valid = new boolean[_calls.length()];
+        for (int i = 0; i < _calls.length(); i++) {
+            JSONObject _tx = _calls.optJSONObject(i);
+            ArgTxCall txParams = _tx == null ? null : ArgTxCall.fromJSON(_tx, nrgPrice);
+            if (txParams != null) {
+                txs.add(callTransaction(txParams));
+                valid[i] = true;
+            }
+        }
+
+        Iterator<AionTxReceipt> receipts = this.ac.callConstants(txs, b).iterator();
+
+        JSONArray response = new JSONArray();
+        for (boolean isValid : valid) {
+            JSONObject result = new JSONObject();
+            if (isValid) {
+                AionTxReceipt receipt = receipts.next();
+                result.put("result", StringUtils.toJsonHex(receipt.getTransactionOutput()));
+                result.put("nrgUsed", StringUtils.toJsonHex(receipt.getEnergyUsed()));
+                if (!receipt.isSuccessful()) {
+                    result.put("error", receipt.getError());
+                }
+            } else {
+                result.put("error", "Invalid transaction parameter provided");
+            }
+            response.put(result);
+        }
+
+        return new RpcMsg(response);
+    }
+
     // always gets the latest account state
     public RpcMsg ops_getAccountState(Object _params) {
         String _address;
@@ -2431,25 +2518,33 @@ public class ApiWeb3Aion extends ApiAion {
         // cast will cause issues after the PoW refactor goes in
         AionBlockchainImpl chain = (AionBlockchainImpl) this.ac.getAionHub().getBlockchain();
 
-        Function<AionTransaction, JSONObject> extractTxReceipt =
-                t -> {
-                    AionTxInfo info =
-                            chain.getTransactionInfoLite(t.getTransactionHash(), b.getHash());
-                    info.setTransaction(t);
+        // all the receipts of the block are read at once
+        List<AionTxInfo> infos = chain.getTransactionInfosByBlock(b.getHash());
+        List<AionTransaction> txs = b.getTransactionsList();
+        if (infos == null || infos.size() != txs.size()) {
+            LOG.error("INCONSISTENT STATE: missing transaction infos for block.");
+            return new RpcMsg(null, RpcError.INTERNAL_ERROR, "Database Error");
+        }
+
+        // each index is accessed by a single thread
+        IntFunction<JSONObject> extractTxReceipt =
+                i -> {
+                    AionTxInfo info = infos.get(i);
+                    info.setTransaction(txs.get(i));
                     return ((new TxRecpt(b, info, 0L, true)).toJson());
                 };
 
         List<JSONObject> receipts;
-        // use the fork-join pool to parallelize receipt retrieval if necessary
+        // use the fork-join pool to parallelize receipt decoding if necessary
         int PARALLELIZE_RECEIPT_COUNT = 20;
-        if (b.getTransactionsList().size() > PARALLELIZE_RECEIPT_COUNT) {
+        if (txs.size() > PARALLELIZE_RECEIPT_COUNT) {
             receipts =
-                    b.getTransactionsList()
-                            .parallelStream()
-                            .map(extractTxReceipt)
+                    IntStream.range(0, txs.size())
+                            .parallel()
+                            .mapToObj(extractTxReceipt)
                             .collect(toList());
         } else {
-            receipts = b.getTransactionsList().stream().map(extractTxReceipt).collect(toList());
+            receipts = IntStream.range(0, txs.size()).mapToObj(extractTxReceipt).collect(toList());
         }
 
         return new RpcMsg(new JSONArray(receipts));
@@ -2474,13 +2569,47 @@ public class ApiWeb3Aion extends ApiAion {
     }
 
     public RpcMsg stratum_getwork() {
+        return stratum_getwork(null);
+    }
+
+    /**
+     * Returns the current block template. When the parameters contain the {@code longpollid}
+     * returned with a previous template, the call waits until a different template is available,
+     * or until the optional {@code timeout} in seconds elapses.
+     */
+    public RpcMsg stratum_getwork(Object _params) {
         // TODO: Change this to a synchronized map implementation mapping
 
         if (isSeedMode) {
             return new RpcMsg(null, RpcError.NOT_ALLOWED, "SeedNodeIsOpened");
         }
 
-        BlockContext bestBlock = getBlockTemplate();
+        Object request = _params;
+        if (_params instanceof JSONArray) {
+            request = ((JSONArray) _params).opt(0);
+        }
+
+        BlockContext bestBlock;
+        if (request instanceof JSONObject && ((JSONObject) request).has("longpollid")) {
+            JSONObject longPoll = (JSONObject) request;
+            long timeout =
+                    Math.min(
+                            longPoll.optLong("timeout", STRATUM_LONGPOLL_DEFAULT_SECONDS),
+                            STRATUM_LONGPOLL_MAX_SECONDS);
+            try {
+                bestBlock =
+                        awaitBlockTemplate(
+                                hexStringToBytes(longPoll.getString("longpollid")),
+                                timeout * 1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new RpcMsg(null, RpcError.INTERNAL_ERROR, "Interrupted");
+            } catch (Exception e) {
+                return new RpcMsg(null, RpcError.INVALID_PARAMS, "Invalid parameters");
+            }
+        } else {
+            bestBlock = getBlockTemplate();
+        }
         ByteArrayWrapper key = new ByteArrayWrapper(bestBlock.block.getHeader().getMineHash());
 
         // Read template map; if block already contained chain has not moved forward, simply return
@@ -2511,6 +2640,10 @@ public class ApiWeb3Aion extends ApiAion {
                         templateMap.clear();
                     }
                 }
+                if (templateMap.size() >= STRATUM_TEMPLATE_COUNT) {
+                    // drop the oldest template of the current height
+                    templateMap.remove(templateMap.keySet().iterator().next());
+                }
                 templateMap.put(key, bestBlock.block);
 
             } finally {
@@ -2523,6 +2656,7 @@ public class ApiWeb3Aion extends ApiAion {
         obj.put("height", bestBlock.block.getNumber());
         obj.put("target", toHexString(bestBlock.block.getHeader().getPowBoundary()));
         obj.put("headerHash", toHexString(bestBlock.block.getHeader().getMineHash()));
+        obj.put("longpollid", toHexString(bestBlock.block.getHeader().getMineHash()));
         obj.put("blockBaseReward", toHexString(bestBlock.baseBlockReward.toByteArray()));
         obj.put("blockTxFee", toHexString(bestBlock.transactionFee.toByteArray()));
 
@@ -128,6 +128,7 @@ public class RpcMethods {
                     Map.entry("ops_getTransaction", (params) -> api.ops_getTransaction(params)),
                     Map.entry("ops_getBlock", (params) -> api.ops_getBlock(params)),
                     Map.entry("ops_getChainHeadView", (params) -> api.ops_getChainHeadView()),
+                    Map.entry("ops_multiCall", (params) -> api.ops_multiCall(params)),
                     Map.entry("eth_getBalance", (params) -> api.eth_getBalance(params)),
                     Map.entry(
                             "eth_sendRawTransaction",
@@ -252,7 +253,7 @@ public class RpcMethods {
                     Map.entry("getinfo", (params) -> api.stratum_getinfo()),
                     Map.entry("getmininginfo", (params) -> api.stratum_getmininginfo()),
                     Map.entry("submitblock", (params) -> api.stratum_submitblock(params)),
-                    Map.entry("getblocktemplate", (params) -> api.stratum_getwork()),
+                    Map.entry("getblocktemplate", (params) -> api.stratum_getwork(params)),
                     Map.entry(
                             "getHeaderByBlockNumber",
                             (params) -> api.stratum_getHeaderByBlockNumber(params)),
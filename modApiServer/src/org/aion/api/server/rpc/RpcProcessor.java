@@ -2,14 +2,18 @@ package org.aion.api.server.rpc;
 
 import com.google.common.base.Stopwatch;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
+import org.aion.util.metrics.Histogram;
+import org.aion.util.metrics.MetricsRegistry;
 import org.apache.commons.lang3.StringUtils;
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -25,6 +29,9 @@ public class RpcProcessor {
     private CompletionService<JSONObject> batchCallCompletionService;
     private final int SHUTDOWN_WAIT_SECONDS = 5;
 
+    /** Per method timers; only populated for known methods to bound the label values. */
+    private final Map<String, Histogram> methodTimers = new ConcurrentHashMap<>();
+
     public RpcProcessor(
             final List<String> enabledGroups,
             final List<String> enabledMethods,
@@ -98,7 +105,9 @@ public class RpcProcessor {
                 boolean shouldTime = LOG.isDebugEnabled();
                 Stopwatch timer = null;
                 if (shouldTime) timer = Stopwatch.createStarted();
+                long t1 = System.nanoTime();
                 RpcMsg response = rpc.call(params);
+                methodTimer(method).recordSince(t1);
                 if (shouldTime) {
                     timer.stop();
                     LOG.debug(
@@ -118,6 +127,18 @@ public class RpcProcessor {
         return new RpcMsg(null, RpcError.INTERNAL_ERROR).toJson();
     }
 
+    private Histogram methodTimer(String method) {
+        return methodTimers.computeIfAbsent(
+                method,
+                m ->
+                        MetricsRegistry.inst()
+                                .timer(
+                                        "aion_rpc_request_seconds",
+                                        "Time to process an RPC request.",
+                                        "method",
+                                        m));
+    }
+
     // implementing http://www.jsonrpc.org/specification#batch
     private String handleBatch(String _reqBody) {
         try {
@@ -2,6 +2,7 @@ package org.aion.api.server.types;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import org.aion.interfaces.block.Block;
 import org.aion.interfaces.block.BlockSummary;
@@ -85,6 +86,8 @@ public final class FltrLg extends Fltr {
     // filter gives a positive match for;
     public boolean onBlock(IAionBlock blk, IAionBlockchain chain) {
         if (matchBloom(new Bloom(blk.getLogBloom()))) {
+            // the receipts of the block are read together on the first match
+            List<AionTxInfo> blockInfos = null;
             int txIndex = 0;
             for (Transaction txn : blk.getTransactionsList()) {
                 if (txn.getDestinationAddress() != null
@@ -92,7 +95,16 @@ public final class FltrLg extends Fltr {
                     // now that we know that our filter might match with some logs in this
                     // transaction, go ahead
                     // and retrieve the txReceipt from the chain
-                    AionTxInfo txInfo = chain.getTransactionInfo(txn.getTransactionHash());
+                    if (blockInfos == null) {
+                        blockInfos = chain.getTransactionInfosByBlock(blk.getHash());
+                        if (blockInfos == null) {
+                            blockInfos = Collections.emptyList();
+                        }
+                    }
+                    AionTxInfo txInfo =
+                            txIndex < blockInfos.size()
+                                    ? blockInfos.get(txIndex)
+                                    : chain.getTransactionInfo(txn.getTransactionHash());
                     AionTxReceipt receipt = txInfo.getReceipt();
                     if (matchBloom(receipt.getBloomFilter())) {
                         int logIndex = 0;
@@ -2,8 +2,10 @@ package org.aion.api.server.rpc;
 
 import static org.aion.util.string.StringUtils.StringHexToBigInteger;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import org.aion.types.Address;
 import org.aion.mcf.account.AccountManager;
@@ -206,4 +208,40 @@ public class ApiWeb3AionTest {
         RpcMsg rsp = web3Api.eth_getTransactionByBlockNumberAndIndex(req);
         assertEquals(JSONObject.NULL, rsp.getResult());
     }
+
+    @Test
+    public void testOpsMultiCall() {
+        JSONObject call = new JSONObject();
+        call.put("to", "0x" + Address.ZERO_ADDRESS().toString());
+        call.put("gas", "0x5208");
+
+        JSONArray calls = new JSONArray();
+        calls.put(call);
+        calls.put("not a call");
+        calls.put(call);
+
+        JSONObject req = new JSONObject();
+        req.put("calls", calls);
+        req.put("block", "latest");
+
+        RpcMsg rsp = web3Api.ops_multiCall(req);
+        assertNull(rsp.getError());
+
+        JSONArray results = (JSONArray) rsp.getResult();
+        assertEquals(3, results.length());
+        assertTrue(results.getJSONObject(0).has("result"));
+        assertTrue(results.getJSONObject(0).has("nrgUsed"));
+        assertFalse(results.getJSONObject(1).has("result"));
+        assertTrue(results.getJSONObject(1).has("error"));
+        assertEquals(
+                results.getJSONObject(0).get("nrgUsed"), results.getJSONObject(2).get("nrgUsed"));
+    }
+
+    @Test
+    public void testOpsMultiCallInvalidParams() {
+        JSONObject req = new JSONObject();
+        req.put("block", "latest");
+
+        assertEquals(RpcError.INVALID_PARAMS, web3Api.ops_multiCall(req).getError());
+    }
 }
@@ -263,6 +263,7 @@ public class Aion {
                         rpcBuilder.setRequestQueueSize(rpcCfg.getRequestQueueSize());
                         rpcBuilder.setStuckThreadDetectorEnabled(
                                 rpcCfg.isStuckThreadDetectorEnabled());
+                        rpcBuilder.setMetricsEnabled(rpcCfg.isMetricsEnabled());
 
                         if (rpcCfg.isCorsEnabled()) {
                             rpcBuilder.enableCorsWithOrigin(rpcCfg.getCorsOrigin());
@@ -8,7 +8,7 @@ import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.Arrays;
+import java.util.Objects;
 import org.aion.crypto.hash.Blake2b;
 import org.aion.crypto.hash.Blake2bNative;
 import org.aion.rlp.RLP;
@@ -24,6 +24,10 @@ import org.spongycastle.util.encoders.Hex;
  * <p>It's recommended to use {@link #h256(byte[])}, {@link #h256(byte[], byte[])} and {@link
  * #h256(byte[], int, int)} whenever possible, instead of using the specific hash algorithms
  *
+ * <p>The methods writing into a caller provided output buffer do not allocate: they reuse a digest
+ * state kept per thread, which makes them suitable for hashing many small inputs such as trie
+ * nodes.
+ *
  * @author jin, cleaned by yulong
  */
 public class HashUtil {
@@ -39,6 +43,19 @@ public class HashUtil {
 
     protected static H256Type type = BLAKE2B_256;
 
+    /** The size in bytes of the 256-bit hashes. */
+    public static final int HASH_256_LENGTH = 32;
+
+    /** The size of the chunks copied from buffers without an accessible backing array. */
+    private static final int SCRATCH_LENGTH = 128;
+
+    private static final ThreadLocal<Blake2b> BLAKE256 =
+            ThreadLocal.withInitial(() -> Blake2b.Digest.newInstance(HASH_256_LENGTH));
+    private static final ThreadLocal<KeccakDigest> KECCAK256 =
+            ThreadLocal.withInitial(() -> new KeccakDigest(256));
+    private static final ThreadLocal<byte[]> SCRATCH =
+            ThreadLocal.withInitial(() -> new byte[SCRATCH_LENGTH]);
+
     public static final byte[] EMPTY_DATA_HASH = h256(EMPTY_BYTE_ARRAY);
     public static final byte[] EMPTY_LIST_HASH = h256(RLP.encodeList());
     public static final byte[] EMPTY_TRIE_HASH = h256(RLP.encodeElement(EMPTY_BYTE_ARRAY));
@@ -103,17 +120,89 @@ public class HashUtil {
 
         if (in == null || start < 0 || len <= 0) return null;
 
-        byte[] buf = Arrays.copyOfRange(in, start, start + len);
+        byte[] out = new byte[HASH_256_LENGTH];
+        h256(in, start, len, out, 0);
+        return out;
+    }
+
+    /**
+     * Computes the 256-bit hash of part of the given input into the given output buffer, without
+     * allocating.
+     *
+     * @param in the input data
+     * @param off the start of the data to hash
+     * @param len the number of bytes to hash
+     * @param out the buffer receiving the hash
+     * @param outOff the position of the hash in the output buffer
+     * @throws IndexOutOfBoundsException if the input or output range is outside its buffer
+     */
+    public static void h256(byte[] in, int off, int len, byte[] out, int outOff) {
+        switch (type) {
+            case BLAKE2B_256:
+                blake256(in, off, len, out, outOff);
+                break;
+            case KECCAK_256:
+                keccak256(in, off, len, out, outOff);
+                break;
+            default:
+                throw new RuntimeException("h256 hash type is not set!");
+        }
+    }
+
+    /**
+     * Computes the 256-bit hash of the remaining bytes of the given buffer into the given output
+     * buffer. The position of the input buffer is not changed.
+     */
+    public static void h256(ByteBuffer in, byte[] out, int outOff) {
+        if (in.hasArray()) {
+            h256(in.array(), in.arrayOffset() + in.position(), in.remaining(), out, outOff);
+            return;
+        }
+
+        Objects.checkFromIndexSize(outOff, HASH_256_LENGTH, out.length);
+        ByteBuffer src = in.duplicate();
+        byte[] scratch = SCRATCH.get();
         switch (type) {
             case BLAKE2B_256:
-                return blake256(buf);
+                Blake2b blake = BLAKE256.get();
+                while (src.hasRemaining()) {
+                    int len = Math.min(src.remaining(), scratch.length);
+                    src.get(scratch, 0, len);
+                    blake.update(scratch, 0, len);
+                }
+                blake.digest(out, outOff, HASH_256_LENGTH);
+                break;
             case KECCAK_256:
-                return keccak256(buf);
+                KeccakDigest keccak = KECCAK256.get();
+                while (src.hasRemaining()) {
+                    int len = Math.min(src.remaining(), scratch.length);
+                    src.get(scratch, 0, len);
+                    keccak.update(scratch, 0, len);
+                }
+                keccak.doFinal(out, outOff);
+                break;
             default:
                 throw new RuntimeException("h256 hash type is not set!");
         }
     }
 
+    /**
+     * Computes the 256-bit hashes of the given inputs, e.g. the nodes of a trie commit, and writes
+     * them one after the other into the output buffer.
+     *
+     * @param inputs the data to hash
+     * @param out the buffer receiving {@code inputs.length * 32} bytes
+     * @param outOff the position of the first hash in the output buffer
+     * @throws IndexOutOfBoundsException if the output buffer is too small
+     */
+    public static void h256(byte[][] inputs, byte[] out, int outOff) {
+        Objects.checkFromIndexSize(outOff, inputs.length * HASH_256_LENGTH, out.length);
+        for (byte[] in : inputs) {
+            h256(in, 0, in.length, out, outOff);
+            outOff += HASH_256_LENGTH;
+        }
+    }
+
     /**
      * Computes the SHA-256, a member of the SHA-2 cryptographic hash functions, of the given input.
      *
@@ -145,6 +234,19 @@ public class HashUtil {
         return hash;
     }
 
+    /**
+     * Computes the keccak-256 hash of part of the given input into the given output buffer, using
+     * the digest state of the current thread.
+     */
+    public static void keccak256(byte[] in, int off, int len, byte[] out, int outOff) {
+        Objects.checkFromIndexSize(off, len, in.length);
+        Objects.checkFromIndexSize(outOff, HASH_256_LENGTH, out.length);
+
+        KeccakDigest digest = KECCAK256.get();
+        digest.update(in, off, len);
+        digest.doFinal(out, outOff);
+    }
+
     /**
      * Computes the keccak-256 hash of the given two inputs.
      *
@@ -175,6 +277,20 @@ public class HashUtil {
         return digest.digest();
     }
 
+    /**
+     * Computes the blake2b-256 hash of part of the given input into the given output buffer, using
+     * the digest state of the current thread.
+     */
+    public static void blake256(byte[] in, int off, int len, byte[] out, int outOff) {
+        // checked before touching the shared state, which must never be left half updated
+        Objects.checkFromIndexSize(off, len, in.length);
+        Objects.checkFromIndexSize(outOff, HASH_256_LENGTH, out.length);
+
+        Blake2b digest = BLAKE256.get();
+        digest.update(in, off, len);
+        digest.digest(out, outOff, HASH_256_LENGTH);
+    }
+
     /**
      * Added in blake2b equivalent of retrieving the hash of two hashes, to be used by trie
      * implementations
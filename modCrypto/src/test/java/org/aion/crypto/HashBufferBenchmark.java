@@ -0,0 +1,61 @@
+package org.aion.crypto;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Arrays;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Compares hashing into a reused output buffer with the allocating pure java and native blake2b
+ * calls, for input sizes ranging from a hash to a large trie node.
+ */
+public class HashBufferBenchmark {
+
+    private static final int[] SIZES = {32, 64, 128, 256, 512, 1024, 2048, 4096};
+
+    private static final int COUNT = 100_000;
+
+    @Ignore
+    @Test
+    public void benchmarkBlake256() {
+        byte[] out = new byte[32];
+        for (int size : SIZES) {
+            byte[] input = new byte[size + 8];
+            Arrays.fill(input, (byte) size);
+
+            byte[] hash = null;
+
+            // warm up
+            for (int i = 0; i < COUNT; i++) {
+                HashUtil.blake256(input, 8, size, out, 0);
+                HashUtil.blake256(Arrays.copyOfRange(input, 8, input.length));
+                HashUtil.blake256Native(Arrays.copyOfRange(input, 8, input.length));
+            }
+
+            long ts = System.nanoTime();
+            for (int i = 0; i < COUNT; i++) {
+                HashUtil.blake256(input, 8, size, out, 0);
+            }
+            long buffered = System.nanoTime() - ts;
+
+            // the allocating calls need a copy of the range
+            ts = System.nanoTime();
+            for (int i = 0; i < COUNT; i++) {
+                hash = HashUtil.blake256(Arrays.copyOfRange(input, 8, input.length));
+            }
+            long java = System.nanoTime() - ts;
+
+            ts = System.nanoTime();
+            for (int i = 0; i < COUNT; i++) {
+                hash = HashUtil.blake256Native(Arrays.copyOfRange(input, 8, input.length));
+            }
+            long nativ = System.nanoTime() - ts;
+
+            assertArrayEquals(hash, out);
+            System.out.format(
+                    "%5d bytes: buffered %5d ns, java %5d ns, native %5d ns%n",
+                    size, buffered / COUNT, java / COUNT, nativ / COUNT);
+        }
+    }
+}
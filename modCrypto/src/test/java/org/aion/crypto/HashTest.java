@@ -1,7 +1,10 @@
 package org.aion.crypto;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import org.aion.util.conversions.Hex;
 import org.junit.Test;
 
@@ -54,4 +57,76 @@ public class HashTest {
         System.out.println(hash);
         assertEquals(expected, hash);
     }
+
+    @Test
+    public void testBlake256IntoBuffer() {
+        byte[] input = "xxtestxx".getBytes();
+        byte[] out = new byte[40];
+
+        byte[] expected = HashUtil.blake256("test".getBytes());
+        HashUtil.blake256(input, 2, 4, out, 8);
+        assertArrayEquals(expected, Arrays.copyOfRange(out, 8, 40));
+
+        // the thread state is reset after each digest
+        HashUtil.blake256(input, 2, 4, out, 0);
+        assertArrayEquals(expected, Arrays.copyOfRange(out, 0, 32));
+    }
+
+    @Test
+    public void testKeccak256IntoBuffer() {
+        byte[] out = new byte[32];
+        HashUtil.keccak256("xxtestxx".getBytes(), 2, 4, out, 0);
+        assertArrayEquals(HashUtil.keccak256("test".getBytes()), out);
+    }
+
+    @Test
+    public void testH256Range() {
+        byte[] input = new byte[1000];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = (byte) i;
+        }
+
+        assertArrayEquals(
+                HashUtil.blake256(Arrays.copyOfRange(input, 100, 500)),
+                HashUtil.h256(input, 100, 400));
+    }
+
+    @Test
+    public void testH256ByteBuffer() {
+        byte[] input = new byte[300];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = (byte) (i * 7);
+        }
+        byte[] expected = HashUtil.blake256(Arrays.copyOfRange(input, 10, 300));
+        byte[] out = new byte[32];
+
+        ByteBuffer heap = ByteBuffer.wrap(input);
+        heap.position(10);
+        HashUtil.h256(heap.slice(), out, 0);
+        assertArrayEquals(expected, out);
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(input.length);
+        direct.put(input).position(10);
+        HashUtil.h256(direct, out, 0);
+        assertArrayEquals(expected, out);
+        assertEquals(10, direct.position());
+    }
+
+    @Test
+    public void testH256Batch() {
+        byte[][] inputs = {"a".getBytes(), new byte[0], new byte[200]};
+        byte[] out = new byte[inputs.length * HashUtil.HASH_256_LENGTH];
+
+        HashUtil.h256(inputs, out, 0);
+
+        for (int i = 0; i < inputs.length; i++) {
+            assertArrayEquals(
+                    HashUtil.blake256(inputs[i]), Arrays.copyOfRange(out, i * 32, i * 32 + 32));
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testOutputTooSmall() {
+        HashUtil.blake256("test".getBytes(), 0, 4, new byte[32], 1);
+    }
 }
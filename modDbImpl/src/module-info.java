@@ -9,6 +9,7 @@ module aion.db.impl {
     requires mongo.java.driver;
     requires leveldbjni.all;
 
+    exports org.aion.db.generic;
     exports org.aion.db.impl;
     exports org.aion.db.impl.leveldb;
     exports org.aion.db.impl.rocksdb;
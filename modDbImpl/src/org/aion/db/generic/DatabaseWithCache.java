@@ -16,6 +16,7 @@ import org.aion.interfaces.db.PersistenceMethod;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.aion.types.ByteArrayWrapper;
+import org.aion.util.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 
 /**
@@ -134,6 +135,33 @@ public class DatabaseWithCache implements ByteArrayKeyValueDatabase {
         return this.loadingCache.stats();
     }
 
+    /** Exposes the cache statistics through the {@link MetricsRegistry}. */
+    private void registerStats() {
+        MetricsRegistry metrics = MetricsRegistry.inst();
+        String db = database.getName().orElse("unknown");
+        LoadingCache<ByteArrayWrapper, Optional<byte[]>> cache = loadingCache;
+
+        metrics.gauge(
+                "aion_db_cache_hits",
+                "Heap cache hits since the database was opened.",
+                () -> cache.stats().hitCount(),
+                "db",
+                db);
+        metrics.gauge(
+                "aion_db_cache_misses",
+                "Heap cache misses since the database was opened.",
+                () -> cache.stats().missCount(),
+                "db",
+                db);
+        metrics.gauge(
+                "aion_db_cache_evictions",
+                "Heap cache evictions since the database was opened.",
+                () -> cache.stats().evictionCount(),
+                "db",
+                db);
+        metrics.gauge("aion_db_cache_size", "Heap cache entries.", cache::size, "db", db);
+    }
+
     @Override
     public void check() {
         if (!database.isOpen()) {
@@ -168,6 +196,9 @@ public class DatabaseWithCache implements ByteArrayKeyValueDatabase {
         // setup cache only id database was opened successfully
         if (open) {
             setupLoadingCache(maxSize, statsEnabled);
+            if (statsEnabled) {
+                registerStats();
+            }
         }
 
         return open;
@@ -2,15 +2,27 @@ package org.aion.db.generic;
 
 import java.util.Collection;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.aion.db.impl.SnapshotDatabase;
 import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
 
 /**
  * Implements locking functionality for a database that is mostly thread-safe except for open and
  * close (like LevelDB).
  *
+ * <p>Only open, close and drop take the write lock. All other operations share the read lock, so
+ * readers never wait for writes. The pending batch is the only state of the underlying database
+ * that is not thread-safe and has a separate lock.
+ *
  * @author Alexandra Roatis
  */
-public class SpecialLockedDatabase extends LockedDatabase implements ByteArrayKeyValueDatabase {
+public class SpecialLockedDatabase extends LockedDatabase
+        implements ByteArrayKeyValueDatabase, SnapshotDatabase {
+
+    /** Serializes the operations on the pending batch. */
+    private final Lock batchLock = new ReentrantLock();
 
     public SpecialLockedDatabase(ByteArrayKeyValueDatabase _unlockedDatabase) {
         super(_unlockedDatabase);
@@ -91,4 +103,124 @@ public class SpecialLockedDatabase extends LockedDatabase implements ByteArrayKe
             lock.readLock().unlock();
         }
     }
+
+    @Override
+    public void putToBatch(byte[] key, byte[] value) {
+        lock.readLock().lock();
+        batchLock.lock();
+
+        try {
+            database.putToBatch(key, value);
+        } catch (Exception e) {
+            if (e instanceof RuntimeException) {
+                throw e;
+            } else {
+                LOG.error("Could not put to batch due to ", e);
+            }
+        } finally {
+            batchLock.unlock();
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteInBatch(byte[] key) {
+        lock.readLock().lock();
+        batchLock.lock();
+
+        try {
+            database.deleteInBatch(key);
+        } catch (Exception e) {
+            if (e instanceof RuntimeException) {
+                throw e;
+            } else {
+                LOG.error("Could not delete in batch due to ", e);
+            }
+        } finally {
+            batchLock.unlock();
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void commitBatch() {
+        lock.readLock().lock();
+        batchLock.lock();
+
+        try {
+            database.commitBatch();
+        } catch (Exception e) {
+            if (e instanceof RuntimeException) {
+                throw e;
+            } else {
+                LOG.error("Could not put batch due to ", e);
+            }
+        } finally {
+            batchLock.unlock();
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void compact() {
+        lock.readLock().lock();
+
+        try {
+            database.compact();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @throws UnsupportedOperationException when the underlying database does not implement {@link
+     *     SnapshotDatabase}
+     */
+    @Override
+    public Snapshot takeSnapshot() {
+        if (!(database instanceof SnapshotDatabase)) {
+            throw new UnsupportedOperationException(
+                    "Snapshots are not supported by " + database.toString() + ".");
+        }
+
+        lock.readLock().lock();
+
+        try {
+            Snapshot snapshot = ((SnapshotDatabase) database).takeSnapshot();
+            return new LockedSnapshot(snapshot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Prevents the database from being closed while a snapshot read is in progress. */
+    private class LockedSnapshot implements Snapshot {
+        private final Snapshot snapshot;
+
+        LockedSnapshot(Snapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public Optional<byte[]> get(byte[] key) {
+            lock.readLock().lock();
+
+            try {
+                return snapshot.get(key);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public void close() {
+            lock.readLock().lock();
+
+            try {
+                snapshot.close();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
 }
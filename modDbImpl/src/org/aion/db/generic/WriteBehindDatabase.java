@@ -0,0 +1,336 @@
+package org.aion.db.generic;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.aion.db.impl.AbstractDB;
+import org.aion.db.impl.SnapshotDatabase;
+import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
+import org.aion.interfaces.db.PersistenceMethod;
+import org.aion.types.ByteArrayWrapper;
+
+/**
+ * Defers the writes to a database to the writer thread of a {@link WriteBehindPipeline}.
+ *
+ * <p>Updates are collected into an open batch and are immediately visible to readers through an
+ * in-memory overlay. When the pipeline seals a block, the open batch is handed to the writer thread
+ * and the overlay entries are dropped once they reach the underlying database.
+ *
+ * @implNote Batch operations are applied on receipt, i.e. {@link #commitBatch()} is a no-op. The
+ *     commit of databases without auto-commit is also performed by the writer thread.
+ */
+public class WriteBehindDatabase implements ByteArrayKeyValueDatabase, SnapshotDatabase {
+
+    /** Database receiving the writes. */
+    protected final ByteArrayKeyValueDatabase database;
+
+    private final WriteBehindPipeline pipeline;
+
+    /** Updates that have not reached the underlying database yet. */
+    private final Map<ByteArrayWrapper, Update> overlay = new ConcurrentHashMap<>();
+
+    /** Updates since the last seal, guarded by {@code this}. */
+    private Map<ByteArrayWrapper, Update> open = new HashMap<>();
+
+    /**
+     * A single put or delete (when the value is {@code null}). Compared by identity, so that
+     * releasing an older update never removes a newer one for the same key from the overlay.
+     */
+    static final class Update {
+        final byte[] value;
+
+        Update(byte[] value) {
+            this.value = value;
+        }
+    }
+
+    public WriteBehindDatabase(ByteArrayKeyValueDatabase _database, WriteBehindPipeline _pipeline) {
+        this.database = _database;
+        this.pipeline = _pipeline;
+        _pipeline.register(this);
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + " over " + database.toString();
+    }
+
+    // Pipeline functionality
+    // ----------------------------------------------------------------------------------------
+
+    /** @return the updates since the last call, or {@code null} when there are none */
+    synchronized Map<ByteArrayWrapper, Update> takeOpenBatch() {
+        if (open.isEmpty()) {
+            return null;
+        }
+        Map<ByteArrayWrapper, Update> batch = open;
+        open = new HashMap<>();
+        return batch;
+    }
+
+    /** @return the number of updates since the last seal */
+    synchronized int openSize() {
+        return open.size();
+    }
+
+    /** Writes the given batch to the underlying database. Called only by the writer thread. */
+    void persist(Map<ByteArrayWrapper, Update> batch) {
+        Map<byte[], byte[]> puts = new HashMap<>();
+        List<byte[]> deletes = new ArrayList<>();
+        for (Map.Entry<ByteArrayWrapper, Update> e : batch.entrySet()) {
+            if (e.getValue().value == null) {
+                deletes.add(e.getKey().getData());
+            } else {
+                puts.put(e.getKey().getData(), e.getValue().value);
+            }
+        }
+
+        if (!puts.isEmpty()) {
+            database.putBatch(puts);
+        }
+        if (!deletes.isEmpty()) {
+            database.deleteBatch(deletes);
+        }
+        if (!database.isAutoCommitEnabled()) {
+            database.commit();
+        }
+    }
+
+    /** Removes the updates of a persisted or discarded batch from the overlay. */
+    void release(Map<ByteArrayWrapper, Update> batch) {
+        for (Map.Entry<ByteArrayWrapper, Update> e : batch.entrySet()) {
+            overlay.remove(e.getKey(), e.getValue());
+        }
+    }
+
+    /** Drops the updates that have not been sealed yet. */
+    synchronized void discardOpenBatch() {
+        release(open);
+        open = new HashMap<>();
+    }
+
+    private synchronized void stage(byte[] key, byte[] value) {
+        ByteArrayWrapper k = ByteArrayWrapper.wrap(key);
+        Update update = new Update(value);
+        open.put(k, update);
+        overlay.put(k, update);
+    }
+
+    /**
+     * Takes a snapshot of the underlying database.
+     *
+     * @implNote The snapshot does not include the updates that have not reached the underlying
+     *     database yet. Readers must consult this database for the keys missing in the snapshot.
+     * @throws UnsupportedOperationException when the underlying database does not support snapshots
+     */
+    @Override
+    public Snapshot takeSnapshot() {
+        if (database instanceof SnapshotDatabase) {
+            return ((SnapshotDatabase) database).takeSnapshot();
+        }
+        throw new UnsupportedOperationException(
+                "The underlying database " + database + " does not support snapshots.");
+    }
+
+    // IDatabase functionality
+    // -----------------------------------------------------------------------------------------
+
+    @Override
+    public boolean open() {
+        return database.open();
+    }
+
+    @Override
+    public void close() {
+        pipeline.flush();
+        database.close();
+    }
+
+    @Override
+    public boolean commit() {
+        // the writer thread commits each batch
+        return true;
+    }
+
+    @Override
+    public void compact() {
+        database.compact();
+    }
+
+    @Override
+    public Optional<String> getName() {
+        return database.getName();
+    }
+
+    @Override
+    public Optional<String> getPath() {
+        return database.getPath();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return database.isOpen();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return database.isClosed();
+    }
+
+    @Override
+    public boolean isLocked() {
+        return database.isLocked();
+    }
+
+    @Override
+    public boolean isAutoCommitEnabled() {
+        return database.isAutoCommitEnabled();
+    }
+
+    @Override
+    public PersistenceMethod getPersistenceMethod() {
+        return database.getPersistenceMethod();
+    }
+
+    @Override
+    public boolean isCreatedOnDisk() {
+        return database.isCreatedOnDisk();
+    }
+
+    @Override
+    public long approximateSize() {
+        return database.approximateSize();
+    }
+
+    // IKeyValueStore functionality
+    // ------------------------------------------------------------------------------------
+
+    @Override
+    public boolean isEmpty() {
+        for (Update update : overlay.values()) {
+            if (update.value != null) {
+                return false;
+            }
+        }
+        pipeline.drain();
+        return database.isEmpty() || !keys().hasNext();
+    }
+
+    @Override
+    public Iterator<byte[]> keys() {
+        pipeline.drain();
+
+        Set<ByteArrayWrapper> keys = new HashSet<>();
+        Iterator<byte[]> it = database.keys();
+        while (it.hasNext()) {
+            keys.add(ByteArrayWrapper.wrap(it.next()));
+        }
+        // only the open batch can remain after draining
+        for (Map.Entry<ByteArrayWrapper, Update> e : overlay.entrySet()) {
+            if (e.getValue().value == null) {
+                keys.remove(e.getKey());
+            } else {
+                keys.add(e.getKey());
+            }
+        }
+
+        Iterator<ByteArrayWrapper> wrapped = keys.iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return wrapped.hasNext();
+            }
+
+            @Override
+            public byte[] next() {
+                return wrapped.next().getData();
+            }
+        };
+    }
+
+    @Override
+    public Optional<byte[]> get(byte[] key) {
+        AbstractDB.check(key);
+
+        Update update = overlay.get(ByteArrayWrapper.wrap(key));
+        if (update != null) {
+            return Optional.ofNullable(update.value);
+        }
+        return database.get(key);
+    }
+
+    @Override
+    public void put(byte[] key, byte[] value) {
+        AbstractDB.check(key);
+        AbstractDB.check(value);
+        check();
+
+        stage(key, value);
+    }
+
+    @Override
+    public void delete(byte[] key) {
+        AbstractDB.check(key);
+        check();
+
+        stage(key, null);
+    }
+
+    @Override
+    public void putBatch(Map<byte[], byte[]> keyValuePairs) {
+        AbstractDB.check(keyValuePairs.keySet());
+        AbstractDB.check(keyValuePairs.values());
+        check();
+
+        for (Map.Entry<byte[], byte[]> e : keyValuePairs.entrySet()) {
+            stage(e.getKey(), e.getValue());
+        }
+    }
+
+    @Override
+    public void putToBatch(byte[] key, byte[] value) {
+        put(key, value);
+    }
+
+    @Override
+    public void deleteInBatch(byte[] key) {
+        delete(key);
+    }
+
+    @Override
+    public void commitBatch() {
+        // updates are staged on receipt
+    }
+
+    @Override
+    public void deleteBatch(Collection<byte[]> keys) {
+        AbstractDB.check(keys);
+        check();
+
+        for (byte[] k : keys) {
+            stage(k, null);
+        }
+    }
+
+    @Override
+    public void check() {
+        database.check();
+    }
+
+    @Override
+    public void drop() {
+        pipeline.drain();
+        synchronized (this) {
+            open = new HashMap<>();
+            overlay.clear();
+        }
+        database.drop();
+    }
+}
@@ -0,0 +1,321 @@
+package org.aion.db.generic;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import org.aion.db.generic.WriteBehindDatabase.Update;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.aion.types.ByteArrayWrapper;
+import org.aion.util.metrics.Histogram;
+import org.aion.util.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+
+/**
+ * Persists the updates of a group of {@link WriteBehindDatabase}s on a dedicated writer thread, one
+ * sealed block at a time and in seal order.
+ *
+ * <p>The number of sealed blocks waiting for the writer is bounded, so that an importing thread
+ * that outpaces the disk blocks in {@link #seal(long, byte[])} instead of growing the overlays
+ * without limit.
+ *
+ * <p>When a write fails, the pipeline stops persisting: the failed block and all blocks sealed
+ * after it are discarded, {@link #hasFailed()} returns {@code true} and {@link #getPersistedHash()}
+ * identifies the last block fully written. The owner is expected to revert to that block and call
+ * {@link #recover()}.
+ */
+public class WriteBehindPipeline {
+
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.DB.name());
+
+    public static final int DEFAULT_DEPTH = 8;
+
+    /** Unsealed updates above which {@link #sealIfLarger(int)} is expected to seal. */
+    public static final int DEFAULT_OPEN_LIMIT = 50_000;
+
+    private static final Histogram WRITE_TIME =
+            MetricsRegistry.inst()
+                    .timer("aion_db_write_behind_seconds", "Time to persist one sealed block.");
+
+    /** The updates of all the databases for one sealed block. */
+    private static final class Segment {
+        final long number;
+        final byte[] hash;
+        final Map<WriteBehindDatabase, Map<ByteArrayWrapper, Update>> batches;
+
+        Segment(
+                long number,
+                byte[] hash,
+                Map<WriteBehindDatabase, Map<ByteArrayWrapper, Update>> batches) {
+            this.number = number;
+            this.hash = hash;
+            this.batches = batches;
+        }
+    }
+
+    private final List<WriteBehindDatabase> databases = new ArrayList<>();
+    private final BlockingQueue<Segment> queue;
+    private final Thread writer;
+
+    /** Keeps the queue in seal order when several threads seal. */
+    private final Object sealLock = new Object();
+
+    // guarded by this
+    private long sealed = 0;
+    private long done = 0;
+    private long persistedNumber = -1;
+    private byte[] persistedHash = null;
+    private Throwable failure = null;
+    private boolean closed = false;
+
+    // statistics
+    private volatile long writeNanos = 0;
+    private volatile long waitNanos = 0;
+
+    public WriteBehindPipeline() {
+        this(DEFAULT_DEPTH);
+    }
+
+    /** @param _depth maximum number of sealed blocks waiting to be written */
+    public WriteBehindPipeline(int _depth) {
+        if (_depth < 1) {
+            throw new IllegalArgumentException("The pipeline depth must be positive.");
+        }
+        this.queue = new ArrayBlockingQueue<>(_depth);
+        MetricsRegistry.inst()
+                .gauge(
+                        "aion_db_write_behind_pending",
+                        "Sealed blocks waiting to be persisted.",
+                        queue::size);
+        this.writer = new Thread(this::run, "db-wb");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    synchronized void register(WriteBehindDatabase _db) {
+        databases.add(_db);
+    }
+
+    /**
+     * Hands the updates made since the previous seal to the writer thread. Blocks while the
+     * pipeline is full.
+     *
+     * @param _number the block these updates belong to
+     * @param _hash the hash of the block; {@code null} for updates not tied to a block, which leave
+     *     the persisted block unchanged
+     */
+    public void seal(long _number, byte[] _hash) {
+        synchronized (sealLock) {
+            Segment segment;
+            synchronized (this) {
+                Map<WriteBehindDatabase, Map<ByteArrayWrapper, Update>> batches =
+                        new LinkedHashMap<>();
+                for (WriteBehindDatabase db : databases) {
+                    Map<ByteArrayWrapper, Update> batch = db.takeOpenBatch();
+                    if (batch != null) {
+                        batches.put(db, batch);
+                    }
+                }
+                if (batches.isEmpty() && _hash == null) {
+                    return;
+                }
+                segment = new Segment(_number, _hash, batches);
+
+                if (failure != null) {
+                    // nothing more is written until the owner recovers
+                    discard(segment);
+                    return;
+                }
+                if (closed) {
+                    write(segment);
+                    return;
+                }
+                sealed++;
+            }
+
+            long t1 = System.nanoTime();
+            try {
+                queue.put(segment);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                synchronized (this) {
+                    sealed--;
+                }
+                discard(segment);
+                fail(e);
+            }
+            waitNanos += System.nanoTime() - t1;
+        }
+    }
+
+    /**
+     * Seals the updates made since the previous seal without a block when there are more than the
+     * given number of them. Used by writers outside block imports, whose updates would otherwise
+     * stay in the overlays until the next block is sealed.
+     *
+     * @return {@code true} when the updates were sealed
+     */
+    public boolean sealIfLarger(int _maxUpdates) {
+        synchronized (this) {
+            int size = 0;
+            for (WriteBehindDatabase db : databases) {
+                size += db.openSize();
+            }
+            if (size <= _maxUpdates) {
+                return false;
+            }
+        }
+        seal(-1, null);
+        return true;
+    }
+
+    /** Seals the pending updates without a block and waits for them to be written. */
+    public void flush() {
+        seal(-1, null);
+        drain();
+    }
+
+    /**
+     * Waits until all the sealed blocks have been written or discarded.
+     *
+     * @return {@code false} when a write has failed
+     */
+    public boolean drain() {
+        synchronized (this) {
+            boolean interrupted = false;
+            while (done < sealed) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            return failure == null;
+        }
+    }
+
+    public synchronized boolean hasFailed() {
+        return failure != null;
+    }
+
+    public synchronized long getPersistedNumber() {
+        return persistedNumber;
+    }
+
+    /** @return the hash of the last block fully written, or {@code null} if none */
+    public synchronized byte[] getPersistedHash() {
+        return persistedHash;
+    }
+
+    /** Discards the unsealed updates and resumes writing after a failure. */
+    public void recover() {
+        drain();
+        synchronized (this) {
+            for (WriteBehindDatabase db : databases) {
+                db.discardOpenBatch();
+            }
+            failure = null;
+        }
+    }
+
+    /** Writes all pending updates and stops the writer thread. */
+    public void close() {
+        flush();
+        synchronized (this) {
+            closed = true;
+        }
+        writer.interrupt();
+    }
+
+    public String getStats() {
+        return String.format(
+                "persisted=%d write=%dms wait=%dms",
+                getPersistedNumber(), writeNanos / 1_000_000, waitNanos / 1_000_000);
+    }
+
+    private void run() {
+        while (true) {
+            Segment segment;
+            try {
+                segment = queue.take();
+            } catch (InterruptedException e) {
+                synchronized (this) {
+                    if (closed) {
+                        return;
+                    }
+                }
+                continue;
+            }
+
+            boolean failed;
+            synchronized (this) {
+                failed = failure != null;
+            }
+
+            if (failed) {
+                discard(segment);
+            } else {
+                try {
+                    long t1 = System.nanoTime();
+                    write(segment);
+                    writeNanos += System.nanoTime() - t1;
+                    WRITE_TIME.recordSince(t1);
+                } catch (Exception e) {
+                    discard(segment);
+                    fail(e);
+                }
+            }
+
+            synchronized (this) {
+                done++;
+                notifyAll();
+            }
+        }
+    }
+
+    private void write(Segment _segment) {
+        for (Map.Entry<WriteBehindDatabase, Map<ByteArrayWrapper, Update>> e :
+                _segment.batches.entrySet()) {
+            e.getKey().persist(e.getValue());
+        }
+        for (Map.Entry<WriteBehindDatabase, Map<ByteArrayWrapper, Update>> e :
+                _segment.batches.entrySet()) {
+            e.getKey().release(e.getValue());
+        }
+
+        if (_segment.hash != null) {
+            synchronized (this) {
+                persistedNumber = _segment.number;
+                persistedHash = _segment.hash;
+            }
+        }
+    }
+
+    private void discard(Segment _segment) {
+        for (Map.Entry<WriteBehindDatabase, Map<ByteArrayWrapper, Update>> e :
+                _segment.batches.entrySet()) {
+            e.getKey().release(e.getValue());
+        }
+    }
+
+    /**
+     * Stops persisting: the blocks sealed from now on are discarded until {@link #recover()} is
+     * called. Invoked when a write fails.
+     */
+    @VisibleForTesting
+    public synchronized void fail(Throwable _cause) {
+        if (failure == null) {
+            failure = _cause;
+            LOG.error(
+                    "Write behind failed after block #" + persistedNumber + ". Discarding updates.",
+                    _cause);
+        }
+    }
+}
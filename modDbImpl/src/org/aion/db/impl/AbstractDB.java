@@ -13,6 +13,8 @@ import org.aion.interfaces.db.PersistenceMethod;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.aion.types.ByteArrayWrapper;
+import org.aion.util.metrics.Histogram;
+import org.aion.util.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 
 /**
@@ -33,9 +35,20 @@ public abstract class AbstractDB implements ByteArrayKeyValueDatabase {
     protected boolean enableDbCache = false;
     protected boolean enableDbCompression = false;
 
+    // time spent in the vendor specific implementation
+    private final Histogram readTime;
+    private final Histogram writeTime;
+    private final Histogram batchTime;
+
     protected AbstractDB(String name) {
         Objects.requireNonNull(name, "The database name cannot be null.");
         this.name = name;
+
+        MetricsRegistry metrics = MetricsRegistry.inst();
+        String help = "Time spent in database operations.";
+        this.readTime = metrics.timer("aion_db_op_seconds", help, "db", name, "op", "get");
+        this.writeTime = metrics.timer("aion_db_op_seconds", help, "db", name, "op", "put");
+        this.batchTime = metrics.timer("aion_db_op_seconds", help, "db", name, "op", "batch");
     }
 
     protected AbstractDB(
@@ -162,7 +175,9 @@ public abstract class AbstractDB implements ByteArrayKeyValueDatabase {
         check(key);
         check();
 
+        long t1 = System.nanoTime();
         byte[] v = getInternal(key);
+        readTime.recordSince(t1);
         return Optional.ofNullable(v);
     }
 
@@ -181,7 +196,9 @@ public abstract class AbstractDB implements ByteArrayKeyValueDatabase {
         check(value);
         check();
 
+        long t1 = System.nanoTime();
         putInternal(key, value);
+        writeTime.recordSince(t1);
     }
 
     /**
@@ -198,7 +215,9 @@ public abstract class AbstractDB implements ByteArrayKeyValueDatabase {
         check(key);
         check();
 
+        long t1 = System.nanoTime();
         deleteInternal(key);
+        writeTime.recordSince(t1);
     }
 
     /**
@@ -249,7 +268,9 @@ public abstract class AbstractDB implements ByteArrayKeyValueDatabase {
         check(input.values());
         check();
 
+        long t1 = System.nanoTime();
         putBatchInternal(input);
+        batchTime.recordSince(t1);
     }
 
     /**
@@ -265,7 +286,9 @@ public abstract class AbstractDB implements ByteArrayKeyValueDatabase {
         check(keys);
         check();
 
+        long t1 = System.nanoTime();
         deleteBatchInternal(keys);
+        batchTime.recordSince(t1);
     }
 
     /**
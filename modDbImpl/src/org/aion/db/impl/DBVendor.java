@@ -10,19 +10,19 @@ import org.aion.interfaces.db.PersistenceMethod;
 public enum DBVendor {
 
     /** Used in correlation with implementations of {@link IDriver}. */
-    UNKNOWN("unknown", PersistenceMethod.UNKNOWN), //
+    UNKNOWN("unknown", PersistenceMethod.UNKNOWN, false), //
     /** Using an instance of {@link org.aion.db.impl.leveldb.LevelDB}. */
-    LEVELDB("leveldb", PersistenceMethod.FILE_BASED), //
+    LEVELDB("leveldb", PersistenceMethod.FILE_BASED, true), //
     /** Using an instance of {@link RocksDBWrapper}. */
-    ROCKSDB("rocksdb", PersistenceMethod.FILE_BASED),
+    ROCKSDB("rocksdb", PersistenceMethod.FILE_BASED, true),
     /** Using an instance of {@link org.aion.db.impl.h2.H2MVMap}. */
-    H2("h2", PersistenceMethod.FILE_BASED), //
+    H2("h2", PersistenceMethod.FILE_BASED, false), //
     /** Using an instance of {@Link org.aion.db.impl.mongodb.MongoDB} */
-    MONGODB("mongodb", PersistenceMethod.DBMS),
+    MONGODB("mongodb", PersistenceMethod.DBMS, false),
     /** Using an instance of {@link org.aion.db.impl.mockdb.MockDB}. */
-    MOCKDB("mockdb", PersistenceMethod.IN_MEMORY),
+    MOCKDB("mockdb", PersistenceMethod.IN_MEMORY, false),
     /** Using an instance of {@link org.aion.db.impl.mockdb.PersistentMockDB}. */
-    PERSISTENTMOCKDB("persistentmockdb", PersistenceMethod.FILE_BASED);
+    PERSISTENTMOCKDB("persistentmockdb", PersistenceMethod.FILE_BASED, false);
 
     private static final Map<String, DBVendor> stringToTypeMap = new ConcurrentHashMap<>();
 
@@ -38,10 +38,12 @@ public enum DBVendor {
 
     private final String value;
     private final PersistenceMethod persistence;
+    private final boolean threadSafe;
 
-    DBVendor(final String value, final PersistenceMethod persistent) {
+    DBVendor(final String value, final PersistenceMethod persistent, final boolean threadSafe) {
         this.value = value;
         this.persistence = persistent;
+        this.threadSafe = threadSafe;
     }
 
     // public interface
@@ -80,6 +82,16 @@ public enum DBVendor {
         return this.persistence == PersistenceMethod.FILE_BASED;
     }
 
+    /**
+     * Gets whether or not the implementation of this database supports concurrent reads and writes
+     * without external locking, except for open and close operations.
+     *
+     * @return Whether or not this database is thread-safe
+     */
+    public boolean isThreadSafe() {
+        return this.threadSafe;
+    }
+
     /** @return {@code false} for a DBVendor with an undefined driver implementation */
     public static boolean hasDriverImplementation(DBVendor v) {
         return driverImplementations.contains(v);
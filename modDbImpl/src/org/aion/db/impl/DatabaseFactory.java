@@ -47,6 +47,10 @@ public abstract class DatabaseFactory {
 
         public static final String ENABLE_LOCKING = "enable_locking";
 
+        public static final String ENABLE_IMPORT_PIPELINE = "enable_import_pipeline";
+
+        public static final String BLOCK_FREEZER_DEPTH = "block_freezer_depth";
+
         public static final String MAX_FD_ALLOC = "max_fd_alloc_size";
         public static final String BLOCK_SIZE = "block_size";
 
@@ -102,7 +106,7 @@ public abstract class DatabaseFactory {
             return new LockedDatabase(connectWithCache(info));
         } else {
             DBVendor vendor = DBVendor.fromString(info.getProperty(Props.DB_TYPE));
-            if (vendor == DBVendor.LEVELDB || vendor == DBVendor.ROCKSDB) {
+            if (vendor.isThreadSafe()) {
                 return new SpecialLockedDatabase(connectBasic(info));
             } else {
                 return new LockedDatabase(connectBasic(info));
@@ -0,0 +1,35 @@
+package org.aion.db.impl;
+
+import java.util.Optional;
+
+/**
+ * Implemented by databases that can take point-in-time snapshots of their data. Reads from a
+ * snapshot see the data as it was when the snapshot was taken and do not block concurrent writes.
+ */
+public interface SnapshotDatabase {
+
+    /**
+     * Takes a snapshot of the current data in the database.
+     *
+     * @return a snapshot that must be closed after use to release the resources held by the
+     *     database
+     */
+    Snapshot takeSnapshot();
+
+    /** A consistent read-only view of the data in a database. */
+    interface Snapshot extends AutoCloseable {
+
+        /**
+         * Retrieves the value stored for the given key when the snapshot was taken.
+         *
+         * @param key the key for which the method must return the associated value
+         * @return an optional containing the value, or empty when the key was not present
+         * @throws IllegalArgumentException if the key is {@code null}
+         */
+        Optional<byte[]> get(byte[] key);
+
+        /** Releases the snapshot. */
+        @Override
+        void close();
+    }
+}
@@ -6,8 +6,10 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Optional;
 import org.aion.types.ByteArrayWrapper;
 import org.aion.db.impl.AbstractDB;
+import org.aion.db.impl.SnapshotDatabase;
 import org.fusesource.leveldbjni.JniDBFactory;
 import org.iq80.leveldb.CompressionType;
 import org.iq80.leveldb.DB;
@@ -21,7 +23,7 @@ import org.iq80.leveldb.WriteBatch;
  * @implNote The read-write lock is used only for those operations that are not synchronized by the
  *     JNI on top of the native LevelDB, namely open and close operations.
  */
-public class LevelDB extends AbstractDB {
+public class LevelDB extends AbstractDB implements SnapshotDatabase {
 
     private final int maxOpenFiles;
     private final int blockSize;
@@ -320,6 +322,46 @@ public class LevelDB extends AbstractDB {
         }
     }
 
+    @Override
+    public Snapshot takeSnapshot() {
+        check();
+
+        ReadOptions readOptions = new ReadOptions();
+        readOptions.snapshot(db.getSnapshot());
+        return new LevelDBSnapshot(readOptions);
+    }
+
+    /** A {@link Snapshot} reading through {@link ReadOptions} that hold a native snapshot. */
+    private class LevelDBSnapshot implements Snapshot {
+        private final ReadOptions readOptions;
+
+        LevelDBSnapshot(final ReadOptions readOptions) {
+            this.readOptions = readOptions;
+        }
+
+        @Override
+        public Optional<byte[]> get(byte[] key) {
+            check(key);
+            check();
+
+            return Optional.ofNullable(db.get(key, readOptions));
+        }
+
+        @Override
+        public void close() {
+            // the native snapshot is released together with the database
+            if (db == null) {
+                return;
+            }
+
+            try {
+                readOptions.snapshot().close();
+            } catch (IOException e) {
+                LOG.error("Unable to close snapshot object.", e);
+            }
+        }
+    }
+
     @Override
     public byte[] getInternal(byte[] k) {
         try {
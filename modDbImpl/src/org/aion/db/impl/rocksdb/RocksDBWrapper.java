@@ -6,8 +6,10 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Optional;
 import org.aion.types.ByteArrayWrapper;
 import org.aion.db.impl.AbstractDB;
+import org.aion.db.impl.SnapshotDatabase;
 import org.rocksdb.BlockBasedTableConfig;
 import org.rocksdb.CompressionType;
 import org.rocksdb.Options;
@@ -18,7 +20,7 @@ import org.rocksdb.RocksIterator;
 import org.rocksdb.WriteBatch;
 import org.rocksdb.WriteOptions;
 
-public class RocksDBWrapper extends AbstractDB {
+public class RocksDBWrapper extends AbstractDB implements SnapshotDatabase {
 
     private RocksDB db;
     private final int maxOpenFiles;
@@ -260,6 +262,48 @@ public class RocksDBWrapper extends AbstractDB {
         }
     }
 
+    @Override
+    public Snapshot takeSnapshot() {
+        check();
+
+        org.rocksdb.Snapshot snapshot = db.getSnapshot();
+        return new RocksDBSnapshot(snapshot, new ReadOptions().setSnapshot(snapshot));
+    }
+
+    /** A {@link Snapshot} reading through {@link ReadOptions} that hold a native snapshot. */
+    private class RocksDBSnapshot implements Snapshot {
+        private final org.rocksdb.Snapshot snapshot;
+        private final ReadOptions readOptions;
+
+        RocksDBSnapshot(final org.rocksdb.Snapshot snapshot, final ReadOptions readOptions) {
+            this.snapshot = snapshot;
+            this.readOptions = readOptions;
+        }
+
+        @Override
+        public Optional<byte[]> get(byte[] key) {
+            check(key);
+            check();
+
+            try {
+                return Optional.ofNullable(db.get(readOptions, key));
+            } catch (RocksDBException e) {
+                LOG.error("Unable to get key " + Arrays.toString(key) + ". " + e);
+            }
+
+            return Optional.empty();
+        }
+
+        @Override
+        public void close() {
+            readOptions.close();
+            // the native snapshot is released together with the database
+            if (db != null) {
+                db.releaseSnapshot(snapshot);
+            }
+        }
+    }
+
     @Override
     protected byte[] getInternal(byte[] key) {
         try {
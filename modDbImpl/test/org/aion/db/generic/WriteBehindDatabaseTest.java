@@ -0,0 +1,169 @@
+package org.aion.db.generic;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import org.aion.db.impl.mockdb.MockDB;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WriteBehindDatabaseTest {
+
+    private static final byte[] k1 = new byte[] {1};
+    private static final byte[] k2 = new byte[] {2};
+    private static final byte[] v1 = new byte[] {11};
+    private static final byte[] v2 = new byte[] {22};
+
+    private WriteBehindPipeline pipeline;
+    private MockDB backing;
+    private WriteBehindDatabase db;
+
+    @Before
+    public void setup() {
+        pipeline = new WriteBehindPipeline(2);
+        backing = new MockDB("test");
+        backing.open();
+        db = new WriteBehindDatabase(backing, pipeline);
+    }
+
+    @After
+    public void teardown() {
+        pipeline.close();
+    }
+
+    @Test
+    public void testWritesVisibleBeforePersisted() {
+        db.put(k1, v1);
+        db.putToBatch(k2, v2);
+        db.commitBatch();
+
+        assertArrayEquals(v1, db.get(k1).get());
+        assertArrayEquals(v2, db.get(k2).get());
+        assertFalse(backing.get(k1).isPresent());
+        assertFalse(backing.get(k2).isPresent());
+
+        pipeline.seal(1, new byte[] {1});
+        assertTrue(pipeline.drain());
+
+        assertArrayEquals(v1, backing.get(k1).get());
+        assertArrayEquals(v2, backing.get(k2).get());
+        assertEquals(1, pipeline.getPersistedNumber());
+    }
+
+    @Test
+    public void testDeleteHidesPersistedValue() {
+        db.put(k1, v1);
+        pipeline.seal(1, new byte[] {1});
+        pipeline.drain();
+
+        db.delete(k1);
+        assertFalse(db.get(k1).isPresent());
+        assertTrue(backing.get(k1).isPresent());
+
+        pipeline.seal(2, new byte[] {2});
+        pipeline.drain();
+        assertFalse(backing.get(k1).isPresent());
+        assertFalse(db.get(k1).isPresent());
+    }
+
+    @Test
+    public void testKeysIncludeOpenBatch() {
+        db.put(k1, v1);
+        pipeline.seal(1, new byte[] {1});
+        db.put(k2, v2);
+        db.delete(k1);
+
+        List<byte[]> keys = new ArrayList<>();
+        Iterator<byte[]> it = db.keys();
+        while (it.hasNext()) {
+            keys.add(it.next());
+        }
+        assertEquals(1, keys.size());
+        assertArrayEquals(k2, keys.get(0));
+        assertFalse(db.isEmpty());
+    }
+
+    @Test
+    public void testFailureDiscardsLaterBlocks() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        MockDB failing =
+                new MockDB("failing") {
+                    @Override
+                    public void putBatchInternal(Map<byte[], byte[]> input) {
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        throw new RuntimeException("disk full");
+                    }
+                };
+        failing.open();
+        WriteBehindDatabase other = new WriteBehindDatabase(failing, pipeline);
+
+        db.put(k1, v1);
+        pipeline.seal(1, new byte[] {1});
+        pipeline.drain();
+
+        other.put(k1, v1);
+        pipeline.seal(2, new byte[] {2});
+        db.put(k2, v2);
+        pipeline.seal(3, new byte[] {3});
+        release.countDown();
+
+        assertFalse(pipeline.drain());
+        assertTrue(pipeline.hasFailed());
+        assertEquals(1, pipeline.getPersistedNumber());
+
+        // the updates of the failed and later blocks are discarded
+        assertFalse(db.get(k2).isPresent());
+        assertFalse(backing.get(k2).isPresent());
+        assertFalse(other.get(k1).isPresent());
+
+        pipeline.recover();
+        assertFalse(pipeline.hasFailed());
+
+        db.put(k2, v2);
+        pipeline.seal(2, new byte[] {2});
+        assertTrue(pipeline.drain());
+        assertArrayEquals(v2, backing.get(k2).get());
+    }
+
+    @Test
+    public void testFlushPersistsOpenBatch() {
+        db.put(k1, v1);
+        pipeline.flush();
+
+        assertArrayEquals(v1, backing.get(k1).get());
+        // updates not tied to a block leave the persisted block unchanged
+        assertEquals(-1, pipeline.getPersistedNumber());
+    }
+
+    @Test
+    public void testSealIfLargerSealsOnlyAboveLimit() {
+        db.put(k1, v1);
+        db.put(k2, v2);
+
+        assertFalse(pipeline.sealIfLarger(2));
+        assertTrue(pipeline.drain());
+        assertFalse(backing.get(k1).isPresent());
+
+        assertTrue(pipeline.sealIfLarger(1));
+        assertTrue(pipeline.drain());
+        assertArrayEquals(v1, backing.get(k1).get());
+        assertArrayEquals(v2, backing.get(k2).get());
+        // updates not tied to a block leave the persisted block unchanged
+        assertEquals(-1, pipeline.getPersistedNumber());
+
+        // nothing left to seal
+        assertFalse(pipeline.sealIfLarger(0));
+    }
+}
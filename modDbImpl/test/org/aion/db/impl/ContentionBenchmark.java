@@ -0,0 +1,150 @@
+package org.aion.db.impl;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.aion.db.generic.LockedDatabase;
+import org.aion.db.generic.SpecialLockedDatabase;
+import org.aion.db.impl.leveldb.LevelDB;
+import org.aion.db.impl.rocksdb.RocksDBConstants;
+import org.aion.db.impl.rocksdb.RocksDBWrapper;
+import org.aion.db.utils.FileUtils;
+import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Reports the throughput and the worst read latency of concurrent readers while a writer commits
+ * large batches, for the exclusive {@link LockedDatabase}, the {@link SpecialLockedDatabase} and
+ * reads from snapshots.
+ */
+public class ContentionBenchmark {
+
+    private static final File dir = new File(System.getProperty("user.dir"), "tmp-contention");
+
+    private static final int KEY_COUNT = 100_000;
+
+    private static final int BATCH_SIZE = 10_000;
+
+    private static final int READERS = 4;
+
+    private static final long DURATION_MILLIS = 10_000L;
+
+    private static byte[] key(int i) {
+        return ("key-" + i).getBytes();
+    }
+
+    private static AbstractDB levelDB() {
+        return new LevelDB("leveldb", dir.getAbsolutePath(), false, false);
+    }
+
+    private static AbstractDB rocksDB() {
+        return new RocksDBWrapper(
+                "rocksdb",
+                dir.getAbsolutePath(),
+                false,
+                false,
+                RocksDBConstants.MAX_OPEN_FILES,
+                RocksDBConstants.BLOCK_SIZE,
+                RocksDBConstants.WRITE_BUFFER_SIZE,
+                RocksDBConstants.READ_BUFFER_SIZE,
+                RocksDBConstants.CACHE_SIZE);
+    }
+
+    private static void run(
+            String name, ByteArrayKeyValueDatabase db, Function<byte[], Object> reader)
+            throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        AtomicLong written = new AtomicLong();
+        Thread writer =
+                new Thread(
+                        () -> {
+                            while (running.get()) {
+                                for (int i = 0; i < BATCH_SIZE; i++) {
+                                    db.putToBatch(
+                                            key(RandomUtils.nextInt(0, KEY_COUNT)),
+                                            RandomUtils.nextBytes(128));
+                                }
+                                db.commitBatch();
+                                written.addAndGet(BATCH_SIZE);
+                            }
+                        });
+
+        AtomicLong reads = new AtomicLong();
+        AtomicLong maxLatency = new AtomicLong();
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < READERS; r++) {
+            readers.add(
+                    new Thread(
+                            () -> {
+                                while (running.get()) {
+                                    long start = System.nanoTime();
+                                    reader.apply(key(RandomUtils.nextInt(0, KEY_COUNT)));
+                                    long latency = System.nanoTime() - start;
+                                    maxLatency.accumulateAndGet(latency, Math::max);
+                                    reads.incrementAndGet();
+                                }
+                            }));
+        }
+
+        writer.start();
+        readers.forEach(Thread::start);
+        Thread.sleep(DURATION_MILLIS);
+        running.set(false);
+        writer.join();
+        for (Thread thread : readers) {
+            thread.join();
+        }
+
+        System.out.format(
+                "%-30s %10.1f reads/s, %10.1f writes/s, %8d us max read latency%n",
+                name,
+                reads.get() * 1000.0 / DURATION_MILLIS,
+                written.get() * 1000.0 / DURATION_MILLIS,
+                maxLatency.get() / 1000);
+    }
+
+    private static void benchmark(String vendor, AbstractDB driver) throws InterruptedException {
+        FileUtils.deleteRecursively(dir);
+        driver.open();
+        for (int i = 0; i < KEY_COUNT; i++) {
+            driver.putToBatch(key(i), RandomUtils.nextBytes(128));
+        }
+        driver.commitBatch();
+        driver.close();
+
+        LockedDatabase locked = new LockedDatabase(driver);
+        locked.open();
+        run(vendor + " locked", locked, locked::get);
+        locked.close();
+
+        SpecialLockedDatabase special = new SpecialLockedDatabase(driver);
+        special.open();
+        run(vendor + " special locked", special, special::get);
+
+        // each reader takes a snapshot per read, as done for a single RPC request
+        run(
+                vendor + " snapshot",
+                special,
+                key -> {
+                    try (SnapshotDatabase.Snapshot snapshot = special.takeSnapshot()) {
+                        return snapshot.get(key);
+                    }
+                });
+        special.close();
+
+        FileUtils.deleteRecursively(dir);
+    }
+
+    @Ignore
+    @Test
+    public void benchmarkReadsDuringBatchWrites() throws InterruptedException {
+        benchmark("leveldb", levelDB());
+        benchmark("rocksdb", rocksDB());
+    }
+}
@@ -1,13 +1,19 @@
 package org.aion.db.impl.leveldb;
 
 import static org.aion.db.impl.DatabaseFactory.Props;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.util.Properties;
+import org.aion.db.generic.SpecialLockedDatabase;
 import org.aion.db.impl.DBVendor;
 import org.aion.db.impl.DatabaseFactory;
+import org.aion.db.impl.SnapshotDatabase;
+import org.aion.db.utils.FileUtils;
 import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
 import org.junit.Test;
 
@@ -65,4 +71,33 @@ public class LevelDBDriverTest {
     public void testCreateWithNullNameAndPath() {
         new LevelDB(null, null, false, false);
     }
+
+    @Test
+    public void testSnapshot() {
+        SpecialLockedDatabase db =
+                new SpecialLockedDatabase(new LevelDB(dbName, dbPath, false, false));
+        assertTrue(db.open());
+
+        byte[] k1 = "k1".getBytes();
+        byte[] k2 = "k2".getBytes();
+        byte[] v1 = "v1".getBytes();
+        byte[] v2 = "v2".getBytes();
+
+        try {
+            db.put(k1, v1);
+            try (SnapshotDatabase.Snapshot snapshot = db.takeSnapshot()) {
+                db.putToBatch(k1, v2);
+                db.putToBatch(k2, v2);
+                db.commitBatch();
+
+                // the snapshot does not see the later writes
+                assertArrayEquals(v1, snapshot.get(k1).get());
+                assertFalse(snapshot.get(k2).isPresent());
+                assertArrayEquals(v2, db.get(k1).get());
+            }
+        } finally {
+            db.close();
+            FileUtils.deleteRecursively(new File(dbPath));
+        }
+    }
 }
@@ -1,13 +1,19 @@
 package org.aion.db.impl.rocksdb;
 
 import static org.aion.db.impl.DatabaseFactory.Props;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.util.Properties;
+import org.aion.db.generic.SpecialLockedDatabase;
 import org.aion.db.impl.DBVendor;
 import org.aion.db.impl.DatabaseFactory;
+import org.aion.db.impl.SnapshotDatabase;
+import org.aion.db.utils.FileUtils;
 import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
 import org.junit.Test;
 
@@ -91,4 +97,43 @@ public class RocksDBDriverTest {
                 RocksDBConstants.READ_BUFFER_SIZE,
                 RocksDBConstants.CACHE_SIZE);
     }
+
+    @Test
+    public void testSnapshot() {
+        SpecialLockedDatabase db =
+                new SpecialLockedDatabase(
+                        new RocksDBWrapper(
+                                dbName,
+                                dbPath,
+                                false,
+                                false,
+                                RocksDBConstants.MAX_OPEN_FILES,
+                                RocksDBConstants.BLOCK_SIZE,
+                                RocksDBConstants.WRITE_BUFFER_SIZE,
+                                RocksDBConstants.READ_BUFFER_SIZE,
+                                RocksDBConstants.CACHE_SIZE));
+        assertTrue(db.open());
+
+        byte[] k1 = "k1".getBytes();
+        byte[] k2 = "k2".getBytes();
+        byte[] v1 = "v1".getBytes();
+        byte[] v2 = "v2".getBytes();
+
+        try {
+            db.put(k1, v1);
+            try (SnapshotDatabase.Snapshot snapshot = db.takeSnapshot()) {
+                db.putToBatch(k1, v2);
+                db.putToBatch(k2, v2);
+                db.commitBatch();
+
+                // the snapshot does not see the later writes
+                assertArrayEquals(v1, snapshot.get(k1).get());
+                assertFalse(snapshot.get(k2).isPresent());
+                assertArrayEquals(v2, db.get(k1).get());
+            }
+        } finally {
+            db.close();
+            FileUtils.deleteRecursively(new File(dbPath));
+        }
+    }
 }
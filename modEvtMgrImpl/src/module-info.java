@@ -1,6 +1,7 @@
 module aion.evtmgr.impl {
     requires aion.evtmgr;
     requires aion.log;
+    requires aion.util;
     requires slf4j.api;
 
     exports org.aion.evtmgr.impl.abs;
@@ -9,4 +10,5 @@ module aion.evtmgr.impl {
     exports org.aion.evtmgr.impl.mgr;
     exports org.aion.evtmgr.impl.evt;
     exports org.aion.evtmgr.impl.es;
+    exports org.aion.evtmgr.impl.ring;
 }
@@ -3,13 +3,12 @@ package org.aion.evtmgr.impl.abs;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.aion.evtmgr.IEvent;
 import org.aion.evtmgr.IEventCallback;
 import org.aion.evtmgr.impl.evt.EventDummy;
+import org.aion.evtmgr.impl.ring.EventRingBuffer;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.slf4j.Logger;
@@ -20,7 +19,8 @@ public abstract class AbstractHandler {
     protected static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.EVTMGR.toString());
 
     private Set<IEvent> events = new HashSet<>();
-    private BlockingQueue<IEvent> queue = new LinkedBlockingQueue<>();
+    private EventRingBuffer ring;
+    private EventRingBuffer.Consumer consumer;
     private List<IEventCallback> eventCallback = new CopyOnWriteArrayList<>();
     private AtomicBoolean interrupt = new AtomicBoolean(false);
     private boolean interrupted = false;
@@ -31,8 +31,14 @@ public abstract class AbstractHandler {
                     () -> {
                         try {
                             while (!interrupt.get()) {
-                                IEvent e = queue.take();
+                                IEvent e = consumer.take();
+                                if (e == null) {
+                                    // halted
+                                    break;
+                                }
+
                                 if (e.getEventType() != EventDummy.getTypeStatic()
+                                        && typeEqual(e.getEventType())
                                         && events.contains(e)) {
                                     if (LOG.isTraceEnabled()) {
                                         LOG.trace("dispatcher e[{}]", e.getEventType());
@@ -54,7 +60,6 @@ public abstract class AbstractHandler {
                                 LOG.info("dispatcher interrupted!");
                             }
 
-                            queue.clear();
                             interrupted = true;
                         } catch (InterruptedException e) {
                             LOG.error("Handler interrupt exception ", e);
@@ -64,7 +69,18 @@ public abstract class AbstractHandler {
                     });
 
     public AbstractHandler(int value) {
+        this(value, new EventRingBuffer());
+    }
+
+    /**
+     * @param value the handler type
+     * @param _ring the ring shared with the other handlers of an event manager; this handler only
+     *     dispatches the events of its own type
+     */
+    public AbstractHandler(int value, EventRingBuffer _ring) {
         handlerType = value;
+        ring = _ring;
+        consumer = _ring.newConsumer(getClass().getSimpleName());
     }
 
     public synchronized boolean addEvent(IEvent _evt) {
@@ -88,11 +104,7 @@ public abstract class AbstractHandler {
     public void stop() throws InterruptedException {
 
         interrupt.set(true);
-        try {
-            this.queue.add(new EventDummy());
-        } catch (Exception e) {
-            LOG.error("stop exception ", e);
-        }
+        consumer.halt();
 
         if (LOG.isInfoEnabled()) {
             LOG.info("Handler {} dispatcher interrupting..", this.getType());
@@ -142,18 +154,24 @@ public abstract class AbstractHandler {
     public void start() {
 
         if (!this.dispatcher.isAlive()) {
+            this.consumer.start();
             this.dispatcher.start();
         }
     }
 
     public void onEvent(IEvent _evt) {
         try {
-            this.queue.add(_evt);
+            this.ring.publish(_evt);
         } catch (Exception e) {
             LOG.error("onEvent exception! ", e);
         }
     }
 
+    /** @return the number of events published but not yet dispatched by this handler */
+    public long getLag() {
+        return consumer.getLag();
+    }
+
     public int getType() {
         return handlerType;
     }
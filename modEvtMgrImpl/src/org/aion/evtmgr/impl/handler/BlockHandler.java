@@ -2,6 +2,7 @@ package org.aion.evtmgr.impl.handler;
 
 import org.aion.evtmgr.IHandler;
 import org.aion.evtmgr.impl.abs.AbstractHandler;
+import org.aion.evtmgr.impl.ring.EventRingBuffer;
 
 /** @author jay */
 public class BlockHandler extends AbstractHandler implements IHandler {
@@ -11,4 +12,9 @@ public class BlockHandler extends AbstractHandler implements IHandler {
         super(TYPE.BLOCK0.getValue());
         dispatcher.setName("BlkHdr");
     }
+
+    public BlockHandler(EventRingBuffer _ring) {
+        super(TYPE.BLOCK0.getValue(), _ring);
+        dispatcher.setName("BlkHdr");
+    }
 }
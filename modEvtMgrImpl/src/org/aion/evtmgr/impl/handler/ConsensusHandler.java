@@ -2,6 +2,7 @@ package org.aion.evtmgr.impl.handler;
 
 import org.aion.evtmgr.IHandler;
 import org.aion.evtmgr.impl.abs.AbstractHandler;
+import org.aion.evtmgr.impl.ring.EventRingBuffer;
 
 /** @author jay */
 public class ConsensusHandler extends AbstractHandler implements IHandler {
@@ -11,4 +12,9 @@ public class ConsensusHandler extends AbstractHandler implements IHandler {
         super(TYPE.CONSENSUS.getValue());
         dispatcher.setName("ConsHdr");
     }
+
+    public ConsensusHandler(EventRingBuffer _ring) {
+        super(TYPE.CONSENSUS.getValue(), _ring);
+        dispatcher.setName("ConsHdr");
+    }
 }
@@ -2,6 +2,7 @@ package org.aion.evtmgr.impl.handler;
 
 import org.aion.evtmgr.IHandler;
 import org.aion.evtmgr.impl.abs.AbstractHandler;
+import org.aion.evtmgr.impl.ring.EventRingBuffer;
 
 /** @author jay */
 public class TxHandler extends AbstractHandler implements IHandler {
@@ -10,4 +11,9 @@ public class TxHandler extends AbstractHandler implements IHandler {
         super(TYPE.TX0.getValue());
         dispatcher.setName("TxHdr");
     }
+
+    public TxHandler(EventRingBuffer _ring) {
+        super(TYPE.TX0.getValue(), _ring);
+        dispatcher.setName("TxHdr");
+    }
 }
@@ -1,6 +1,7 @@
 package org.aion.evtmgr.impl.mgr;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import org.aion.evtmgr.IEvent;
 import org.aion.evtmgr.IEventMgr;
@@ -10,10 +11,24 @@ import org.aion.evtmgr.impl.handler.BlockHandler;
 import org.aion.evtmgr.impl.handler.ConsensusHandler;
 import org.aion.evtmgr.impl.handler.MinerHandler;
 import org.aion.evtmgr.impl.handler.TxHandler;
+import org.aion.evtmgr.impl.ring.EventRingBuffer;
+import org.aion.evtmgr.impl.ring.EventRingBuffer.OverflowPolicy;
+import org.aion.evtmgr.impl.ring.EventRingBuffer.WaitStrategy;
+import org.aion.util.metrics.MetricsRegistry;
 
 /** @author jay */
 public class EventMgrA0 extends AbstractEventMgr implements IEventMgr {
 
+    /** Number of slots of the event ring, rounded up to a power of two. */
+    public static final String PROP_RING_SIZE = "ring_size";
+    /** One of {@link WaitStrategy}, defaults to BLOCKING. */
+    public static final String PROP_WAIT_STRATEGY = "wait_strategy";
+    /** One of {@link OverflowPolicy}, defaults to BLOCK. */
+    public static final String PROP_OVERFLOW = "overflow";
+
+    // shared by all the handlers, each reading it with its own cursor
+    private final EventRingBuffer ring;
+
     public EventMgrA0(Properties config) {
         super();
 
@@ -21,18 +36,70 @@ public class EventMgrA0 extends AbstractEventMgr implements IEventMgr {
             throw new NullPointerException();
         }
 
-        IHandler txHdr = new TxHandler();
+        int size = EventRingBuffer.DEFAULT_SIZE;
+        String sizeProp = config.getProperty(PROP_RING_SIZE);
+        if (sizeProp != null) {
+            try {
+                size = Integer.parseInt(sizeProp.trim());
+            } catch (NumberFormatException e) {
+                LOG.error("Invalid event ring size {}, using {}.", sizeProp, size);
+            }
+        }
+        ring =
+                new EventRingBuffer(
+                        size,
+                        WaitStrategy.fromString(config.getProperty(PROP_WAIT_STRATEGY)),
+                        OverflowPolicy.fromString(config.getProperty(PROP_OVERFLOW)));
+
+        IHandler txHdr = new TxHandler(ring);
         this.handlers.put(txHdr, txHdr);
 
-        IHandler consHdr = new ConsensusHandler();
+        IHandler consHdr = new ConsensusHandler(ring);
         this.handlers.put(consHdr, consHdr);
 
-        IHandler blkHdr = new BlockHandler();
+        IHandler blkHdr = new BlockHandler(ring);
         this.handlers.put(blkHdr, blkHdr);
 
-        IHandler minerHdr = new MinerHandler();
+        IHandler minerHdr = new MinerHandler(ring);
         this.handlers.put(minerHdr, minerHdr);
         // setPoolArgs(config);
+
+        registerMetrics();
+    }
+
+    private void registerMetrics() {
+        MetricsRegistry metrics = MetricsRegistry.inst();
+        metrics.gauge(
+                "aion_evtmgr_queue_depth",
+                "Events not yet dispatched by the slowest handler.",
+                ring::getDepth);
+        metrics.gauge(
+                "aion_evtmgr_dropped_events",
+                "Events discarded because the event ring was full.",
+                ring::getDropped);
+        for (String name : ring.getConsumerLag().keySet()) {
+            metrics.gauge(
+                    "aion_evtmgr_handler_lag",
+                    "Events not yet dispatched by each handler.",
+                    () -> ring.getConsumerLag().getOrDefault(name, 0L),
+                    "handler",
+                    name);
+        }
+    }
+
+    /** @return the number of events not yet dispatched by the slowest handler */
+    public long getQueueDepth() {
+        return ring.getDepth();
+    }
+
+    /** @return the number of events not yet dispatched per handler */
+    public Map<String, Long> getConsumerLag() {
+        return ring.getConsumerLag();
+    }
+
+    /** @return the number of events discarded because the ring was full */
+    public long getDroppedEvents() {
+        return ring.getDropped();
     }
 
     /*
@@ -0,0 +1,313 @@
+package org.aion.evtmgr.impl.ring;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import org.aion.evtmgr.IEvent;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.slf4j.Logger;
+
+/**
+ * Preallocated multi-producer, multi-consumer ring of events. Every consumer sees every published
+ * event in order and keeps its own sequence cursor; a slot is reused only after all running
+ * consumers have read it.
+ *
+ * <p>Consumers that have not been started, or were halted, do not hold back the producers. A
+ * consumer started after the ring wrapped skips the overwritten events.
+ */
+public final class EventRingBuffer {
+
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.EVTMGR.toString());
+
+    public static final int DEFAULT_SIZE = 1024;
+
+    /** How consumers wait for new events. */
+    public enum WaitStrategy {
+        /** Parks on a condition signalled by the producers; lowest CPU use. */
+        BLOCKING,
+        /** Polls with short sleeps; no signalling cost for the producers. */
+        SLEEPING,
+        /** Polls and yields; lowest latency at the price of a busy core per consumer. */
+        YIELDING;
+
+        public static WaitStrategy fromString(String _value) {
+            if (_value != null) {
+                for (WaitStrategy s : values()) {
+                    if (s.name().equalsIgnoreCase(_value.trim())) {
+                        return s;
+                    }
+                }
+            }
+            return BLOCKING;
+        }
+    }
+
+    /** What a producer does when the slowest running consumer is a full ring behind. */
+    public enum OverflowPolicy {
+        /** Wait for the consumers to free a slot. */
+        BLOCK,
+        /** Discard the new event. */
+        DROP;
+
+        public static OverflowPolicy fromString(String _value) {
+            if (_value != null) {
+                for (OverflowPolicy p : values()) {
+                    if (p.name().equalsIgnoreCase(_value.trim())) {
+                        return p;
+                    }
+                }
+            }
+            return BLOCK;
+        }
+    }
+
+    private static final long SLEEP_NANOS = 100_000L;
+    private static final int SPIN_TRIES = 100;
+
+    private final IEvent[] slots;
+    private final int mask;
+    /** The sequence last written to each slot, -1 when empty. */
+    private final AtomicLongArray published;
+    /** The last claimed sequence. */
+    private final AtomicLong cursor = new AtomicLong(-1L);
+
+    private final WaitStrategy waitStrategy;
+    private final OverflowPolicy overflowPolicy;
+    private final List<Consumer> consumers = new CopyOnWriteArrayList<>();
+    private final AtomicLong dropped = new AtomicLong(0L);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+
+    public EventRingBuffer() {
+        this(DEFAULT_SIZE, WaitStrategy.BLOCKING, OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * @param _size number of slots, rounded up to a power of two
+     * @param _waitStrategy how consumers wait for events
+     * @param _overflowPolicy what producers do on a full ring
+     */
+    public EventRingBuffer(int _size, WaitStrategy _waitStrategy, OverflowPolicy _overflowPolicy) {
+        if (_size < 1 || _waitStrategy == null || _overflowPolicy == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int capacity = Integer.highestOneBit(_size);
+        if (capacity < _size) {
+            capacity <<= 1;
+        }
+
+        this.slots = new IEvent[capacity];
+        this.mask = capacity - 1;
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1L);
+        }
+        this.waitStrategy = _waitStrategy;
+        this.overflowPolicy = _overflowPolicy;
+    }
+
+    /**
+     * Adds a consumer starting after the last published event. It does not hold back the producers
+     * until {@link Consumer#start()} is called.
+     */
+    public Consumer newConsumer(String _name) {
+        Consumer c = new Consumer(_name, cursor.get());
+        consumers.add(c);
+        return c;
+    }
+
+    /**
+     * @return {@code false} when the event was discarded because the ring is full and the overflow
+     *     policy is {@link OverflowPolicy#DROP}
+     */
+    public boolean publish(IEvent _evt) {
+        if (_evt == null) {
+            throw new NullPointerException();
+        }
+
+        long seq;
+        while (true) {
+            long current = cursor.get();
+            long next = current + 1;
+            if (next - slots.length > minRunningSequence(current)) {
+                if (overflowPolicy == OverflowPolicy.DROP) {
+                    if (dropped.getAndIncrement() % slots.length == 0) {
+                        LOG.warn("Event ring is full! Dropped {} events.", dropped.get());
+                    }
+                    return false;
+                }
+                LockSupport.parkNanos(SLEEP_NANOS);
+                continue;
+            }
+            if (cursor.compareAndSet(current, next)) {
+                seq = next;
+                break;
+            }
+        }
+
+        int idx = (int) seq & mask;
+        slots[idx] = _evt;
+        // the volatile write publishes the slot to the consumers
+        published.set(idx, seq);
+
+        if (waitStrategy == WaitStrategy.BLOCKING) {
+            signalAll();
+        }
+        return true;
+    }
+
+    /** @return the number of slots */
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /** @return the number of events not yet read by the slowest running consumer */
+    public long getDepth() {
+        long current = cursor.get();
+        return current - minRunningSequence(current);
+    }
+
+    /** @return the number of events discarded due to overflow */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /** @return the number of unread events per consumer name */
+    public Map<String, Long> getConsumerLag() {
+        Map<String, Long> lag = new LinkedHashMap<>();
+        for (Consumer c : consumers) {
+            lag.put(c.name, c.getLag());
+        }
+        return lag;
+    }
+
+    private long minRunningSequence(long _current) {
+        long min = _current;
+        for (Consumer c : consumers) {
+            if (c.running) {
+                min = Math.min(min, c.sequence.get());
+            }
+        }
+        return min;
+    }
+
+    private void signalAll() {
+        lock.lock();
+        try {
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** A cursor over the ring, read by a single thread. */
+    public final class Consumer {
+        private final String name;
+        /** The last sequence read. */
+        private final AtomicLong sequence;
+
+        private volatile boolean running = false;
+        private volatile boolean halted = false;
+        private long skipped = 0;
+
+        private Consumer(String _name, long _start) {
+            this.name = _name;
+            this.sequence = new AtomicLong(_start);
+        }
+
+        /** Starts holding back the producers, skipping any events already overwritten. */
+        public void start() {
+            long oldest = cursor.get() - slots.length;
+            if (sequence.get() < oldest) {
+                skipped += oldest - sequence.get();
+                sequence.set(oldest);
+            }
+            running = true;
+        }
+
+        /** Stops this consumer; a blocked {@link #take()} returns {@code null}. */
+        public void halt() {
+            halted = true;
+            running = false;
+            consumers.remove(this);
+            signalAll();
+        }
+
+        /**
+         * Waits for the next event.
+         *
+         * @return the next event, or {@code null} once halted
+         */
+        public IEvent take() throws InterruptedException {
+            long next = sequence.get() + 1;
+            int idx = (int) next & mask;
+
+            int tries = 0;
+            long seq;
+            while ((seq = published.get(idx)) < next) {
+                if (halted) {
+                    return null;
+                }
+                switch (waitStrategy) {
+                    case BLOCKING:
+                        lock.lockInterruptibly();
+                        try {
+                            if (published.get(idx) < next && !halted) {
+                                available.await();
+                            }
+                        } finally {
+                            lock.unlock();
+                        }
+                        break;
+                    case SLEEPING:
+                        LockSupport.parkNanos(SLEEP_NANOS);
+                        break;
+                    case YIELDING:
+                    default:
+                        if (++tries > SPIN_TRIES) {
+                            Thread.yield();
+                        }
+                        break;
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+
+            if (seq > next) {
+                // lapped while not running, continue from the oldest available event
+                long oldest = cursor.get() - slots.length + 1;
+                skipped += oldest - next;
+                sequence.set(oldest - 1);
+                return take();
+            }
+
+            IEvent evt = slots[idx];
+            sequence.set(next);
+            return evt;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /** @return the number of published events not yet read */
+        public long getLag() {
+            return Math.max(0L, cursor.get() - sequence.get());
+        }
+
+        /** @return the number of events overwritten before this consumer could read them */
+        public long getSkipped() {
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package org.aion.evtmgr.impl.ring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.aion.evtmgr.IEvent;
+import org.aion.evtmgr.impl.evt.EventBlock;
+import org.aion.evtmgr.impl.ring.EventRingBuffer.Consumer;
+import org.aion.evtmgr.impl.ring.EventRingBuffer.OverflowPolicy;
+import org.aion.evtmgr.impl.ring.EventRingBuffer.WaitStrategy;
+import org.junit.Test;
+
+public class EventRingBufferTest {
+
+    private static List<IEvent> events(int count) {
+        List<IEvent> list = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            list.add(new EventBlock(EventBlock.CALLBACK.ONBLOCK0));
+        }
+        return list;
+    }
+
+    @Test
+    public void testCapacityRoundedToPowerOfTwo() {
+        assertEquals(
+                8,
+                new EventRingBuffer(5, WaitStrategy.BLOCKING, OverflowPolicy.BLOCK).getCapacity());
+        assertEquals(
+                8,
+                new EventRingBuffer(8, WaitStrategy.BLOCKING, OverflowPolicy.BLOCK).getCapacity());
+    }
+
+    @Test
+    public void testEveryConsumerSeesEveryEvent() throws InterruptedException {
+        for (WaitStrategy strategy : WaitStrategy.values()) {
+            EventRingBuffer ring = new EventRingBuffer(4, strategy, OverflowPolicy.BLOCK);
+            Consumer c1 = ring.newConsumer("c1");
+            Consumer c2 = ring.newConsumer("c2");
+            c1.start();
+            c2.start();
+
+            List<IEvent> published = events(50);
+            List<IEvent> read1 = new ArrayList<>();
+            Thread t =
+                    new Thread(
+                            () -> {
+                                try {
+                                    for (int i = 0; i < published.size(); i++) {
+                                        read1.add(c1.take());
+                                    }
+                                } catch (InterruptedException e) {
+                                    Thread.currentThread().interrupt();
+                                }
+                            });
+            t.start();
+
+            List<IEvent> read2 = new ArrayList<>();
+            Thread producer =
+                    new Thread(
+                            () -> {
+                                for (IEvent e : published) {
+                                    ring.publish(e);
+                                }
+                            });
+            producer.start();
+
+            for (int i = 0; i < published.size(); i++) {
+                read2.add(c2.take());
+            }
+            producer.join();
+            t.join();
+
+            assertEquals(published, read1);
+            assertEquals(published, read2);
+            assertEquals(0, ring.getDepth());
+        }
+    }
+
+    @Test
+    public void testDropPolicy() throws InterruptedException {
+        EventRingBuffer ring = new EventRingBuffer(2, WaitStrategy.SLEEPING, OverflowPolicy.DROP);
+        Consumer c = ring.newConsumer("slow");
+        c.start();
+
+        List<IEvent> published = events(3);
+        assertTrue(ring.publish(published.get(0)));
+        assertTrue(ring.publish(published.get(1)));
+        assertFalse(ring.publish(published.get(2)));
+
+        assertEquals(1, ring.getDropped());
+        assertEquals(2, ring.getDepth());
+        assertEquals(Long.valueOf(2), ring.getConsumerLag().get("slow"));
+
+        assertSame(published.get(0), c.take());
+        assertEquals(1, c.getLag());
+        assertTrue(ring.publish(published.get(2)));
+    }
+
+    @Test
+    public void testStoppedConsumersDoNotBlockProducers() {
+        EventRingBuffer ring = new EventRingBuffer(2, WaitStrategy.BLOCKING, OverflowPolicy.BLOCK);
+        Consumer idle = ring.newConsumer("idle");
+
+        // not started, so the ring wraps freely
+        for (IEvent e : events(5)) {
+            assertTrue(ring.publish(e));
+        }
+        assertEquals(0, ring.getDepth());
+        assertEquals(Long.valueOf(5), ring.getConsumerLag().get("idle"));
+
+        idle.start();
+        assertEquals(3, idle.getSkipped());
+        assertEquals(2, idle.getLag());
+    }
+
+    @Test
+    public void testHaltReleasesTake() throws InterruptedException {
+        EventRingBuffer ring = new EventRingBuffer(2, WaitStrategy.BLOCKING, OverflowPolicy.BLOCK);
+        Consumer c = ring.newConsumer("c");
+        c.start();
+
+        AtomicReference<IEvent> result =
+                new AtomicReference<>(new EventBlock(EventBlock.CALLBACK.ONBEST0));
+        Thread t =
+                new Thread(
+                        () -> {
+                            try {
+                                result.set(c.take());
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        });
+        t.start();
+        Thread.sleep(100);
+
+        c.halt();
+        t.join(1000);
+
+        assertFalse(t.isAlive());
+        assertNull(result.get());
+        assertTrue(ring.getConsumerLag().isEmpty());
+    }
+}
@@ -36,6 +36,7 @@ public final class CfgApiRpc {
         this.ioThreads = null;
         this.requestQueueSize = null; // null = unbounded queue size
         this.stuckThreadDetectorEnabled = true;
+        this.metricsEnabled = false;
         this.enabledMethods = null;
         this.disabledMethods = null;
 
@@ -58,6 +59,7 @@ public final class CfgApiRpc {
     private Integer ioThreads;
     private Integer requestQueueSize;
     private boolean stuckThreadDetectorEnabled;
+    private boolean metricsEnabled;
 
     public void fromXML(final XMLStreamReader sr) throws XMLStreamException {
         // get the attributes
@@ -185,6 +187,18 @@ public final class CfgApiRpc {
                                 }
                                 break;
                             }
+                        case "metrics-enabled":
+                            {
+                                try {
+                                    metricsEnabled = Boolean.parseBoolean(Cfg.readValue(sr));
+                                } catch (Exception e) {
+                                    System.out.println(
+                                            "failed to read config node: aion.api.rpc.metrics-enabled; using preset: "
+                                                    + metricsEnabled);
+                                    e.printStackTrace();
+                                }
+                                break;
+                            }
                         case "filters-enabled":
                             {
                                 try {
@@ -337,6 +351,11 @@ public final class CfgApiRpc {
         return stuckThreadDetectorEnabled;
     }
 
+    /** @return {@code true} when the server answers metrics scrapes on {@code GET /metrics} */
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
     /**
      * @implNote this should theoretically work, but should be tested for correctness by any future
      *     consumer
@@ -361,7 +380,8 @@ public final class CfgApiRpc {
                 && Objects.equals(workerThreads, cfg.workerThreads)
                 && Objects.equals(ioThreads, cfg.ioThreads)
                 && Objects.equals(requestQueueSize, cfg.requestQueueSize)
-                && stuckThreadDetectorEnabled == cfg.stuckThreadDetectorEnabled;
+                && stuckThreadDetectorEnabled == cfg.stuckThreadDetectorEnabled
+                && metricsEnabled == cfg.metricsEnabled;
     }
 
     /**
@@ -387,6 +407,7 @@ public final class CfgApiRpc {
                 workerThreads,
                 ioThreads,
                 requestQueueSize,
-                stuckThreadDetectorEnabled);
+                stuckThreadDetectorEnabled,
+                metricsEnabled);
     }
 }
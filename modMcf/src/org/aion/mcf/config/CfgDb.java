@@ -35,6 +35,8 @@ public class CfgDb {
 
         public static final String STATE = "state";
         public static final String STATE_ARCHIVE = "stateArchive";
+        public static final String PRUNE_JOURNAL = "pruneJournal";
+        public static final String STATE_GC = "stateGc";
         public static final String TRANSACTION = "transaction";
 
         public static final String TX_CACHE = "pendingtxCache";
@@ -47,6 +49,9 @@ public class CfgDb {
     private boolean check_integrity;
     private CfgPrune prune;
     private PruneOption prune_option;
+    private boolean import_pipeline;
+    private int state_gc_interval;
+    private long block_freezer_depth;
 
     /**
      * Enabling expert mode allows more detailed database configurations.
@@ -65,6 +70,9 @@ public class CfgDb {
         this.check_integrity = true;
         this.prune = new CfgPrune(false);
         this.prune_option = PruneOption.FULL;
+        this.import_pipeline = false;
+        this.state_gc_interval = 0;
+        this.block_freezer_depth = 0;
 
         if (expert) {
             this.specificConfig = new HashMap<>();
@@ -89,6 +97,15 @@ public class CfgDb {
                         case "state-storage":
                             setPrune(Cfg.readValue(sr));
                             break;
+                        case "import_pipeline":
+                            this.import_pipeline = Boolean.parseBoolean(Cfg.readValue(sr));
+                            break;
+                        case "state_gc_interval":
+                            setStateGcInterval(Integer.parseInt(Cfg.readValue(sr)));
+                            break;
+                        case "block_freezer_depth":
+                            setBlockFreezerDepth(Long.parseLong(Cfg.readValue(sr)));
+                            break;
                             // parameter considered only when expert==false
                         case "vendor":
                             this.vendor = Cfg.readValue(sr);
@@ -365,6 +382,8 @@ public class CfgDb {
             Properties props = propSet.get(Names.DEFAULT);
             props.setProperty(Props.CHECK_INTEGRITY, String.valueOf(this.check_integrity));
             props.setProperty(Props.PERSISTENT, String.valueOf(isPersistent));
+            props.setProperty(Props.ENABLE_IMPORT_PIPELINE, String.valueOf(import_pipeline));
+            props.setProperty(Props.BLOCK_FREEZER_DEPTH, String.valueOf(block_freezer_depth));
         } else {
             Properties props = new Properties();
             props.setProperty(Props.DB_TYPE, this.vendor);
@@ -380,6 +399,8 @@ public class CfgDb {
             props.setProperty(Props.ENABLE_HEAP_CACHE, String.valueOf(heap_cache));
             props.setProperty(Props.MAX_HEAP_CACHE_SIZE, "32");
             props.setProperty(Props.ENABLE_HEAP_CACHE_STATS, "false");
+            props.setProperty(Props.ENABLE_IMPORT_PIPELINE, String.valueOf(import_pipeline));
+            props.setProperty(Props.BLOCK_FREEZER_DEPTH, String.valueOf(block_freezer_depth));
 
             props.setProperty(Props.MAX_FD_ALLOC, "1024");
             props.setProperty(Props.BLOCK_SIZE, String.valueOf(16 * (int) Utils.MEGA_BYTE));
@@ -405,6 +426,42 @@ public class CfgDb {
         }
     }
 
+    /**
+     * Enables writing the block data on a separate thread, overlapping the persistence of a block
+     * with the execution of the next one.
+     */
+    public void setImportPipelineEnabled(boolean value) {
+        import_pipeline = value;
+    }
+
+    public boolean isImportPipelineEnabled() {
+        return import_pipeline;
+    }
+
+    /**
+     * Sets the minutes between the runs of the background garbage collector for the pruned state.
+     * The collector is disabled by zero and negative values, or when the state is not pruned.
+     */
+    public void setStateGcInterval(int minutes) {
+        state_gc_interval = Math.max(minutes, 0);
+    }
+
+    public int getStateGcInterval() {
+        return state_gc_interval;
+    }
+
+    /**
+     * Sets the number of recent blocks kept in the block database. Older main chain blocks are
+     * moved to the append-only block freezer. The freezer is disabled by zero and negative values.
+     */
+    public void setBlockFreezerDepth(long depth) {
+        block_freezer_depth = Math.max(depth, 0);
+    }
+
+    public long getBlockFreezerDepth() {
+        return block_freezer_depth;
+    }
+
     public void setDatabasePath(String value) {
         path = value;
     }
@@ -421,6 +478,9 @@ public class CfgDb {
                 && Objects.equal(vendor, cfgDb.vendor)
                 && Objects.equal(prune, cfgDb.prune)
                 && prune_option == cfgDb.prune_option
+                && import_pipeline == cfgDb.import_pipeline
+                && state_gc_interval == cfgDb.state_gc_interval
+                && block_freezer_depth == cfgDb.block_freezer_depth
                 && Objects.equal(specificConfig, cfgDb.specificConfig);
     }
 
@@ -433,6 +493,9 @@ public class CfgDb {
                 check_integrity,
                 prune,
                 prune_option,
+                import_pipeline,
+                state_gc_interval,
+                block_freezer_depth,
                 expert,
                 specificConfig);
     }
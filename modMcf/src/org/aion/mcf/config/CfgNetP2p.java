@@ -21,6 +21,7 @@ public final class CfgNetP2p {
         this.errorTolerance = 50;
         this.clusterNodeMode = false;
         this.syncOnlyMode = false;
+        this.compression = false;
     }
 
     private String ip;
@@ -41,6 +42,8 @@ public final class CfgNetP2p {
 
     private int errorTolerance;
 
+    private boolean compression;
+
     public void fromXML(final XMLStreamReader sr) throws XMLStreamException {
         loop:
         while (sr.hasNext()) {
@@ -76,6 +79,9 @@ public final class CfgNetP2p {
                         case "err-tolerance":
                             this.errorTolerance = Integer.parseInt(Cfg.readValue(sr));
                             break;
+                        case "compression":
+                            this.compression = Boolean.parseBoolean(Cfg.readValue(sr));
+                            break;
                         default:
                             // Cfg.skipElement(sr);
                             break;
@@ -179,6 +185,10 @@ public final class CfgNetP2p {
         return syncOnlyMode;
     }
 
+    public boolean getCompression() {
+        return compression;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -192,6 +202,7 @@ public final class CfgNetP2p {
                 && maxTempNodes == cfgNetP2p.maxTempNodes
                 && maxActiveNodes == cfgNetP2p.maxActiveNodes
                 && errorTolerance == cfgNetP2p.errorTolerance
+                && compression == cfgNetP2p.compression
                 && Objects.equal(ip, cfgNetP2p.ip);
     }
 
@@ -206,6 +217,7 @@ public final class CfgNetP2p {
                 syncOnlyMode,
                 maxTempNodes,
                 maxActiveNodes,
-                errorTolerance);
+                errorTolerance,
+                compression);
     }
 }
@@ -11,8 +11,11 @@ import java.util.Objects;
 import java.util.Properties;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.aion.db.generic.WriteBehindDatabase;
+import org.aion.db.generic.WriteBehindPipeline;
 import org.aion.interfaces.block.BlockHeader;
 import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
+import org.aion.interfaces.db.ByteArrayKeyValueStore;
 import org.aion.interfaces.db.Repository;
 import org.aion.interfaces.db.RepositoryConfig;
 import org.aion.interfaces.tx.Transaction;
@@ -23,6 +26,8 @@ import org.aion.mcf.core.AccountState;
 import org.aion.mcf.db.exception.InvalidFilePathException;
 import org.aion.mcf.ds.ArchivedDataSource;
 import org.aion.mcf.trie.JournalPruneDataSource;
+import org.aion.mcf.trie.PersistentPruneDataSource;
+import org.aion.mcf.trie.PruneDataSource;
 import org.aion.mcf.trie.Trie;
 import org.aion.mcf.types.AbstractBlock;
 import org.slf4j.Logger;
@@ -55,10 +60,15 @@ public abstract class AbstractRepository<
     protected static final String GRAPH_DB = Names.GRAPH;
     protected static final String STATE_DB = Names.STATE;
     protected static final String STATE_ARCHIVE_DB = Names.STATE_ARCHIVE;
+    protected static final String PRUNE_JOURNAL_DB = Names.PRUNE_JOURNAL;
+    protected static final String STATE_GC_DB = Names.STATE_GC;
     protected static final String PENDING_TX_POOL_DB = Names.TX_POOL;
     protected static final String PENDING_TX_CACHE_DB = Names.TX_CACHE;
     protected static final String CONTRACT_PERFORM_CODE_DB = Names.CONTRACT_PERFORM_CODE;
 
+    /** Namespace of the state entries in the prune journal database. */
+    private static final byte STATE_JOURNAL = 's';
+
 
     // State trie.
     protected Trie worldState;
@@ -78,6 +88,7 @@ public abstract class AbstractRepository<
     protected ByteArrayKeyValueDatabase blockDatabase;
     protected ByteArrayKeyValueDatabase stateDatabase;
     protected ByteArrayKeyValueDatabase stateArchiveDatabase;
+    protected ByteArrayKeyValueDatabase pruneJournalDatabase;
     protected ByteArrayKeyValueDatabase txPoolDatabase;
     protected ByteArrayKeyValueDatabase pendingTxCacheDatabase;
     protected ByteArrayKeyValueDatabase contractPerformCodeDatabase;
@@ -86,7 +97,7 @@ public abstract class AbstractRepository<
     protected Collection<ByteArrayKeyValueDatabase> databaseGroup;
 
     protected ArchivedDataSource stateWithArchive;
-    protected JournalPruneDataSource stateDSPrune;
+    protected PruneDataSource stateDSPrune;
     protected DetailsDataStore<BLK, BH> detailsDS;
 
     // Read Write Lock
@@ -109,6 +120,12 @@ public abstract class AbstractRepository<
 
     protected boolean checkIntegrity = true;
 
+    // Blocks older than this depth are moved to the block freezer. Disabled when zero.
+    protected long blockFreezerDepth = 0;
+
+    // Writes the block data on a separate thread when the import pipeline is enabled.
+    protected WriteBehindPipeline importPipeline = null;
+
     /**
      * Initializes all necessary databases and caches.
      *
@@ -164,11 +181,23 @@ public abstract class AbstractRepository<
         try {
             databaseGroup = new ArrayList<>();
 
+            if (Boolean.valueOf(
+                    cfg.getDatabaseConfig(Names.DEFAULT)
+                            .getProperty(Props.ENABLE_IMPORT_PIPELINE))) {
+                importPipeline = new WriteBehindPipeline();
+                LOGGEN.info("Import pipeline ENABLED. Block data is written on a separate thread.");
+            }
+
             checkIntegrity =
                     Boolean.valueOf(
                             cfg.getDatabaseConfig(Names.DEFAULT)
                                     .getProperty(Props.CHECK_INTEGRITY));
 
+            blockFreezerDepth =
+                    Long.parseLong(
+                            cfg.getDatabaseConfig(Names.DEFAULT)
+                                    .getProperty(Props.BLOCK_FREEZER_DEPTH, "0"));
+
             // getting state specific properties
             sharedProps = cfg.getDatabaseConfig(STATE_DB);
             // locking enabled for state when JournalPrune not used
@@ -179,6 +208,7 @@ public abstract class AbstractRepository<
             if (stateDatabase == null || stateDatabase.isClosed()) {
                 throw newException(STATE_DB, sharedProps);
             }
+            this.stateDatabase = writeBehind(stateDatabase);
             databaseGroup.add(stateDatabase);
 
             // getting transaction specific properties
@@ -190,6 +220,7 @@ public abstract class AbstractRepository<
             if (transactionDatabase == null || transactionDatabase.isClosed()) {
                 throw newException(TRANSACTION_DB, sharedProps);
             }
+            this.transactionDatabase = writeBehind(transactionDatabase);
             databaseGroup.add(transactionDatabase);
 
             // getting contract index specific properties
@@ -202,6 +233,7 @@ public abstract class AbstractRepository<
             if (contractIndexDatabase == null || contractIndexDatabase.isClosed()) {
                 throw newException(CONTRACT_INDEX_DB, sharedProps);
             }
+            this.contractIndexDatabase = writeBehind(contractIndexDatabase);
             databaseGroup.add(contractIndexDatabase);
 
             // getting contract perform code specific properties
@@ -213,6 +245,7 @@ public abstract class AbstractRepository<
             if (contractPerformCodeDatabase == null || contractPerformCodeDatabase.isClosed()) {
                 throw newException(CONTRACT_PERFORM_CODE_DB, sharedProps);
             }
+            this.contractPerformCodeDatabase = writeBehind(contractPerformCodeDatabase);
             databaseGroup.add(contractPerformCodeDatabase);
 
             // getting details specific properties
@@ -224,6 +257,7 @@ public abstract class AbstractRepository<
             if (detailsDatabase == null || detailsDatabase.isClosed()) {
                 throw newException(DETAILS_DB, sharedProps);
             }
+            this.detailsDatabase = writeBehind(detailsDatabase);
             databaseGroup.add(detailsDatabase);
 
             // getting storage specific properties
@@ -235,6 +269,7 @@ public abstract class AbstractRepository<
             if (storageDatabase == null || storageDatabase.isClosed()) {
                 throw newException(STORAGE_DB, sharedProps);
             }
+            this.storageDatabase = writeBehind(storageDatabase);
             databaseGroup.add(storageDatabase);
 
             // getting graph specific properties
@@ -246,6 +281,7 @@ public abstract class AbstractRepository<
             if (graphDatabase == null || graphDatabase.isClosed()) {
                 throw newException(GRAPH_DB, sharedProps);
             }
+            this.graphDatabase = writeBehind(graphDatabase);
             databaseGroup.add(graphDatabase);
 
             // getting index specific properties
@@ -257,6 +293,7 @@ public abstract class AbstractRepository<
             if (indexDatabase == null || indexDatabase.isClosed()) {
                 throw newException(INDEX_DB, sharedProps);
             }
+            this.indexDatabase = writeBehind(indexDatabase);
             databaseGroup.add(indexDatabase);
 
             // getting block specific properties
@@ -268,6 +305,7 @@ public abstract class AbstractRepository<
             if (blockDatabase == null || blockDatabase.isClosed()) {
                 throw newException(BLOCK_DB, sharedProps);
             }
+            this.blockDatabase = writeBehind(blockDatabase);
             databaseGroup.add(blockDatabase);
 
             // using block specific properties
@@ -306,6 +344,19 @@ public abstract class AbstractRepository<
             pruneBlockCount = this.cfg.getPruneConfig().getCurrentCount();
             archiveRate = this.cfg.getPruneConfig().getArchiveRate();
 
+            if (pruneEnabled) {
+                // the journal is kept on disk to avoid holding the pruning window in memory
+                sharedProps = cfg.getDatabaseConfig(PRUNE_JOURNAL_DB);
+                sharedProps.setProperty(Props.ENABLE_LOCKING, "false");
+                sharedProps.setProperty(Props.DB_PATH, cfg.getDbPath());
+                sharedProps.setProperty(Props.DB_NAME, PRUNE_JOURNAL_DB);
+                this.pruneJournalDatabase = connectAndOpen(sharedProps, LOG);
+                if (pruneJournalDatabase == null || pruneJournalDatabase.isClosed()) {
+                    throw newException(PRUNE_JOURNAL_DB, sharedProps);
+                }
+                databaseGroup.add(pruneJournalDatabase);
+            }
+
             if (pruneEnabled && this.cfg.getPruneConfig().isArchived()) {
                 // using state config for state_archive
                 sharedProps = cfg.getDatabaseConfig(STATE_DB);
@@ -313,10 +364,11 @@ public abstract class AbstractRepository<
                 sharedProps.setProperty(Props.DB_PATH, cfg.getDbPath());
                 sharedProps.setProperty(Props.DB_NAME, STATE_ARCHIVE_DB);
                 this.stateArchiveDatabase = connectAndOpen(sharedProps, LOG);
+                this.stateArchiveDatabase = writeBehind(stateArchiveDatabase);
                 databaseGroup.add(stateArchiveDatabase);
 
                 stateWithArchive = new ArchivedDataSource(stateDatabase, stateArchiveDatabase);
-                stateDSPrune = new JournalPruneDataSource(stateWithArchive);
+                stateDSPrune = createStatePrune(stateWithArchive);
 
                 LOGGEN.info(
                         "Pruning and archiving ENABLED. Top block count set to {} and archive rate set to {}.",
@@ -325,7 +377,7 @@ public abstract class AbstractRepository<
             } else {
                 stateArchiveDatabase = null;
                 stateWithArchive = null;
-                stateDSPrune = new JournalPruneDataSource(stateDatabase);
+                stateDSPrune = createStatePrune(stateDatabase);
 
                 if (pruneEnabled) {
                     LOGGEN.info("Pruning ENABLED. Top block count set to {}.", pruneBlockCount);
@@ -338,6 +390,20 @@ public abstract class AbstractRepository<
         }
     }
 
+    /** Uses the journal database for pruning when available, the in-memory journal otherwise. */
+    private PruneDataSource createStatePrune(ByteArrayKeyValueStore src) {
+        if (pruneJournalDatabase == null) {
+            return new JournalPruneDataSource(src);
+        } else {
+            return new PersistentPruneDataSource(src, pruneJournalDatabase, STATE_JOURNAL);
+        }
+    }
+
+    /** Defers the writes to the given database to the import pipeline, if enabled. */
+    private ByteArrayKeyValueDatabase writeBehind(ByteArrayKeyValueDatabase db) {
+        return importPipeline == null ? db : new WriteBehindDatabase(db, importPipeline);
+    }
+
     private InvalidFilePathException newException(String dbName, Properties props) {
         return new InvalidFilePathException(
                 "The «"
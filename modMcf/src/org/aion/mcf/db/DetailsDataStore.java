@@ -78,7 +78,10 @@ public class DetailsDataStore<
 
     public synchronized void update(Address key, ContractDetails contractDetails) {
 
-        contractDetails.setAddress(key);
+        // keeps the encoding when the address was already set
+        if (!key.equals(contractDetails.getAddress())) {
+            contractDetails.setAddress(key);
+        }
         contractDetails.setObjectGraphSource(graphSrc);
         ByteArrayWrapper wrappedKey = wrap(key.toBytes());
 
@@ -0,0 +1,121 @@
+package org.aion.mcf.db;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import org.aion.mcf.ds.Serializer;
+
+/**
+ * The receipts of all the transactions in a block, stored contiguously in a single value.
+ *
+ * <p>The encoding is {@code [count][end offset of each entry][entries]}, with the count and offsets
+ * as 4 byte big-endian integers and the offsets relative to the start of the entries. The offset
+ * table allows single receipts to be read without decoding the rest of the block.
+ *
+ * @implNote Entries are decoded on first access and kept for later calls. Instances are not thread
+ *     safe.
+ */
+public final class ReceiptBundle<INFO> extends AbstractList<INFO> implements RandomAccess {
+
+    private static final int INT_BYTES = Integer.BYTES;
+
+    private final byte[] data;
+    private final int count;
+    private final int start;
+    private final Serializer<INFO, byte[]> serializer;
+    private final Object[] decoded;
+
+    private ReceiptBundle(byte[] _data, int _count, Serializer<INFO, byte[]> _serializer) {
+        this.data = _data;
+        this.count = _count;
+        this.start = INT_BYTES * (_count + 1);
+        this.serializer = _serializer;
+        this.decoded = new Object[_count];
+    }
+
+    /** @return the bundle containing the given encoded receipts in order */
+    public static byte[] encode(List<byte[]> _entries) {
+        int size = INT_BYTES * (_entries.size() + 1);
+        for (byte[] entry : _entries) {
+            size += entry.length;
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        buf.putInt(_entries.size());
+        int end = 0;
+        for (byte[] entry : _entries) {
+            end += entry.length;
+            buf.putInt(end);
+        }
+        for (byte[] entry : _entries) {
+            buf.put(entry);
+        }
+        return buf.array();
+    }
+
+    /**
+     * Wraps an encoded bundle after checking its offset table.
+     *
+     * @return the bundle, or {@code null} when the data is not a valid encoding
+     */
+    public static <T> ReceiptBundle<T> wrap(byte[] _data, Serializer<T, byte[]> _serializer) {
+        if (_data == null || _data.length < INT_BYTES) {
+            return null;
+        }
+
+        ByteBuffer buf = ByteBuffer.wrap(_data);
+        int count = buf.getInt();
+        if (count < 0 || count > (_data.length - INT_BYTES) / INT_BYTES) {
+            return null;
+        }
+
+        int entries = _data.length - INT_BYTES * (count + 1);
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            int end = buf.getInt();
+            if (end < previous || end > entries) {
+                return null;
+            }
+            previous = end;
+        }
+        if (previous != entries) {
+            return null;
+        }
+
+        return new ReceiptBundle<>(_data, count, _serializer);
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public INFO get(int _index) {
+        if (_index < 0 || _index >= count) {
+            throw new IndexOutOfBoundsException("Index: " + _index + ", Size: " + count);
+        }
+        Object info = decoded[_index];
+        if (info == null) {
+            info = serializer.deserialize(getEncoded(_index));
+            decoded[_index] = info;
+        }
+        return (INFO) info;
+    }
+
+    /** @return the encoding of a single receipt, read through the offset table */
+    byte[] getEncoded(int _index) {
+        int from = _index == 0 ? 0 : offset(_index - 1);
+        int to = offset(_index);
+
+        byte[] entry = new byte[to - from];
+        System.arraycopy(data, start + from, entry, 0, entry.length);
+        return entry;
+    }
+
+    private int offset(int _index) {
+        return ByteBuffer.wrap(data, INT_BYTES * (_index + 1), INT_BYTES).getInt();
+    }
+}
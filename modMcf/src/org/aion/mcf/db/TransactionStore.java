@@ -5,7 +5,9 @@ import static org.aion.util.others.Utils.dummy;
 import java.io.Closeable;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
@@ -23,14 +25,152 @@ public class TransactionStore<
                 TXR extends AbstractTxReceipt<TX>,
                 INFO extends AbstractTxInfo<TXR, TX>>
         implements Flushable, Closeable {
+    /** Prefix of the keys of the per block receipt bundles, distinct from 32 byte tx hashes. */
+    private static final byte BLOCK_RECEIPTS_PREFIX = 'R';
+
+    /** Prefix of the keys of the main chain transaction locations. */
+    private static final byte TX_LOCATION_PREFIX = 'L';
+
     private final LRUMap<ByteArrayWrapper, Object> lastSavedTxHash = new LRUMap<>(5000);
     private final ObjectDataSource<List<INFO>> source;
 
+    /** Same database as the source, holding the receipt bundles keyed by block hash. */
+    private final ByteArrayKeyValueDatabase blockSource;
+
+    private final Serializer<INFO, byte[]> infoSerializer;
+
     private final ReadWriteLock lock = new ReentrantReadWriteLock();
 
     public TransactionStore(
             ByteArrayKeyValueDatabase src, Serializer<List<INFO>, byte[]> serializer) {
+        this(src, serializer, null);
+    }
+
+    /**
+     * @param infoSerializer serializer for single transaction infos; when not {@code null} the
+     *     receipts of each block are also stored contiguously, keyed by the block hash
+     */
+    public TransactionStore(
+            ByteArrayKeyValueDatabase src,
+            Serializer<List<INFO>, byte[]> serializer,
+            Serializer<INFO, byte[]> infoSerializer) {
         source = new ObjectDataSource(src, serializer);
+        blockSource = src;
+        this.infoSerializer = infoSerializer;
+    }
+
+    /**
+     * Adds the infos of all the transactions in a block to the current batch, both per transaction
+     * and as a single bundle for the block.
+     *
+     * @param blockHash the hash of the block containing the transactions
+     * @param infos the transaction infos in block order
+     */
+    public void putBlockToBatch(byte[] blockHash, List<INFO> infos) {
+        lock.writeLock().lock();
+
+        try {
+            for (INFO info : infos) {
+                putToBatch(info);
+            }
+
+            if (infoSerializer != null) {
+                List<byte[]> encoded = new ArrayList<>(infos.size());
+                for (INFO info : infos) {
+                    encoded.add(infoSerializer.serialize(info));
+                }
+                blockSource.putToBatch(blockReceiptsKey(blockHash), ReceiptBundle.encode(encoded));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the infos of all the transactions in a block with a single read.
+     *
+     * @return the transaction infos in block order, decoded on access, or {@code null} when no
+     *     bundle was stored for the given block
+     */
+    public List<INFO> getBlockInfos(byte[] blockHash) {
+        if (infoSerializer == null) {
+            return null;
+        }
+
+        lock.readLock().lock();
+        try {
+            Optional<byte[]> data = blockSource.get(blockReceiptsKey(blockHash));
+            return data.isPresent() ? ReceiptBundle.wrap(data.get(), infoSerializer) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static byte[] blockReceiptsKey(byte[] blockHash) {
+        return prefixedKey(BLOCK_RECEIPTS_PREFIX, blockHash);
+    }
+
+    private static byte[] txLocationKey(byte[] txHash) {
+        return prefixedKey(TX_LOCATION_PREFIX, txHash);
+    }
+
+    private static byte[] prefixedKey(byte prefix, byte[] hash) {
+        byte[] key = new byte[hash.length + 1];
+        key[0] = prefix;
+        System.arraycopy(hash, 0, key, 1, hash.length);
+        return key;
+    }
+
+    /**
+     * Adds the main chain locations of the transactions in a block to the current batch, replacing
+     * the locations previously stored for the same transactions.
+     *
+     * @param blockNumber the number of the block containing the transactions
+     * @param blockHash the hash of the block containing the transactions
+     * @param txHashes the transaction hashes in block order
+     */
+    public void putLocationsToBatch(long blockNumber, byte[] blockHash, List<byte[]> txHashes) {
+        lock.writeLock().lock();
+
+        try {
+            for (int i = 0; i < txHashes.size(); i++) {
+                blockSource.putToBatch(
+                        txLocationKey(txHashes.get(i)),
+                        new TxLocation(blockNumber, blockHash, i).getEncoded());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Adds the removal of the main chain locations of the given transactions to the batch. */
+    public void deleteLocationsInBatch(Collection<byte[]> txHashes) {
+        lock.writeLock().lock();
+
+        try {
+            for (byte[] txHash : txHashes) {
+                blockSource.deleteInBatch(txLocationKey(txHash));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the location of a transaction on the main chain.
+     *
+     * @return the location, or {@code null} when none was stored for the transaction
+     * @implNote Locations written before a reorganization that was not reported to the store may be
+     *     stale, so callers should check that the block is still on the main chain.
+     */
+    public TxLocation getLocation(byte[] txHash) {
+        lock.readLock().lock();
+        try {
+            Optional<byte[]> data = blockSource.get(txLocationKey(txHash));
+            return data.isPresent() ? TxLocation.decode(data.get()) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     public boolean putToBatch(INFO tx) {
@@ -72,6 +212,9 @@ public class TransactionStore<
 
         try {
             List<INFO> existingInfos = source.get(txHash);
+            if (existingInfos == null) {
+                return null;
+            }
             for (INFO info : existingInfos) {
                 if (Arrays.equals(info.getBlockHash(), blockHash)) {
                     return info;
@@ -0,0 +1,59 @@
+package org.aion.mcf.db;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The position of a transaction on the main chain: the number and hash of the block containing it
+ * and its index in the block.
+ *
+ * <p>The encoding is {@code [block number][index][block hash]}, with the number as an 8 byte and
+ * the index as a 4 byte big-endian integer.
+ */
+public final class TxLocation {
+
+    private static final int HEADER_BYTES = Long.BYTES + Integer.BYTES;
+
+    private final long blockNumber;
+    private final byte[] blockHash;
+    private final int index;
+
+    public TxLocation(long _blockNumber, byte[] _blockHash, int _index) {
+        this.blockNumber = _blockNumber;
+        this.blockHash = _blockHash;
+        this.index = _index;
+    }
+
+    public long getBlockNumber() {
+        return blockNumber;
+    }
+
+    public byte[] getBlockHash() {
+        return blockHash;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public byte[] getEncoded() {
+        return ByteBuffer.allocate(HEADER_BYTES + blockHash.length)
+                .putLong(blockNumber)
+                .putInt(index)
+                .put(blockHash)
+                .array();
+    }
+
+    /** @return the decoded location, or {@code null} when the data is not a valid encoding */
+    public static TxLocation decode(byte[] _data) {
+        if (_data == null || _data.length <= HEADER_BYTES) {
+            return null;
+        }
+
+        ByteBuffer buf = ByteBuffer.wrap(_data);
+        long number = buf.getLong();
+        int index = buf.getInt();
+        byte[] hash = new byte[buf.remaining()];
+        buf.get(hash);
+        return new TxLocation(number, hash, index);
+    }
+}
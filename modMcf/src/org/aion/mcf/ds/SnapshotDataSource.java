@@ -0,0 +1,90 @@
+package org.aion.mcf.ds;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import org.aion.db.impl.SnapshotDatabase.Snapshot;
+import org.aion.interfaces.db.ByteArrayKeyValueStore;
+
+/**
+ * A read-only data source for content-addressed data that reads from a database snapshot first and
+ * from the live data source for the keys missing in the snapshot.
+ *
+ * <p>Values found in the snapshot stay readable when they are deleted from the live data source,
+ * e.g. by pruning, while values written after the snapshot was taken, or still waiting to be
+ * persisted, are read from the live data source. Both sources hold the same value for a key, since
+ * the key is the hash of the value.
+ */
+public class SnapshotDataSource implements ByteArrayKeyValueStore {
+
+    private final Snapshot snapshot;
+    private final ByteArrayKeyValueStore live;
+
+    public SnapshotDataSource(Snapshot snapshot, ByteArrayKeyValueStore live) {
+        this.snapshot = snapshot;
+        this.live = live;
+    }
+
+    @Override
+    public Optional<byte[]> get(byte[] key) {
+        Optional<byte[]> value = snapshot.get(key);
+        return value.isPresent() ? value : live.get(key);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return live.isEmpty();
+    }
+
+    @Override
+    public Iterator<byte[]> keys() {
+        throw new UnsupportedOperationException("Snapshot data sources cannot be iterated.");
+    }
+
+    @Override
+    public void check() {
+        live.check();
+    }
+
+    @Override
+    public void put(byte[] key, byte[] value) {
+        throw new UnsupportedOperationException("Snapshot data sources are read-only.");
+    }
+
+    @Override
+    public void delete(byte[] key) {
+        throw new UnsupportedOperationException("Snapshot data sources are read-only.");
+    }
+
+    @Override
+    public void putBatch(Map<byte[], byte[]> batch) {
+        throw new UnsupportedOperationException("Snapshot data sources are read-only.");
+    }
+
+    @Override
+    public void deleteBatch(Collection<byte[]> keys) {
+        throw new UnsupportedOperationException("Snapshot data sources are read-only.");
+    }
+
+    @Override
+    public void putToBatch(byte[] key, byte[] value) {
+        throw new UnsupportedOperationException("Snapshot data sources are read-only.");
+    }
+
+    @Override
+    public void deleteInBatch(byte[] key) {
+        throw new UnsupportedOperationException("Snapshot data sources are read-only.");
+    }
+
+    @Override
+    public void commitBatch() {
+        throw new UnsupportedOperationException("Snapshot data sources are read-only.");
+    }
+
+    /** Releases the snapshot. The live data source stays open. */
+    @Override
+    public void close() {
+        snapshot.close();
+    }
+}
@@ -1,6 +1,6 @@
 package org.aion.mcf.manager;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 /** Chain statistics. */
@@ -10,7 +10,12 @@ public class ChainStatistics {
 
     private long startupTimeStamp;
     private boolean consensus = true;
-    private List<Long> blockExecTime = new LinkedList<>();
+    /** The last block execution times, overwritten in a circle. */
+    private final long[] blockExecTime = new long[ExecTimeListLimit];
+
+    private int execCount = 0;
+    private int execNext = 0;
+    private long execSum = 0;
 
     public void init() {
         startupTimeStamp = System.currentTimeMillis();
@@ -28,28 +33,31 @@ public class ChainStatistics {
         consensus = false;
     }
 
-    public void addBlockExecTime(long time) {
-        while (blockExecTime.size() > ExecTimeListLimit) {
-            blockExecTime.remove(0);
+    public synchronized void addBlockExecTime(long time) {
+        if (execCount == ExecTimeListLimit) {
+            execSum -= blockExecTime[execNext];
+        } else {
+            execCount++;
         }
-        blockExecTime.add(time);
+        blockExecTime[execNext] = time;
+        execSum += time;
+        execNext = (execNext + 1) % ExecTimeListLimit;
     }
 
-    public Long getExecAvg() {
-
-        if (blockExecTime.isEmpty()) {
+    public synchronized Long getExecAvg() {
+        if (execCount == 0) {
             return 0L;
         }
-
-        long sum = 0;
-        for (int i = 0; i < blockExecTime.size(); ++i) {
-            sum += blockExecTime.get(i);
-        }
-
-        return sum / blockExecTime.size();
+        return execSum / execCount;
     }
 
-    public List<Long> getBlockExecTime() {
-        return blockExecTime;
+    /** @return the stored execution times, oldest first */
+    public synchronized List<Long> getBlockExecTime() {
+        List<Long> times = new ArrayList<>(execCount);
+        int first = execCount == ExecTimeListLimit ? execNext : 0;
+        for (int i = 0; i < execCount; i++) {
+            times.add(blockExecTime[(first + i) % ExecTimeListLimit]);
+        }
+        return times;
     }
 }
@@ -52,7 +52,7 @@ public class Cache {
         Value value = new Value(o);
         byte[] enc = value.encode();
         if (enc.length >= 32) {
-            byte[] sha = HashUtil.h256(value.encode());
+            byte[] sha = HashUtil.h256(enc);
             ByteArrayWrapper key = wrap(sha);
             this.nodes.put(key, new Node(value, true));
             this.removedNodes.remove(key);
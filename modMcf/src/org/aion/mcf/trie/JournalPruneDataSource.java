@@ -13,6 +13,7 @@ import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
 import org.aion.interfaces.db.ByteArrayKeyValueStore;
 import org.aion.log.AionLoggerFactory;
@@ -28,7 +29,7 @@ import org.slf4j.Logger;
  * submitted to the underlying DataSource with respect to following inserts. E.g. if the key was
  * deleted at block N and then inserted at block N + 10 this delete is not passed.
  */
-public class JournalPruneDataSource implements ByteArrayKeyValueStore {
+public class JournalPruneDataSource implements PruneDataSource {
 
     private final ReadWriteLock lock = new ReentrantReadWriteLock();
     private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.DB.name());
@@ -67,20 +68,35 @@ public class JournalPruneDataSource implements ByteArrayKeyValueStore {
     private Updates currentUpdates = new Updates();
     private AtomicBoolean enabled = new AtomicBoolean(false);
     private final boolean hasArchive;
+    private volatile Consumer<byte[]> insertListener = null;
 
     public JournalPruneDataSource(ByteArrayKeyValueStore src) {
         this.src = src;
         this.hasArchive = src instanceof ArchivedDataSource;
     }
 
+    @Override
     public void setPruneEnabled(boolean _enabled) {
         enabled.set(_enabled);
     }
 
+    @Override
     public boolean isArchiveEnabled() {
         return hasArchive;
     }
 
+    @Override
+    public void setInsertListener(Consumer<byte[]> listener) {
+        insertListener = listener;
+    }
+
+    private void notifyInsert(byte[] key) {
+        Consumer<byte[]> listener = insertListener;
+        if (listener != null) {
+            listener.accept(key);
+        }
+    }
+
     public void put(byte[] key, byte[] value) {
         checkNotNull(key);
         checkNotNull(value);
@@ -100,6 +116,7 @@ public class JournalPruneDataSource implements ByteArrayKeyValueStore {
 
                     // put to source database.
                     src.put(key, value);
+                    notifyInsert(key);
 
                 } else {
                     check();
@@ -111,6 +128,7 @@ public class JournalPruneDataSource implements ByteArrayKeyValueStore {
                 // pruning disabled
                 if (value != null) {
                     src.put(key, value);
+                    notifyInsert(key);
                 } else {
                     check();
                 }
@@ -179,6 +197,7 @@ public class JournalPruneDataSource implements ByteArrayKeyValueStore {
                 }
             }
             src.putBatch(insertsOnly);
+            insertsOnly.keySet().forEach(this::notifyInsert);
         } catch (Exception e) {
             if (e instanceof RuntimeException) {
                 throw e;
@@ -208,6 +227,7 @@ public class JournalPruneDataSource implements ByteArrayKeyValueStore {
         return cnt;
     }
 
+    @Override
     public void storeBlockChanges(byte[] blockHash, long blockNumber) {
         if (!enabled.get()) {
             return;
@@ -226,6 +246,7 @@ public class JournalPruneDataSource implements ByteArrayKeyValueStore {
         }
     }
 
+    @Override
     public void prune(byte[] blockHash, long blockNumber) {
         if (!enabled.get()) {
             return;
@@ -407,6 +428,7 @@ public class JournalPruneDataSource implements ByteArrayKeyValueStore {
         return src;
     }
 
+    @Override
     public ByteArrayKeyValueDatabase getArchiveSource() {
         if (!hasArchive) {
             return null;
@@ -0,0 +1,629 @@
+package org.aion.mcf.trie;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
+import org.aion.interfaces.db.ByteArrayKeyValueStore;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.aion.mcf.ds.ArchivedDataSource;
+import org.aion.rlp.RLP;
+import org.aion.rlp.RLPElement;
+import org.aion.rlp.RLPList;
+import org.aion.types.ByteArrayWrapper;
+import org.aion.util.bytes.ByteUtil;
+import org.aion.util.metrics.Histogram;
+import org.aion.util.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+
+/**
+ * Prunes like {@link JournalPruneDataSource}, but keeps the per block journal and the reference
+ * counts in a separate database instead of the heap. Only the keys changed by the block being
+ * imported are held in memory.
+ *
+ * <p>The blocks handed to {@link #prune(byte[], long)} are queued in the journal and pruned in
+ * order on a dedicated thread, with the deletes of each block applied as one batch. The queue
+ * survives restarts, so the blocks that were not pruned before a shutdown are pruned when pruning
+ * is enabled again.
+ *
+ * <p>The journal is always written before the deletes are applied to the data store, so a crash can
+ * only leave a reference count too high, which keeps the key instead of deleting it. A block that
+ * fails to be pruned stays at the head of the queue and is pruned again after a pause, which grows
+ * with the number of consecutive failures.
+ *
+ * @implNote Several data sources may share the same journal database as long as they use distinct
+ *     namespaces.
+ */
+public class PersistentPruneDataSource implements PruneDataSource {
+
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.DB.name());
+
+    private static final Histogram PRUNE_TIME =
+            MetricsRegistry.inst()
+                    .timer("aion_db_prune_seconds", "Time to prune one block from the journal.");
+
+    /** Pause before pruning a block again after a failure, doubled after each failure. */
+    static final long RETRY_MIN_MILLIS = 1_000L;
+
+    static final long RETRY_MAX_MILLIS = 60_000L;
+
+    // kinds of journal entries, following the namespace byte
+    private static final byte REF = 'r';
+    private static final byte UPDATES = 'u';
+    private static final byte NUMBER = 'n';
+    private static final byte QUEUE = 'q';
+    private static final byte HEAD = 'h';
+
+    /** The references to a key from the journal and from the pruned state. */
+    private static final class Ref {
+        int journalRefs;
+        boolean dbRef;
+
+        Ref(int journalRefs, boolean dbRef) {
+            this.journalRefs = journalRefs;
+            this.dbRef = dbRef;
+        }
+
+        int getTotRefs() {
+            return journalRefs + (dbRef ? 1 : 0);
+        }
+
+        byte[] encode() {
+            return ByteBuffer.allocate(5).putInt(journalRefs).put((byte) (dbRef ? 1 : 0)).array();
+        }
+
+        static Ref decode(byte[] data) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            return new Ref(buffer.getInt(), buffer.get() != 0);
+        }
+    }
+
+    private final ByteArrayKeyValueStore src;
+    private final ByteArrayKeyValueDatabase journal;
+    private final byte namespace;
+    private final boolean hasArchive;
+    private final AtomicBoolean enabled = new AtomicBoolean(false);
+    private volatile Consumer<byte[]> insertListener = null;
+
+    // the lock also serializes the batches written to the journal
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<ByteArrayWrapper, Ref> dirtyRefs = new HashMap<>();
+    private Set<ByteArrayWrapper> insertedKeys = new HashSet<>();
+    private Set<ByteArrayWrapper> deletedKeys = new HashSet<>();
+
+    // the pruning queue, guarded by this
+    private long head;
+    private long tail;
+    private Thread pruner = null;
+    private boolean closed = false;
+
+    /**
+     * @param src the pruned data store
+     * @param journal the database holding the journal, which must already be open
+     * @param namespace distinguishes the entries of data sources sharing the journal database
+     */
+    public PersistentPruneDataSource(
+            ByteArrayKeyValueStore src, ByteArrayKeyValueDatabase journal, byte namespace) {
+        this.src = src;
+        this.journal = journal;
+        this.namespace = namespace;
+        this.hasArchive = src instanceof ArchivedDataSource;
+
+        Optional<byte[]> storedHead = journal.get(key(HEAD, ByteUtil.EMPTY_BYTE_ARRAY));
+        this.head = storedHead.map(ByteUtil::byteArrayToLong).orElse(0L);
+        this.tail = head;
+        while (journal.get(queueKey(tail)).isPresent()) {
+            tail++;
+        }
+        if (tail > head) {
+            LOG.info("Resuming the pruning of {} blocks.", tail - head);
+        }
+
+        MetricsRegistry.inst()
+                .gauge(
+                        "aion_db_prune_pending",
+                        "Blocks waiting to be pruned.",
+                        this::getPendingPruneCount);
+    }
+
+    @Override
+    public void setPruneEnabled(boolean _enabled) {
+        enabled.set(_enabled);
+        if (_enabled) {
+            startPruner();
+        }
+    }
+
+    @Override
+    public boolean isArchiveEnabled() {
+        return hasArchive;
+    }
+
+    @Override
+    public ByteArrayKeyValueDatabase getArchiveSource() {
+        if (!hasArchive) {
+            return null;
+        } else {
+            return ((ArchivedDataSource) src).getArchiveDatabase();
+        }
+    }
+
+    public ByteArrayKeyValueStore getSrc() {
+        return src;
+    }
+
+    @Override
+    public void setInsertListener(Consumer<byte[]> listener) {
+        insertListener = listener;
+    }
+
+    private void notifyInsert(byte[] key) {
+        Consumer<byte[]> listener = insertListener;
+        if (listener != null) {
+            listener.accept(key);
+        }
+    }
+
+    @Override
+    public void put(byte[] key, byte[] value) {
+        JournalPruneDataSource.checkNotNull(key);
+        JournalPruneDataSource.checkNotNull(value);
+
+        lock.writeLock().lock();
+        try {
+            if (enabled.get()) {
+                ByteArrayWrapper keyW = ByteArrayWrapper.wrap(key);
+                if (insertedKeys.add(keyW)) {
+                    incRef(keyW);
+                }
+            }
+            src.put(key, value);
+            notifyInsert(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(byte[] key) {
+        JournalPruneDataSource.checkNotNull(key);
+        check();
+        if (!enabled.get()) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            // delete is delayed
+            deletedKeys.add(ByteArrayWrapper.wrap(key));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void putBatch(Map<byte[], byte[]> inputMap) {
+        JournalPruneDataSource.checkNotNull(inputMap.keySet());
+        JournalPruneDataSource.checkNotNull(inputMap.values());
+
+        lock.writeLock().lock();
+        try {
+            if (enabled.get()) {
+                for (byte[] key : inputMap.keySet()) {
+                    ByteArrayWrapper keyW = ByteArrayWrapper.wrap(key);
+                    if (insertedKeys.add(keyW)) {
+                        incRef(keyW);
+                    }
+                }
+            }
+            src.putBatch(inputMap);
+            inputMap.keySet().forEach(this::notifyInsert);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteBatch(Collection<byte[]> keys) {
+        JournalPruneDataSource.checkNotNull(keys);
+        check();
+        if (!enabled.get()) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            // deletes are delayed
+            keys.forEach(key -> deletedKeys.add(ByteArrayWrapper.wrap(key)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void storeBlockChanges(byte[] blockHash, long blockNumber) {
+        if (!enabled.get()) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            journal.putToBatch(
+                    key(UPDATES, blockHash),
+                    RLP.encodeList(
+                            RLP.encodeLong(blockNumber),
+                            encodeKeys(insertedKeys),
+                            encodeKeys(deletedKeys)));
+
+            // index the block by number to find the forks when pruning
+            byte[] numberKey = key(NUMBER, ByteUtil.longToBytes(blockNumber));
+            List<byte[]> hashes = decodeKeys(journal.get(numberKey).orElse(null));
+            hashes.add(blockHash);
+            journal.putToBatch(numberKey, RLP.encodeList(encodeElements(hashes)));
+
+            flushRefs();
+            journal.commitBatch();
+
+            insertedKeys = new HashSet<>();
+            deletedKeys = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Queues the block to be pruned on the pruning thread. */
+    @Override
+    public void prune(byte[] blockHash, long blockNumber) {
+        if (!enabled.get()) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            synchronized (this) {
+                journal.put(queueKey(tail), RLP.encodeList(encodeElements(blockHash, blockNumber)));
+                tail++;
+                notifyAll();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** @return the number of blocks queued for pruning */
+    public synchronized long getPendingPruneCount() {
+        return tail - head;
+    }
+
+    /**
+     * Waits until the blocks queued so far have been pruned or the data source is closed. Keeps
+     * waiting while a block that failed to be pruned is retried.
+     */
+    public synchronized void waitForPrune() throws InterruptedException {
+        long target = tail;
+        while (head < target && !closed && pruner != null) {
+            wait();
+        }
+    }
+
+    private synchronized void startPruner() {
+        if (pruner == null && !closed) {
+            pruner = new Thread(this::runPruner, "db-prune");
+            pruner.setDaemon(true);
+            pruner.start();
+        }
+    }
+
+    private void runPruner() {
+        long retryMillis = RETRY_MIN_MILLIS;
+        while (true) {
+            long next;
+            synchronized (this) {
+                while (head == tail && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (closed) {
+                    return;
+                }
+                next = head;
+            }
+
+            try {
+                pruneQueued(next);
+                retryMillis = RETRY_MIN_MILLIS;
+            } catch (Exception e) {
+                // the block stays queued and is pruned again after the pause
+                LOG.error(
+                        "Could not prune the queued block "
+                                + next
+                                + ". Retrying in "
+                                + retryMillis
+                                + " ms. Failed due to ",
+                        e);
+                if (!pause(retryMillis)) {
+                    return;
+                }
+                retryMillis = Math.min(2 * retryMillis, RETRY_MAX_MILLIS);
+                continue;
+            }
+
+            synchronized (this) {
+                head = next + 1;
+                notifyAll();
+            }
+        }
+    }
+
+    /** @return {@code false} when the data source was closed or the thread interrupted */
+    private synchronized boolean pause(long millis) {
+        long end = System.currentTimeMillis() + millis;
+        long remaining = millis;
+        while (!closed && remaining > 0) {
+            try {
+                wait(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            remaining = end - System.currentTimeMillis();
+        }
+        return !closed;
+    }
+
+    private void pruneQueued(long position) {
+        long t1 = System.nanoTime();
+
+        lock.writeLock().lock();
+        try {
+            byte[] queueKey = queueKey(position);
+            Optional<byte[]> queued = journal.get(queueKey);
+            if (!queued.isPresent()) {
+                // the journal was dropped, e.g. when rebuilding the state
+                return;
+            }
+            RLPList entry = (RLPList) RLP.decode2(queued.get()).get(0);
+            byte[] blockHash = entry.get(0).getRLPData();
+            long blockNumber = ByteUtil.byteArrayToLong(entry.get(1).getRLPData());
+
+            List<byte[]> batchRemove = new ArrayList<>();
+            byte[] updatesKey = key(UPDATES, blockHash);
+            Optional<byte[]> updates = journal.get(updatesKey);
+            if (updates.isPresent()) {
+                RLPList list = (RLPList) RLP.decode2(updates.get()).get(0);
+
+                for (byte[] insertedKey : keysOf(list.get(1))) {
+                    Ref ref = loadRef(ByteArrayWrapper.wrap(insertedKey));
+                    if (ref != null) {
+                        ref.journalRefs--;
+                        ref.dbRef = true;
+                    }
+                }
+                for (byte[] deletedKey : keysOf(list.get(2))) {
+                    Ref ref = loadRef(ByteArrayWrapper.wrap(deletedKey));
+                    if (ref == null || ref.journalRefs == 0) {
+                        batchRemove.add(deletedKey);
+                    } else {
+                        ref.dbRef = false;
+                    }
+                }
+                journal.deleteInBatch(updatesKey);
+
+                rollbackForkBlocks(blockHash, blockNumber, batchRemove);
+            }
+
+            flushRefs();
+            journal.deleteInBatch(queueKey);
+            journal.putToBatch(
+                    key(HEAD, ByteUtil.EMPTY_BYTE_ARRAY), ByteUtil.longToBytes(position + 1));
+            journal.commitBatch();
+
+            // applied only after the journal, see the class description
+            src.deleteBatch(batchRemove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        PRUNE_TIME.recordSince(t1);
+    }
+
+    /** Discards the changes of the other blocks with the given number. */
+    private void rollbackForkBlocks(byte[] blockHash, long blockNumber, List<byte[]> batchRemove) {
+        byte[] numberKey = key(NUMBER, ByteUtil.longToBytes(blockNumber));
+        for (byte[] hash : decodeKeys(journal.get(numberKey).orElse(null))) {
+            if (Arrays.equals(hash, blockHash)) {
+                continue;
+            }
+            byte[] updatesKey = key(UPDATES, hash);
+            Optional<byte[]> updates = journal.get(updatesKey);
+            if (!updates.isPresent()) {
+                continue;
+            }
+            RLPList list = (RLPList) RLP.decode2(updates.get()).get(0);
+            for (byte[] insertedKey : keysOf(list.get(1))) {
+                Ref ref = loadRef(ByteArrayWrapper.wrap(insertedKey));
+                if (ref != null) {
+                    ref.journalRefs--;
+                    if (ref.getTotRefs() == 0) {
+                        batchRemove.add(insertedKey);
+                    }
+                }
+            }
+            journal.deleteInBatch(updatesKey);
+        }
+        journal.deleteInBatch(numberKey);
+    }
+
+    private void incRef(ByteArrayWrapper keyW) {
+        Ref ref = loadRef(keyW);
+        if (ref == null) {
+            ref = new Ref(0, src.get(keyW.getData()).isPresent());
+            dirtyRefs.put(keyW, ref);
+        }
+        ref.journalRefs++;
+    }
+
+    /** @return the reference count of the key, which is written with the next journal batch */
+    private Ref loadRef(ByteArrayWrapper keyW) {
+        Ref ref = dirtyRefs.get(keyW);
+        if (ref == null) {
+            Optional<byte[]> data = journal.get(key(REF, keyW.getData()));
+            if (data.isPresent()) {
+                ref = Ref.decode(data.get());
+                dirtyRefs.put(keyW, ref);
+            }
+        }
+        return ref;
+    }
+
+    /** Adds the changed reference counts to the journal batch. */
+    private void flushRefs() {
+        for (Map.Entry<ByteArrayWrapper, Ref> e : dirtyRefs.entrySet()) {
+            byte[] refKey = key(REF, e.getKey().getData());
+            if (e.getValue().journalRefs <= 0) {
+                journal.deleteInBatch(refKey);
+            } else {
+                journal.putToBatch(refKey, e.getValue().encode());
+            }
+        }
+        dirtyRefs.clear();
+    }
+
+    private byte[] key(byte kind, byte[] suffix) {
+        byte[] key = new byte[suffix.length + 2];
+        key[0] = namespace;
+        key[1] = kind;
+        System.arraycopy(suffix, 0, key, 2, suffix.length);
+        return key;
+    }
+
+    private byte[] queueKey(long position) {
+        return key(QUEUE, ByteUtil.longToBytes(position));
+    }
+
+    private static byte[] encodeKeys(Set<ByteArrayWrapper> keys) {
+        byte[][] elements = new byte[keys.size()][];
+        int i = 0;
+        for (ByteArrayWrapper key : keys) {
+            elements[i++] = RLP.encodeElement(key.getData());
+        }
+        return RLP.encodeList(elements);
+    }
+
+    private static byte[][] encodeElements(List<byte[]> data) {
+        byte[][] elements = new byte[data.size()][];
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = RLP.encodeElement(data.get(i));
+        }
+        return elements;
+    }
+
+    private static byte[][] encodeElements(byte[] hash, long number) {
+        return new byte[][] {RLP.encodeElement(hash), RLP.encodeLong(number)};
+    }
+
+    /** @return the elements of an encoded list, or an empty list for {@code null} */
+    private static List<byte[]> decodeKeys(byte[] encoded) {
+        return encoded == null ? new ArrayList<>() : keysOf(RLP.decode2(encoded).get(0));
+    }
+
+    private static List<byte[]> keysOf(RLPElement list) {
+        List<byte[]> keys = new ArrayList<>();
+        for (RLPElement element : (RLPList) list) {
+            keys.add(element.getRLPData());
+        }
+        return keys;
+    }
+
+    @Override
+    public Optional<byte[]> get(byte[] key) {
+        return src.get(key);
+    }
+
+    @Override
+    public Iterator<byte[]> keys() {
+        return src.keys();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        lock.readLock().lock();
+        try {
+            // the delayed deletes are not considered by this check until applied to the db
+            return insertedKeys.isEmpty() && src.isEmpty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stops the pruning thread after the block it is pruning. The queued blocks are pruned after
+     * the next start.
+     */
+    public void stopPruning() {
+        Thread thread;
+        synchronized (this) {
+            closed = true;
+            thread = pruner;
+            notifyAll();
+        }
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        stopPruning();
+
+        lock.writeLock().lock();
+        try {
+            src.close();
+        } catch (Exception e) {
+            LOG.error("Could not close source due to ", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void putToBatch(byte[] key, byte[] value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void deleteInBatch(byte[] key) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void commitBatch() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void check() {
+        src.check();
+    }
+}
@@ -0,0 +1,36 @@
+package org.aion.mcf.trie;
+
+import java.util.function.Consumer;
+import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
+import org.aion.interfaces.db.ByteArrayKeyValueStore;
+
+/**
+ * A data store that delays the deletes made while importing blocks until the blocks are old enough
+ * to be pruned. The inserts are forwarded to the underlying store immediately.
+ */
+public interface PruneDataSource extends ByteArrayKeyValueStore {
+
+    void setPruneEnabled(boolean _enabled);
+
+    boolean isArchiveEnabled();
+
+    /** @return the archive database, or {@code null} when archiving is disabled */
+    ByteArrayKeyValueDatabase getArchiveSource();
+
+    /** Ties the updates made since the previous call to the given block. */
+    void storeBlockChanges(byte[] blockHash, long blockNumber);
+
+    /**
+     * Applies the deletes made by the given block, except for the keys inserted again afterwards,
+     * and discards the changes made by the other blocks with the same number.
+     */
+    void prune(byte[] blockHash, long blockNumber);
+
+    /**
+     * Registers a listener called with each key inserted into the underlying store, while the
+     * insert is in progress. Only one listener is kept.
+     *
+     * @param listener the new listener, or {@code null} to remove the current one
+     */
+    void setInsertListener(Consumer<byte[]> listener);
+}
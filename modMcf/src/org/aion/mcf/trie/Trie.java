@@ -3,6 +3,7 @@ package org.aion.mcf.trie;
 import java.util.Map;
 import java.util.Set;
 import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
+import org.aion.interfaces.db.ByteArrayKeyValueStore;
 import org.aion.types.ByteArrayWrapper;
 
 /**
@@ -102,4 +103,14 @@ public interface Trie {
     long saveFullStateToDatabase(byte[] stateRoot, ByteArrayKeyValueDatabase db);
 
     long saveDiffStateToDatabase(byte[] stateRoot, ByteArrayKeyValueDatabase db);
+
+    /**
+     * Adds the keys of the nodes reachable from the given root to the set of marked keys. The nodes
+     * already marked are not explored, since their children were marked with them.
+     *
+     * @param root the root of the trie to be traversed
+     * @param marks the keys marked so far
+     * @return the number of keys added to the marks
+     */
+    long markReachableNodes(byte[] root, ByteArrayKeyValueStore marks);
 }
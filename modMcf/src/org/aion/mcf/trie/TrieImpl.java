@@ -17,10 +17,13 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import org.aion.crypto.HashUtil;
 import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
@@ -68,6 +71,8 @@ public class TrieImpl implements Trie {
     private static final byte PAIR_SIZE = 2;
     private static final byte LIST_SIZE = 17;
     private static final int MAX_SIZE = 20;
+    // only the keys of the marks are relevant
+    private static final byte[] MARK = new byte[] {1};
 
     // private Object prevRoot;
     private Object root;
@@ -341,10 +346,9 @@ public class TrieImpl implements Trie {
                             copyOfRange(key, 1, key.length),
                             value);
 
-            if (!Arrays.equals(
-                    HashUtil.h256(getNode(newNode).encode()),
-                    HashUtil.h256(currentNode.encode()))) {
-                markRemoved(HashUtil.h256(currentNode.encode()));
+            byte[] currentHash = HashUtil.h256(currentNode.encode());
+            if (!Arrays.equals(HashUtil.h256(getNode(newNode).encode()), currentHash)) {
+                markRemoved(currentHash);
                 if (!isEmptyNode(currentNode.get(key[0]))) {
                     markRemoved(currentNode.get(key[0]).asBytes());
                 }
@@ -424,10 +428,9 @@ public class TrieImpl implements Trie {
                 newNode = itemList;
             }
 
-            if (!Arrays.equals(
-                    HashUtil.h256(getNode(newNode).encode()),
-                    HashUtil.h256(currentNode.encode()))) {
-                markRemoved(HashUtil.h256(currentNode.encode()));
+            byte[] currentHash = HashUtil.h256(currentNode.encode());
+            if (!Arrays.equals(HashUtil.h256(getNode(newNode).encode()), currentHash)) {
+                markRemoved(currentHash);
             }
 
             return this.putToCache(newNode);
@@ -1025,4 +1028,50 @@ public class TrieImpl implements Trie {
         traceDiffTrie(stateRoot, traceAction, db);
         return traceAction.count;
     }
+
+    /**
+     * @implNote The nodes are read from the database and are not added to the cache, so that the
+     *     trie can be traversed by a background task without holding it in memory. The nodes
+     *     missing from the database are skipped.
+     */
+    @Override
+    public long markReachableNodes(byte[] root, ByteArrayKeyValueStore marks) {
+        ByteArrayKeyValueStore db = cache.getDb();
+        long count = 0;
+
+        Deque<byte[]> hashes = new ArrayDeque<>();
+        hashes.push(root);
+
+        while (!hashes.isEmpty()) {
+            byte[] hash = hashes.pop();
+            if (marks.get(hash).isPresent()) {
+                continue;
+            }
+            Optional<byte[]> data = db.get(hash);
+            if (!data.isPresent()) {
+                continue;
+            }
+            marks.put(hash, MARK);
+            count++;
+
+            Value node = Value.fromRlpEncoded(data.get());
+            if (node.isList()) {
+                List<Object> siblings = node.asList();
+                if (siblings.size() == PAIR_SIZE) {
+                    Value val = new Value(siblings.get(1));
+                    if (val.isHashCode() && !hasTerminator((byte[]) siblings.get(0))) {
+                        hashes.push(val.asBytes());
+                    }
+                } else {
+                    for (int j = 0; j < LIST_SIZE; ++j) {
+                        Value val = new Value(siblings.get(j));
+                        if (val.isHashCode()) {
+                            hashes.push(val.asBytes());
+                        }
+                    }
+                }
+            }
+        }
+        return count;
+    }
 }
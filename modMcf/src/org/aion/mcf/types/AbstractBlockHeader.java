@@ -87,12 +87,20 @@ public abstract class AbstractBlockHeader {
      */
     protected long energyLimit;
 
+    /**
+     * Called after a field of the header changed, to discard any value derived from the fields.
+     *
+     * @param sealOnly {@code true} when only the nonce or the solution changed
+     */
+    protected void fieldsChanged(boolean sealOnly) {}
+
     public byte[] getSolution() {
         return solution;
     }
 
     public void setSolution(byte[] solution) {
         this.solution = solution;
+        fieldsChanged(true);
     }
 
     public AbstractBlockHeader() {}
@@ -107,6 +115,7 @@ public abstract class AbstractBlockHeader {
 
     public void setCoinbase(Address coinbase) {
         this.coinbase = (Address) coinbase;
+        fieldsChanged(false);
     }
 
     public byte[] getStateRoot() {
@@ -115,6 +124,7 @@ public abstract class AbstractBlockHeader {
 
     public void setStateRoot(byte[] stateRoot) {
         this.stateRoot = stateRoot;
+        fieldsChanged(false);
     }
 
     public byte[] getTxTrieRoot() {
@@ -123,10 +133,12 @@ public abstract class AbstractBlockHeader {
 
     public void setTxTrieRoot(byte[] txTrieRoot) {
         this.txTrieRoot = txTrieRoot;
+        fieldsChanged(false);
     }
 
     public void setReceiptsRoot(byte[] receiptTrieRoot) {
         this.receiptTrieRoot = receiptTrieRoot;
+        fieldsChanged(false);
     }
 
     public byte[] getReceiptsRoot() {
@@ -135,6 +147,7 @@ public abstract class AbstractBlockHeader {
 
     public void setTransactionsRoot(byte[] stateRoot) {
         this.txTrieRoot = stateRoot;
+        fieldsChanged(false);
     }
 
     public byte[] getLogsBloom() {
@@ -163,6 +176,7 @@ public abstract class AbstractBlockHeader {
 
     public void setDifficulty(byte[] difficulty) {
         this.difficulty = difficulty;
+        fieldsChanged(false);
     }
 
     public long getTimestamp() {
@@ -171,6 +185,7 @@ public abstract class AbstractBlockHeader {
 
     public void setTimestamp(long timestamp) {
         this.timestamp = timestamp;
+        fieldsChanged(false);
     }
 
     public long getNumber() {
@@ -179,6 +194,7 @@ public abstract class AbstractBlockHeader {
 
     public void setNumber(long number) {
         this.number = number;
+        fieldsChanged(false);
     }
 
     public byte[] getExtraData() {
@@ -191,14 +207,17 @@ public abstract class AbstractBlockHeader {
 
     public void setNonce(byte[] nonce) {
         this.nonce = nonce;
+        fieldsChanged(true);
     }
 
     public void setLogsBloom(byte[] logsBloom) {
         this.logsBloom = logsBloom;
+        fieldsChanged(false);
     }
 
     public void setExtraData(byte[] extraData) {
         this.extraData = extraData;
+        fieldsChanged(false);
     }
 
     public boolean isGenesis() {
@@ -220,5 +239,6 @@ public abstract class AbstractBlockHeader {
 
     public void setVersion(byte version) {
         this.version = version;
+        fieldsChanged(false);
     }
 }
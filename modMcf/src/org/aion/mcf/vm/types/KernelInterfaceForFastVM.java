@@ -2,6 +2,7 @@ package org.aion.mcf.vm.types;
 
 import com.google.common.annotations.VisibleForTesting;
 import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.aion.interfaces.db.InternalVmType;
 import org.aion.interfaces.db.RepositoryCache;
 import org.aion.interfaces.vm.DataWord;
@@ -10,12 +11,14 @@ import org.aion.mcf.db.IBlockStoreBase;
 import org.aion.mcf.valid.TxNrgRule;
 import org.aion.types.Address;
 import org.aion.types.ByteArrayWrapper;
+import org.aion.util.bytes.ByteUtil;
 import org.aion.vm.api.interfaces.KernelInterface;
 
 public class KernelInterfaceForFastVM implements KernelInterface {
     private RepositoryCache<AccountState, IBlockStoreBase<?, ?>> repositoryCache;
     private boolean allowNonceIncrement, isLocalCall;
     private boolean fork040Enable;
+    private AtomicBoolean aborted;
 
     @VisibleForTesting
     public KernelInterfaceForFastVM(
@@ -70,18 +73,39 @@ public class KernelInterfaceForFastVM implements KernelInterface {
         this.blockCoinbase = blockCoinbase;
     }
 
+    /**
+     * Makes the kernel of a local call stop reading contract code, storage and balances once the
+     * given flag is set, so that an aborted call finishes on its remaining energy without reading
+     * the state any further. The results of an aborted call are meaningless.
+     *
+     * @throws IllegalStateException if the kernel is not for a local call
+     */
+    public void setAbortSignal(AtomicBoolean aborted) {
+        if (!this.isLocalCall) {
+            throw new IllegalStateException("Only local calls can be aborted.");
+        }
+        this.aborted = aborted;
+    }
+
+    private boolean isAborted() {
+        return this.aborted != null && this.aborted.get();
+    }
+
     @Override
     public KernelInterfaceForFastVM makeChildKernelInterface() {
-        return new KernelInterfaceForFastVM(
-                this.repositoryCache.startTracking(),
-                this.allowNonceIncrement,
-                this.isLocalCall,
-                this.fork040Enable,
-                this.blockDifficulty,
-                this.blockNumber,
-                this.blockTimestamp,
-                this.blockNrgLimit,
-                this.blockCoinbase);
+        KernelInterfaceForFastVM child =
+                new KernelInterfaceForFastVM(
+                        this.repositoryCache.startTracking(),
+                        this.allowNonceIncrement,
+                        this.isLocalCall,
+                        this.fork040Enable,
+                        this.blockDifficulty,
+                        this.blockNumber,
+                        this.blockTimestamp,
+                        this.blockNrgLimit,
+                        this.blockCoinbase);
+        child.aborted = this.aborted;
+        return child;
     }
 
     @Override
@@ -114,6 +138,9 @@ public class KernelInterfaceForFastVM implements KernelInterface {
 
     @Override
     public boolean hasAccountState(Address address) {
+        if (isAborted()) {
+            return false;
+        }
         return this.repositoryCache.hasAccountState(address);
     }
 
@@ -126,6 +153,9 @@ public class KernelInterfaceForFastVM implements KernelInterface {
 
     @Override
     public byte[] getCode(Address address) {
+        if (isAborted()) {
+            return ByteUtil.EMPTY_BYTE_ARRAY;
+        }
         return this.repositoryCache.getCode(address);
     }
 
@@ -174,6 +204,9 @@ public class KernelInterfaceForFastVM implements KernelInterface {
 
     @Override
     public byte[] getStorage(Address address, byte[] key) {
+        if (isAborted()) {
+            return DataWordImpl.ZERO.getData();
+        }
         ByteArrayWrapper storageKey = alignDataToWordSize(key);
         ByteArrayWrapper value = this.repositoryCache.getStorageValue(address, storageKey);
         if (value != null && (value.isZero() || value.isEmpty())) {
@@ -193,6 +226,9 @@ public class KernelInterfaceForFastVM implements KernelInterface {
 
     @Override
     public BigInteger getBalance(Address address) {
+        if (isAborted()) {
+            return BigInteger.ZERO;
+        }
         return this.repositoryCache.getBalance(address);
     }
 
@@ -0,0 +1,106 @@
+package org.aion.mcf.db;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.aion.mcf.ds.Serializer;
+import org.junit.Test;
+
+/** Tests for {@link ReceiptBundle}. */
+public class ReceiptBundleTest {
+
+    /** Counts the decoded entries to check that decoding is lazy. */
+    private static class CountingSerializer implements Serializer<String, byte[]> {
+        private final AtomicInteger decoded = new AtomicInteger();
+
+        @Override
+        public byte[] serialize(String object) {
+            return object.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String deserialize(byte[] stream) {
+            decoded.incrementAndGet();
+            return new String(stream, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static byte[] encode(CountingSerializer serializer, List<String> values) {
+        List<byte[]> entries = new ArrayList<>();
+        for (String value : values) {
+            entries.add(serializer.serialize(value));
+        }
+        return ReceiptBundle.encode(entries);
+    }
+
+    @Test
+    public void testRoundTrip() {
+        CountingSerializer serializer = new CountingSerializer();
+        List<String> values = Arrays.asList("first", "", "third receipt", "4");
+
+        ReceiptBundle<String> bundle = ReceiptBundle.wrap(encode(serializer, values), serializer);
+
+        assertThat(bundle).isNotNull();
+        assertThat(bundle).containsExactlyElementsIn(values).inOrder();
+    }
+
+    @Test
+    public void testLazyDecoding() {
+        CountingSerializer serializer = new CountingSerializer();
+        List<String> values = Arrays.asList("a", "bb", "ccc", "dddd", "eeeee");
+
+        ReceiptBundle<String> bundle = ReceiptBundle.wrap(encode(serializer, values), serializer);
+
+        assertThat(bundle.size()).isEqualTo(5);
+        assertThat(serializer.decoded.get()).isEqualTo(0);
+
+        assertThat(bundle.get(3)).isEqualTo("dddd");
+        assertThat(bundle.get(3)).isEqualTo("dddd");
+        assertThat(serializer.decoded.get()).isEqualTo(1);
+
+        assertThat(new String(bundle.getEncoded(0), StandardCharsets.UTF_8)).isEqualTo("a");
+    }
+
+    @Test
+    public void testEmptyBundle() {
+        CountingSerializer serializer = new CountingSerializer();
+
+        ReceiptBundle<String> bundle =
+                ReceiptBundle.wrap(encode(serializer, Collections.emptyList()), serializer);
+
+        assertThat(bundle).isNotNull();
+        assertThat(bundle).isEmpty();
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testIndexOutOfBounds() {
+        CountingSerializer serializer = new CountingSerializer();
+        ReceiptBundle.wrap(encode(serializer, Arrays.asList("a", "b")), serializer).get(2);
+    }
+
+    @Test
+    public void testInvalidData() {
+        CountingSerializer serializer = new CountingSerializer();
+        byte[] valid = encode(serializer, Arrays.asList("a", "bb"));
+
+        assertThat(ReceiptBundle.wrap(null, serializer)).isNull();
+        assertThat(ReceiptBundle.wrap(new byte[3], serializer)).isNull();
+        // truncated entries
+        assertThat(ReceiptBundle.wrap(Arrays.copyOf(valid, valid.length - 1), serializer)).isNull();
+        // trailing bytes
+        assertThat(ReceiptBundle.wrap(Arrays.copyOf(valid, valid.length + 1), serializer)).isNull();
+        // count larger than the offset table
+        byte[] count = valid.clone();
+        count[3] = 100;
+        assertThat(ReceiptBundle.wrap(count, serializer)).isNull();
+        // decreasing offsets
+        byte[] offsets = valid.clone();
+        offsets[11] = 0;
+        assertThat(ReceiptBundle.wrap(offsets, serializer)).isNull();
+    }
+}
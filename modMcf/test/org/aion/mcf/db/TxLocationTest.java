@@ -0,0 +1,28 @@
+package org.aion.mcf.db;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.Test;
+
+/** Tests for {@link TxLocation}. */
+public class TxLocationTest {
+
+    @Test
+    public void testEncodeDecode() {
+        byte[] blockHash = RandomUtils.nextBytes(32);
+        TxLocation location = new TxLocation(Long.MAX_VALUE - 1, blockHash, 1234);
+
+        TxLocation decoded = TxLocation.decode(location.getEncoded());
+        assertThat(decoded.getBlockNumber()).isEqualTo(Long.MAX_VALUE - 1);
+        assertThat(decoded.getBlockHash()).isEqualTo(blockHash);
+        assertThat(decoded.getIndex()).isEqualTo(1234);
+    }
+
+    @Test
+    public void testDecode_invalidData() {
+        assertThat(TxLocation.decode(null)).isNull();
+        assertThat(TxLocation.decode(new byte[0])).isNull();
+        assertThat(TxLocation.decode(new byte[Long.BYTES + Integer.BYTES])).isNull();
+    }
+}
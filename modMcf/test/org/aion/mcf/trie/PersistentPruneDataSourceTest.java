@@ -0,0 +1,241 @@
+package org.aion.mcf.trie;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.aion.db.impl.DatabaseFactory;
+import org.aion.db.impl.mockdb.MockDB;
+import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PersistentPruneDataSourceTest {
+
+    private static final byte NAMESPACE = 's';
+
+    private static final byte[] k1 = "key1".getBytes();
+    private static final byte[] v1 = "value1".getBytes();
+
+    private static final byte[] k2 = "key2".getBytes();
+    private static final byte[] v2 = "value2".getBytes();
+
+    private static final byte[] k3 = "key3".getBytes();
+    private static final byte[] v3 = "value3".getBytes();
+
+    private ByteArrayKeyValueDatabase source_db;
+    private ByteArrayKeyValueDatabase journal_db;
+    private PersistentPruneDataSource db;
+
+    @Before
+    public void open() {
+        source_db = DatabaseFactory.connect("TestDB");
+        journal_db = DatabaseFactory.connect("TestJournal");
+        assertThat(source_db.open()).isTrue();
+        assertThat(journal_db.open()).isTrue();
+
+        db = new PersistentPruneDataSource(source_db, journal_db, NAMESPACE);
+        db.setPruneEnabled(true);
+    }
+
+    @After
+    public void close() {
+        db.close();
+        journal_db.close();
+        assertThat(source_db.isClosed()).isTrue();
+    }
+
+    private static byte[] hash(int i) {
+        byte[] hash = new byte[32];
+        hash[0] = (byte) i;
+        return hash;
+    }
+
+    private void pruneAndWait(int block) throws InterruptedException {
+        db.prune(hash(block), block);
+        db.waitForPrune();
+        assertThat(db.getPendingPruneCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testPruneDeletes() throws InterruptedException {
+        db.put(k1, v1);
+        db.put(k2, v2);
+        db.storeBlockChanges(hash(1), 1);
+
+        db.delete(k1);
+        db.storeBlockChanges(hash(2), 2);
+
+        // the delete is delayed
+        assertThat(source_db.get(k1).isPresent()).isTrue();
+
+        pruneAndWait(1);
+        assertThat(source_db.get(k1).isPresent()).isTrue();
+
+        pruneAndWait(2);
+        assertThat(source_db.get(k1).isPresent()).isFalse();
+        assertThat(source_db.get(k2).get()).isEqualTo(v2);
+    }
+
+    @Test
+    public void testPruneKeepsReinsertedKeys() throws InterruptedException {
+        db.put(k1, v1);
+        db.storeBlockChanges(hash(1), 1);
+
+        db.delete(k1);
+        db.storeBlockChanges(hash(2), 2);
+
+        db.put(k1, v1);
+        db.storeBlockChanges(hash(3), 3);
+
+        pruneAndWait(1);
+        pruneAndWait(2);
+        assertThat(source_db.get(k1).get()).isEqualTo(v1);
+
+        pruneAndWait(3);
+        assertThat(source_db.get(k1).get()).isEqualTo(v1);
+    }
+
+    @Test
+    public void testPruneRollsBackForks() throws InterruptedException {
+        db.put(k1, v1);
+        db.storeBlockChanges(hash(1), 1);
+
+        // two blocks with the same number
+        db.put(k2, v2);
+        db.storeBlockChanges(hash(2), 2);
+        db.put(k3, v3);
+        db.storeBlockChanges(hash(22), 2);
+
+        pruneAndWait(1);
+        pruneAndWait(2);
+
+        assertThat(source_db.get(k1).isPresent()).isTrue();
+        assertThat(source_db.get(k2).isPresent()).isTrue();
+        assertThat(source_db.get(k3).isPresent()).isFalse();
+    }
+
+    @Test
+    public void testJournalEmptiedByPruning() throws InterruptedException {
+        db.put(k1, v1);
+        db.storeBlockChanges(hash(1), 1);
+        db.delete(k1);
+        db.put(k2, v2);
+        db.storeBlockChanges(hash(2), 2);
+
+        pruneAndWait(1);
+        pruneAndWait(2);
+
+        // only the position of the queue is left
+        assertThat(count(journal_db)).isEqualTo(1);
+    }
+
+    @Test
+    public void testPruneResumedAfterRestart() throws InterruptedException {
+        db.put(k1, v1);
+        db.storeBlockChanges(hash(1), 1);
+        db.delete(k1);
+        db.storeBlockChanges(hash(2), 2);
+
+        db.stopPruning();
+        db.prune(hash(1), 1);
+        db.prune(hash(2), 2);
+        assertThat(db.getPendingPruneCount()).isEqualTo(2);
+
+        db = new PersistentPruneDataSource(source_db, journal_db, NAMESPACE);
+        assertThat(db.getPendingPruneCount()).isEqualTo(2);
+        assertThat(source_db.get(k1).isPresent()).isTrue();
+
+        db.setPruneEnabled(true);
+        db.waitForPrune();
+
+        assertThat(db.getPendingPruneCount()).isEqualTo(0);
+        assertThat(source_db.get(k1).isPresent()).isFalse();
+    }
+
+    @Test
+    public void testNamespacesAreIndependent() throws InterruptedException {
+        ByteArrayKeyValueDatabase other_db = DatabaseFactory.connect("OtherDB");
+        assertThat(other_db.open()).isTrue();
+        PersistentPruneDataSource other =
+                new PersistentPruneDataSource(other_db, journal_db, (byte) 'x');
+        other.setPruneEnabled(true);
+
+        db.put(k1, v1);
+        other.put(k1, v1);
+        db.storeBlockChanges(hash(1), 1);
+        other.storeBlockChanges(hash(1), 1);
+        db.delete(k1);
+        db.storeBlockChanges(hash(2), 2);
+
+        pruneAndWait(1);
+        pruneAndWait(2);
+
+        assertThat(source_db.get(k1).isPresent()).isFalse();
+        assertThat(other_db.get(k1).isPresent()).isTrue();
+        other.close();
+    }
+
+    @Test
+    public void testPruneRetriedAfterFailure() throws InterruptedException {
+        AtomicInteger failures = new AtomicInteger(1);
+        MockDB failing_db =
+                new MockDB("FailingDB") {
+                    @Override
+                    public void deleteBatchInternal(Collection<byte[]> keys) {
+                        if (failures.getAndDecrement() > 0) {
+                            throw new RuntimeException("Simulated failure.");
+                        }
+                        super.deleteBatchInternal(keys);
+                    }
+                };
+        assertThat(failing_db.open()).isTrue();
+        PersistentPruneDataSource failing =
+                new PersistentPruneDataSource(failing_db, journal_db, (byte) 'f');
+        failing.setPruneEnabled(true);
+
+        failing.put(k1, v1);
+        failing.storeBlockChanges(hash(1), 1);
+        failing.delete(k1);
+        failing.storeBlockChanges(hash(2), 2);
+        failing.prune(hash(1), 1);
+        failing.prune(hash(2), 2);
+
+        // the failed block is pruned again instead of stopping the pruning
+        long start = System.currentTimeMillis();
+        failing.waitForPrune();
+        assertThat(System.currentTimeMillis() - start)
+                .isAtLeast(PersistentPruneDataSource.RETRY_MIN_MILLIS);
+        assertThat(failures.get()).isLessThan(0);
+        assertThat(failing.getPendingPruneCount()).isEqualTo(0);
+        assertThat(failing_db.get(k1).isPresent()).isFalse();
+        failing.close();
+    }
+
+    @Test
+    public void testPruneDisabled() {
+        db.setPruneEnabled(false);
+
+        db.put(k1, v1);
+        db.delete(k1);
+        db.storeBlockChanges(hash(1), 1);
+        db.prune(hash(1), 1);
+
+        // the deletes are ignored as in the in-memory journal
+        assertThat(source_db.get(k1).get()).isEqualTo(v1);
+        assertThat(db.getPendingPruneCount()).isEqualTo(0);
+        assertThat(count(journal_db)).isEqualTo(0);
+    }
+
+    private static int count(ByteArrayKeyValueDatabase db) {
+        int count = 0;
+        Iterator<byte[]> keys = db.keys();
+        while (keys.hasNext()) {
+            keys.next();
+            count++;
+        }
+        return count;
+    }
+}
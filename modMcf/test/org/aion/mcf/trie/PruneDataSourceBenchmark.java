@@ -0,0 +1,95 @@
+package org.aion.mcf.trie;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.aion.db.impl.DatabaseFactory;
+import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Compares the heap held by the pruning journal and the time spent committing blocks for the
+ * in-memory and the persistent journals, over a pruning window similar to a mainnet node.
+ */
+public class PruneDataSourceBenchmark {
+
+    private static final int WINDOW = 1000;
+    private static final int BLOCKS = 3000;
+    private static final int INSERTS_PER_BLOCK = 200;
+    private static final int DELETES_PER_BLOCK = 150;
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /** @return the average nanoseconds spent by the importing thread per block */
+    private static long importBlocks(PruneDataSource db) {
+        Random random = new Random(42);
+        List<byte[]> live = new ArrayList<>();
+        byte[][] hashes = new byte[BLOCKS][32];
+        long commitNanos = 0;
+
+        for (int block = 0; block < BLOCKS; block++) {
+            for (int i = 0; i < INSERTS_PER_BLOCK; i++) {
+                byte[] key = new byte[32];
+                random.nextBytes(key);
+                db.put(key, key);
+                live.add(key);
+            }
+            for (int i = 0; i < DELETES_PER_BLOCK && !live.isEmpty(); i++) {
+                db.delete(live.remove(random.nextInt(live.size())));
+            }
+
+            random.nextBytes(hashes[block]);
+
+            long start = System.nanoTime();
+            db.storeBlockChanges(hashes[block], block);
+            if (block >= WINDOW) {
+                db.prune(hashes[block - WINDOW], block - WINDOW);
+            }
+            commitNanos += System.nanoTime() - start;
+        }
+        return commitNanos / BLOCKS;
+    }
+
+    private static ByteArrayKeyValueDatabase openDatabase(String name) {
+        ByteArrayKeyValueDatabase db = DatabaseFactory.connect(name);
+        db.open();
+        return db;
+    }
+
+    @Ignore
+    @Test
+    public void benchmarkJournals() throws InterruptedException {
+        long base = usedHeap();
+        JournalPruneDataSource memory = new JournalPruneDataSource(openDatabase("memory"));
+        memory.setPruneEnabled(true);
+        long memoryCommit = importBlocks(memory);
+        long memoryHeap = usedHeap() - base;
+        memory.close();
+
+        base = usedHeap();
+        ByteArrayKeyValueDatabase journal = openDatabase("journal");
+        PersistentPruneDataSource persistent =
+                new PersistentPruneDataSource(openDatabase("persistent"), journal, (byte) 's');
+        persistent.setPruneEnabled(true);
+        long persistentCommit = importBlocks(persistent);
+        persistent.waitForPrune();
+        // the mock journal database lives on the heap as well
+        long persistentHeap = usedHeap() - base;
+        persistent.close();
+        journal.close();
+
+        System.out.format(
+                "in-memory:  %8d KB retained, %6d us per commit%n",
+                memoryHeap / 1024, memoryCommit / 1000);
+        System.out.format(
+                "persistent: %8d KB retained (journal included), %6d us per commit%n",
+                persistentHeap / 1024, persistentCommit / 1000);
+    }
+}
@@ -7,11 +7,18 @@ public class Header {
 
     public static final int LEN = 8;
 
+    /**
+     * Bit set on the encoded ctrl byte when the body has been compressed by the sender. It is only
+     * ever sent to peers that advertised compression support during the handshake.
+     */
+    public static final byte CTRL_COMPRESSED = 0x40;
+
     private static final int MAX_BODY_LEN_BYTES = P2pConstant.MAX_BODY_SIZE;
     private final short ver;
     private final byte ctrl;
     private final byte action;
     private int len;
+    private boolean compressed;
 
     /**
      * @param _ver short
@@ -55,9 +62,32 @@ public class Header {
         this.len = _len;
     }
 
+    /** @return boolean true when the body following this header is compressed */
+    public boolean isCompressed() {
+        return this.compressed;
+    }
+
     /** @return byte[] */
     public byte[] encode() {
-        return ByteBuffer.allocate(LEN).putInt(this.getRoute()).putInt(len).array();
+        return compressed
+                ? encodeCompressed(len)
+                : ByteBuffer.allocate(LEN).putInt(this.getRoute()).putInt(len).array();
+    }
+
+    /**
+     * Encodes this header for a compressed body without modifying the header itself, which may be
+     * shared by the same message sent to several peers.
+     *
+     * @param _len int length of the compressed body
+     * @return byte[]
+     */
+    public byte[] encodeCompressed(int _len) {
+        return ByteBuffer.allocate(LEN)
+                .putShort(ver)
+                .put((byte) (ctrl | CTRL_COMPRESSED))
+                .put(action)
+                .putInt(_len)
+                .array();
     }
 
     /**
@@ -76,7 +106,9 @@ public class Header {
             if (len > MAX_BODY_LEN_BYTES) {
                 throw new IndexOutOfBoundsException("exceed-max-body-size");
             }
-            return new Header(ver, ctrl, action, len);
+            Header header = new Header(ver, (byte) (ctrl & ~CTRL_COMPRESSED), action, len);
+            header.compressed = (ctrl & CTRL_COMPRESSED) != 0;
+            return header;
         }
     }
 }
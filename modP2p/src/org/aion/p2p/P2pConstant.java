@@ -18,6 +18,9 @@ public class P2pConstant {
 
             // write queue timeout
             WRITE_MSG_TIMEOUT = 5000,
+
+            // sync message bodies below this size are never compressed
+            COMPRESSION_THRESHOLD = 1024,
             REQUEST_SIZE = 24,
             LARGE_REQUEST_SIZE = 40,
 
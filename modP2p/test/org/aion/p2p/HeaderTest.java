@@ -1,6 +1,9 @@
 package org.aion.p2p;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.util.concurrent.ThreadLocalRandom;
 import org.junit.Before;
@@ -71,6 +74,20 @@ public class HeaderTest {
         Header.decode(bytes);
     }
 
+    @Test
+    public void encodeDecodeCompressed() {
+        byte[] bytes = hd.encodeCompressed(4);
+        Header hdr = Header.decode(bytes);
+        assertTrue(hdr.isCompressed());
+        assertFalse(hd.isCompressed());
+        assertEquals(version, hdr.getVer());
+        assertEquals(ctl, hdr.getCtrl());
+        assertEquals(action, hdr.getAction());
+        assertEquals(4, hdr.getLen());
+        assertEquals(route, hdr.getRoute());
+        assertArrayEquals(bytes, hdr.encode());
+    }
+
     @Test
     public void repeatEncodeDecode() {
         for (int i = 0; i < 100; i++) {
@@ -0,0 +1,86 @@
+package org.aion.p2p.impl.comm;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Per-peer counters for the negotiated message body compression. */
+public final class CompressionStats {
+
+    private final AtomicLong msgOut = new AtomicLong();
+    private final AtomicLong rawBytesOut = new AtomicLong();
+    private final AtomicLong wireBytesOut = new AtomicLong();
+    private final AtomicLong compressNanos = new AtomicLong();
+
+    private final AtomicLong msgIn = new AtomicLong();
+    private final AtomicLong rawBytesIn = new AtomicLong();
+    private final AtomicLong wireBytesIn = new AtomicLong();
+    private final AtomicLong decompressNanos = new AtomicLong();
+
+    /**
+     * @param _rawLen int body length before compression
+     * @param _wireLen int body length written to the socket
+     * @param _nanos long time spent compressing
+     */
+    public void recordOut(int _rawLen, int _wireLen, long _nanos) {
+        msgOut.incrementAndGet();
+        rawBytesOut.addAndGet(_rawLen);
+        wireBytesOut.addAndGet(_wireLen);
+        compressNanos.addAndGet(_nanos);
+    }
+
+    /**
+     * @param _rawLen int body length after decompression
+     * @param _wireLen int body length read from the socket
+     * @param _nanos long time spent decompressing
+     */
+    public void recordIn(int _rawLen, int _wireLen, long _nanos) {
+        msgIn.incrementAndGet();
+        rawBytesIn.addAndGet(_rawLen);
+        wireBytesIn.addAndGet(_wireLen);
+        decompressNanos.addAndGet(_nanos);
+    }
+
+    /** @return double wire bytes / raw bytes for compressed outbound messages */
+    public double getRatioOut() {
+        long raw = rawBytesOut.get();
+        return raw == 0 ? 1d : (double) wireBytesOut.get() / raw;
+    }
+
+    /** @return double wire bytes / raw bytes for compressed inbound messages */
+    public double getRatioIn() {
+        long raw = rawBytesIn.get();
+        return raw == 0 ? 1d : (double) wireBytesIn.get() / raw;
+    }
+
+    public long getMsgOut() {
+        return msgOut.get();
+    }
+
+    public long getMsgIn() {
+        return msgIn.get();
+    }
+
+    public long getBytesSaved() {
+        return rawBytesOut.get() - wireBytesOut.get() + rawBytesIn.get() - wireBytesIn.get();
+    }
+
+    public long getCompressNanos() {
+        return compressNanos.get();
+    }
+
+    public long getDecompressNanos() {
+        return decompressNanos.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "out[msg=%d ratio=%.3f cpu=%dms] in[msg=%d ratio=%.3f cpu=%dms] saved=%dKB",
+                getMsgOut(),
+                getRatioOut(),
+                getCompressNanos() / 1_000_000,
+                getMsgIn(),
+                getRatioIn(),
+                getDecompressNanos() / 1_000_000,
+                getBytesSaved() / 1024);
+    }
+}
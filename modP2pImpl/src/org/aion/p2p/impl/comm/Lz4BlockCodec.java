@@ -0,0 +1,218 @@
+package org.aion.p2p.impl.comm;
+
+import java.util.Arrays;
+
+/**
+ * Pure java LZ77 codec using the LZ4 block sequence format, used to compress large sync message
+ * bodies between peers that negotiated compression during the handshake.
+ *
+ * <p>The encoded form is a 4 byte big-endian uncompressed length followed by the LZ4 sequences.
+ */
+public final class Lz4BlockCodec {
+
+    private static final int MIN_MATCH = 4;
+    private static final int LAST_LITERALS = 5;
+    private static final int MF_LIMIT = 12;
+    private static final int MAX_DISTANCE = 0xFFFF;
+    private static final int HASH_LOG = 12;
+    private static final int RUN_MASK = 0x0F;
+    private static final int SIZE_LEN = 4;
+
+    private Lz4BlockCodec() {}
+
+    /**
+     * @param _len int uncompressed length
+     * @return int upper bound of the encoded size, including the length prefix
+     */
+    public static int maxCompressedLength(int _len) {
+        return SIZE_LEN + _len + _len / 255 + 16;
+    }
+
+    /**
+     * @param _src byte[] uncompressed bytes
+     * @return byte[] length prefixed compressed bytes
+     */
+    public static byte[] compress(final byte[] _src) {
+        int srcLen = _src.length;
+        byte[] dst = new byte[maxCompressedLength(srcLen)];
+        writeIntBE(dst, 0, srcLen);
+        int dp = SIZE_LEN;
+
+        int anchor = 0;
+        if (srcLen >= MF_LIMIT + 1) {
+            // positions are stored +1 so that 0 marks an empty slot
+            int[] table = new int[1 << HASH_LOG];
+            int matchLimit = srcLen - LAST_LITERALS;
+            int sp = 0;
+            while (sp < srcLen - MF_LIMIT) {
+                int seq = readInt(_src, sp);
+                int h = hash(seq);
+                int ref = table[h] - 1;
+                table[h] = sp + 1;
+
+                if (ref < 0 || sp - ref > MAX_DISTANCE || readInt(_src, ref) != seq) {
+                    sp++;
+                    continue;
+                }
+
+                int matchLen = MIN_MATCH;
+                while (sp + matchLen < matchLimit && _src[ref + matchLen] == _src[sp + matchLen]) {
+                    matchLen++;
+                }
+
+                dp = writeSequence(_src, anchor, sp - anchor, sp - ref, matchLen, dst, dp);
+                sp += matchLen;
+                anchor = sp;
+            }
+        }
+
+        dp = writeLiterals(_src, anchor, srcLen - anchor, dst, dp);
+        return Arrays.copyOf(dst, dp);
+    }
+
+    /**
+     * @param _src byte[] length prefixed compressed bytes
+     * @param _maxLen int upper bound accepted for the uncompressed length
+     * @return byte[] uncompressed bytes
+     * @throws IllegalArgumentException when the input is malformed or declares a size above {@code
+     *     _maxLen}
+     */
+    public static byte[] decompress(final byte[] _src, int _maxLen) {
+        if (_src == null || _src.length < SIZE_LEN + 1) {
+            throw new IllegalArgumentException("lz4-short-input");
+        }
+
+        int dstLen = readIntBE(_src, 0);
+        if (dstLen < 0 || dstLen > _maxLen) {
+            throw new IllegalArgumentException("lz4-invalid-length=" + dstLen);
+        }
+
+        byte[] dst = new byte[dstLen];
+        int sp = SIZE_LEN;
+        int dp = 0;
+        try {
+            while (sp < _src.length) {
+                int token = _src[sp++] & 0xFF;
+
+                int litLen = token >>> 4;
+                if (litLen == RUN_MASK) {
+                    int b;
+                    do {
+                        b = _src[sp++] & 0xFF;
+                        litLen += b;
+                    } while (b == 0xFF);
+                }
+                System.arraycopy(_src, sp, dst, dp, litLen);
+                sp += litLen;
+                dp += litLen;
+
+                // the last sequence only carries literals
+                if (sp == _src.length) {
+                    break;
+                }
+
+                int offset = (_src[sp++] & 0xFF) | ((_src[sp++] & 0xFF) << 8);
+                int matchLen = token & RUN_MASK;
+                if (matchLen == RUN_MASK) {
+                    int b;
+                    do {
+                        b = _src[sp++] & 0xFF;
+                        matchLen += b;
+                    } while (b == 0xFF);
+                }
+                matchLen += MIN_MATCH;
+
+                int ref = dp - offset;
+                if (offset == 0 || ref < 0 || dp + matchLen > dstLen) {
+                    throw new IllegalArgumentException("lz4-invalid-match offset=" + offset);
+                }
+
+                if (offset >= matchLen) {
+                    System.arraycopy(dst, ref, dst, dp, matchLen);
+                    dp += matchLen;
+                } else {
+                    // overlapping copy, repeats the last offset bytes
+                    for (int i = 0; i < matchLen; i++) {
+                        dst[dp++] = dst[ref++];
+                    }
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("lz4-corrupted-input", e);
+        }
+
+        if (dp != dstLen) {
+            throw new IllegalArgumentException("lz4-length-mismatch " + dp + "/" + dstLen);
+        }
+        return dst;
+    }
+
+    private static int writeSequence(
+            byte[] _src,
+            int _litOff,
+            int _litLen,
+            int _offset,
+            int _matchLen,
+            byte[] _dst,
+            int _dp) {
+        int matchCode = _matchLen - MIN_MATCH;
+        int tokenPos = _dp++;
+        int token = (Math.min(_litLen, RUN_MASK) << 4) | Math.min(matchCode, RUN_MASK);
+
+        _dp = writeLength(_litLen, _dst, _dp);
+        System.arraycopy(_src, _litOff, _dst, _dp, _litLen);
+        _dp += _litLen;
+
+        _dst[_dp++] = (byte) _offset;
+        _dst[_dp++] = (byte) (_offset >>> 8);
+
+        _dp = writeLength(matchCode, _dst, _dp);
+        _dst[tokenPos] = (byte) token;
+        return _dp;
+    }
+
+    private static int writeLiterals(byte[] _src, int _litOff, int _litLen, byte[] _dst, int _dp) {
+        _dst[_dp++] = (byte) (Math.min(_litLen, RUN_MASK) << 4);
+        _dp = writeLength(_litLen, _dst, _dp);
+        System.arraycopy(_src, _litOff, _dst, _dp, _litLen);
+        return _dp + _litLen;
+    }
+
+    /** writes the extra length bytes of a literal or match run longer than the token nibble */
+    private static int writeLength(int _len, byte[] _dst, int _dp) {
+        if (_len >= RUN_MASK) {
+            int rest = _len - RUN_MASK;
+            while (rest >= 0xFF) {
+                _dst[_dp++] = (byte) 0xFF;
+                rest -= 0xFF;
+            }
+            _dst[_dp++] = (byte) rest;
+        }
+        return _dp;
+    }
+
+    private static int hash(int _seq) {
+        return (_seq * -1640531535) >>> (32 - HASH_LOG);
+    }
+
+    private static int readInt(byte[] _b, int _off) {
+        return (_b[_off] & 0xFF)
+                | (_b[_off + 1] & 0xFF) << 8
+                | (_b[_off + 2] & 0xFF) << 16
+                | (_b[_off + 3] & 0xFF) << 24;
+    }
+
+    private static int readIntBE(byte[] _b, int _off) {
+        return (_b[_off] & 0xFF) << 24
+                | (_b[_off + 1] & 0xFF) << 16
+                | (_b[_off + 2] & 0xFF) << 8
+                | (_b[_off + 3] & 0xFF);
+    }
+
+    private static void writeIntBE(byte[] _b, int _off, int _v) {
+        _b[_off] = (byte) (_v >>> 24);
+        _b[_off + 1] = (byte) (_v >>> 16);
+        _b[_off + 2] = (byte) (_v >>> 8);
+        _b[_off + 3] = (byte) _v;
+    }
+}
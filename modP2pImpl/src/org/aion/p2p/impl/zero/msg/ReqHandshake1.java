@@ -16,12 +16,17 @@ public final class ReqHandshake1 extends ReqHandshake {
 
     private List<Short> versions;
 
+    private boolean compression;
+
     // one version byte[2] - short
     private static final byte MAX_VERSIONS_LEN = 63;
 
     // super LEN + revision len (byte) + versions len (byte)
     private static final int MIN_LEN = LEN + 2;
 
+    // optional trailing capability bits, ignored by peers which do not know them
+    static final byte CAP_COMPRESSION = 0x01;
+
     /**
      * @param _nodeId byte[36]
      * @param _netId int
@@ -37,15 +42,33 @@ public final class ReqHandshake1 extends ReqHandshake {
             int _port,
             final byte[] _revision,
             final List<Short> _versions) {
+        this(_nodeId, _netId, _ip, _port, _revision, _versions, false);
+    }
+
+    /** @param _compression boolean advertise support for compressed message bodies */
+    public ReqHandshake1(
+            final byte[] _nodeId,
+            int _netId,
+            final byte[] _ip,
+            int _port,
+            final byte[] _revision,
+            final List<Short> _versions,
+            boolean _compression) {
         super(_nodeId, _netId, _ip, _port);
         this.revision = _revision;
         this.versions = _versions.subList(0, Math.min(MAX_VERSIONS_LEN, _versions.size()));
+        this.compression = _compression;
     }
 
     public byte[] getRevision() {
         return this.revision;
     }
 
+    /** @return boolean true if the sender accepts compressed message bodies */
+    public boolean supportsCompression() {
+        return this.compression;
+    }
+
     /**
      * @param _bytes byte[]
      * @return ReqHandshake decode body
@@ -83,7 +106,10 @@ public final class ReqHandshake1 extends ReqHandshake {
                     versions.add(version);
                 }
 
-                return new ReqHandshake1(nodeId, netId, ip, port, revision, versions);
+                // decode capabilities
+                boolean compression = buf.hasRemaining() && (buf.get() & CAP_COMPRESSION) != 0;
+
+                return new ReqHandshake1(nodeId, netId, ip, port, revision, versions, compression);
             } catch (Exception e) {
                 if (p2pLOG.isDebugEnabled()) {
                     p2pLOG.debug("req-handshake-decode error.", e);
@@ -102,7 +128,13 @@ public final class ReqHandshake1 extends ReqHandshake {
             byte revisionLen = (byte) this.revision.length;
             byte versionsLen = (byte) this.versions.size();
             ByteBuffer buf =
-                    ByteBuffer.allocate(superBytes.length + 1 + revisionLen + 1 + versionsLen * 2);
+                    ByteBuffer.allocate(
+                            superBytes.length
+                                    + 1
+                                    + revisionLen
+                                    + 1
+                                    + versionsLen * 2
+                                    + (this.compression ? 1 : 0));
             buf.put(superBytes);
             buf.put(revisionLen);
             buf.put(this.revision);
@@ -110,6 +142,9 @@ public final class ReqHandshake1 extends ReqHandshake {
             for (Short version : versions) {
                 buf.putShort(version);
             }
+            if (this.compression) {
+                buf.put(CAP_COMPRESSION);
+            }
             return buf.array();
         }
     }
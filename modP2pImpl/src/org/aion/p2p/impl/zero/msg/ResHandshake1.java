@@ -15,8 +15,17 @@ public final class ResHandshake1 extends ResHandshake {
 
     private String binaryVersion;
 
+    private boolean compression;
+
     public ResHandshake1(boolean _success, @Nonnull final String _binaryVersion) {
+        this(_success, _binaryVersion, false);
+    }
+
+    /** @param _compression boolean advertise support for compressed message bodies */
+    public ResHandshake1(
+            boolean _success, @Nonnull final String _binaryVersion, boolean _compression) {
         super(_success);
+        this.compression = _compression;
 
         // truncate string when byte length large then 127
         if (_binaryVersion.getBytes().length > Byte.MAX_VALUE) {
@@ -48,7 +57,12 @@ public final class ResHandshake1 extends ResHandshake {
                         }
                         return null;
                     }
-                    return new ResHandshake1(_bytes[0] == 0x01, binaryVersion);
+
+                    // decode capabilities
+                    boolean compression =
+                            _bytes.length > MIN_LEN + len
+                                    && (_bytes[MIN_LEN + len] & ReqHandshake1.CAP_COMPRESSION) != 0;
+                    return new ResHandshake1(_bytes[0] == 0x01, binaryVersion, compression);
                 } else {
                     if (p2pLOG.isDebugEnabled()) {
                         p2pLOG.debug(
@@ -71,6 +85,11 @@ public final class ResHandshake1 extends ResHandshake {
         return this.binaryVersion;
     }
 
+    /** @return boolean true if the sender accepts compressed message bodies */
+    public boolean supportsCompression() {
+        return this.compression;
+    }
+
     @Override
     public byte[] encode() {
         byte[] superBytes = super.encode();
@@ -98,10 +117,13 @@ public final class ResHandshake1 extends ResHandshake {
                 return null;
             }
         }
-        ByteBuffer buf = ByteBuffer.allocate(superBytes.length + 1 + len);
+        ByteBuffer buf = ByteBuffer.allocate(superBytes.length + 1 + len + (compression ? 1 : 0));
         buf.put(superBytes);
         buf.put((byte) len);
         buf.put(binaryVersionBytes);
+        if (compression) {
+            buf.put(ReqHandshake1.CAP_COMPRESSION);
+        }
         return buf.array();
     }
 }
@@ -34,6 +34,7 @@ import org.aion.p2p.P2pConstant;
 import org.aion.p2p.Ver;
 import org.aion.p2p.impl.TaskRequestActiveNodes;
 import org.aion.p2p.impl.TaskUPnPManager;
+import org.aion.p2p.impl.comm.CompressionStats;
 import org.aion.p2p.impl.comm.Node;
 import org.aion.p2p.impl.comm.NodeMgr;
 import org.aion.p2p.impl.zero.msg.ReqHandshake1;
@@ -46,6 +47,7 @@ import org.aion.p2p.impl1.tasks.TaskInbound;
 import org.aion.p2p.impl1.tasks.TaskReceive;
 import org.aion.p2p.impl1.tasks.TaskSend;
 import org.aion.p2p.impl1.tasks.TaskStatus;
+import org.aion.util.metrics.MetricsRegistry;
 import org.apache.commons.collections4.map.LRUMap;
 import org.slf4j.Logger;
 
@@ -67,7 +69,7 @@ public final class P2pMgr implements IP2pMgr {
     private final int SOCKET_BACKLOG = 1024;
 
     private int maxTempNodes, maxActiveNodes, selfNetId, selfNodeIdHash, selfPort;
-    private boolean syncSeedsOnly, upnpEnable;
+    private boolean syncSeedsOnly, upnpEnable, compression;
     private String selfRevision, selfShortId;
     private byte[] selfNodeId, selfIp;
     private INodeMgr nodeMgr;
@@ -82,6 +84,7 @@ public final class P2pMgr implements IP2pMgr {
     private int errTolerance;
     private BlockingQueue<MsgOut> sendMsgQue = new LinkedBlockingQueue<>();
     private BlockingQueue<MsgIn> receiveMsgQue = new LinkedBlockingQueue<>();
+    private final Map<Integer, CompressionStats> compressionStats = new ConcurrentHashMap<>();
 
     private static ReqHandshake1 cachedReqHandshake1;
     private static ResHandshake1 cachedResHandshake1;
@@ -113,6 +116,38 @@ public final class P2pMgr implements IP2pMgr {
             final int _maxActiveNodes,
             final boolean _bootlistSyncOnly,
             final int _errorTolerance) {
+        this(
+                _netId,
+                _revision,
+                _nodeId,
+                _ip,
+                _port,
+                _bootNodes,
+                _upnpEnable,
+                _maxTempNodes,
+                _maxActiveNodes,
+                _bootlistSyncOnly,
+                _errorTolerance,
+                false);
+    }
+
+    /**
+     * @param _compression boolean advertise support for compressed sync message bodies during the
+     *     handshake; compression is only used with peers which advertise it too
+     */
+    public P2pMgr(
+            final int _netId,
+            final String _revision,
+            final String _nodeId,
+            final String _ip,
+            final int _port,
+            final String[] _bootNodes,
+            final boolean _upnpEnable,
+            final int _maxTempNodes,
+            final int _maxActiveNodes,
+            final boolean _bootlistSyncOnly,
+            final int _errorTolerance,
+            final boolean _compression) {
 
         this.selfNetId = _netId;
         this.selfRevision = _revision;
@@ -126,8 +161,14 @@ public final class P2pMgr implements IP2pMgr {
         this.maxActiveNodes = _maxActiveNodes;
         this.syncSeedsOnly = _bootlistSyncOnly;
         this.errTolerance = _errorTolerance;
+        this.compression = _compression;
 
         nodeMgr = new NodeMgr(this, _maxActiveNodes, _maxTempNodes, p2pLOG);
+        MetricsRegistry.inst()
+                .gauge(
+                        "aion_p2p_active_peers",
+                        "Active peer connections.",
+                        nodeMgr::activeNodesSize);
 
         for (String _bootNode : _bootNodes) {
             Node node = Node.parseP2p(_bootNode);
@@ -144,7 +185,7 @@ public final class P2pMgr implements IP2pMgr {
 
         // rem out for bug:
         // nodeMgr.loadPersistedNodes();
-        cachedResHandshake1 = new ResHandshake1(true, this.selfRevision);
+        cachedResHandshake1 = new ResHandshake1(true, this.selfRevision, this.compression);
     }
 
     @Override
@@ -353,6 +394,7 @@ public final class P2pMgr implements IP2pMgr {
     @Override
     public void dropActive(int _nodeIdHash, String _reason) {
         nodeMgr.dropActive(_nodeIdHash, _reason);
+        compressionStats.remove(_nodeIdHash);
     }
 
     /**
@@ -447,7 +489,8 @@ public final class P2pMgr implements IP2pMgr {
                 this.handlers,
                 this.sendMsgQue,
                 cachedResHandshake1,
-                this.receiveMsgQue);
+                this.receiveMsgQue,
+                this.compressionStats);
     }
 
     private TaskSend getSendInstance(int i) {
@@ -459,7 +502,8 @@ public final class P2pMgr implements IP2pMgr {
     }
 
     private TaskStatus getStatusInstance() {
-        return new TaskStatus(start, nodeMgr, selfShortId, sendMsgQue, receiveMsgQue);
+        return new TaskStatus(
+                start, nodeMgr, selfShortId, sendMsgQue, receiveMsgQue, compressionStats);
     }
 
     private TaskClear getClearInstance() {
@@ -484,6 +528,7 @@ public final class P2pMgr implements IP2pMgr {
                 this.selfIp,
                 this.selfPort,
                 this.selfRevision.getBytes(),
-                versions);
+                versions,
+                this.compression);
     }
 }
@@ -9,6 +9,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import org.aion.p2p.Header;
+import org.aion.p2p.impl.comm.CompressionStats;
 
 /** @author chris */
 class ChannelBuffer {
@@ -24,6 +25,9 @@ class ChannelBuffer {
     private byte[] bsHead = new byte[Header.LEN];
     private AtomicBoolean closed = new AtomicBoolean(false);
 
+    // set once both sides advertised compression support during the handshake
+    private volatile CompressionStats compression = null;
+
     private Map<Integer, RouteStatus> routes = new HashMap<>();
 
     ChannelBuffer() {}
@@ -53,6 +57,15 @@ class ChannelBuffer {
         this.closed.set(true);
     }
 
+    /** @return CompressionStats of this channel, or null when compression was not negotiated */
+    CompressionStats getCompression() {
+        return compression;
+    }
+
+    void setCompression(CompressionStats _compression) {
+        this.compression = _compression;
+    }
+
     int getBuffRemain() {
         return buffRemain;
     }
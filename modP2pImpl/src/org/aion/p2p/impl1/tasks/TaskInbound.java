@@ -26,6 +26,8 @@ import org.aion.p2p.IP2pMgr;
 import org.aion.p2p.P2pConstant;
 import org.aion.p2p.Ver;
 import org.aion.p2p.impl.comm.Act;
+import org.aion.p2p.impl.comm.CompressionStats;
+import org.aion.p2p.impl.comm.Lz4BlockCodec;
 import org.aion.p2p.impl.zero.msg.ReqHandshake;
 import org.aion.p2p.impl.zero.msg.ReqHandshake1;
 import org.aion.p2p.impl.zero.msg.ResActiveNodes;
@@ -33,9 +35,18 @@ import org.aion.p2p.impl.zero.msg.ResHandshake;
 import org.aion.p2p.impl.zero.msg.ResHandshake1;
 import org.aion.p2p.impl1.P2pException;
 import org.aion.p2p.impl1.P2pMgr.Dest;
+import org.aion.util.metrics.Counter;
+import org.aion.util.metrics.MetricsRegistry;
 
 public class TaskInbound implements Runnable {
 
+    private static final Counter RECEIVED_MSGS =
+            MetricsRegistry.inst()
+                    .counter("aion_p2p_received_messages_total", "Messages received from peers.");
+    private static final Counter RECEIVED_BYTES =
+            MetricsRegistry.inst()
+                    .counter("aion_p2p_received_bytes_total", "Bytes received from peers.");
+
     private final IP2pMgr mgr;
     private final Selector selector;
     private final INodeMgr nodeMgr;
@@ -44,6 +55,7 @@ public class TaskInbound implements Runnable {
     private final BlockingQueue<MsgOut> sendMsgQue;
     private final ResHandshake1 cachedResHandshake1;
     private final BlockingQueue<MsgIn> receiveMsgQue;
+    private final Map<Integer, CompressionStats> compressionStats;
 
     public TaskInbound(
             final IP2pMgr _mgr,
@@ -53,7 +65,8 @@ public class TaskInbound implements Runnable {
             final Map<Integer, List<Handler>> _handlers,
             final BlockingQueue<MsgOut> _sendMsgQue,
             final ResHandshake1 _cachedResHandshake1,
-            final BlockingQueue<MsgIn> _receiveMsgQue) {
+            final BlockingQueue<MsgIn> _receiveMsgQue,
+            final Map<Integer, CompressionStats> _compressionStats) {
 
         this.mgr = _mgr;
         this.selector = _selector;
@@ -63,6 +76,7 @@ public class TaskInbound implements Runnable {
         this.sendMsgQue = _sendMsgQue;
         this.cachedResHandshake1 = _cachedResHandshake1;
         this.receiveMsgQue = _receiveMsgQue;
+        this.compressionStats = _compressionStats;
     }
 
     @Override
@@ -292,6 +306,9 @@ public class TaskInbound implements Runnable {
         _cb.refreshHeader();
         _cb.refreshBody();
 
+        RECEIVED_MSGS.inc();
+        RECEIVED_BYTES.inc(Header.LEN + (bodyBytes == null ? 0 : bodyBytes.length));
+
         boolean underRC =
                 _cb.shouldRoute(
                         h.getRoute(),
@@ -312,6 +329,13 @@ public class TaskInbound implements Runnable {
             return;
         }
 
+        if (h.isCompressed()) {
+            bodyBytes = decompress(_cb, h, bodyBytes);
+            if (bodyBytes == null) {
+                return;
+            }
+        }
+
         switch (h.getVer()) {
             case Ver.V0:
                 switch (h.getCtrl()) {
@@ -360,6 +384,37 @@ public class TaskInbound implements Runnable {
         }
     }
 
+    /**
+     * @return byte[] the decompressed body, or null when the peer did not negotiate compression or
+     *     sent a malformed body
+     */
+    private byte[] decompress(final ChannelBuffer _cb, final Header _h, final byte[] _bodyBytes) {
+        CompressionStats compression = _cb.getCompression();
+        if (compression == null) {
+            if (p2pLOG.isDebugEnabled()) {
+                p2pLOG.debug(
+                        "unexpected-compressed-msg route={}-{}-{} node={}",
+                        _h.getVer(),
+                        _h.getCtrl(),
+                        _h.getAction(),
+                        _cb.getDisplayId());
+            }
+            return null;
+        }
+
+        try {
+            long t0 = System.nanoTime();
+            byte[] raw = Lz4BlockCodec.decompress(_bodyBytes, P2pConstant.MAX_BODY_SIZE);
+            compression.recordIn(raw.length, _bodyBytes.length, System.nanoTime() - t0);
+            return raw;
+        } catch (IllegalArgumentException e) {
+            if (p2pLOG.isDebugEnabled()) {
+                p2pLOG.debug("decompress-msg error node=" + _cb.getDisplayId(), e);
+            }
+            return null;
+        }
+    }
+
     private ByteBuffer calBuffer(ChannelBuffer _cb, ByteBuffer _readBuf, int _cnt) {
         ByteBuffer r;
         if (_cb.getBuffRemain() != 0) {
@@ -397,7 +452,8 @@ public class TaskInbound implements Runnable {
                                 reqHandshake1.getNodeId(),
                                 reqHandshake1.getNetId(),
                                 reqHandshake1.getPort(),
-                                reqHandshake1.getRevision());
+                                reqHandshake1.getRevision(),
+                                reqHandshake1.supportsCompression());
                     }
                 }
                 break;
@@ -408,7 +464,9 @@ public class TaskInbound implements Runnable {
                         ResHandshake1 resHandshake1 = ResHandshake1.decode(_msgBytes);
                         if (resHandshake1 != null && resHandshake1.getSuccess()) {
                             handleResHandshake(
-                                    rb.getNodeIdHash(), resHandshake1.getBinaryVersion());
+                                    rb,
+                                    resHandshake1.getBinaryVersion(),
+                                    resHandshake1.supportsCompression());
                         }
                     }
                 }
@@ -466,6 +524,7 @@ public class TaskInbound implements Runnable {
      * @param _netId int
      * @param _port int
      * @param _revision byte[]
+     * @param _compression boolean peer accepts compressed message bodies
      *     <p>Construct node info after handshake request success
      */
     private void handleReqHandshake(
@@ -474,7 +533,8 @@ public class TaskInbound implements Runnable {
             final byte[] _nodeId,
             int _netId,
             int _port,
-            final byte[] _revision) {
+            final byte[] _revision,
+            boolean _compression) {
         INode node = nodeMgr.getInboundNode(_channelHash);
         if (node != null && node.getPeerMetric().notBan()) {
             if (p2pLOG.isDebugEnabled()) {
@@ -500,6 +560,9 @@ public class TaskInbound implements Runnable {
                     String binaryVersion;
                     binaryVersion = new String(_revision, StandardCharsets.UTF_8);
                     node.setBinaryVersion(binaryVersion);
+                    if (_compression && this.cachedResHandshake1.supportsCompression()) {
+                        enableCompression(_buffer);
+                    }
                     nodeMgr.movePeerToActive(_channelHash, "inbound");
                     this.sendMsgQue.offer(
                             new MsgOut(
@@ -517,15 +580,29 @@ public class TaskInbound implements Runnable {
         }
     }
 
-    private void handleResHandshake(int _nodeIdHash, String _binaryVersion) {
-        INode node = nodeMgr.getOutboundNode(_nodeIdHash);
+    private void handleResHandshake(
+            final ChannelBuffer _buffer, String _binaryVersion, boolean _compression) {
+        INode node = nodeMgr.getOutboundNode(_buffer.getNodeIdHash());
         if (node != null && node.getPeerMetric().notBan()) {
             node.refreshTimestamp();
             node.setBinaryVersion(_binaryVersion);
+            // the handshake request only advertised compression if it is enabled locally
+            if (_compression && this.cachedResHandshake1.supportsCompression()) {
+                enableCompression(_buffer);
+            }
             nodeMgr.movePeerToActive(node.getIdHash(), "outbound");
         }
     }
 
+    private void enableCompression(final ChannelBuffer _buffer) {
+        CompressionStats stats = new CompressionStats();
+        _buffer.setCompression(stats);
+        this.compressionStats.put(_buffer.getNodeIdHash(), stats);
+        if (p2pLOG.isDebugEnabled()) {
+            p2pLOG.debug("compression-enabled node={}", _buffer.getDisplayId());
+        }
+    }
+
     /**
      * @param _nodeIdHash int
      * @param _route int
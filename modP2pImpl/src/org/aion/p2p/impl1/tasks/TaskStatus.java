@@ -2,9 +2,12 @@ package org.aion.p2p.impl1.tasks;
 
 import static org.aion.p2p.impl1.P2pMgr.p2pLOG;
 
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import org.aion.p2p.INode;
 import org.aion.p2p.INodeMgr;
+import org.aion.p2p.impl.comm.CompressionStats;
 
 public class TaskStatus implements Runnable {
 
@@ -12,6 +15,7 @@ public class TaskStatus implements Runnable {
     private final String selfShortId;
     private final BlockingQueue<MsgOut> sendMsgQue;
     private final BlockingQueue<MsgIn> receiveMsgQue;
+    private final Map<Integer, CompressionStats> compressionStats;
 
     private static final int PERIOD_STATUS = 10000;
     private final AtomicBoolean start;
@@ -21,11 +25,13 @@ public class TaskStatus implements Runnable {
             final INodeMgr _nodeMgr,
             final String _selfShortId,
             final BlockingQueue<MsgOut> _sendMsgQue,
-            final BlockingQueue<MsgIn> _receiveMsgQue) {
+            final BlockingQueue<MsgIn> _receiveMsgQue,
+            final Map<Integer, CompressionStats> _compressionStats) {
         this.nodeMgr = _nodeMgr;
         this.selfShortId = _selfShortId;
         this.sendMsgQue = _sendMsgQue;
         this.receiveMsgQue = _receiveMsgQue;
+        this.compressionStats = _compressionStats;
         this.start = _start;
     }
 
@@ -43,6 +49,7 @@ public class TaskStatus implements Runnable {
                             "recv queue[{}] send queue[{}]",
                             receiveMsgQue.size(),
                             sendMsgQue.size());
+                    dumpCompressionStats();
                 } else if (p2pLOG.isInfoEnabled()) {
                     p2pLOG.info(status);
                 }
@@ -54,4 +61,18 @@ public class TaskStatus implements Runnable {
         }
         p2pLOG.info("P2p taskStatus has been shut down.");
     }
+
+    private void dumpCompressionStats() {
+        compressionStats
+                .entrySet()
+                .removeIf(
+                        e -> {
+                            INode node = nodeMgr.getActiveNode(e.getKey());
+                            if (node == null) {
+                                return true;
+                            }
+                            p2pLOG.debug("compression id:{} {}", node.getIdShort(), e.getValue());
+                            return false;
+                        });
+    }
 }
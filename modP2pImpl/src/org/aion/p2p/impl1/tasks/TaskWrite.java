@@ -6,9 +6,16 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.SocketChannel;
+import org.aion.p2p.Ctrl;
 import org.aion.p2p.Header;
 import org.aion.p2p.IP2pMgr;
 import org.aion.p2p.Msg;
+import org.aion.p2p.P2pConstant;
+import org.aion.p2p.impl.comm.CompressionStats;
+import org.aion.p2p.impl.comm.Lz4BlockCodec;
+import org.aion.util.metrics.Counter;
+import org.aion.util.metrics.Histogram;
+import org.aion.util.metrics.MetricsRegistry;
 
 /** @author chris */
 public class TaskWrite implements Runnable {
@@ -21,6 +28,15 @@ public class TaskWrite implements Runnable {
     private final static long MAX_BUFFER_WRITE_TIME = 1_000_000_000L;
     private final static long MIN_TRACE_BUFFER_WRITE_TIME = 10_000_000L;
 
+    private static final Counter SENT_MSGS =
+            MetricsRegistry.inst()
+                    .counter("aion_p2p_sent_messages_total", "Messages sent to peers.");
+    private static final Counter SENT_BYTES =
+            MetricsRegistry.inst().counter("aion_p2p_sent_bytes_total", "Bytes sent to peers.");
+    private static final Histogram WRITE_TIME =
+            MetricsRegistry.inst()
+                    .timer("aion_p2p_write_seconds", "Time to write a message to the socket.");
+
 
     TaskWrite(
             final String _nodeShortId,
@@ -55,7 +71,26 @@ public class TaskWrite implements Runnable {
             int bodyLen = bodyBytes == null ? 0 : bodyBytes.length;
             Header h = msg.getHeader();
             h.setLen(bodyLen);
-            byte[] headerBytes = h.encode();
+            byte[] headerBytes;
+
+            CompressionStats compression = channelBuffer.getCompression();
+            if (compression != null
+                    && h.getCtrl() == Ctrl.SYNC
+                    && bodyLen >= P2pConstant.COMPRESSION_THRESHOLD) {
+                long t0 = System.nanoTime();
+                byte[] compressed = Lz4BlockCodec.compress(bodyBytes);
+                if (compressed.length < bodyLen) {
+                    compression.recordOut(bodyLen, compressed.length, System.nanoTime() - t0);
+                    bodyBytes = compressed;
+                    bodyLen = compressed.length;
+                    // the header may be shared with other peers, it is not modified here
+                    headerBytes = h.encodeCompressed(bodyLen);
+                } else {
+                    headerBytes = h.encode();
+                }
+            } else {
+                headerBytes = h.encode();
+            }
 
             if (p2pLOG.isTraceEnabled()) {
                 p2pLOG.trace(
@@ -89,6 +124,10 @@ public class TaskWrite implements Runnable {
                     t2 = System.nanoTime() - t1;
                 } while (buf.hasRemaining() && (t2 < MAX_BUFFER_WRITE_TIME));
 
+                SENT_MSGS.inc();
+                SENT_BYTES.inc(wrote);
+                WRITE_TIME.record(t2);
+
                 if (p2pLOG.isTraceEnabled() && (t2 > MIN_TRACE_BUFFER_WRITE_TIME)) {
                     p2pLOG.trace(
                             "msg write: id {} size {} time {} ms length {}",
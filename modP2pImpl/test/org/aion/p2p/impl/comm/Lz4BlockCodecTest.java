@@ -0,0 +1,78 @@
+package org.aion.p2p.impl.comm;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.aion.p2p.P2pConstant;
+import org.junit.Test;
+
+public class Lz4BlockCodecTest {
+
+    private final Random r = new Random(7);
+
+    private void assertRoundTrip(byte[] raw) {
+        byte[] compressed = Lz4BlockCodec.compress(raw);
+        assertTrue(compressed.length <= Lz4BlockCodec.maxCompressedLength(raw.length));
+        assertArrayEquals(raw, Lz4BlockCodec.decompress(compressed, P2pConstant.MAX_BODY_SIZE));
+    }
+
+    @Test
+    public void testSmallInputs() {
+        for (int len = 0; len < 64; len++) {
+            byte[] raw = new byte[len];
+            r.nextBytes(raw);
+            assertRoundTrip(raw);
+        }
+    }
+
+    @Test
+    public void testRandomInput() {
+        byte[] raw = new byte[256 * 1024];
+        r.nextBytes(raw);
+        assertRoundTrip(raw);
+    }
+
+    @Test
+    public void testRepetitiveInputCompresses() {
+        // rlp encoded blocks repeat addresses, hashes and zero padding
+        byte[] pattern = new byte[96];
+        r.nextBytes(pattern);
+        byte[] raw = new byte[512 * 1024];
+        for (int i = 0; i < raw.length; i++) {
+            raw[i] = (i % 7 == 0) ? 0 : pattern[i % pattern.length];
+        }
+        byte[] compressed = Lz4BlockCodec.compress(raw);
+        assertTrue(compressed.length < raw.length / 4);
+        assertRoundTrip(raw);
+    }
+
+    @Test
+    public void testLongRuns() {
+        byte[] raw = new byte[70_000];
+        Arrays.fill(raw, 0, 40_000, (byte) 1);
+        byte[] tail = new byte[30_000];
+        r.nextBytes(tail);
+        System.arraycopy(tail, 0, raw, 40_000, tail.length);
+        assertRoundTrip(raw);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecompressExceedsMax() {
+        byte[] compressed = Lz4BlockCodec.compress(new byte[4096]);
+        Lz4BlockCodec.decompress(compressed, 4095);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecompressTruncated() {
+        byte[] compressed = Lz4BlockCodec.compress(new byte[4096]);
+        Lz4BlockCodec.decompress(
+                Arrays.copyOf(compressed, compressed.length - 1), P2pConstant.MAX_BODY_SIZE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecompressNull() {
+        Lz4BlockCodec.decompress(null, P2pConstant.MAX_BODY_SIZE);
+    }
+}
@@ -2,8 +2,10 @@ package org.aion.p2p.impl.zero.msg;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -94,6 +96,36 @@ public class ReqHandshake1Test {
         assertArrayEquals(req1.getRevision(), req2.getRevision());
     }
 
+    @Test
+    public void testCompressionCapability() {
+        ReqHandshake1 plain =
+                new ReqHandshake1(
+                        validNodeId,
+                        netId,
+                        Node.ipStrToBytes(randomIp),
+                        port,
+                        randomRevision,
+                        randomVersions);
+        ReqHandshake1 req1 =
+                new ReqHandshake1(
+                        validNodeId,
+                        netId,
+                        Node.ipStrToBytes(randomIp),
+                        port,
+                        randomRevision,
+                        randomVersions,
+                        true);
+        byte[] bytes = req1.encode();
+        assertEquals(plain.encode().length + 1, bytes.length);
+
+        ReqHandshake1 req2 = ReqHandshake1.decode(bytes);
+        assertNotNull(req2);
+        assertTrue(req2.supportsCompression());
+        assertArrayEquals(req1.getRevision(), req2.getRevision());
+
+        assertFalse(ReqHandshake1.decode(plain.encode()).supportsCompression());
+    }
+
     @Test
     public void testInvalidEncodeDecode() {
 
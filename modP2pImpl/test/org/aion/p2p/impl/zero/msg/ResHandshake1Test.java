@@ -2,8 +2,10 @@ package org.aion.p2p.impl.zero.msg;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.UnsupportedEncodingException;
 import java.util.Arrays;
@@ -92,6 +94,21 @@ public class ResHandshake1Test {
         assertArrayEquals(bv.getBytes(), cmp);
     }
 
+    @Test
+    public void testCompressionCapability() {
+        String bv = "0.2.9";
+        byte[] ec = new ResHandshake1(true, bv, true).encode();
+        assertEquals(8, ec.length);
+
+        ResHandshake1 rs = ResHandshake1.decode(ec);
+        assertNotNull(rs);
+        assertTrue(rs.supportsCompression());
+        assertEquals(bv, rs.getBinaryVersion());
+
+        assertFalse(
+                ResHandshake1.decode(new ResHandshake1(true, bv).encode()).supportsCompression());
+    }
+
     @Test
     public void testEncodeVerTruncated() {
         StringBuilder bv = new StringBuilder();
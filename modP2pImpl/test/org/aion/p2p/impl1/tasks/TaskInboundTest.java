@@ -25,6 +25,7 @@ import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
@@ -136,7 +137,16 @@ public class TaskInboundTest {
     public void testRun() throws InterruptedException {
         AtomicBoolean atb = new AtomicBoolean(true);
         TaskInbound ti =
-                new TaskInbound(p2pMgr, selector, atb, nodeMgr, hldrMap, msgOutQue, rhs1, msgInQue);
+                new TaskInbound(
+                        p2pMgr,
+                        selector,
+                        atb,
+                        nodeMgr,
+                        hldrMap,
+                        msgOutQue,
+                        rhs1,
+                        msgInQue,
+                        new ConcurrentHashMap<>());
         assertNotNull(ti);
 
         when(selector.selectNow()).thenReturn(0);
@@ -155,7 +165,16 @@ public class TaskInboundTest {
     public void testRunException() throws InterruptedException {
         AtomicBoolean atb = new AtomicBoolean(true);
         TaskInbound ti =
-                new TaskInbound(p2pMgr, selector, atb, nodeMgr, hldrMap, msgOutQue, rhs1, msgInQue);
+                new TaskInbound(
+                        p2pMgr,
+                        selector,
+                        atb,
+                        nodeMgr,
+                        hldrMap,
+                        msgOutQue,
+                        rhs1,
+                        msgInQue,
+                        new ConcurrentHashMap<>());
         assertNotNull(ti);
 
         doThrow(ClosedSelectorException.class).when(selector).selectNow();
@@ -175,7 +194,16 @@ public class TaskInboundTest {
     public void testRunClosedSelectorException() throws InterruptedException {
         AtomicBoolean atb = new AtomicBoolean(true);
         TaskInbound ti =
-                new TaskInbound(p2pMgr, selector, atb, nodeMgr, hldrMap, msgOutQue, rhs1, msgInQue);
+                new TaskInbound(
+                        p2pMgr,
+                        selector,
+                        atb,
+                        nodeMgr,
+                        hldrMap,
+                        msgOutQue,
+                        rhs1,
+                        msgInQue,
+                        new ConcurrentHashMap<>());
         assertNotNull(ti);
 
         when(selector.selectNow()).thenReturn(1);
@@ -195,7 +223,16 @@ public class TaskInboundTest {
     public void testRun2() throws InterruptedException {
         AtomicBoolean atb = new AtomicBoolean(true);
         TaskInbound ti =
-                new TaskInbound(p2pMgr, selector, atb, nodeMgr, hldrMap, msgOutQue, rhs1, msgInQue);
+                new TaskInbound(
+                        p2pMgr,
+                        selector,
+                        atb,
+                        nodeMgr,
+                        hldrMap,
+                        msgOutQue,
+                        rhs1,
+                        msgInQue,
+                        new ConcurrentHashMap<>());
         assertNotNull(ti);
 
         when(sk.isValid()).thenReturn(false);
@@ -234,7 +271,16 @@ public class TaskInboundTest {
     public void testAccept() throws InterruptedException, IOException {
         AtomicBoolean atb = new AtomicBoolean(true);
         TaskInbound ti =
-                new TaskInbound(p2pMgr, selector, atb, nodeMgr, hldrMap, msgOutQue, rhs1, msgInQue);
+                new TaskInbound(
+                        p2pMgr,
+                        selector,
+                        atb,
+                        nodeMgr,
+                        hldrMap,
+                        msgOutQue,
+                        rhs1,
+                        msgInQue,
+                        new ConcurrentHashMap<>());
         assertNotNull(ti);
 
         when(sk2.isValid()).thenReturn(true);
@@ -268,7 +314,16 @@ public class TaskInboundTest {
     public void testAccept2() throws InterruptedException, IOException {
         AtomicBoolean atb = new AtomicBoolean(true);
         TaskInbound ti =
-                new TaskInbound(p2pMgr, selector, atb, nodeMgr, hldrMap, msgOutQue, rhs1, msgInQue);
+                new TaskInbound(
+                        p2pMgr,
+                        selector,
+                        atb,
+                        nodeMgr,
+                        hldrMap,
+                        msgOutQue,
+                        rhs1,
+                        msgInQue,
+                        new ConcurrentHashMap<>());
         assertNotNull(ti);
 
         when(sk2.isValid()).thenReturn(true);
@@ -302,7 +357,16 @@ public class TaskInboundTest {
     public void testAccept3() throws InterruptedException, IOException {
         AtomicBoolean atb = new AtomicBoolean(true);
         TaskInbound ti =
-                new TaskInbound(p2pMgr, selector, atb, nodeMgr, hldrMap, msgOutQue, rhs1, msgInQue);
+                new TaskInbound(
+                        p2pMgr,
+                        selector,
+                        atb,
+                        nodeMgr,
+                        hldrMap,
+                        msgOutQue,
+                        rhs1,
+                        msgInQue,
+                        new ConcurrentHashMap<>());
         assertNotNull(ti);
 
         when(sk.isValid()).thenReturn(true);
@@ -341,7 +405,16 @@ public class TaskInboundTest {
     public void testReadBuffer() throws InterruptedException, IOException {
         AtomicBoolean atb = new AtomicBoolean(true);
         TaskInbound ti =
-                new TaskInbound(p2pMgr, selector, atb, nodeMgr, hldrMap, msgOutQue, rhs1, msgInQue);
+                new TaskInbound(
+                        p2pMgr,
+                        selector,
+                        atb,
+                        nodeMgr,
+                        hldrMap,
+                        msgOutQue,
+                        rhs1,
+                        msgInQue,
+                        new ConcurrentHashMap<>());
         assertNotNull(ti);
 
         // settings for readBuffer
@@ -373,7 +446,16 @@ public class TaskInboundTest {
     public void testReadBuffer2() throws InterruptedException, IOException {
         AtomicBoolean atb = new AtomicBoolean(true);
         TaskInbound ti =
-                new TaskInbound(p2pMgr, selector, atb, nodeMgr, hldrMap, msgOutQue, rhs1, msgInQue);
+                new TaskInbound(
+                        p2pMgr,
+                        selector,
+                        atb,
+                        nodeMgr,
+                        hldrMap,
+                        msgOutQue,
+                        rhs1,
+                        msgInQue,
+                        new ConcurrentHashMap<>());
         assertNotNull(ti);
 
         // settings for readBuffer
@@ -409,7 +491,16 @@ public class TaskInboundTest {
     public void testReadBuffer3() throws InterruptedException, IOException {
         AtomicBoolean atb = new AtomicBoolean(true);
         TaskInbound ti =
-                new TaskInbound(p2pMgr, selector, atb, nodeMgr, hldrMap, msgOutQue, rhs1, msgInQue);
+                new TaskInbound(
+                        p2pMgr,
+                        selector,
+                        atb,
+                        nodeMgr,
+                        hldrMap,
+                        msgOutQue,
+                        rhs1,
+                        msgInQue,
+                        new ConcurrentHashMap<>());
         assertNotNull(ti);
 
         // settings for readBuffer
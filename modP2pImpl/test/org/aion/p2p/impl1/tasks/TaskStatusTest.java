@@ -9,6 +9,7 @@ import static org.mockito.Mockito.when;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
@@ -41,7 +42,8 @@ public class TaskStatusTest {
 
         final AtomicBoolean ab = new AtomicBoolean(true);
 
-        TaskStatus ts = new TaskStatus(ab, nodeMgr, "1", msgOutQue, msgInQue);
+        TaskStatus ts =
+                new TaskStatus(ab, nodeMgr, "1", msgOutQue, msgInQue, new ConcurrentHashMap<>());
         assertNotNull(ts);
         when(nodeMgr.dumpNodeInfo(anyString(), anyBoolean())).thenReturn("get Status");
 
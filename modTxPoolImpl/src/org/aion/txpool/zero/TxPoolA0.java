@@ -24,18 +24,35 @@ import org.aion.txpool.common.AbstractTxPool;
 import org.aion.txpool.common.AccountState;
 import org.aion.txpool.common.TxDependList;
 import org.aion.util.bytes.ByteUtil;
+import org.aion.util.metrics.Counter;
+import org.aion.util.metrics.Histogram;
+import org.aion.util.metrics.MetricsRegistry;
 import org.aion.util.time.TimeInstant;
 
 @SuppressWarnings("unchecked")
 public class TxPoolA0<TX extends Transaction> extends AbstractTxPool<TX> implements ITxPool<TX> {
 
+    private static final Histogram ADD_TIME =
+            MetricsRegistry.inst().timer("aion_txpool_add_seconds", "Time to add txs to the pool.");
+    private static final Histogram SNAPSHOT_TIME =
+            MetricsRegistry.inst()
+                    .timer("aion_txpool_snapshot_seconds", "Time to select txs for a block.");
+    private static final Counter ADDED =
+            MetricsRegistry.inst().counter("aion_txpool_added_total", "Txs added to the pool.");
+
     public TxPoolA0() {
         super();
+        registerSize();
     }
 
     public TxPoolA0(Properties config) {
         super();
         setPoolArgs(config);
+        registerSize();
+    }
+
+    private void registerSize() {
+        MetricsRegistry.inst().gauge("aion_txpool_size", "Txs in the pool.", this::size);
     }
 
     private void setPoolArgs(Properties config) {
@@ -110,6 +127,7 @@ public class TxPoolA0<TX extends Transaction> extends AbstractTxPool<TX> impleme
 
     @Override
     public List<TX> add(List<TX> txl) {
+        long t1 = System.nanoTime();
 
         List<TX> newPendingTx = new ArrayList<>();
         Map<ByteArrayWrapper, TXState> mainMap = new HashMap<>();
@@ -178,6 +196,8 @@ public class TxPoolA0<TX extends Transaction> extends AbstractTxPool<TX> impleme
             LOG.error("error");
         }
 
+        ADDED.inc(mainMap.size());
+        ADD_TIME.recordSince(t1);
         return newPendingTx;
     }
 
@@ -442,6 +462,13 @@ public class TxPoolA0<TX extends Transaction> extends AbstractTxPool<TX> impleme
     }
 
     public List<TX> snapshot() {
+        long t1 = System.nanoTime();
+        List<TX> rtn = snapshotTxs();
+        SNAPSHOT_TIME.recordSince(t1);
+        return rtn;
+    }
+
+    private List<TX> snapshotTxs() {
 
         sortTxn();
         removeTimeoutTxn();
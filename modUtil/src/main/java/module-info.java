@@ -7,4 +7,5 @@ module aion.util {
     exports org.aion.util.file;
     exports org.aion.util.biginteger;
     exports org.aion.util.map;
+    exports org.aion.util.metrics;
 }
@@ -0,0 +1,27 @@
+package org.aion.util.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A monotonically increasing count.
+ *
+ * @implNote Increments are striped across cells and do not contend between threads.
+ */
+public final class Counter {
+
+    private final LongAdder value = new LongAdder();
+
+    Counter() {}
+
+    public void inc() {
+        value.increment();
+    }
+
+    public void inc(long _amount) {
+        value.add(_amount);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+}
@@ -0,0 +1,118 @@
+package org.aion.util.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of non-negative long values, e.g. durations in nanoseconds.
+ *
+ * <p>Values are counted in log-linear buckets: each power of two is split into {@code 2^(P-1)}
+ * sub-buckets, so any recorded value is reported within {@code 1 / 2^(P-1)} of its true size.
+ * Values up to {@link #MAX_VALUE} are tracked, larger ones are clamped.
+ *
+ * @implNote Recording is lock-free and allocation-free. Percentiles are computed from a non-atomic
+ *     pass over the buckets and may be slightly off while values are being recorded.
+ */
+public final class Histogram {
+
+    /** Bits of precision kept for each value. */
+    private static final int P = 5;
+
+    private static final int SUB_BUCKETS = 1 << P;
+    private static final int HALF = SUB_BUCKETS >>> 1;
+
+    /** Largest value tracked; about 2.4 hours when recording nanoseconds. */
+    public static final long MAX_VALUE = (1L << 43) - 1;
+
+    private static final int BUCKETS = index(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    /** Factor applied to the values when they are exported, e.g. 1e-9 for nanos to seconds. */
+    private final double scale;
+
+    Histogram(double _scale) {
+        this.scale = _scale;
+    }
+
+    static int index(long _value) {
+        if (_value < SUB_BUCKETS) {
+            return (int) _value;
+        }
+        int shift = 64 - Long.numberOfLeadingZeros(_value) - P;
+        int mantissa = (int) (_value >>> shift);
+        return SUB_BUCKETS + (shift - 1) * HALF + (mantissa - HALF);
+    }
+
+    /** @return the largest value counted in the given bucket */
+    static long highestEquivalent(int _index) {
+        if (_index < SUB_BUCKETS) {
+            return _index;
+        }
+        int k = _index - SUB_BUCKETS;
+        int shift = k / HALF + 1;
+        long mantissa = k % HALF + HALF;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    public void record(long _value) {
+        long v = _value < 0 ? 0 : Math.min(_value, MAX_VALUE);
+        counts.incrementAndGet(index(v));
+        count.increment();
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    /** Records the nanoseconds elapsed since the given {@link System#nanoTime()} reading. */
+    public void recordSince(long _startNanos) {
+        record(System.nanoTime() - _startNanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @param _percentile a value in the range {@code [0, 100]}
+     * @return the value below which the given percentage of the recorded values fall, or 0 when
+     *     nothing has been recorded
+     */
+    public long getValueAtPercentile(double _percentile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        double p = Math.min(Math.max(_percentile, 0d), 100d);
+        long target = Math.max(1L, (long) Math.ceil(p / 100d * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                return Math.min(highestEquivalent(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    double getScale() {
+        return scale;
+    }
+}
@@ -0,0 +1,224 @@
+package org.aion.util.metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.DoubleSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * Central registry of the kernel performance metrics.
+ *
+ * <p>Components look up their counters and histograms once, typically into final fields, and update
+ * them directly on the hot path; the registry is only consulted again when {@link #scrape()}
+ * renders all metrics in the Prometheus text exposition format (version 0.0.4).
+ *
+ * <p>Metrics are identified by a name and an optional list of label name and value pairs. Asking
+ * for an existing metric returns the same instance. Registering a gauge again replaces its
+ * supplier, so that a component that is re-created reports its new state.
+ */
+public final class MetricsRegistry {
+
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+    private static final Pattern VALID_NAME = Pattern.compile("[a-zA-Z_:][a-zA-Z0-9_:]*");
+
+    /** Quantiles exported for each histogram. */
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private enum Type {
+        COUNTER("counter"),
+        GAUGE("gauge"),
+        HISTOGRAM("summary");
+
+        private final String exposed;
+
+        Type(String _exposed) {
+            this.exposed = _exposed;
+        }
+    }
+
+    /** All the metrics sharing a name. */
+    private static final class Family {
+        private final Type type;
+        private final String help;
+        private final ConcurrentMap<String, Object> children = new ConcurrentHashMap<>();
+
+        private Family(Type _type, String _help) {
+            this.type = _type;
+            this.help = _help;
+        }
+    }
+
+    private final ConcurrentMap<String, Family> families = new ConcurrentHashMap<>();
+
+    /** @return the registry shared by all the kernel modules */
+    public static MetricsRegistry inst() {
+        return INSTANCE;
+    }
+
+    /** Creates a separate registry; used for testing. */
+    public MetricsRegistry() {}
+
+    public Counter counter(String _name, String _help, String... _labels) {
+        return (Counter)
+                family(_name, _help, Type.COUNTER)
+                        .children
+                        .computeIfAbsent(labels(_labels), k -> new Counter());
+    }
+
+    /** Histogram of durations recorded in nanoseconds and exported in seconds. */
+    public Histogram timer(String _name, String _help, String... _labels) {
+        return histogram(_name, _help, 1e-9, _labels);
+    }
+
+    /** Histogram of values exported as recorded. */
+    public Histogram histogram(String _name, String _help, String... _labels) {
+        return histogram(_name, _help, 1d, _labels);
+    }
+
+    private Histogram histogram(String _name, String _help, double _scale, String... _labels) {
+        return (Histogram)
+                family(_name, _help, Type.HISTOGRAM)
+                        .children
+                        .computeIfAbsent(labels(_labels), k -> new Histogram(_scale));
+    }
+
+    /** Registers or replaces a value read when the metrics are scraped. */
+    public void gauge(String _name, String _help, DoubleSupplier _value, String... _labels) {
+        if (_value == null) {
+            throw new NullPointerException("The gauge supplier cannot be null.");
+        }
+        family(_name, _help, Type.GAUGE).children.put(labels(_labels), _value);
+    }
+
+    private Family family(String _name, String _help, Type _type) {
+        Family family = families.get(_name);
+        if (family == null) {
+            if (_name == null || !VALID_NAME.matcher(_name).matches()) {
+                throw new IllegalArgumentException("Invalid metric name: " + _name);
+            }
+            family = families.computeIfAbsent(_name, k -> new Family(_type, _help));
+        }
+        if (family.type != _type) {
+            throw new IllegalArgumentException(
+                    "Metric " + _name + " is already registered as a " + family.type + ".");
+        }
+        return family;
+    }
+
+    /** @return the labels in exposition format, e.g. {@code {db="block",op="get"}} */
+    private static String labels(String... _labels) {
+        if (_labels == null || _labels.length == 0) {
+            return "";
+        }
+        if (_labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be given as name and value pairs.");
+        }
+
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < _labels.length; i += 2) {
+            if (!VALID_NAME.matcher(_labels[i]).matches()) {
+                throw new IllegalArgumentException("Invalid label name: " + _labels[i]);
+            }
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(_labels[i]).append("=\"");
+            escape(sb, String.valueOf(_labels[i + 1]));
+            sb.append('"');
+        }
+        return sb.append('}').toString();
+    }
+
+    private static void escape(StringBuilder _sb, String _value) {
+        for (int i = 0; i < _value.length(); i++) {
+            char c = _value.charAt(i);
+            switch (c) {
+                case '\\':
+                    _sb.append("\\\\");
+                    break;
+                case '"':
+                    _sb.append("\\\"");
+                    break;
+                case '\n':
+                    _sb.append("\\n");
+                    break;
+                default:
+                    _sb.append(c);
+            }
+        }
+    }
+
+    /** @return all the metrics in the Prometheus text format, sorted by name */
+    public String scrape() {
+        StringBuilder sb = new StringBuilder();
+        try {
+            writeTo(sb);
+        } catch (IOException e) {
+            // not thrown by StringBuilder
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    public void writeTo(Appendable _out) throws IOException {
+        for (Map.Entry<String, Family> e : new TreeMap<>(families).entrySet()) {
+            String name = e.getKey();
+            Family family = e.getValue();
+
+            if (family.help != null) {
+                _out.append("# HELP ").append(name).append(' ').append(family.help).append('\n');
+            }
+            _out.append("# TYPE ").append(name).append(' ').append(family.type.exposed);
+            _out.append('\n');
+
+            for (Map.Entry<String, Object> child : new TreeMap<>(family.children).entrySet()) {
+                String labels = child.getKey();
+                switch (family.type) {
+                    case COUNTER:
+                        line(_out, name, labels, ((Counter) child.getValue()).get());
+                        break;
+                    case GAUGE:
+                        double value;
+                        try {
+                            value = ((DoubleSupplier) child.getValue()).getAsDouble();
+                        } catch (RuntimeException ex) {
+                            // the component may have been closed
+                            continue;
+                        }
+                        line(_out, name, labels, value);
+                        break;
+                    case HISTOGRAM:
+                        writeHistogram(_out, name, labels, (Histogram) child.getValue());
+                        break;
+                }
+            }
+        }
+    }
+
+    private static void writeHistogram(Appendable _out, String _name, String _labels, Histogram _h)
+            throws IOException {
+        String prefix = _labels.isEmpty() ? "{" : _labels.substring(0, _labels.length() - 1) + ",";
+        for (double q : QUANTILES) {
+            String quantile = prefix + "quantile=\"" + q + "\"}";
+            line(_out, _name, quantile, _h.getValueAtPercentile(q * 100) * _h.getScale());
+        }
+        line(_out, _name + "_sum", _labels, _h.getSum() * _h.getScale());
+        line(_out, _name + "_count", _labels, _h.getCount());
+    }
+
+    private static void line(Appendable _out, String _name, String _labels, double _value)
+            throws IOException {
+        _out.append(_name).append(_labels).append(' ');
+        if (_value == Math.rint(_value) && !Double.isInfinite(_value)) {
+            _out.append(Long.toString((long) _value));
+        } else {
+            _out.append(Double.toString(_value));
+        }
+        _out.append('\n');
+    }
+}
@@ -0,0 +1,103 @@
+package org.aion.util.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class MetricsRegistryTest {
+
+    @Test
+    public void testSameMetricReturned() {
+        MetricsRegistry registry = new MetricsRegistry();
+
+        Counter c1 = registry.counter("requests_total", "help", "method", "a");
+        Counter c2 = registry.counter("requests_total", "help", "method", "a");
+        Counter c3 = registry.counter("requests_total", "help", "method", "b");
+
+        assertSame(c1, c2);
+        assertNotSame(c1, c3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTypeMismatch() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("metric", "help");
+        registry.timer("metric", "help");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidName() {
+        new MetricsRegistry().counter("invalid-name", "help");
+    }
+
+    @Test
+    public void testHistogramPrecision() {
+        Histogram h = new Histogram(1d);
+        for (long v = 1; v <= 1_000_000; v++) {
+            h.record(v);
+        }
+
+        assertEquals(1_000_000, h.getCount());
+        assertEquals(1_000_000, h.getMax());
+        assertEquals(500_000_500_000L, h.getSum());
+
+        // each value is reported within 1/16 of its size
+        long p50 = h.getValueAtPercentile(50);
+        long p99 = h.getValueAtPercentile(99);
+        assertTrue(p50 >= 500_000 && p50 <= 500_000 * 17 / 16);
+        assertTrue(p99 >= 990_000 && p99 <= 990_000 * 17 / 16);
+        assertEquals(1_000_000, h.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testHistogramBuckets() {
+        for (long v : new long[] {0, 1, 31, 32, 33, 1000, 123_456_789L, Histogram.MAX_VALUE}) {
+            int index = Histogram.index(v);
+            assertTrue(Histogram.highestEquivalent(index) >= v);
+            if (index > 0) {
+                assertTrue(Histogram.highestEquivalent(index - 1) < v);
+            }
+        }
+
+        Histogram h = new Histogram(1d);
+        h.record(-5);
+        h.record(Long.MAX_VALUE);
+        assertEquals(0, h.getValueAtPercentile(0));
+        assertEquals(Histogram.MAX_VALUE, h.getMax());
+    }
+
+    @Test
+    public void testScrapeFormat() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("b_total", "A counter.", "peer", "x\"y").inc(3);
+        registry.gauge("a_size", "A gauge.", () -> 1.5);
+        registry.gauge("a_size", "A gauge.", () -> 2.5);
+        registry.gauge(
+                "c_broken",
+                null,
+                () -> {
+                    throw new IllegalStateException();
+                });
+        Histogram h = registry.timer("d_seconds", "A timer.", "op", "get");
+        h.record(2_000_000_000L);
+
+        String expected =
+                "# HELP a_size A gauge.\n"
+                        + "# TYPE a_size gauge\n"
+                        + "a_size 2.5\n"
+                        + "# HELP b_total A counter.\n"
+                        + "# TYPE b_total counter\n"
+                        + "b_total{peer=\"x\\\"y\"} 3\n"
+                        + "# TYPE c_broken gauge\n"
+                        + "# HELP d_seconds A timer.\n"
+                        + "# TYPE d_seconds summary\n";
+        String scraped = registry.scrape();
+        assertTrue(scraped, scraped.startsWith(expected));
+        assertTrue(scraped.contains("d_seconds_sum{op=\"get\"} 2\n"));
+        assertTrue(scraped.contains("d_seconds_count{op=\"get\"} 1\n"));
+        assertTrue(scraped.contains("d_seconds{op=\"get\",quantile=\"0.5\"} "));
+    }
+}
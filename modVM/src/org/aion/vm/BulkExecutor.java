@@ -6,6 +6,8 @@ import static org.aion.mcf.valid.TransactionTypeRule.isValidAVMContractDeploymen
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.aion.fastvm.FastVmResultCode;
 import org.aion.fastvm.SideEffects;
 import org.aion.interfaces.db.InternalVmType;
@@ -58,10 +60,16 @@ import org.slf4j.Logger;
  *     field can safely be set null) then a second constructor with this field missing is provided,
  *     and only a repositoryChild is set. A repositoryChild is required for the actual
  *     BulkExecutor's logic, whereas repository is only used by the post-execution logic.
- *     <p>The {@code execute()} method is thread-safe.
+ *     <p>The {@code execute()} method is thread-safe. The runs of each virtual machine are
+ *     serialized by a {@link VmLock}, since the long-lived AVM handles one batch at a time and the
+ *     FVM keeps its callback stack in static state. Local calls wait for the pending runs of
+ *     non-local executions and can be aborted, see {@link #BulkExecutor(ExecutionBatch,
+ *     RepositoryCache, long, Logger, PostExecutionWork, AtomicBoolean)}. Building the summaries and
+ *     updating the repositories happen outside of the locks.
  */
 public class BulkExecutor {
-    private static final Object LOCK = new Object();
+    private static final VmLock AVM_LOCK = new VmLock();
+    private static final VmLock FVM_LOCK = new VmLock();
     private Repository repository;
     private RepositoryCache<AccountState, IBlockStoreBase<?, ?>> repositoryChild;
     private PostExecutionWork postExecutionWork;
@@ -71,6 +79,7 @@ public class BulkExecutor {
     private boolean allowNonceIncrement;
     private long blockRemainingEnergy;
     private boolean fork040enable;
+    private AtomicBoolean aborted;
 
     /**
      * Constructs a new bulk executor that will execute the transactions contained in the provided
@@ -148,6 +157,43 @@ public class BulkExecutor {
                 work);
     }
 
+    /**
+     * Constructs a new bulk executor for local calls that can be aborted.
+     *
+     * <p>Once {@code aborted} is set, an execution still waiting for a virtual machine gives up by
+     * throwing a {@link CancellationException}, and a running one stops reading contract code,
+     * storage and balances, so that it finishes on its remaining energy. The thread of a running
+     * execution must not be interrupted, since the virtual machine would keep running the
+     * transactions after the execution returns. The results of an aborted execution are
+     * meaningless.
+     *
+     * @param executionBatch The batch of transactions to execute.
+     * @param repositoryChild The repository.
+     * @param blockRemainingEnergy The amount of energy remaining in the block.
+     * @param logger The logger.
+     * @param work The post-execution work to apply after each transaction is run.
+     * @param aborted The flag that aborts the execution once set.
+     */
+    public BulkExecutor(
+            ExecutionBatch executionBatch,
+            RepositoryCache<AccountState, IBlockStoreBase<?, ?>> repositoryChild,
+            long blockRemainingEnergy,
+            Logger logger,
+            PostExecutionWork work,
+            AtomicBoolean aborted) {
+
+        this(
+                executionBatch,
+                repositoryChild,
+                true,
+                true,
+                blockRemainingEnergy,
+                false,
+                logger,
+                work);
+        this.aborted = aborted;
+    }
+
     public BulkExecutor(
             ExecutionBatch executionBatch,
             RepositoryCache<AccountState, IBlockStoreBase<?, ?>> repositoryChild,
@@ -171,81 +217,119 @@ public class BulkExecutor {
     }
 
     public List<AionTxExecSummary> execute() throws VMException {
-        synchronized (LOCK) {
-            List<AionTxExecSummary> summaries = new ArrayList<>();
-
-            VirtualMachine virtualMachineForNextBatch;
-            ExecutionBatch nextBatchToExecute;
-
-            int currentIndex = 0;
-            while (currentIndex < this.executionBatch.size()) {
-                AionTransaction firstTransactionInNextBatch =
-                        this.executionBatch.getTransactions().get(currentIndex);
-
-                KernelInterface vmKernel;
-                IAionBlock block = executionBatch.getBlock();
-
-                if (transactionIsForAionVirtualMachine(firstTransactionInNextBatch)) {
-                    vmKernel =
-                            new KernelInterfaceForAVM(
-                                    this.repositoryChild.startTracking(),
-                                    this.allowNonceIncrement,
-                                    this.isLocalCall,
-                                    getDifficultyAsDataWord(block),
-                                    block.getNumber(),
-                                    block.getTimestamp(),
-                                    block.getNrgLimit(),
-                                    block.getCoinbase());
-                    virtualMachineForNextBatch =
-                            VirtualMachineProvider.getVirtualMachineInstance(VM.AVM, vmKernel);
-                    nextBatchToExecute =
-                            fetchNextBatchOfTransactionsForAionVirtualMachine(currentIndex);
-                } else {
-                    vmKernel =
-                            new KernelInterfaceForFastVM(
-                                    this.repositoryChild.startTracking(),
-                                    this.allowNonceIncrement,
-                                    this.isLocalCall,
-                                    fork040enable,
-                                    getDifficultyAsDataWord(block),
-                                    block.getNumber(),
-                                    block.getTimestamp(),
-                                    block.getNrgLimit(),
-                                    block.getCoinbase());
-
-                    virtualMachineForNextBatch =
-                            VirtualMachineProvider.getVirtualMachineInstance(VM.FVM, vmKernel);
-                    nextBatchToExecute =
-                            fetchNextBatchOfTransactionsForFastVirtualMachine(currentIndex);
+        List<AionTxExecSummary> summaries = new ArrayList<>();
+
+        VirtualMachine virtualMachineForNextBatch;
+        ExecutionBatch nextBatchToExecute;
+
+        int currentIndex = 0;
+        while (currentIndex < this.executionBatch.size()) {
+            AionTransaction firstTransactionInNextBatch =
+                    this.executionBatch.getTransactions().get(currentIndex);
+
+            KernelInterface vmKernel;
+            VmLock vmLock;
+            IAionBlock block = executionBatch.getBlock();
+
+            if (transactionIsForAionVirtualMachine(firstTransactionInNextBatch)) {
+                KernelInterfaceForAVM kernel =
+                        new KernelInterfaceForAVM(
+                                this.repositoryChild.startTracking(),
+                                this.allowNonceIncrement,
+                                this.isLocalCall,
+                                getDifficultyAsDataWord(block),
+                                block.getNumber(),
+                                block.getTimestamp(),
+                                block.getNrgLimit(),
+                                block.getCoinbase());
+                if (this.aborted != null) {
+                    kernel.setAbortSignal(this.aborted);
+                }
+                vmKernel = kernel;
+                virtualMachineForNextBatch =
+                        VirtualMachineProvider.getVirtualMachineInstance(VM.AVM, vmKernel);
+                vmLock = AVM_LOCK;
+                nextBatchToExecute =
+                        fetchNextBatchOfTransactionsForAionVirtualMachine(currentIndex);
+            } else {
+                KernelInterfaceForFastVM kernel =
+                        new KernelInterfaceForFastVM(
+                                this.repositoryChild.startTracking(),
+                                this.allowNonceIncrement,
+                                this.isLocalCall,
+                                fork040enable,
+                                getDifficultyAsDataWord(block),
+                                block.getNumber(),
+                                block.getTimestamp(),
+                                block.getNrgLimit(),
+                                block.getCoinbase());
+                if (this.aborted != null) {
+                    kernel.setAbortSignal(this.aborted);
                 }
+                vmKernel = kernel;
 
-                // Execute the next batch of transactions using the specified virtual machine.
-                summaries.addAll(
-                        executeTransactions(
-                                virtualMachineForNextBatch, nextBatchToExecute, vmKernel));
-                currentIndex += nextBatchToExecute.size();
+                virtualMachineForNextBatch =
+                        VirtualMachineProvider.getVirtualMachineInstance(VM.FVM, vmKernel);
+                vmLock = FVM_LOCK;
+                nextBatchToExecute =
+                        fetchNextBatchOfTransactionsForFastVirtualMachine(currentIndex);
             }
 
-            return summaries;
+            // Execute the next batch of transactions using the specified virtual machine.
+            summaries.addAll(
+                    executeTransactions(
+                            virtualMachineForNextBatch, nextBatchToExecute, vmKernel, vmLock));
+            currentIndex += nextBatchToExecute.size();
         }
+
+        return summaries;
     }
 
     private List<AionTxExecSummary> executeTransactions(
-            VirtualMachine virtualMachine, ExecutionBatch details, KernelInterface kernel)
+            VirtualMachine virtualMachine,
+            ExecutionBatch details,
+            KernelInterface kernel,
+            VmLock vmLock)
             throws VMException {
         List<AionTxExecSummary> summaries = new ArrayList<>();
 
-        // Run the transactions.
+        if (this.isLocalCall) {
+            boolean acquired;
+            try {
+                acquired = vmLock.lockForCall(this.aborted);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            }
+            if (!acquired) {
+                throw new CancellationException("Aborted while waiting for the virtual machine.");
+            }
+        } else {
+            vmLock.lock();
+        }
+
+        // Run the transactions, holding the lock of the virtual machine until all the results are
+        // available.
         Transaction[] txArray = new Transaction[details.size()];
-        SimpleFuture<TransactionResult>[] resultsAsFutures =
-                virtualMachine.run(kernel, details.getTransactions().toArray(txArray));
+        TransactionResult[] results;
+        try {
+            SimpleFuture<TransactionResult>[] resultsAsFutures =
+                    virtualMachine.run(kernel, details.getTransactions().toArray(txArray));
+
+            results = new TransactionResult[resultsAsFutures.length];
+            for (int i = 0; i < results.length; i++) {
+                results[i] = resultsAsFutures[i].get();
+            }
+        } finally {
+            vmLock.unlock();
+        }
 
         // Process the results of the transactions.
         List<AionTransaction> transactions = details.getTransactions();
 
-        int length = resultsAsFutures.length;
+        int length = results.length;
         for (int i = 0; i < length; i++) {
-            TransactionResult result = resultsAsFutures[i].get();
+            TransactionResult result = results[i];
 
             if (result.getResultCode().isFatal()) {
                 throw new VMException(result.toString());
@@ -1,6 +1,7 @@
 package org.aion.vm;
 
 import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.aion.interfaces.db.InternalVmType;
 import org.aion.interfaces.db.RepositoryCache;
 import org.aion.interfaces.vm.DataWord;
@@ -12,11 +13,13 @@ import org.aion.mcf.vm.types.DoubleDataWord;
 import org.aion.precompiled.ContractFactory;
 import org.aion.types.Address;
 import org.aion.types.ByteArrayWrapper;
+import org.aion.util.bytes.ByteUtil;
 import org.aion.vm.api.interfaces.KernelInterface;
 
 public class KernelInterfaceForAVM implements KernelInterface {
     private RepositoryCache<AccountState, IBlockStoreBase<?, ?>> repositoryCache;
     private boolean allowNonceIncrement, isLocalCall;
+    private AtomicBoolean aborted;
 
     private DataWord blockDifficulty;
     private long blockNumber;
@@ -47,17 +50,40 @@ public class KernelInterfaceForAVM implements KernelInterface {
         this.blockCoinbase = blockCoinbase;
     }
 
+    /**
+     * Makes the kernel of a local call stop reading contract code, storage and balances once the
+     * given flag is set, so that an aborted call finishes on its remaining energy without reading
+     * the state any further. The results of an aborted call are meaningless.
+     *
+     * @implNote Object graphs are still read, since the machine may already have loaded the code of
+     *     the contract they belong to.
+     * @throws IllegalStateException if the kernel is not for a local call
+     */
+    public void setAbortSignal(AtomicBoolean aborted) {
+        if (!this.isLocalCall) {
+            throw new IllegalStateException("Only local calls can be aborted.");
+        }
+        this.aborted = aborted;
+    }
+
+    private boolean isAborted() {
+        return this.aborted != null && this.aborted.get();
+    }
+
     @Override
     public KernelInterfaceForAVM makeChildKernelInterface() {
-        return new KernelInterfaceForAVM(
-                this.repositoryCache.startTracking(),
-                this.allowNonceIncrement,
-                this.isLocalCall,
-                this.blockDifficulty,
-                this.blockNumber,
-                this.blockTimestamp,
-                this.blockNrgLimit,
-                this.blockCoinbase);
+        KernelInterfaceForAVM child =
+                new KernelInterfaceForAVM(
+                        this.repositoryCache.startTracking(),
+                        this.allowNonceIncrement,
+                        this.isLocalCall,
+                        this.blockDifficulty,
+                        this.blockNumber,
+                        this.blockTimestamp,
+                        this.blockNrgLimit,
+                        this.blockCoinbase);
+        child.aborted = this.aborted;
+        return child;
     }
 
     @Override
@@ -90,6 +116,9 @@ public class KernelInterfaceForAVM implements KernelInterface {
 
     @Override
     public boolean hasAccountState(Address address) {
+        if (isAborted()) {
+            return false;
+        }
         return this.repositoryCache.hasAccountState(address);
     }
 
@@ -101,11 +130,17 @@ public class KernelInterfaceForAVM implements KernelInterface {
 
     @Override
     public byte[] getCode(Address address) {
+        if (isAborted()) {
+            return ByteUtil.EMPTY_BYTE_ARRAY;
+        }
         return this.repositoryCache.getCode(address);
     }
 
     @Override
     public byte[] getTransformedCode(Address address) {
+        if (isAborted()) {
+            return null;
+        }
         return this.repositoryCache.getTransformedCode(address);
     }
 
@@ -143,6 +178,9 @@ public class KernelInterfaceForAVM implements KernelInterface {
 
     @Override
     public byte[] getStorage(Address address, byte[] key) {
+        if (isAborted()) {
+            return null;
+        }
         ByteArrayWrapper storageKey = new ByteArrayWrapper(key);
         ByteArrayWrapper value = this.repositoryCache.getStorageValue(address, storageKey);
         return (value == null) ? null : value.getData();
@@ -157,6 +195,9 @@ public class KernelInterfaceForAVM implements KernelInterface {
 
     @Override
     public BigInteger getBalance(Address address) {
+        if (isAborted()) {
+            return BigInteger.ZERO;
+        }
         return this.repositoryCache.getBalance(address);
     }
 
@@ -0,0 +1,79 @@
+package org.aion.vm;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serializes the runs of one virtual machine between the execution of blocks and read-only calls.
+ *
+ * <p>Block execution has priority: a call only starts running when no block execution is waiting
+ * for the machine. A block execution therefore waits for at most the one call that is already
+ * running, and a call that exceeds its time limit is aborted through its kernel.
+ *
+ * <p>Waiting calls are aborted through the same flag rather than by interrupting them, since an
+ * interrupt that reaches a running machine leaves it busy after the lock is released.
+ */
+final class VmLock {
+
+    /** Interval at which a waiting call checks its abort flag. */
+    private static final long ABORT_CHECK_MILLIS = 10L;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private final AtomicInteger waitingBlocks = new AtomicInteger();
+
+    /** Acquires the machine for the execution of block or pending transactions. */
+    void lock() {
+        waitingBlocks.incrementAndGet();
+        try {
+            lock.lock();
+        } finally {
+            waitingBlocks.decrementAndGet();
+        }
+    }
+
+    /**
+     * Acquires the machine for a read-only call, after all the waiting block executions.
+     *
+     * @param aborted the abort flag of the call, or {@code null} if it cannot be aborted
+     * @return {@code false} if the call was aborted while waiting, in which case the machine is not
+     *     acquired
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    boolean lockForCall(AtomicBoolean aborted) throws InterruptedException {
+        while (!lock.tryLock(ABORT_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (isSet(aborted)) {
+                return false;
+            }
+        }
+        try {
+            while (waitingBlocks.get() > 0) {
+                if (isSet(aborted)) {
+                    lock.unlock();
+                    return false;
+                }
+                released.await(ABORT_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            lock.unlock();
+            throw e;
+        }
+        if (isSet(aborted)) {
+            lock.unlock();
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean isSet(AtomicBoolean aborted) {
+        return aborted != null && aborted.get();
+    }
+
+    void unlock() {
+        released.signalAll();
+        lock.unlock();
+    }
+}